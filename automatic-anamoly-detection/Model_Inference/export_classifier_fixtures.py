@@ -0,0 +1,68 @@
+#!/usr/bin/env python3
+"""
+export_classifier_fixtures.py
+Runs classify_filtered_image on a set of images at several sensitivities and
+writes what it returns as golden fixtures for the backend's Java port
+(FilteredImageClassifierTest compares the two for exact equality).
+
+Usage:
+  python export_classifier_fixtures.py \
+      --outdir ../../transformer-manager-backkend/src/test/resources/classification/golden \
+      --sensitivities 0.5,1.0,1.5,2.0 \
+      <filtered png> [<filtered png> ...]
+
+Use lossless PNGs (the filtered images PatchCore writes, or the PNG samples in
+uploads/): JPEG decoders differ between OpenCV and Java, so a JPEG would test
+the decoder rather than the classifier.
+
+Creates, for every image:
+  outdir/<name>.png   copy of the input
+  outdir/<name>.json  {"image": "<name>.png", "results": [{"sensitivity", "label",
+                       "boxes": [[x, y, w, h], ...], "labels", "confidences"}, ...]}
+"""
+
+import os
+import json
+import shutil
+import argparse
+
+from inference_core_local import _ensure_dir, classify_filtered_image
+
+
+def main():
+    parser = argparse.ArgumentParser(description="Export classify_filtered_image results as test fixtures")
+    parser.add_argument("--outdir", required=True, help="Fixture directory")
+    parser.add_argument("--sensitivities", default="0.5,1.0,1.5,2.0",
+                        help="Comma-separated sensitivities to classify each image at")
+    parser.add_argument("images", nargs="+", help="Images to classify")
+    args = parser.parse_args()
+
+    sensitivities = [float(s) for s in args.sensitivities.split(",") if s.strip()]
+    outdir = _ensure_dir(args.outdir)
+
+    for image_path in args.images:
+        if not image_path.lower().endswith(".png"):
+            print(f"[WARN] {image_path} is not a PNG; Java may decode it differently")
+        name = os.path.splitext(os.path.basename(image_path))[0]
+        image_name = f"{name}.png"
+        shutil.copyfile(image_path, os.path.join(outdir, image_name))
+
+        results = []
+        for sensitivity in sensitivities:
+            label, boxes, labels, confidences, _ = classify_filtered_image(image_path, sensitivity=sensitivity)
+            results.append({
+                "sensitivity": sensitivity,
+                "label": label,
+                "boxes": [[int(v) for v in box] for box in boxes],
+                "labels": list(labels),
+                "confidences": [float(c) for c in confidences],
+            })
+
+        json_path = os.path.join(outdir, f"{name}.json")
+        with open(json_path, "w", encoding="utf-8") as f:
+            json.dump({"image": image_name, "results": results}, f, indent=2)
+        print(f"[OK] {name}: " + ", ".join(f"{r['sensitivity']}={len(r['boxes'])} boxes" for r in results))
+
+
+if __name__ == "__main__":
+    main()
@@ -17,6 +17,7 @@ Creates:
   outputs/boxed/<base>.json   <-- editable: list of boxes with coords/labels/conf
 """
 
+import io
 import os
 import glob
 import json
@@ -24,9 +25,8 @@ import argparse
 import numpy as np
 import cv2
 from PIL import Image
-import torch
-from omegaconf import OmegaConf
-from anomalib.models import Patchcore
+# torch, omegaconf and anomalib are imported where the model is used, so
+# reclassify_local.py can reuse the classification code without loading them
 
 # -------------------------
 # Defaults
@@ -437,6 +437,9 @@ def classify_filtered_image(filtered_img_path: str, sensitivity=1.0, feedback=No
 # PatchCore inference
 # -------------------------
 def load_model(config_path, ckpt_path, device):
+    from omegaconf import OmegaConf
+    from anomalib.models import Patchcore
+
     cfg = OmegaConf.load(config_path)
     model = Patchcore.load_from_checkpoint(ckpt_path, **cfg.model.init_args)
     model.eval()
@@ -444,9 +447,12 @@ def load_model(config_path, ckpt_path, device):
     return model, cfg
 
 def infer_single_image_with_patchcore(model, device, image_path, infer_size=DEFAULT_INFER_SIZE,
-                                      out_mask_dir=None, out_filtered_dir=None):
+                                      out_mask_dir=None, out_filtered_dir=None, image_bytes=None):
+    import torch
+
+    # image_bytes: the encoded file, already in memory; image_path then only names the outputs
     fixed_path = os.path.abspath(os.path.normpath(image_path))
-    orig_img = Image.open(fixed_path).convert("RGB")
+    orig_img = Image.open(io.BytesIO(image_bytes) if image_bytes is not None else fixed_path).convert("RGB")
     orig_w, orig_h = orig_img.size
 
     img_resized = orig_img.resize((infer_size, infer_size))
@@ -510,26 +516,36 @@ def color_for_label(label):
         return (0, 0, 255)    # red box
 
 def run_pipeline_for_image(model, device, image_path, out_boxed_dir, out_mask_dir, out_filtered_dir,
-                           infer_size=DEFAULT_INFER_SIZE, sensitivity=1.0, feedback=None):
+                           infer_size=DEFAULT_INFER_SIZE, sensitivity=1.0, feedback=None, image_bytes=None):
     feedback = feedback or {}
     pc_out = infer_single_image_with_patchcore(
         model, device, image_path, infer_size=infer_size,
-        out_mask_dir=out_mask_dir, out_filtered_dir=out_filtered_dir
+        out_mask_dir=out_mask_dir, out_filtered_dir=out_filtered_dir, image_bytes=image_bytes
     )
-    filtered_path = pc_out["filtered_path"] or pc_out["orig_path"]
-    orig_path = pc_out["orig_path"]
+    return classify_and_save(
+        pc_out["orig_path"], pc_out["filtered_path"], pc_out["mask_path"], out_boxed_dir,
+        sensitivity=sensitivity, feedback=feedback, orig_bytes=image_bytes)
+
+def classify_and_save(orig_path, filtered_path, mask_path, out_boxed_dir, sensitivity=1.0, feedback=None,
+                      base=None, orig_bytes=None):
+    """Classify a filtered image and write the boxed image and JSON next to each other.
+    Needs only the PatchCore outputs, so stored masks can be rescored without the model."""
+    feedback = feedback or {}
 
     # Classify with sensitivity parameter
     label, boxes, labels, confidences, per_box_feedback = classify_filtered_image(
-        filtered_path, sensitivity=sensitivity, feedback=feedback)
+        filtered_path or orig_path, sensitivity=sensitivity, feedback=feedback)
 
     # Draw on original
-    draw_img = cv2.imread(orig_path)
+    if orig_bytes is not None:
+        draw_img = cv2.imdecode(np.frombuffer(orig_bytes, dtype=np.uint8), cv2.IMREAD_COLOR)
+    else:
+        draw_img = cv2.imread(orig_path)
     if draw_img is None:
         raise FileNotFoundError(f"Could not read original image: {orig_path}")
 
     # Prepare outputs
-    base = os.path.splitext(os.path.basename(orig_path))[0]
+    base = base or os.path.splitext(os.path.basename(orig_path))[0]
     ext = os.path.splitext(os.path.basename(orig_path))[1] or ".png"
     out_boxed_path = os.path.join(out_boxed_dir, f"{base}_boxed{ext}")
     out_json_path = os.path.join(out_boxed_dir, f"{base}.json")
@@ -567,8 +583,8 @@ def run_pipeline_for_image(model, device, image_path, out_boxed_dir, out_mask_di
     json_obj = {
         "image": os.path.abspath(orig_path),
         "boxed_image": os.path.abspath(out_boxed_path),
-        "mask_image": os.path.abspath(pc_out["mask_path"]) if pc_out["mask_path"] else None,
-        "filtered_image": os.path.abspath(pc_out["filtered_path"]) if pc_out["filtered_path"] else None,
+        "mask_image": os.path.abspath(mask_path) if mask_path else None,
+        "filtered_image": os.path.abspath(filtered_path) if filtered_path else None,
         "label": label,
         "boxes": [
             {"box": [int(x), int(y), int(w), int(h)], "type": l, "confidence": float(conf)}
@@ -601,6 +617,8 @@ def main():
     parser.add_argument("--cpu",    action="store_true", help="Force CPU")
     args = parser.parse_args()
 
+    import torch
+
     # Validate sensitivity range
     if not 0.1 <= args.sensitivity <= 2.0:
         print(f"[WARN] Sensitivity {args.sensitivity} outside recommended range [0.1, 2.0]. Clamping.")
@@ -0,0 +1,156 @@
+#!/usr/bin/env python3
+"""
+inference_worker.py
+Long-lived PatchCore inference worker. Loads the model once and then serves
+line-delimited JSON requests on stdin, writing one JSON response per line to
+stdout. All human-readable logging goes to stderr so stdout stays a clean
+protocol channel.
+
+Usage:
+  python inference_worker.py \
+      --config config/patchcore_transformers.yaml \
+      --ckpt model_weights/model.ckpt
+
+Protocol (one JSON object per line):
+  -> {"id": "1", "op": "infer", "input": "<file or folder>", "outdir": "<dir>",
+      "sensitivity": 1.0, "feedback": "<feedback json path>", "size": 256,
+      "shm": {"path": "/dev/shm/<region>", "images": [{"image", "offset", "length"}]}}
+     "shm" is optional: when present the encoded images are read from that
+     memory-mapped file at the given offsets instead of from "input", and
+     "image" only names the outputs.
+  <- {"id": "1", "ok": true, "results": [{"image", "label", "json_path", "boxed_path"}],
+      "errors": [{"image", "error"}]}
+
+  -> {"id": "2", "op": "ping"}
+  <- {"id": "2", "ok": true, "op": "pong", "requests_served": 12}
+
+  -> {"id": "3", "op": "shutdown"}
+  <- {"id": "3", "ok": true, "op": "shutdown"}
+
+On start-up the worker emits {"event": "ready", ...} once the model is loaded.
+"""
+
+import sys
+import json
+import mmap
+import argparse
+import traceback
+
+# Keep a handle on the real stdout for protocol messages and send every
+# print() from the inference code to stderr instead.
+PROTOCOL_OUT = sys.stdout
+sys.stdout = sys.stderr
+
+import torch
+
+from inference_core_local import (
+    DEFAULT_CONFIG,
+    DEFAULT_CKPT,
+    DEFAULT_INFER_SIZE,
+    _ensure_dir,
+    collect_images,
+    load_feedback_adjustments,
+    load_model,
+    run_pipeline_for_image,
+)
+
+
+def send(message):
+    PROTOCOL_OUT.write(json.dumps(message) + "\n")
+    PROTOCOL_OUT.flush()
+
+
+def shared_images(shm):
+    """(image path, encoded bytes) for every image placed in the shared region"""
+    with open(shm["path"], "rb") as region_file, \
+            mmap.mmap(region_file.fileno(), 0, access=mmap.ACCESS_READ) as region:
+        # Slicing copies out of the mapping, which can then be closed straight away
+        return [(entry["image"], region[entry["offset"]:entry["offset"] + entry["length"]])
+                for entry in shm["images"]]
+
+
+def handle_infer(model, device, request, default_size):
+    sensitivity = float(request.get("sensitivity", 1.0) or 1.0)
+    sensitivity = max(0.1, min(2.0, sensitivity))
+    infer_size = int(request.get("size") or default_size)
+    feedback = load_feedback_adjustments(request.get("feedback") or "")
+
+    out_base = _ensure_dir(request["outdir"])
+    out_mask_dir = _ensure_dir(f"{out_base}/masks")
+    out_filtered_dir = _ensure_dir(f"{out_base}/filtered")
+    out_boxed_dir = _ensure_dir(f"{out_base}/boxed")
+
+    if request.get("shm"):
+        images = shared_images(request["shm"])
+    else:
+        images = [(img_path, None) for img_path in collect_images(request["input"])]
+
+    results, errors = [], []
+    for img_path, image_bytes in images:
+        print(f"[RUN] {img_path}")
+        try:
+            result = run_pipeline_for_image(
+                model, device, img_path,
+                out_boxed_dir=out_boxed_dir,
+                out_mask_dir=out_mask_dir,
+                out_filtered_dir=out_filtered_dir,
+                infer_size=infer_size,
+                sensitivity=sensitivity,
+                feedback=feedback,
+                image_bytes=image_bytes,
+            )
+            print(f"  -> JSON : {result['json_path']}")
+            results.append({
+                "image": img_path,
+                "label": result["label"],
+                "json_path": result["json_path"],
+                "boxed_path": result["boxed_path"],
+            })
+        except Exception as exc:
+            print(f"[ERROR] {img_path}: {exc}")
+            errors.append({"image": img_path, "error": str(exc)})
+    return {"results": results, "errors": errors}
+
+
+def main():
+    parser = argparse.ArgumentParser(description="Resident PatchCore inference worker")
+    parser.add_argument("--config", default=DEFAULT_CONFIG, help="Path to PatchCore YAML config")
+    parser.add_argument("--ckpt",   default=DEFAULT_CKPT,   help="Path to PatchCore checkpoint .ckpt")
+    parser.add_argument("--size",   type=int, default=DEFAULT_INFER_SIZE, help="Default inference resize")
+    parser.add_argument("--cpu",    action="store_true", help="Force CPU")
+    args = parser.parse_args()
+
+    device = torch.device("cpu" if args.cpu or not torch.cuda.is_available() else "cuda")
+    print(f"[INFO] Using device: {device}")
+    model, _cfg = load_model(args.config, args.ckpt, device)
+    print("[INFO] Model loaded.")
+    send({"event": "ready", "device": str(device)})
+
+    served = 0
+    for line in sys.stdin:
+        line = line.strip()
+        if not line:
+            continue
+        request_id = None
+        try:
+            request = json.loads(line)
+            request_id = request.get("id")
+            op = request.get("op", "infer")
+            if op == "ping":
+                send({"id": request_id, "ok": True, "op": "pong", "requests_served": served})
+            elif op == "shutdown":
+                send({"id": request_id, "ok": True, "op": "shutdown"})
+                break
+            elif op == "infer":
+                response = handle_infer(model, device, request, args.size)
+                served += 1
+                send({"id": request_id, "ok": True, **response})
+            else:
+                send({"id": request_id, "ok": False, "error": f"Unknown op: {op}"})
+        except Exception as exc:
+            traceback.print_exc()
+            send({"id": request_id, "ok": False, "error": str(exc)})
+
+
+if __name__ == "__main__":
+    main()
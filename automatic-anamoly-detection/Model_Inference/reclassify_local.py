@@ -0,0 +1,65 @@
+#!/usr/bin/env python3
+"""
+reclassify_local.py
+Re-runs only the classification stage on PatchCore outputs kept from an earlier
+run, e.g. after the detection sensitivity or feedback learning rate changed.
+The model is never loaded.
+
+Usage:
+  python reclassify_local.py \
+      --manifest manifest.json \
+      --outdir outputs \
+      --sensitivity 1.0
+
+manifest.json is a list of
+  {"name": "<base>", "image": "<original>", "filtered": "<filtered png>", "mask": "<mask png>"}
+
+Creates:
+  outputs/boxed/<name>_boxed.<ext>
+  outputs/boxed/<name>.json
+"""
+
+import os
+import json
+import argparse
+
+from inference_core_local import _ensure_dir, classify_and_save, load_feedback_adjustments
+
+
+def main():
+    parser = argparse.ArgumentParser(description="Rescore stored PatchCore outputs without the model")
+    parser.add_argument("--manifest", required=True, help="JSON list of images and their stored outputs")
+    parser.add_argument("--outdir", required=True, help="Output base directory")
+    parser.add_argument("--sensitivity", type=float, default=1.0, help="Detection sensitivity (0.1-2.0)")
+    parser.add_argument("--feedback", default="", help="Path to feedback adjustments JSON generated by backend")
+    args = parser.parse_args()
+
+    if not 0.1 <= args.sensitivity <= 2.0:
+        print(f"[WARN] Sensitivity {args.sensitivity} outside recommended range [0.1, 2.0]. Clamping.")
+        args.sensitivity = max(0.1, min(2.0, args.sensitivity))
+
+    with open(args.manifest, "r", encoding="utf-8") as f:
+        items = json.load(f)
+
+    feedback_data = load_feedback_adjustments(args.feedback)
+    if feedback_data.get("error"):
+        print(f"[WARN] Feedback adjustments will be skipped due to error: {feedback_data['error']}")
+
+    out_boxed_dir = _ensure_dir(os.path.join(args.outdir, "boxed"))
+
+    for item in items:
+        name = item["name"]
+        print(f"[RUN] {name}")
+        try:
+            result = classify_and_save(
+                item["image"], item.get("filtered"), item.get("mask"), out_boxed_dir,
+                sensitivity=args.sensitivity, feedback=feedback_data, base=name)
+        except Exception as e:  # one unreadable artifact fails only its own job
+            print(f"[ERROR] {name}: {e}")
+            continue
+        print(f"  -> Label: {result['label']}")
+        print(f"  -> JSON : {result['json_path']}")
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,63 @@
+#!/usr/bin/env bash
+# Runs reclassify_local.py using an EXISTING local venv (Linux/WSL).
+# Only the classification stage runs, so this needs OpenCV but not the model.
+#
+# Usage (inside WSL):
+#   ./run_reclassify.sh --manifest <json> --outdir <dir> [--sensitivity <float>] [--feedback <json>] [--venv <path>]
+#   ENV: VENV=.venv (override virtualenv path; must already exist)
+
+set -euo pipefail
+cd "$(dirname "$0")"
+
+MANIFEST=""
+OUTDIR="outputs"
+SENSITIVITY=1.0
+FEEDBACK=""
+CLI_VENV=""
+
+# Parse args
+while [[ $# -gt 0 ]]; do
+  case "$1" in
+    --manifest) MANIFEST="$2"; shift 2;;
+    --outdir) OUTDIR="$2"; shift 2;;
+    --sensitivity) SENSITIVITY="$2"; shift 2;;
+    --feedback) FEEDBACK="$2"; shift 2;;
+    --venv) CLI_VENV="$2"; shift 2;;
+    *) echo "Unknown arg: $1" >&2; exit 1;;
+  esac
+done
+
+if [[ -z "$MANIFEST" ]]; then
+  echo "[ERROR] --manifest is required." >&2
+  exit 1
+fi
+
+# Resolve venv path
+if [[ -n "$CLI_VENV" ]]; then
+  VENV_PATH="$CLI_VENV"
+elif [[ -n "${VENV:-}" ]]; then
+  VENV_PATH="$VENV"
+else
+  VENV_PATH=".venv"
+fi
+
+# Try parent .venv if local not found
+if [[ ! -d "$VENV_PATH" ]] && [[ -d "../.venv" ]]; then
+  VENV_PATH="../.venv"
+fi
+
+if [[ ! -d "$VENV_PATH" ]]; then
+  echo "[ERROR] Virtual environment not found: '$VENV_PATH' (and '../.venv')." >&2
+  exit 1
+fi
+
+# shellcheck disable=SC1090
+source "$VENV_PATH/bin/activate"
+
+echo "[INFO] Using venv: $VENV_PATH"
+echo "[INFO] Detection sensitivity: $SENSITIVITY"
+exec python -u reclassify_local.py \
+  --manifest "$MANIFEST" \
+  --outdir "$OUTDIR" \
+  --sensitivity "$SENSITIVITY" \
+  --feedback "$FEEDBACK"
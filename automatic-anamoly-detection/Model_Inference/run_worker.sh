@@ -0,0 +1,60 @@
+#!/usr/bin/env bash
+# Starts the resident inference_worker.py using an EXISTING local venv (Linux/WSL).
+# The backend launches this once per warm worker and talks to it over stdin/stdout.
+#
+# Usage (inside WSL):
+#   ./run_worker.sh [--config <yaml>] [--ckpt <ckpt>] [--size N] [--cpu] [--venv <path>]
+#   ENV: VENV=.venv (override virtualenv path; must already exist)
+
+set -euo pipefail
+cd "$(dirname "$0")"
+
+# Defaults
+CONFIG="config/patchcore_transformers.yaml"
+CKPT="model_weights/model.ckpt"
+SIZE=256
+CPU=""
+CLI_VENV=""
+
+# Parse args
+while [[ $# -gt 0 ]]; do
+  case "$1" in
+    --config) CONFIG="$2"; shift 2;;
+    --ckpt) CKPT="$2"; shift 2;;
+    --size) SIZE="$2"; shift 2;;
+    --cpu) CPU="--cpu"; shift;;
+    --venv) CLI_VENV="$2"; shift 2;;
+    *) echo "Unknown arg: $1" >&2; exit 1;;
+  esac
+done
+
+# Resolve venv path
+if [[ -n "$CLI_VENV" ]]; then
+  VENV_PATH="$CLI_VENV"
+elif [[ -n "${VENV:-}" ]]; then
+  VENV_PATH="$VENV"
+else
+  VENV_PATH=".venv"
+fi
+
+# Try parent .venv if local not found
+if [[ ! -d "$VENV_PATH" ]] && [[ -d "../.venv" ]]; then
+  VENV_PATH="../.venv"
+fi
+
+if [[ ! -d "$VENV_PATH" ]]; then
+  echo "[ERROR] Virtual environment not found: '$VENV_PATH' (and '../.venv')." >&2
+  exit 1
+fi
+
+# shellcheck disable=SC1090
+source "$VENV_PATH/bin/activate"
+
+# stdout is the request/response channel, so all status output goes to stderr
+echo "[INFO] Using venv: $VENV_PATH" >&2
+echo "[INFO] Starting inference_worker.py" >&2
+exec python -u inference_worker.py \
+  --config "$CONFIG" \
+  --ckpt   "$CKPT" \
+  --size   "$SIZE" \
+  $CPU
@@ -0,0 +1,31 @@
+package com.example.transformer_manager_backkend.config;
+
+import com.example.transformer_manager_backkend.service.classification.ColorMasks;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Picks the kernel the in-JVM classifier computes its colour masks with. The
+ * Vector API kernel needs the JVM started with
+ * --add-modules jdk.incubator.vector; without it the scalar kernel is used.
+ */
+@Configuration
+public class ClassificationConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClassificationConfig.class);
+
+    @Value("${app.anomaly.classifier.simd:true}")
+    private boolean simdEnabled;
+
+    @PostConstruct
+    public void selectColorMaskKernel() {
+        if (!ColorMasks.useVectorKernel(simdEnabled)) {
+            logger.warn("SIMD colour masks requested but jdk.incubator.vector is not available "
+                    + "(start the JVM with --add-modules jdk.incubator.vector); using the scalar kernel");
+        }
+        logger.info("Colour masks use the {} kernel", ColorMasks.kernelName());
+    }
+}
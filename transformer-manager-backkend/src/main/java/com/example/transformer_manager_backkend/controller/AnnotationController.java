@@ -13,9 +13,11 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.nio.charset.StandardCharsets;
@@ -85,6 +87,26 @@ public class AnnotationController {
         }
     }
 
+    /**
+     * Clean up edited boxes with the classifier's NMS, filters and merging,
+     * without saving them
+     */
+    @PostMapping("/post-process")
+    @PermitAll
+    public ResponseEntity<?> postProcessBoxes(
+            @RequestBody UpdateAnnotationRequest request,
+            @RequestParam(value = "sensitivity", required = false) Double sensitivity) {
+        try {
+            return ResponseEntity.ok(annotationService.postProcessBoxes(
+                    request != null ? request.getBoxes() : null, sensitivity));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(
+                    java.util.Map.of(
+                            "message", "Failed to post-process boxes",
+                            "error", e.getMessage()));
+        }
+    }
+
     /**
      * Get annotation by ID
      */
@@ -4,11 +4,16 @@ import com.example.transformer_manager_backkend.entity.AnalysisJob;
 import com.example.transformer_manager_backkend.entity.Image;
 import com.example.transformer_manager_backkend.repository.ImageRepository;
 import com.example.transformer_manager_backkend.service.AnomalyAnalysisService;
+import com.example.transformer_manager_backkend.service.ReclassificationService;
+import com.example.transformer_manager_backkend.service.inference.WarmInferenceWorkerPool;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.security.Principal;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -18,19 +23,25 @@ public class AnomalyAnalysisController {
 
     private final AnomalyAnalysisService anomalyAnalysisService;
     private final ImageRepository imageRepository;
+    private final WarmInferenceWorkerPool warmWorkerPool;
+    private final ReclassificationService reclassificationService;
 
     public AnomalyAnalysisController(AnomalyAnalysisService anomalyAnalysisService,
-            ImageRepository imageRepository) {
+            ImageRepository imageRepository, WarmInferenceWorkerPool warmWorkerPool,
+            ReclassificationService reclassificationService) {
         this.anomalyAnalysisService = anomalyAnalysisService;
         this.imageRepository = imageRepository;
+        this.warmWorkerPool = warmWorkerPool;
+        this.reclassificationService = reclassificationService;
     }
 
     /**
-     * Queue an image for anomaly analysis
+     * Queue an image for anomaly analysis. Requests made here are someone
+     * waiting on the result, so they are scheduled as interactive work.
      */
     @PostMapping("/queue/{imageId}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
-    public ResponseEntity<AnalysisJob> queueImageForAnalysis(@PathVariable Long imageId) {
+    public ResponseEntity<AnalysisJob> queueImageForAnalysis(@PathVariable Long imageId, Principal principal) {
         Optional<Image> imageOpt = imageRepository.findById(imageId);
         if (imageOpt.isEmpty()) {
             return ResponseEntity.notFound().build();
@@ -43,8 +54,9 @@ public class AnomalyAnalysisController {
             return ResponseEntity.badRequest().build();
         }
 
-        AnalysisJob job = anomalyAnalysisService.queueImageForAnalysis(image);
-        return ResponseEntity.ok(job);
+        AnalysisJob job = anomalyAnalysisService.queueImageForAnalysis(image,
+                AnalysisJob.AnalysisPriority.INTERACTIVE, principal != null ? principal.getName() : null);
+        return ResponseEntity.ok(anomalyAnalysisService.withQueuePosition(job));
     }
 
     /**
@@ -86,6 +98,33 @@ public class AnomalyAnalysisController {
         return ResponseEntity.ok(status);
     }
 
+    /**
+     * Get per-worker status of the analysis pool
+     */
+    @GetMapping("/workers")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    public ResponseEntity<List<AnomalyAnalysisService.WorkerStatus>> getWorkerStatuses() {
+        return ResponseEntity.ok(anomalyAnalysisService.getWorkerStatuses());
+    }
+
+    /**
+     * Get queue depth and timings of each analysis pipeline stage
+     */
+    @GetMapping("/pipeline")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    public ResponseEntity<List<AnomalyAnalysisService.PipelineStageStatus>> getPipelineStatus() {
+        return ResponseEntity.ok(anomalyAnalysisService.getPipelineStatus());
+    }
+
+    /**
+     * Get health and usage of the resident inference processes
+     */
+    @GetMapping("/inference-workers")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    public ResponseEntity<List<WarmInferenceWorkerPool.WarmWorkerStatus>> getInferenceWorkerStatuses() {
+        return ResponseEntity.ok(warmWorkerPool.getStatuses());
+    }
+
     /**
      * Get analysis job details
      */
@@ -99,4 +138,117 @@ public class AnomalyAnalysisController {
 
         return ResponseEntity.ok(jobOpt.get());
     }
-}
\ No newline at end of file
+
+    /**
+     * Change the priority of a queued analysis job
+     */
+    @PutMapping("/job/{jobId}/priority")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    public ResponseEntity<?> reprioritizeJob(@PathVariable Long jobId,
+            @RequestParam("priority") AnalysisJob.AnalysisPriority priority) {
+        try {
+            Optional<AnalysisJob> jobOpt = anomalyAnalysisService.reprioritize(jobId, priority);
+            return jobOpt.<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(
+                    Map.of(
+                            "message", "Failed to change priority",
+                            "error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Run PatchCore on an image the upload pre-screen already completed as
+     * Normal. Someone asked for it, so it is queued as interactive work.
+     */
+    @PostMapping("/job/{jobId}/full-analysis")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    public ResponseEntity<?> requestFullAnalysis(@PathVariable Long jobId) {
+        try {
+            Optional<AnalysisJob> jobOpt = anomalyAnalysisService.requestFullAnalysis(jobId,
+                    AnalysisJob.AnalysisPriority.INTERACTIVE);
+            return jobOpt.<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(
+                    Map.of(
+                            "message", "Failed to request full analysis",
+                            "error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Rescore a completed job with the current sensitivity and feedback using
+     * its stored analysis artifacts, without running the model
+     */
+    @PostMapping("/job/{jobId}/reclassify")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    public ResponseEntity<?> reclassifyJob(@PathVariable Long jobId) {
+        try {
+            Optional<AnalysisJob> jobOpt = reclassificationService.reclassifyJob(jobId);
+            return jobOpt.<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(
+                    Map.of(
+                            "message", "Failed to reclassify analysis job",
+                            "error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.internalServerError().body(
+                    Map.of(
+                            "message", "Failed to reclassify analysis job",
+                            "error", e.getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(503).build();
+        }
+    }
+
+    /**
+     * Classify a completed job's stored artifacts at another sensitivity
+     * without saving anything
+     */
+    @GetMapping("/job/{jobId}/preview")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    public ResponseEntity<?> previewJob(@PathVariable Long jobId,
+            @RequestParam(value = "sensitivity", required = false) Double sensitivity) {
+        try {
+            return reclassificationService.previewJob(jobId, sensitivity)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(
+                    Map.of(
+                            "message", "Failed to preview analysis job",
+                            "error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.internalServerError().body(
+                    Map.of(
+                            "message", "Failed to preview analysis job",
+                            "error", e.getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(503).build();
+        }
+    }
+
+    /**
+     * Rescore every completed, unannotated job of an inspection
+     */
+    @PostMapping("/inspection/{inspectionId}/reclassify")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    public ResponseEntity<?> reclassifyInspection(@PathVariable Long inspectionId) {
+        try {
+            return ResponseEntity.ok(reclassificationService.reclassifyInspection(inspectionId));
+        } catch (IOException e) {
+            return ResponseEntity.internalServerError().body(
+                    Map.of(
+                            "message", "Failed to reclassify inspection",
+                            "error", e.getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(503).build();
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.transformer_manager_backkend.controller;
 
 import com.example.transformer_manager_backkend.entity.MLSettings;
+import com.example.transformer_manager_backkend.service.FeedbackAggregator;
+import com.example.transformer_manager_backkend.service.InferenceCascade;
 import com.example.transformer_manager_backkend.service.MLSettingsService;
 import com.example.transformer_manager_backkend.service.ModelFeedbackService;
 import org.springframework.http.ResponseEntity;
@@ -19,10 +21,13 @@ public class MLSettingsController {
 
     private final MLSettingsService mlSettingsService;
     private final ModelFeedbackService modelFeedbackService;
+    private final FeedbackAggregator feedbackAggregator;
 
-    public MLSettingsController(MLSettingsService mlSettingsService, ModelFeedbackService modelFeedbackService) {
+    public MLSettingsController(MLSettingsService mlSettingsService, ModelFeedbackService modelFeedbackService,
+            FeedbackAggregator feedbackAggregator) {
         this.mlSettingsService = mlSettingsService;
         this.modelFeedbackService = modelFeedbackService;
+        this.feedbackAggregator = feedbackAggregator;
     }
 
     /**
@@ -81,6 +86,32 @@ public class MLSettingsController {
         return ResponseEntity.ok(new FeedbackRateResponse(updatedRate));
     }
 
+    /**
+     * Get the two-resolution inference cascade settings
+     */
+    @GetMapping("/cascade")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    public ResponseEntity<CascadeSettingsDTO> getCascadeSettings() {
+        return ResponseEntity.ok(CascadeSettingsDTO.from(mlSettingsService.getCascadeSettings()));
+    }
+
+    /**
+     * Update the inference cascade settings (admin only)
+     */
+    @PutMapping("/cascade")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CascadeSettingsDTO> setCascadeSettings(@RequestBody CascadeSettingsDTO request) {
+        if (request == null || request.getFirstPassSize() < 64 || request.getFirstPassSize() > 256
+                || request.getScoreThreshold() < 0.0 || request.getScoreThreshold() > 1.0
+                || request.getBoxThreshold() < 0 || request.getBoxThreshold() > 50) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        mlSettingsService.setCascadeSettings(request.isEnabled(), request.getFirstPassSize(),
+                request.getScoreThreshold(), request.getBoxThreshold());
+        return ResponseEntity.ok(CascadeSettingsDTO.from(mlSettingsService.getCascadeSettings()));
+    }
+
     /**
      * Summarize feedback adjustments currently being applied
      */
@@ -121,6 +152,28 @@ public class MLSettingsController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Recompute the feedback totals from the whole annotation history in the
+     * background (admin only); 409 if a rebuild is already running
+     */
+    @PostMapping("/feedback-aggregates/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<FeedbackRebuildResponse> rebuildFeedbackAggregates() {
+        boolean started = feedbackAggregator.startRebuild();
+        FeedbackRebuildResponse response = FeedbackRebuildResponse.from(feedbackAggregator.getRebuildStatus());
+        return started ? ResponseEntity.accepted().body(response) : ResponseEntity.status(409).body(response);
+    }
+
+    /**
+     * Progress of the running feedback totals rebuild, or the outcome of the
+     * last one (admin only)
+     */
+    @GetMapping("/feedback-aggregates/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<FeedbackRebuildResponse> getFeedbackAggregatesRebuild() {
+        return ResponseEntity.ok(FeedbackRebuildResponse.from(feedbackAggregator.getRebuildStatus()));
+    }
+
     /**
      * Get all ML settings
      */
@@ -255,6 +308,54 @@ public class MLSettingsController {
         }
     }
 
+    public static class CascadeSettingsDTO {
+        private boolean enabled;
+        private int firstPassSize;
+        private double scoreThreshold;
+        private int boxThreshold;
+
+        public static CascadeSettingsDTO from(InferenceCascade cascade) {
+            CascadeSettingsDTO dto = new CascadeSettingsDTO();
+            dto.enabled = cascade.isEnabled();
+            dto.firstPassSize = cascade.getFirstPassSize();
+            dto.scoreThreshold = cascade.getScoreThreshold();
+            dto.boxThreshold = cascade.getBoxThreshold();
+            return dto;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getFirstPassSize() {
+            return firstPassSize;
+        }
+
+        public void setFirstPassSize(int firstPassSize) {
+            this.firstPassSize = firstPassSize;
+        }
+
+        public double getScoreThreshold() {
+            return scoreThreshold;
+        }
+
+        public void setScoreThreshold(double scoreThreshold) {
+            this.scoreThreshold = scoreThreshold;
+        }
+
+        public int getBoxThreshold() {
+            return boxThreshold;
+        }
+
+        public void setBoxThreshold(int boxThreshold) {
+            this.boxThreshold = boxThreshold;
+        }
+    }
+
     public static class FeedbackSummaryResponse {
         private double learningRate;
         private double globalAdjustment;
@@ -295,6 +396,72 @@ public class MLSettingsController {
         }
     }
 
+    public static class FeedbackRebuildResponse {
+        private String state;
+        private long totalAnnotations;
+        private long scannedAnnotations;
+        private long contributingAnnotations;
+        private int labels;
+        private double percentComplete;
+        private String startedAt;
+        private String finishedAt;
+        private String error;
+
+        public static FeedbackRebuildResponse from(FeedbackAggregator.RebuildStatus status) {
+            FeedbackRebuildResponse response = new FeedbackRebuildResponse();
+            response.state = status.getState().name();
+            response.totalAnnotations = status.getTotalAnnotations();
+            response.scannedAnnotations = status.getScannedAnnotations();
+            response.contributingAnnotations = status.getContributingAnnotations();
+            response.labels = status.getLabels();
+            if (status.getState() == FeedbackAggregator.RebuildStatus.State.COMPLETED) {
+                response.percentComplete = 100.0;
+            } else if (status.getTotalAnnotations() > 0) {
+                response.percentComplete = 100.0 * status.getScannedAnnotations() / status.getTotalAnnotations();
+            }
+            response.startedAt = status.getStartedAt() != null ? status.getStartedAt().toString() : null;
+            response.finishedAt = status.getFinishedAt() != null ? status.getFinishedAt().toString() : null;
+            response.error = status.getError();
+            return response;
+        }
+
+        public String getState() {
+            return state;
+        }
+
+        public long getTotalAnnotations() {
+            return totalAnnotations;
+        }
+
+        public long getScannedAnnotations() {
+            return scannedAnnotations;
+        }
+
+        public long getContributingAnnotations() {
+            return contributingAnnotations;
+        }
+
+        public int getLabels() {
+            return labels;
+        }
+
+        public double getPercentComplete() {
+            return percentComplete;
+        }
+
+        public String getStartedAt() {
+            return startedAt;
+        }
+
+        public String getFinishedAt() {
+            return finishedAt;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+
     public static class LabelFeedbackDTO {
         private String label;
         private double avgCountDelta;
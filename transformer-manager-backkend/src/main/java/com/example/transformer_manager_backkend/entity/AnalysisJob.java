@@ -7,7 +7,9 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "analysis_jobs")
+@Table(name = "analysis_jobs", indexes = {
+        @Index(name = "idx_analysis_jobs_status_created", columnList = "status, created_at, id")
+})
 public class AnalysisJob {
 
     @Id
@@ -22,6 +24,17 @@ public class AnalysisJob {
     @Column(nullable = false)
     private AnalysisStatus status = AnalysisStatus.QUEUED;
 
+    @Enumerated(EnumType.STRING)
+    @Column
+    private AnalysisPriority priority = AnalysisPriority.NORMAL;
+
+    // Username that submitted the job; with inspectionId it forms the fair-queueing flow
+    @Column
+    private String submittedBy;
+
+    @Column
+    private Long inspectionId;
+
     @Column(columnDefinition = "TEXT")
     private String resultJson;
 
@@ -31,9 +44,17 @@ public class AnalysisJob {
     @Column(columnDefinition = "TEXT")
     private String errorMessage;
 
-    @Column
+    // Derived from the fair scheduling order when read; never stored
+    @Transient
     private Integer queuePosition;
 
+    // Live progress of a running job, known only to the node running it; never stored
+    @Transient
+    private AnalysisStage stage;
+
+    @Transient
+    private Integer progress;
+
     @CreationTimestamp
     @Column(updatable = false)
     private LocalDateTime createdAt;
@@ -47,6 +68,55 @@ public class AnalysisJob {
     @Column
     private LocalDateTime completedAt;
 
+    // Worker holding this job while PROCESSING; the lease is renewed by heartbeat
+    @Column
+    private String leaseOwner;
+
+    @Column
+    private LocalDateTime leaseExpiresAt;
+
+    // Backend instance (app.anomaly.node-id) that last claimed the job
+    @Column
+    private String claimedByNode;
+
+    // Number of times the job has been claimed
+    @Column
+    private Integer attempts = 0;
+
+    // Job whose inference result was reused because the image content matched
+    @Column
+    private Long reusedFromJobId;
+
+    // Upload the result was computed from; image.filePath points at the boxed image afterwards
+    @Column
+    private String sourceImagePath;
+
+    // PatchCore outputs kept so the job can be reclassified without the model
+    @Column
+    private String filteredImagePath;
+
+    @Column
+    private String maskImagePath;
+
+    @Column
+    private LocalDateTime reclassifiedAt;
+
+    // Completed as Normal by the upload pre-screen, without running PatchCore
+    @Column
+    private Boolean preScreened = false;
+
+    // Inference pass that produced the result, and the PatchCore input size it used (null = script default)
+    @Enumerated(EnumType.STRING)
+    @Column
+    private InferencePass inferencePass;
+
+    @Column
+    private Integer inferenceSize;
+
+    // Version of the feedback payload the result was produced with (null = none, e.g. pre-screened)
+    @Column(length = 64)
+    private String feedbackVersion;
+
     // Constructors
     public AnalysisJob() {
     }
@@ -87,6 +157,30 @@ public class AnalysisJob {
         }
     }
 
+    public AnalysisPriority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(AnalysisPriority priority) {
+        this.priority = priority;
+    }
+
+    public String getSubmittedBy() {
+        return submittedBy;
+    }
+
+    public void setSubmittedBy(String submittedBy) {
+        this.submittedBy = submittedBy;
+    }
+
+    public Long getInspectionId() {
+        return inspectionId;
+    }
+
+    public void setInspectionId(Long inspectionId) {
+        this.inspectionId = inspectionId;
+    }
+
     public String getResultJson() {
         return resultJson;
     }
@@ -119,6 +213,22 @@ public class AnalysisJob {
         this.queuePosition = queuePosition;
     }
 
+    public AnalysisStage getStage() {
+        return stage;
+    }
+
+    public void setStage(AnalysisStage stage) {
+        this.stage = stage;
+    }
+
+    public Integer getProgress() {
+        return progress;
+    }
+
+    public void setProgress(Integer progress) {
+        this.progress = progress;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -151,10 +261,174 @@ public class AnalysisJob {
         this.completedAt = completedAt;
     }
 
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+
+    public void setLeaseOwner(String leaseOwner) {
+        this.leaseOwner = leaseOwner;
+    }
+
+    public LocalDateTime getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public void setLeaseExpiresAt(LocalDateTime leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    public String getClaimedByNode() {
+        return claimedByNode;
+    }
+
+    public void setClaimedByNode(String claimedByNode) {
+        this.claimedByNode = claimedByNode;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    public Long getReusedFromJobId() {
+        return reusedFromJobId;
+    }
+
+    public void setReusedFromJobId(Long reusedFromJobId) {
+        this.reusedFromJobId = reusedFromJobId;
+    }
+
+    public String getSourceImagePath() {
+        return sourceImagePath;
+    }
+
+    public void setSourceImagePath(String sourceImagePath) {
+        this.sourceImagePath = sourceImagePath;
+    }
+
+    public String getFilteredImagePath() {
+        return filteredImagePath;
+    }
+
+    public void setFilteredImagePath(String filteredImagePath) {
+        this.filteredImagePath = filteredImagePath;
+    }
+
+    public String getMaskImagePath() {
+        return maskImagePath;
+    }
+
+    public void setMaskImagePath(String maskImagePath) {
+        this.maskImagePath = maskImagePath;
+    }
+
+    public LocalDateTime getReclassifiedAt() {
+        return reclassifiedAt;
+    }
+
+    public void setReclassifiedAt(LocalDateTime reclassifiedAt) {
+        this.reclassifiedAt = reclassifiedAt;
+    }
+
+    public Boolean getPreScreened() {
+        return preScreened;
+    }
+
+    public void setPreScreened(Boolean preScreened) {
+        this.preScreened = preScreened;
+    }
+
+    public InferencePass getInferencePass() {
+        return inferencePass;
+    }
+
+    public void setInferencePass(InferencePass inferencePass) {
+        this.inferencePass = inferencePass;
+    }
+
+    public Integer getInferenceSize() {
+        return inferenceSize;
+    }
+
+    public void setInferenceSize(Integer inferenceSize) {
+        this.inferenceSize = inferenceSize;
+    }
+
+    public String getFeedbackVersion() {
+        return feedbackVersion;
+    }
+
+    public void setFeedbackVersion(String feedbackVersion) {
+        this.feedbackVersion = feedbackVersion;
+    }
+
     public enum AnalysisStatus {
         QUEUED,
         PROCESSING,
         COMPLETED,
         FAILED
     }
-}
\ No newline at end of file
+
+    /**
+     * Scheduling class; a higher weight gets a larger share of the workers.
+     * AnalysisJobRepository.FAIR_QUEUE is given each class's virtual cost.
+     */
+    public enum AnalysisPriority {
+        INTERACTIVE(8),
+        NORMAL(2),
+        BULK(1);
+
+        private final int weight;
+
+        AnalysisPriority(int weight) {
+            this.weight = weight;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        /**
+         * Virtual time a job of this class adds to its flow in the fair queue
+         */
+        public double getVirtualCost() {
+            return 1.0 / weight;
+        }
+    }
+
+    /**
+     * Which PatchCore run a result comes from: the only one, or the first
+     * (small) or second (full size) pass of the inference cascade
+     */
+    public enum InferencePass {
+        SINGLE,
+        CASCADE_FIRST,
+        CASCADE_FULL
+    }
+
+    /**
+     * Where a PROCESSING job is in its inference run, with the rough share of
+     * the work done at that point (percent)
+     */
+    public enum AnalysisStage {
+        STAGING(5),
+        STAGED(10),
+        LOADING_MODEL(15),
+        WAITING_IN_BATCH(30),
+        INFERRING(50),
+        SAVING_RESULTS(90);
+
+        private final int progress;
+
+        AnalysisStage(int progress) {
+            this.progress = progress;
+        }
+
+        public int getProgress() {
+            return progress;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.transformer_manager_backkend.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.time.LocalDateTime;
+
+/**
+ * Result of one inference run, reusable by any later job whose image has the
+ * same content and that would run with the same sensitivity, feedback and
+ * model
+ */
+@Entity
+@Table(name = "analysis_result_cache", uniqueConstraints = @UniqueConstraint(name = "uk_analysis_result_cache_key",
+        columnNames = { "content_hash", "sensitivity", "feedback_version", "model_version" }))
+public class AnalysisResultCacheEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "content_hash", length = 64, nullable = false)
+    private String contentHash;
+
+    @Column(name = "sensitivity", nullable = false)
+    private double sensitivity;
+
+    @Column(name = "feedback_version", length = 64, nullable = false)
+    private String feedbackVersion;
+
+    @Column(name = "model_version", nullable = false)
+    private String modelVersion;
+
+    @Column(name = "label")
+    private String label;
+
+    @Column(name = "result_json", columnDefinition = "TEXT", nullable = false)
+    private String resultJson;
+
+    @Column(name = "boxed_image_path", nullable = false)
+    private String boxedImagePath;
+
+    @Column(name = "source_job_id")
+    private Long sourceJobId;
+
+    @Column(name = "hit_count", nullable = false)
+    private long hitCount;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "last_hit_at")
+    private LocalDateTime lastHitAt;
+
+    public AnalysisResultCacheEntry() {
+    }
+
+    @PrePersist
+    public void onCreate() {
+        if (this.createdAt == null) {
+            this.createdAt = LocalDateTime.now();
+        }
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public double getSensitivity() {
+        return sensitivity;
+    }
+
+    public String getFeedbackVersion() {
+        return feedbackVersion;
+    }
+
+    public String getModelVersion() {
+        return modelVersion;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getResultJson() {
+        return resultJson;
+    }
+
+    public String getBoxedImagePath() {
+        return boxedImagePath;
+    }
+
+    public Long getSourceJobId() {
+        return sourceJobId;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getLastHitAt() {
+        return lastHitAt;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.transformer_manager_backkend.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Running totals of how annotators changed one label's boxes, summed over
+ * every annotation that has the label on either side. The row with the empty
+ * label holds the number of annotations with any boxes at all in its samples.
+ */
+@Entity
+@Table(name = "feedback_label_aggregates")
+public class FeedbackLabelAggregate {
+
+    /**
+     * Label of the row that counts annotations rather than label samples
+     */
+    public static final String ALL_ANNOTATIONS = "";
+
+    @Id
+    @Column(name = "label", nullable = false)
+    private String label;
+
+    @Column(name = "count_delta", nullable = false)
+    private double countDelta;
+
+    @Column(name = "area_delta", nullable = false)
+    private double areaDelta;
+
+    @Column(name = "original_area", nullable = false)
+    private double originalArea;
+
+    @Column(name = "confidence_delta", nullable = false)
+    private double confidenceDelta;
+
+    @Column(name = "samples", nullable = false)
+    private long samples;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public FeedbackLabelAggregate() {
+    }
+
+    public FeedbackLabelAggregate(String label, double countDelta, double areaDelta, double originalArea,
+            double confidenceDelta, long samples) {
+        this.label = label;
+        this.countDelta = countDelta;
+        this.areaDelta = areaDelta;
+        this.originalArea = originalArea;
+        this.confidenceDelta = confidenceDelta;
+        this.samples = samples;
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void onSave() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public double getCountDelta() {
+        return countDelta;
+    }
+
+    public double getAreaDelta() {
+        return areaDelta;
+    }
+
+    public double getOriginalArea() {
+        return originalArea;
+    }
+
+    public double getConfidenceDelta() {
+        return confidenceDelta;
+    }
+
+    public long getSamples() {
+        return samples;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -35,6 +35,10 @@ public class FeedbackSnapshot {
     @Column(name = "label_feedback_json", columnDefinition = "TEXT", nullable = false)
     private String labelFeedbackJson;
 
+    // Version of the feedback payload this snapshot records (see ModelFeedbackService.FeedbackPayload)
+    @Column(name = "payload_version", length = 64)
+    private String payloadVersion;
+
     public FeedbackSnapshot() {
     }
 
@@ -105,4 +109,12 @@ public class FeedbackSnapshot {
     public void setLabelFeedbackJson(String labelFeedbackJson) {
         this.labelFeedbackJson = labelFeedbackJson;
     }
+
+    public String getPayloadVersion() {
+        return payloadVersion;
+    }
+
+    public void setPayloadVersion(String payloadVersion) {
+        this.payloadVersion = payloadVersion;
+    }
 }
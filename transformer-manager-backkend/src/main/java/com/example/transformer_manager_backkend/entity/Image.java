@@ -28,6 +28,9 @@ public class Image {
     @Column
     private String weatherCondition; // Only for Baseline
 
+    @Column(length = 64)
+    private String contentHash; // SHA-256 of the uploaded bytes
+
     // Prevent recursion by ignoring image lists in parent objects
     @ManyToOne
     @JoinColumn(name = "transformer_record_id")
@@ -84,6 +87,14 @@ public class Image {
         this.weatherCondition = weatherCondition;
     }
 
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
     public TransformerRecord getTransformerRecord() {
         return transformerRecord;
     }
@@ -3,19 +3,119 @@ package com.example.transformer_manager_backkend.repository;
 import com.example.transformer_manager_backkend.entity.AnalysisJob;
 import com.example.transformer_manager_backkend.entity.Image;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AnalysisJobRepository extends JpaRepository<AnalysisJob, Long> {
 
+    // Weighted fair queueing: every (submitter, inspection) pair is a flow, and a job's
+    // virtual time is the running sum of 1/weight over its flow, bound from
+    // AnalysisJob.AnalysisPriority.getVirtualCost(). Serving the lowest virtual time first
+    // interleaves flows, so a large import cannot starve a single urgent image.
+    String FAIR_QUEUE = "SELECT id, created_at, SUM(CASE priority "
+            + "WHEN 'INTERACTIVE' THEN :interactiveCost WHEN 'BULK' THEN :bulkCost ELSE :normalCost END) "
+            + "OVER (PARTITION BY COALESCE(submitted_by, ''), COALESCE(inspection_id, 0) "
+            + "ORDER BY created_at, id) AS virtual_time "
+            + "FROM analysis_jobs WHERE status = 'QUEUED'";
+
+    // Lock the next jobs in fair order, skipping rows another node has already locked.
+    // Must run in the same transaction as CLAIM_LOCKED_JOBS.
+    String LOCK_QUEUED_JOB_IDS = "SELECT aj.id FROM analysis_jobs aj JOIN (" + FAIR_QUEUE + ") fair "
+            + "ON fair.id = aj.id WHERE aj.status = 'QUEUED' "
+            + "ORDER BY fair.virtual_time, aj.created_at, aj.id LIMIT :limit FOR UPDATE OF aj SKIP LOCKED";
+
+    // Move locked jobs to PROCESSING under a lease held by one worker on one node
+    String CLAIM_LOCKED_JOBS = "UPDATE analysis_jobs SET status = 'PROCESSING', started_at = :now, "
+            + "updated_at = :now, lease_owner = :owner, lease_expires_at = :leaseExpiresAt, "
+            + "claimed_by_node = :node, attempts = COALESCE(attempts, 0) + 1 "
+            + "WHERE id IN (:ids) AND status = 'QUEUED'";
+
     // Find jobs by status
     List<AnalysisJob> findByStatusOrderByCreatedAtAsc(AnalysisJob.AnalysisStatus status);
 
+    // Queue positions (in fair order) of several queued jobs in one pass; rows are [job id, position]
+    @Query(value = "SELECT ranked.id, ranked.position FROM ("
+            + "SELECT fair.id, ROW_NUMBER() OVER (ORDER BY fair.virtual_time, fair.created_at, fair.id) AS position "
+            + "FROM (" + FAIR_QUEUE + ") fair) ranked "
+            + "WHERE ranked.id IN (:ids)", nativeQuery = true)
+    List<Object[]> findQueuePositions(@Param("ids") Collection<Long> ids,
+            @Param("interactiveCost") double interactiveCost, @Param("normalCost") double normalCost,
+            @Param("bulkCost") double bulkCost);
+
+    @Query(value = LOCK_QUEUED_JOB_IDS, nativeQuery = true)
+    List<Long> lockQueuedJobIds(@Param("limit") int limit, @Param("interactiveCost") double interactiveCost,
+            @Param("normalCost") double normalCost, @Param("bulkCost") double bulkCost);
+
+    @Modifying
+    @Query(value = CLAIM_LOCKED_JOBS, nativeQuery = true)
+    int claimLockedJobs(@Param("ids") Collection<Long> ids, @Param("owner") String owner, @Param("node") String node,
+            @Param("now") LocalDateTime now, @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+
+    // Change the priority of a job that has not been claimed yet
+    @Modifying
+    @Transactional
+    @Query("UPDATE AnalysisJob aj SET aj.priority = :priority WHERE aj.id = :id AND aj.status = 'QUEUED'")
+    int updateQueuedPriority(@Param("id") Long id, @Param("priority") AnalysisJob.AnalysisPriority priority);
+
+    // Heartbeat: extend the leases a worker still holds
+    @Modifying
+    @Transactional
+    @Query("UPDATE AnalysisJob aj SET aj.leaseExpiresAt = :leaseExpiresAt "
+            + "WHERE aj.id IN :ids AND aj.leaseOwner = :owner AND aj.status = 'PROCESSING'")
+    int renewLeases(@Param("ids") Collection<Long> ids, @Param("owner") String owner,
+            @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+
+    // Put orphaned jobs (expired or missing lease) back in the queue
+    @Modifying
+    @Transactional
+    @Query("UPDATE AnalysisJob aj SET aj.status = 'QUEUED', aj.leaseOwner = NULL, aj.leaseExpiresAt = NULL, "
+            + "aj.startedAt = NULL, aj.updatedAt = :now "
+            + "WHERE aj.status = 'PROCESSING' AND (aj.leaseExpiresAt IS NULL OR aj.leaseExpiresAt < :now) "
+            + "AND COALESCE(aj.attempts, 0) < :maxAttempts")
+    int requeueExpiredLeases(@Param("now") LocalDateTime now, @Param("maxAttempts") int maxAttempts);
+
+    // Give up on orphaned jobs that have already used all their attempts
+    @Modifying
+    @Transactional
+    @Query("UPDATE AnalysisJob aj SET aj.status = 'FAILED', aj.errorMessage = :errorMessage, aj.leaseOwner = NULL, "
+            + "aj.leaseExpiresAt = NULL, aj.completedAt = :now, aj.updatedAt = :now "
+            + "WHERE aj.status = 'PROCESSING' AND (aj.leaseExpiresAt IS NULL OR aj.leaseExpiresAt < :now) "
+            + "AND COALESCE(aj.attempts, 0) >= :maxAttempts")
+    int failExpiredLeases(@Param("now") LocalDateTime now, @Param("maxAttempts") int maxAttempts,
+            @Param("errorMessage") String errorMessage);
+
+    // Hand back the jobs held by a stopping instance without counting the attempt
+    @Modifying
+    @Transactional
+    @Query("UPDATE AnalysisJob aj SET aj.status = 'QUEUED', aj.leaseOwner = NULL, aj.leaseExpiresAt = NULL, "
+            + "aj.startedAt = NULL, aj.updatedAt = :now, aj.attempts = COALESCE(aj.attempts, 1) - 1 "
+            + "WHERE aj.status = 'PROCESSING' AND aj.leaseOwner LIKE CONCAT(:ownerPrefix, '%')")
+    int releaseLeases(@Param("ownerPrefix") String ownerPrefix, @Param("now") LocalDateTime now);
+
+    // Record the outcome of a claimed job and drop its lease, provided the worker still holds it;
+    // returns 0 if the lease was lost, in which case nothing is written
+    @Modifying
+    @Transactional
+    @Query("UPDATE AnalysisJob aj SET aj.status = :#{#job.status}, aj.resultJson = :#{#job.resultJson}, "
+            + "aj.boxedImagePath = :#{#job.boxedImagePath}, aj.errorMessage = :#{#job.errorMessage}, "
+            + "aj.completedAt = :#{#job.completedAt}, aj.sourceImagePath = :#{#job.sourceImagePath}, "
+            + "aj.filteredImagePath = :#{#job.filteredImagePath}, aj.maskImagePath = :#{#job.maskImagePath}, "
+            + "aj.reusedFromJobId = :#{#job.reusedFromJobId}, aj.inferencePass = :#{#job.inferencePass}, "
+            + "aj.inferenceSize = :#{#job.inferenceSize}, aj.feedbackVersion = :#{#job.feedbackVersion}, "
+            + "aj.leaseOwner = NULL, aj.leaseExpiresAt = NULL, aj.updatedAt = :now "
+            + "WHERE aj.id = :#{#job.id} AND aj.leaseOwner = :owner AND aj.status = 'PROCESSING'")
+    int completeLeasedJob(@Param("job") AnalysisJob job, @Param("owner") String owner,
+            @Param("now") LocalDateTime now);
+
     // Find job by image
     Optional<AnalysisJob> findByImage(Image image);
 
@@ -26,10 +126,6 @@ public interface AnalysisJobRepository extends JpaRepository<AnalysisJob, Long>
     // Count queued jobs
     Long countByStatus(AnalysisJob.AnalysisStatus status);
 
-    // Find next job in queue
-    @Query("SELECT aj FROM AnalysisJob aj WHERE aj.status = 'QUEUED' ORDER BY aj.createdAt ASC LIMIT 1")
-    Optional<AnalysisJob> findNextQueuedJob();
-
     // Find jobs by transformer record ID
     @Query("SELECT aj FROM AnalysisJob aj WHERE aj.image.transformerRecord.id = :transformerId ORDER BY aj.createdAt DESC")
     List<AnalysisJob> findByTransformerId(@Param("transformerId") Long transformerId);
@@ -0,0 +1,41 @@
+package com.example.transformer_manager_backkend.repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.transformer_manager_backkend.entity.AnalysisResultCacheEntry;
+
+@Repository
+public interface AnalysisResultCacheRepository extends JpaRepository<AnalysisResultCacheEntry, Long> {
+
+    Optional<AnalysisResultCacheEntry> findByContentHashAndSensitivityAndFeedbackVersionAndModelVersion(
+            String contentHash, double sensitivity, String feedbackVersion, String modelVersion);
+
+    /**
+     * Store a result unless the key is already cached, e.g. by another worker
+     * that analysed the same image at the same time
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO analysis_result_cache (content_hash, sensitivity, feedback_version, model_version, "
+            + "label, result_json, boxed_image_path, source_job_id, hit_count, created_at) "
+            + "VALUES (:contentHash, :sensitivity, :feedbackVersion, :modelVersion, :label, :resultJson, "
+            + ":boxedImagePath, :sourceJobId, 0, :now) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("contentHash") String contentHash, @Param("sensitivity") double sensitivity,
+            @Param("feedbackVersion") String feedbackVersion, @Param("modelVersion") String modelVersion,
+            @Param("label") String label, @Param("resultJson") String resultJson,
+            @Param("boxedImagePath") String boxedImagePath, @Param("sourceJobId") Long sourceJobId,
+            @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE AnalysisResultCacheEntry e SET e.hitCount = e.hitCount + 1, e.lastHitAt = :now WHERE e.id = :id")
+    int recordHit(@Param("id") Long id, @Param("now") LocalDateTime now);
+}
@@ -2,6 +2,7 @@ package com.example.transformer_manager_backkend.repository;
 
 import com.example.transformer_manager_backkend.entity.Annotation;
 import com.example.transformer_manager_backkend.entity.AnalysisJob;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -48,6 +49,15 @@ public interface AnnotationRepository extends JpaRepository<Annotation, Long> {
     @Query("SELECT a FROM Annotation a JOIN FETCH a.analysisJob aj JOIN FETCH aj.image")
     List<Annotation> findAllWithFeedbackData();
 
+    /**
+     * One page of annotation results after the given id, in id order, without
+     * loading the annotations; rows are [id, original result JSON, modified
+     * result JSON]
+     */
+    @Query("SELECT a.id, a.originalResultJson, a.modifiedResultJson FROM Annotation a "
+            + "WHERE a.id > :afterId ORDER BY a.id")
+    List<Object[]> findResultPage(@Param("afterId") Long afterId, Pageable pageable);
+
     /**
      * Check if annotation exists for analysis job
      */
@@ -0,0 +1,46 @@
+package com.example.transformer_manager_backkend.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.transformer_manager_backkend.entity.FeedbackLabelAggregate;
+
+@Repository
+public interface FeedbackLabelAggregateRepository extends JpaRepository<FeedbackLabelAggregate, String> {
+
+    /**
+     * Add a change to a label's totals, creating its row on first use. A
+     * single statement, so concurrent annotation edits cannot lose updates.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO feedback_label_aggregates (label, count_delta, area_delta, original_area, "
+            + "confidence_delta, samples, updated_at) "
+            + "VALUES (:label, :countDelta, :areaDelta, :originalArea, :confidenceDelta, :samples, :now) "
+            + "ON CONFLICT (label) DO UPDATE SET "
+            + "count_delta = feedback_label_aggregates.count_delta + EXCLUDED.count_delta, "
+            + "area_delta = feedback_label_aggregates.area_delta + EXCLUDED.area_delta, "
+            + "original_area = feedback_label_aggregates.original_area + EXCLUDED.original_area, "
+            + "confidence_delta = feedback_label_aggregates.confidence_delta + EXCLUDED.confidence_delta, "
+            + "samples = feedback_label_aggregates.samples + EXCLUDED.samples, "
+            + "updated_at = EXCLUDED.updated_at", nativeQuery = true)
+    int add(@Param("label") String label, @Param("countDelta") double countDelta,
+            @Param("areaDelta") double areaDelta, @Param("originalArea") double originalArea,
+            @Param("confidenceDelta") double confidenceDelta, @Param("samples") long samples,
+            @Param("now") LocalDateTime now);
+
+    /**
+     * Block {@link #add} until the current transaction ends, waiting first for
+     * the transactions that have already added to commit. Reads are not
+     * blocked. Must run inside the caller's transaction.
+     */
+    @Modifying
+    @Query(value = "LOCK TABLE feedback_label_aggregates IN EXCLUSIVE MODE", nativeQuery = true)
+    void lockAgainstChanges();
+}
@@ -3,6 +3,7 @@ package com.example.transformer_manager_backkend.repository;
 import com.example.transformer_manager_backkend.entity.FeedbackSnapshot;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -12,4 +13,6 @@ public interface FeedbackSnapshotRepository extends JpaRepository<FeedbackSnapsh
     List<FeedbackSnapshot> findTop50ByOrderByCreatedAtDesc();
 
     List<FeedbackSnapshot> findByCreatedAtAfterOrderByCreatedAtDesc(LocalDateTime since);
+
+    Optional<FeedbackSnapshot> findFirstByOrderByCreatedAtDescIdDesc();
 }
@@ -0,0 +1,95 @@
+package com.example.transformer_manager_backkend.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.transformer_manager_backkend.entity.AnalysisJob;
+
+/**
+ * Keeps the PatchCore mask and filtered image of each job under
+ * uploads/analysis/artifacts, so the job can later be reclassified with other
+ * settings without running the model again. Both are the PNGs the engine
+ * wrote; the filtered image is black outside the anomaly mask and compresses
+ * to a fraction of the upload.
+ */
+@Service
+public class AnalysisArtifactStore {
+
+    private static final String ARTIFACT_DIR = "artifacts";
+
+    @Value("${app.anomaly.artifacts.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Move the artifacts the engine wrote for {@code stagedBaseName} into the
+     * store and record them on the job. A job whose engine wrote none is left
+     * without them.
+     */
+    public void retain(AnalysisJob job, Path outputDir, String stagedBaseName) throws IOException {
+        clear(job);
+        if (!enabled) {
+            return;
+        }
+        Path filtered = outputDir.resolve("filtered").resolve(stagedBaseName + "_filtered.png");
+        Path mask = outputDir.resolve("masks").resolve(stagedBaseName + "_mask.png");
+        if (Files.exists(filtered)) {
+            job.setFilteredImagePath(store(filtered, job, "filtered", true));
+        }
+        if (Files.exists(mask)) {
+            job.setMaskImagePath(store(mask, job, "mask", true));
+        }
+    }
+
+    /**
+     * Give a job reusing another job's result its own copy of that job's
+     * artifacts
+     */
+    public void copy(AnalysisJob source, AnalysisJob target) throws IOException {
+        clear(target);
+        if (!enabled || source == null) {
+            return;
+        }
+        if (source.getFilteredImagePath() != null
+                && Files.exists(AnalysisResultCacheService.uploadsPath(source.getFilteredImagePath()))) {
+            target.setFilteredImagePath(store(AnalysisResultCacheService.uploadsPath(source.getFilteredImagePath()),
+                    target, "filtered", false));
+        }
+        if (source.getMaskImagePath() != null
+                && Files.exists(AnalysisResultCacheService.uploadsPath(source.getMaskImagePath()))) {
+            target.setMaskImagePath(store(AnalysisResultCacheService.uploadsPath(source.getMaskImagePath()),
+                    target, "mask", false));
+        }
+    }
+
+    /**
+     * Whether the job's original upload and filtered image are both still on
+     * disk
+     */
+    public boolean canReclassify(AnalysisJob job) {
+        return job.getSourceImagePath() != null && job.getFilteredImagePath() != null
+                && Files.exists(AnalysisResultCacheService.uploadsPath(job.getSourceImagePath()))
+                && Files.exists(AnalysisResultCacheService.uploadsPath(job.getFilteredImagePath()));
+    }
+
+    private String store(Path artifact, AnalysisJob job, String kind, boolean move) throws IOException {
+        Path dir = Paths.get("uploads", "analysis", ARTIFACT_DIR);
+        Files.createDirectories(dir);
+        String fileName = "job" + job.getId() + "_" + kind + ".png";
+        if (move) {
+            AnalysisFiles.moveIntoPlace(artifact, dir.resolve(fileName));
+        } else {
+            AnalysisFiles.copyIntoPlace(artifact, dir.resolve(fileName));
+        }
+        return "/analysis/" + ARTIFACT_DIR + "/" + fileName;
+    }
+
+    private void clear(AnalysisJob job) {
+        job.setFilteredImagePath(null);
+        job.setMaskImagePath(null);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.transformer_manager_backkend.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+
+/**
+ * File placement for the analysis pipeline. Inputs are staged as hard links
+ * where the file system allows it, so an upload is not copied just to be
+ * read by the engine. Outputs are published by renaming a complete file over
+ * the target, so a reader of uploads/analysis sees either the old file or the
+ * new one, never a partly written image.
+ */
+public final class AnalysisFiles {
+
+    private AnalysisFiles() {
+    }
+
+    /**
+     * Make {@code target} a hard link to {@code source}, or a copy if the two
+     * are on different file systems or links are not supported. Only use this
+     * for files nobody writes to in place. Returns true if a link was made.
+     */
+    public static boolean linkOrCopy(Path source, Path target) throws IOException {
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, source);
+            return true;
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+            return false;
+        }
+    }
+
+    /**
+     * Move a finished file to {@code target}, replacing it atomically. Across
+     * file systems the file is first copied next to the target and renamed
+     * from there.
+     */
+    public static void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            copyIntoPlace(source, target);
+            Files.delete(source);
+        }
+    }
+
+    /**
+     * Copy a file to {@code target}, replacing it atomically
+     */
+    public static void copyIntoPlace(Path source, Path target) throws IOException {
+        Path partial = partialFile(target);
+        try {
+            Files.copy(source, partial, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    /**
+     * Write text to {@code target}, replacing it atomically
+     */
+    public static void writeIntoPlace(String content, Path target) throws IOException {
+        Path partial = partialFile(target);
+        try {
+            Files.writeString(partial, content, StandardCharsets.UTF_8);
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    /**
+     * A unique hidden path next to the target to write to before moving it
+     * into place. It is not created, so the file gets the usual permissions;
+     * the caller deletes it if the move does not happen.
+     */
+    public static Path partialFile(Path target) {
+        return target.resolveSibling("." + target.getFileName() + "." + UUID.randomUUID() + ".partial");
+    }
+}
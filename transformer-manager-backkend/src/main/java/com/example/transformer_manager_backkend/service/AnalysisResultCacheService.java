@@ -0,0 +1,182 @@
+package com.example.transformer_manager_backkend.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.transformer_manager_backkend.entity.AnalysisResultCacheEntry;
+import com.example.transformer_manager_backkend.repository.AnalysisResultCacheRepository;
+import com.example.transformer_manager_backkend.service.inference.InferenceEngine;
+
+/**
+ * Inference results keyed by image content, detection sensitivity, feedback
+ * payload version and model version. A job whose key is already cached is
+ * completed from the stored result instead of running the model again.
+ * Results of a PatchCore run at a non-default input size (the cascade's first
+ * pass) are kept under their own model version.
+ *
+ * Each entry keeps its own copy of the boxed image under /analysis/cache. The
+ * boxed image of the job that produced the result is redrawn in place when
+ * its annotation is edited, and would then no longer match the cached JSON.
+ */
+@Service
+public class AnalysisResultCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisResultCacheService.class);
+
+    static final String CACHE_WEB_DIR = "/analysis/cache/";
+
+    private final AnalysisResultCacheRepository cacheRepository;
+    private final InferenceEngine inferenceEngine;
+
+    @Value("${app.anomaly.cache.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${app.anomaly.model.version:patchcore-v1}")
+    private String modelVersion = "patchcore-v1";
+
+    // Directory web paths such as /analysis/x_boxed.jpg are resolved against
+    Path uploadsDir = Paths.get("uploads");
+
+    public AnalysisResultCacheService(AnalysisResultCacheRepository cacheRepository,
+            InferenceEngine inferenceEngine) {
+        this.cacheRepository = cacheRepository;
+        this.inferenceEngine = inferenceEngine;
+    }
+
+    /**
+     * Cached result for the key, if any. Entries whose boxed image has been
+     * deleted since, or that still share it with their source job, are
+     * dropped.
+     */
+    public Optional<AnalysisResultCacheEntry> lookup(String contentHash, double sensitivity, String feedbackVersion) {
+        return lookup(contentHash, sensitivity, feedbackVersion, null);
+    }
+
+    /**
+     * Cached result of a run at the given PatchCore input size, null meaning
+     * the script default
+     */
+    public Optional<AnalysisResultCacheEntry> lookup(String contentHash, double sensitivity, String feedbackVersion,
+            Integer inferenceSize) {
+        if (!enabled || contentHash == null) {
+            return Optional.empty();
+        }
+        Optional<AnalysisResultCacheEntry> entry = cacheRepository
+                .findByContentHashAndSensitivityAndFeedbackVersionAndModelVersion(
+                        contentHash, roundSensitivity(sensitivity), feedbackVersion,
+                        currentModelVersion(inferenceSize));
+        if (entry.isPresent() && !entry.get().getBoxedImagePath().startsWith(CACHE_WEB_DIR)) {
+            // Stored before entries had their own copy; the source job's image may have been redrawn since
+            logger.info("Dropping cached result {}: boxed image {} belongs to job {}", entry.get().getId(),
+                    entry.get().getBoxedImagePath(), entry.get().getSourceJobId());
+            cacheRepository.delete(entry.get());
+            return Optional.empty();
+        }
+        if (entry.isPresent() && !Files.exists(resolve(entry.get().getBoxedImagePath()))) {
+            logger.info("Dropping cached result {}: boxed image {} no longer exists", entry.get().getId(),
+                    entry.get().getBoxedImagePath());
+            cacheRepository.delete(entry.get());
+            return Optional.empty();
+        }
+        entry.ifPresent(hit -> cacheRepository.recordHit(hit.getId(), LocalDateTime.now()));
+        return entry;
+    }
+
+    /**
+     * Remember a freshly computed result. Losing a race with another node that
+     * stored the same key is harmless.
+     */
+    public void store(String contentHash, double sensitivity, String feedbackVersion, String label,
+            String resultJson, String boxedImagePath, Long sourceJobId) {
+        store(contentHash, sensitivity, feedbackVersion, null, label, resultJson, boxedImagePath, sourceJobId);
+    }
+
+    /**
+     * Remember a result computed at the given PatchCore input size. The boxed
+     * image is copied into the cache; if that fails the result is not cached.
+     */
+    public void store(String contentHash, double sensitivity, String feedbackVersion, Integer inferenceSize,
+            String label, String resultJson, String boxedImagePath, Long sourceJobId) {
+        if (!enabled || contentHash == null) {
+            return;
+        }
+        double rounded = roundSensitivity(sensitivity);
+        String version = currentModelVersion(inferenceSize);
+        // One file per key, so a later entry for the same key takes over the file of a dropped one
+        String keyHash = ContentHashing.hashString(
+                String.format(Locale.ROOT, "%.2f/%s/%s", rounded, feedbackVersion, version)).substring(0, 8);
+        String cachedPath = CACHE_WEB_DIR + contentHash + "_" + keyHash + extension(boxedImagePath);
+        Path target = resolve(cachedPath);
+        Path partial = AnalysisFiles.partialFile(target);
+        try {
+            Files.createDirectories(target.getParent());
+            Files.copy(resolve(boxedImagePath), partial, StandardCopyOption.REPLACE_EXISTING);
+            // The copy only replaces the file if the entry is new; an existing entry keeps its image
+            if (cacheRepository.insertIfAbsent(contentHash, rounded, feedbackVersion, version, label, resultJson,
+                    cachedPath, sourceJobId, LocalDateTime.now()) > 0) {
+                Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            logger.warn("Not caching the result of job {}: could not copy its boxed image: {}", sourceJobId,
+                    e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(partial);
+            } catch (IOException e) {
+                logger.warn("Could not delete {}: {}", partial, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * File behind a web path such as /analysis/x_boxed.jpg
+     */
+    public static Path uploadsPath(String webPath) {
+        return Paths.get("uploads").resolve(relativePath(webPath));
+    }
+
+    private Path resolve(String webPath) {
+        return uploadsDir.resolve(relativePath(webPath));
+    }
+
+    private static String relativePath(String webPath) {
+        String relative = webPath.startsWith("/") ? webPath.substring(1) : webPath;
+        if (relative.startsWith("uploads/")) {
+            relative = relative.substring("uploads/".length());
+        }
+        return relative;
+    }
+
+    private static String extension(String webPath) {
+        String fileName = webPath.substring(webPath.lastIndexOf('/') + 1);
+        int dot = fileName.lastIndexOf('.');
+        return dot >= 0 ? fileName.substring(dot) : "";
+    }
+
+    /**
+     * Engines produce different results for the same input, so the engine is
+     * part of the model version, and so is a non-default input size
+     */
+    private String currentModelVersion(Integer inferenceSize) {
+        String version = inferenceEngine.getName() + "/" + modelVersion;
+        return inferenceSize != null ? version + "@" + inferenceSize : version;
+    }
+
+    /**
+     * The scripts only see sensitivity to two decimals
+     */
+    private static double roundSensitivity(double sensitivity) {
+        return Math.round(sensitivity * 100.0) / 100.0;
+    }
+}
@@ -2,10 +2,13 @@ package com.example.transformer_manager_backkend.service;
 
 import com.example.transformer_manager_backkend.entity.*;
 import com.example.transformer_manager_backkend.repository.*;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.example.transformer_manager_backkend.service.classification.BoxPostProcessor;
+import com.example.transformer_manager_backkend.service.classification.Detection;
+import com.example.transformer_manager_backkend.service.classification.FilteredImageClassifier;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -22,7 +25,6 @@ import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
 import java.io.*;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -41,6 +43,9 @@ public class AnnotationService {
     private final AnnotationRepository annotationRepository;
     private final AnnotationBoxRepository annotationBoxRepository;
     private final AnalysisJobRepository analysisJobRepository;
+    private final MLSettingsService mlSettingsService;
+    private final FeedbackAggregator feedbackAggregator;
+    private final ResultDocumentCache resultDocuments;
     private final ObjectMapper objectMapper;
 
     @Value("${app.annotation.python.executable:python}")
@@ -51,10 +56,16 @@ public class AnnotationService {
 
     public AnnotationService(AnnotationRepository annotationRepository,
             AnnotationBoxRepository annotationBoxRepository,
-            AnalysisJobRepository analysisJobRepository) {
+            AnalysisJobRepository analysisJobRepository,
+            MLSettingsService mlSettingsService,
+            FeedbackAggregator feedbackAggregator,
+            ResultDocumentCache resultDocuments) {
         this.annotationRepository = annotationRepository;
         this.annotationBoxRepository = annotationBoxRepository;
         this.analysisJobRepository = analysisJobRepository;
+        this.mlSettingsService = mlSettingsService;
+        this.feedbackAggregator = feedbackAggregator;
+        this.resultDocuments = resultDocuments;
         this.objectMapper = new ObjectMapper();
     }
 
@@ -90,7 +101,9 @@ public class AnnotationService {
         }
 
         // Parse original JSON and create annotation boxes
-        List<AnnotationBox> boxes = parseJsonToAnnotationBoxes(analysisJob.getResultJson());
+        ResultDocument result = readResult(ResultDocumentCache.Source.JOB_RESULT, analysisJob.getId(), null,
+                analysisJob.getResultJson());
+        List<AnnotationBox> boxes = toAnnotationBoxes(result);
         annotation = annotationRepository.save(annotation);
 
         for (AnnotationBox box : boxes) {
@@ -99,6 +112,10 @@ public class AnnotationService {
         }
         annotationBoxRepository.saveAll(boxes);
         annotation.setAnnotationBoxes(boxes);
+        // Both sides start out as the job's result
+        resultDocuments.put(ResultDocumentCache.Source.ANNOTATION_ORIGINAL, annotation.getId(), null, result);
+        resultDocuments.put(ResultDocumentCache.Source.ANNOTATION_MODIFIED, annotation.getId(), null, result);
+        feedbackAggregator.recordChange(boxesOf(result), null, boxesOf(result));
 
         logger.info("Created annotation for analysis job {}", analysisJobId);
         return annotation;
@@ -131,6 +148,9 @@ public class AnnotationService {
         }
 
         Annotation annotation = annotationOpt.get();
+        ResultDocument original = originalResult(annotation);
+        ResultDocument previous = readResult(ResultDocumentCache.Source.ANNOTATION_MODIFIED, annotation.getId(),
+                annotation.getVersion(), annotation.getModifiedResultJson());
 
         // Allow any user to edit for now (open access per request)
 
@@ -166,30 +186,71 @@ public class AnnotationService {
         }
 
         // Update modified JSON based on current managed boxes
-        String modifiedJson = createModifiedJson(annotation, managedBoxes);
-        String persistedJson = modifiedJson;
+        ResultDocument modified = createModifiedResult(original, managedBoxes);
+        ResultDocument persisted = modified;
 
         // Update the JSON file, refresh image, and capture the final JSON that was written
         try {
-            persistedJson = updateJsonFileAndRefreshImage(annotation, modifiedJson, managedBoxes);
+            persisted = updateJsonFileAndRefreshImage(annotation, modified, managedBoxes);
         } catch (Exception e) {
             logger.error("Failed to update JSON file and refresh image for annotation {}", annotationId, e);
-            persistedJson = modifiedJson;
+            persisted = modified;
         }
+        // An original that cannot be read cannot take the boxes either, so it is kept as it is
+        String persistedJson = persisted != null ? persisted.getSource() : annotation.getOriginalResultJson();
 
         annotation.setModifiedResultJson(persistedJson);
         annotation = annotationRepository.save(annotation);
+        // The new version is only assigned on flush, so until then the entry is matched by its text
+        resultDocuments.put(ResultDocumentCache.Source.ANNOTATION_MODIFIED, annotation.getId(), null, persisted);
+        feedbackAggregator.recordChange(boxesOf(original), boxesOf(previous), boxesOf(persisted));
 
         AnalysisJob job = annotation.getAnalysisJob();
         if (job != null) {
             job.setResultJson(persistedJson);
             analysisJobRepository.save(job);
+            resultDocuments.put(ResultDocumentCache.Source.JOB_RESULT, job.getId(), null, persisted);
         }
 
         logger.info("Updated annotation {} with {} boxes", annotationId, managedBoxes.size());
         return annotation;
     }
 
+    /**
+     * Clean up edited boxes with the classifier's post-processing (NMS, the
+     * potential/faulty point filters and merging of nearby boxes) at the given
+     * sensitivity, or the current one if null. Nothing is saved; boxes without
+     * a confidence count as 0.5, as in the Python helpers.
+     */
+    public List<AnnotationBoxDTO> postProcessBoxes(List<AnnotationBoxDTO> boxDTOs, Double sensitivity) {
+        if (boxDTOs == null || boxDTOs.isEmpty()) {
+            return new ArrayList<>();
+        }
+        double effectiveSensitivity = sensitivity != null ? sensitivity : mlSettingsService.getDetectionSensitivity();
+
+        List<Detection> detections = new ArrayList<>(boxDTOs.size());
+        for (AnnotationBoxDTO dto : boxDTOs) {
+            detections.add(new Detection(
+                    dto.getX() != null ? dto.getX() : 0,
+                    dto.getY() != null ? dto.getY() : 0,
+                    dto.getWidth() != null ? Math.max(1, dto.getWidth()) : 1,
+                    dto.getHeight() != null ? Math.max(1, dto.getHeight()) : 1,
+                    (dto.getType() != null && !dto.getType().isBlank()) ? dto.getType() : "Custom Anomaly",
+                    dto.getConfidence() != null ? dto.getConfidence() : 0.5));
+        }
+
+        List<Detection> processed = BoxPostProcessor.process(detections,
+                FilteredImageClassifier.normalizeSensitivity(effectiveSensitivity));
+        List<AnnotationBoxDTO> result = new ArrayList<>(processed.size());
+        for (Detection d : processed) {
+            result.add(new AnnotationBoxDTO(d.getX(), d.getY(), d.getWidth(), d.getHeight(), d.getLabel(),
+                    d.getConfidence()));
+        }
+        logger.debug("Post-processed {} boxes into {} at sensitivity {}", boxDTOs.size(), result.size(),
+                effectiveSensitivity);
+        return result;
+    }
+
     /**
      * Build merged annotation report (AI detections + user edits + metadata)
      */
@@ -262,10 +323,9 @@ public class AnnotationService {
             annotatorNode.put("type", annotatorType);
             annotatorNode.put("displayName", annotation.getAnnotatorDisplayName());
 
-            JsonNode originalDetections = readJsonSafely(annotation.getOriginalResultJson());
-            JsonNode finalAnnotations = readJsonSafely(annotation.getModifiedResultJson());
-            root.set("originalAIDetections", originalDetections);
-            root.set("finalUserAnnotations", finalAnnotations);
+            putResult(root, "originalAIDetections", originalResult(annotation));
+            putResult(root, "finalUserAnnotations", readResult(ResultDocumentCache.Source.ANNOTATION_MODIFIED,
+                    annotation.getId(), annotation.getVersion(), annotation.getModifiedResultJson()));
 
             ArrayNode boxesArray = objectMapper.createArrayNode();
             int addedCount = 0;
@@ -396,85 +456,87 @@ public class AnnotationService {
     }
 
     /**
-     * Parse JSON result to annotation boxes
+     * Annotation boxes for the boxes of a result
      */
-    private List<AnnotationBox> parseJsonToAnnotationBoxes(String resultJson) {
+    private List<AnnotationBox> toAnnotationBoxes(ResultDocument result) {
         List<AnnotationBox> boxes = new ArrayList<>();
-        try {
-            JsonNode rootNode = objectMapper.readTree(resultJson);
-            JsonNode boxesNode = rootNode.get("boxes");
-
-            if (boxesNode != null && boxesNode.isArray()) {
-                for (JsonNode boxNode : boxesNode) {
-                    JsonNode boxArray = boxNode.get("box");
-                    if (boxArray != null && boxArray.isArray() && boxArray.size() >= 4) {
-                        int x = boxArray.get(0).asInt();
-                        int y = boxArray.get(1).asInt();
-                        int width = boxArray.get(2).asInt();
-                        int height = boxArray.get(3).asInt();
-                        String type = boxNode.get("type").asText("Unknown");
-                        Double confidence = boxNode.has("confidence") ? boxNode.get("confidence").asDouble() : null;
-
-                        AnnotationBox box = new AnnotationBox(x, y, width, height, type, confidence);
-                        boxes.add(box);
-                    }
-                }
-            }
-        } catch (Exception e) {
-            logger.error("Error parsing JSON to annotation boxes", e);
+        if (result == null) {
+            return boxes;
+        }
+        ResultBoxes resultBoxes = result.getBoxes();
+        for (int i = 0; i < resultBoxes.size(); i++) {
+            String type = resultBoxes.getType(i) != null ? resultBoxes.getType(i) : "Unknown";
+            Double confidence = resultBoxes.hasConfidence(i) ? resultBoxes.getConfidence(i) : null;
+            boxes.add(new AnnotationBox(resultBoxes.getX(i), resultBoxes.getY(i), resultBoxes.getWidth(i),
+                    resultBoxes.getHeight(i), type, confidence));
         }
         return boxes;
     }
 
     /**
-     * Create modified JSON from annotation and boxes
+     * Create the modified result from the original and the edited boxes, or
+     * null if the original cannot be read
      */
-    private String createModifiedJson(Annotation annotation, List<AnnotationBox> boxes) {
+    private ResultDocument createModifiedResult(ResultDocument original, List<AnnotationBox> boxes) {
+        if (original == null) {
+            return null;
+        }
+        ResultBoxes.Builder resultBoxes = new ResultBoxes.Builder();
+        for (AnnotationBox box : boxes) {
+            resultBoxes.add(box.getX(), box.getY(), box.getWidth(), box.getHeight(), box.getType(),
+                    box.getConfidence() != null ? box.getConfidence() : Double.NaN);
+        }
+        return original.withBoxes(resultBoxes.build());
+    }
+
+    /**
+     * The document of one of an annotation's or job's results, read through
+     * the cache; null if it is missing or cannot be read
+     */
+    private ResultDocument readResult(ResultDocumentCache.Source source, Long id, Long version, String json) {
         try {
-            JsonNode originalNode = objectMapper.readTree(annotation.getOriginalResultJson());
-            ObjectNode modifiedNode = originalNode.deepCopy();
+            return resultDocuments.get(source, id, version, json);
+        } catch (IOException e) {
+            logger.warn("Failed to parse {} of {}: {}", source, id, e.getMessage());
+            return null;
+        }
+    }
 
-            // Update the boxes array
-            ArrayNode boxesArray = objectMapper.createArrayNode();
-            for (AnnotationBox box : boxes) {
-                ObjectNode boxNode = objectMapper.createObjectNode();
-                ArrayNode coordsArray = objectMapper.createArrayNode();
-                coordsArray.add(box.getX());
-                coordsArray.add(box.getY());
-                coordsArray.add(box.getWidth());
-                coordsArray.add(box.getHeight());
-
-                boxNode.set("box", coordsArray);
-                boxNode.put("type", box.getType());
-                if (box.getConfidence() != null) {
-                    boxNode.put("confidence", box.getConfidence());
-                }
-                boxesArray.add(boxNode);
-            }
+    private ResultDocument originalResult(Annotation annotation) {
+        return readResult(ResultDocumentCache.Source.ANNOTATION_ORIGINAL, annotation.getId(), null,
+                annotation.getOriginalResultJson());
+    }
 
-            modifiedNode.set("boxes", boxesArray);
+    private static ResultBoxes boxesOf(ResultDocument result) {
+        return result != null ? result.getBoxes() : null;
+    }
 
-            return objectMapper.writeValueAsString(modifiedNode);
-        } catch (Exception e) {
-            logger.error("Error creating modified JSON", e);
-            return annotation.getOriginalResultJson();
+    /**
+     * Embed a result as the text it was read from, or an empty object if it
+     * cannot be read
+     */
+    private void putResult(ObjectNode node, String field, ResultDocument result) {
+        if (result != null) {
+            node.putRawValue(field, new RawValue(result.getSource()));
+        } else {
+            node.putObject(field);
         }
     }
 
     /**
      * Update JSON file and refresh the boxed image using Python script
      */
-    private String updateJsonFileAndRefreshImage(Annotation annotation, String modifiedJson, List<AnnotationBox> boxes)
-            throws IOException, InterruptedException {
+    private ResultDocument updateJsonFileAndRefreshImage(Annotation annotation, ResultDocument modified,
+            List<AnnotationBox> boxes) throws IOException, InterruptedException {
         if (annotation == null) {
             logger.warn("Skipping image refresh because annotation is null");
-            return modifiedJson;
+            return modified;
         }
 
         AnalysisJob job = annotation.getAnalysisJob();
         if (job == null) {
             logger.warn("Annotation {} has no associated analysis job; skipping image refresh", annotation.getId());
-            return modifiedJson;
+            return modified;
         }
 
         String boxedImageWebPath = normalizeWebPath(firstNonBlank(
@@ -483,7 +545,7 @@ public class AnnotationService {
 
         if (boxedImageWebPath == null) {
             logger.warn("No boxed image path available for annotation {}", annotation.getId());
-            return modifiedJson;
+            return modified;
         }
 
         String fileName = boxedImageWebPath.substring(boxedImageWebPath.lastIndexOf('/') + 1);
@@ -499,8 +561,9 @@ public class AnnotationService {
         Path boxedImagePath = analysisDir.resolve(boxedFileName);
         Path originalImagePath = resolveOriginalImagePath(baseName, extension, annotation);
 
-        String adjustedJson = adjustJsonPaths(annotation, modifiedJson, originalImagePath, boxedImagePath);
-        Files.writeString(jsonFilePath, adjustedJson, StandardCharsets.UTF_8);
+        ResultDocument adjusted = adjustJsonPaths(modified, originalImagePath, boxedImagePath);
+        AnalysisFiles.writeIntoPlace(adjusted != null ? adjusted.getSource() : annotation.getOriginalResultJson(),
+                jsonFilePath);
         logger.info("Updated JSON file: {}", jsonFilePath);
 
         List<AnnotationBox> safeBoxes = boxes != null ? boxes : Collections.emptyList();
@@ -518,19 +581,7 @@ public class AnnotationService {
             }
         }
 
-        return adjustedJson;
-    }
-
-    private JsonNode readJsonSafely(String json) {
-        if (json == null || json.isBlank()) {
-            return objectMapper.createObjectNode();
-        }
-        try {
-            return objectMapper.readTree(json);
-        } catch (Exception e) {
-            logger.warn("Failed to parse JSON content safely", e);
-            return objectMapper.createObjectNode();
-        }
+        return adjusted;
     }
 
     private String firstNonBlank(String... values) {
@@ -610,17 +661,13 @@ public class AnnotationService {
     }
 
     private Path resolvePathFromJson(Annotation annotation) {
-        if (annotation == null || annotation.getOriginalResultJson() == null) {
+        if (annotation == null) {
             return null;
         }
-        try {
-            JsonNode node = objectMapper.readTree(annotation.getOriginalResultJson());
-            String imagePath = node.path("image").asText(null);
-            if (imagePath != null && !imagePath.isBlank()) {
-                return toLocalPath(imagePath);
-            }
-        } catch (Exception e) {
-            logger.warn("Unable to resolve original image path from annotation {}", annotation.getId(), e);
+        ResultDocument original = originalResult(annotation);
+        String imagePath = original != null ? original.getImage() : null;
+        if (imagePath != null && !imagePath.isBlank()) {
+            return toLocalPath(imagePath);
         }
         return null;
     }
@@ -653,23 +700,13 @@ public class AnnotationService {
         return Paths.get(normalized);
     }
 
-    private String adjustJsonPaths(Annotation annotation, String json, Path originalImagePath, Path boxedImagePath) {
-        if (json == null || json.isBlank()) {
-            return json;
-        }
-        try {
-            ObjectNode node = (ObjectNode) objectMapper.readTree(json);
-            if (originalImagePath != null) {
-                node.put("image", originalImagePath.toAbsolutePath().toString());
-            }
-            if (boxedImagePath != null) {
-                node.put("boxed_image", boxedImagePath.toAbsolutePath().toString());
-            }
-            return objectMapper.writeValueAsString(node);
-        } catch (Exception e) {
-            logger.warn("Failed to adjust JSON paths for annotation {}", annotation != null ? annotation.getId() : "unknown", e);
-            return json;
+    private ResultDocument adjustJsonPaths(ResultDocument result, Path originalImagePath, Path boxedImagePath) {
+        if (result == null) {
+            return null;
         }
+        return result.withImagePaths(
+                originalImagePath != null ? originalImagePath.toAbsolutePath().toString() : null,
+                boxedImagePath != null ? boxedImagePath.toAbsolutePath().toString() : null);
     }
 
     private boolean refreshBoxedImageWithJava(Annotation annotation, List<AnnotationBox> boxes, Path boxedImagePath,
@@ -731,10 +768,17 @@ public class AnnotationService {
                 formatName = "jpg";
             }
 
-            boolean written = ImageIO.write(outputImage, formatName, boxedImagePath.toFile());
-            if (!written) {
-                logger.warn("ImageIO could not write format {} for {}", formatName, boxedImagePath);
-                return false;
+            // Draw into a side file so the boxed image being served is never half written
+            Path partial = AnalysisFiles.partialFile(boxedImagePath);
+            try {
+                boolean written = ImageIO.write(outputImage, formatName, partial.toFile());
+                if (!written) {
+                    logger.warn("ImageIO could not write format {} for {}", formatName, boxedImagePath);
+                    return false;
+                }
+                AnalysisFiles.moveIntoPlace(partial, boxedImagePath);
+            } finally {
+                Files.deleteIfExists(partial);
             }
 
             logger.info("Refreshed boxed image for annotation {} at {}", annotation.getId(), boxedImagePath);
@@ -1,33 +1,57 @@
 package com.example.transformer_manager_backkend.service;
 
-import java.io.BufferedReader;
-import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.lang.management.ManagementFactory;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.example.transformer_manager_backkend.entity.AnalysisJob;
+import com.example.transformer_manager_backkend.entity.AnalysisResultCacheEntry;
 import com.example.transformer_manager_backkend.entity.Image;
+import com.example.transformer_manager_backkend.entity.Inspection;
 import com.example.transformer_manager_backkend.repository.AnalysisJobRepository;
 import com.example.transformer_manager_backkend.repository.ImageRepository;
+import com.example.transformer_manager_backkend.service.inference.InferenceEngine;
+import com.example.transformer_manager_backkend.service.inference.InferenceProgressListener;
+import com.example.transformer_manager_backkend.service.inference.InferenceRequest;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
 @Service
 public class AnomalyAnalysisService {
@@ -38,29 +62,225 @@ public class AnomalyAnalysisService {
     private final ImageRepository imageRepository;
     private final MLSettingsService mlSettingsService;
     private final ModelFeedbackService modelFeedbackService;
+    private final InferenceEngine inferenceEngine;
+    private final AnalysisResultCacheService resultCache;
+    private final AnalysisArtifactStore artifactStore;
+    private final PreScreenService preScreenService;
     private final ObjectMapper objectMapper;
-    private final ExecutorService executorService;
-
-    @Value("${app.anomaly.model.path:C:/Users/HP/Desktop/Sem 7/Software Design Competition/transformer-image-manager-3/automatic-anamoly-detection/Model_Inference}")
-    private String modelPath;
-
-    @Value("${app.anomaly.venv.path:/mnt/c/Users/HP/Desktop/Sem 7/Software Design Competition/transformer-image-manager-3/automatic-anamoly-detection/.venv}")
-    private String venvPath;
+    private final List<AnalysisWorker> workers = new ArrayList<>();
+    // In-memory wake-up signal; the database stays the durable record of queued work
+    private final Semaphore workAvailable = new Semaphore(0);
+    // Stage of every job this node is running, by job id
+    private final Map<Long, AnalysisJob.AnalysisStage> jobStages = new ConcurrentHashMap<>();
+    // Claimed batches anywhere in the pipeline; their leases are renewed until they are published
+    private final Set<PipelineBatch> inFlight = ConcurrentHashMap.newKeySet();
+    private final Map<PipelineStage, StageMetrics> stageMetrics = new EnumMap<>(PipelineStage.class);
+    private BlockingQueue<PipelineBatch> inferenceQueue;
+    private BlockingQueue<PipelineBatch> publishQueue;
+    private ExecutorService preparationExecutor;
+    private ExecutorService executorService;
+    private ExecutorService publishingExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private ScheduledExecutorService leaseKeeper;
+    // Identity of this backend instance; prefix of every lease owner it hands out
+    private String nodeId;
+
+    // Must be unique per instance when several backends share one database
+    @Value("${app.anomaly.node-id:}")
+    private String configuredNodeId;
 
     @Value("${app.anomaly.temp.dir:./temp/anomaly-analysis}")
     private String tempDir;
 
+    @Value("${app.anomaly.workers:2}")
+    private int workerCount;
+
+    @Value("${app.anomaly.queue.fallback-scan-seconds:60}")
+    private long fallbackScanSeconds;
+
+    @Value("${app.anomaly.lease.duration-seconds:120}")
+    private long leaseDurationSeconds;
+
+    @Value("${app.anomaly.lease.heartbeat-seconds:30}")
+    private long heartbeatSeconds;
+
+    @Value("${app.anomaly.lease.reaper-seconds:30}")
+    private long reaperSeconds;
+
+    @Value("${app.anomaly.lease.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.anomaly.batch.max-size:8}")
+    private int batchMaxSize;
+
+    @Value("${app.anomaly.batch.window-ms:500}")
+    private long batchWindowMs;
+
+    @Value("${app.anomaly.pipeline.prepare-threads:1}")
+    private int prepareThreads;
+
+    @Value("${app.anomaly.pipeline.publish-threads:1}")
+    private int publishThreads;
+
+    // Batches that may wait between two stages before the earlier stage blocks
+    @Value("${app.anomaly.pipeline.queue-capacity:2}")
+    private int pipelineQueueCapacity;
+
     public AnomalyAnalysisService(AnalysisJobRepository analysisJobRepository, ImageRepository imageRepository,
-            MLSettingsService mlSettingsService, ModelFeedbackService modelFeedbackService) {
+            MLSettingsService mlSettingsService, ModelFeedbackService modelFeedbackService,
+            InferenceEngine inferenceEngine, AnalysisResultCacheService resultCache,
+            AnalysisArtifactStore artifactStore, PreScreenService preScreenService,
+            PlatformTransactionManager transactionManager) {
         this.analysisJobRepository = analysisJobRepository;
         this.imageRepository = imageRepository;
         this.mlSettingsService = mlSettingsService;
         this.modelFeedbackService = modelFeedbackService;
+        this.inferenceEngine = inferenceEngine;
+        this.resultCache = resultCache;
+        this.artifactStore = artifactStore;
+        this.preScreenService = preScreenService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
         this.objectMapper = new ObjectMapper();
-        this.executorService = Executors.newSingleThreadExecutor();
+    }
+
+    /**
+     * Start the analysis pipeline: preparation threads claim and stage
+     * batches, the analysis workers run inference, and publishing threads
+     * store the results. Stages hand batches on through bounded queues, so
+     * while one batch is inferring the next is already staged and the
+     * previous one is being saved.
+     */
+    @PostConstruct
+    public void startWorkers() {
+        nodeId = configuredNodeId == null || configuredNodeId.isBlank()
+                ? ManagementFactory.getRuntimeMXBean().getName()
+                : configuredNodeId.trim();
+        int count = Math.max(1, workerCount);
+        int capacity = Math.max(1, pipelineQueueCapacity);
+        inferenceQueue = new ArrayBlockingQueue<>(capacity);
+        publishQueue = new ArrayBlockingQueue<>(capacity);
+        for (PipelineStage stage : PipelineStage.values()) {
+            stageMetrics.put(stage, new StageMetrics());
+        }
+
+        preparationExecutor = stageExecutor("analysis-prepare-", Math.max(1, prepareThreads));
+        executorService = stageExecutor("analysis-worker-", count);
+        publishingExecutor = stageExecutor("analysis-publish-", Math.max(1, publishThreads));
+        for (int i = 1; i <= Math.max(1, prepareThreads); i++) {
+            preparationExecutor.submit(new BatchPreparer(i));
+        }
+        for (int i = 1; i <= count; i++) {
+            AnalysisWorker worker = new AnalysisWorker(i);
+            workers.add(worker);
+            executorService.submit(worker);
+        }
+        for (int i = 1; i <= Math.max(1, publishThreads); i++) {
+            publishingExecutor.submit(new BatchPublisher());
+        }
+        logger.info("Started analysis pipeline on node {}: {} preparation, {} inference, {} publishing thread(s)",
+                nodeId, Math.max(1, prepareThreads), count, Math.max(1, publishThreads));
+
+        leaseKeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "analysis-lease-keeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        leaseKeeper.scheduleWithFixedDelay(this::renewLeases, heartbeatSeconds, Math.max(1, heartbeatSeconds),
+                TimeUnit.SECONDS);
+        // First pass runs immediately so jobs orphaned by a previous crash are picked up at startup
+        leaseKeeper.scheduleWithFixedDelay(this::reapExpiredLeases, 0, Math.max(1, reaperSeconds),
+                TimeUnit.SECONDS);
+    }
+
+    private static ExecutorService stageExecutor(String namePrefix, int threads) {
+        AtomicInteger threadIndex = new AtomicInteger(1);
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Stop the analysis pipeline on shutdown
+     */
+    @PreDestroy
+    public void stopWorkers() {
+        if (executorService == null) {
+            return;
+        }
+        leaseKeeper.shutdownNow();
+        List<ExecutorService> executors = List.of(preparationExecutor, executorService, publishingExecutor);
+        executors.forEach(ExecutorService::shutdownNow);
+        try {
+            for (ExecutorService executor : executors) {
+                if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                    logger.warn("Analysis pipeline threads did not terminate within 10 seconds");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (PipelineBatch batch : inFlight) {
+            try {
+                deleteDirectory(batch.tempJobPath);
+            } catch (Exception e) {
+                logger.warn("Failed to clean up temp directory: {}", batch.tempJobPath);
+            }
+        }
+
+        // Interrupted jobs go straight back to the queue instead of waiting for their leases to expire
+        try {
+            int released = analysisJobRepository.releaseLeases(nodeId + "/", LocalDateTime.now());
+            if (released > 0) {
+                logger.info("Returned {} in-flight analysis job(s) to the queue", released);
+            }
+        } catch (Exception e) {
+            logger.warn("Could not release analysis job leases on shutdown: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Heartbeat: extend the leases of every job in the local pipeline, whether
+     * it is being staged, waiting for a worker, inferring or being published
+     */
+    private void renewLeases() {
+        LocalDateTime leaseExpiresAt = LocalDateTime.now().plusSeconds(leaseDurationSeconds);
+        for (PipelineBatch batch : inFlight) {
+            List<Long> jobIds = batch.jobIds;
+            try {
+                int renewed = analysisJobRepository.renewLeases(jobIds, batch.leaseOwner, leaseExpiresAt);
+                if (renewed < jobIds.size()) {
+                    logger.warn("{} lost the lease on {} of jobs {}", batch.leaseOwner, jobIds.size() - renewed,
+                            jobIds);
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to renew leases for jobs {}: {}", jobIds, e.getMessage());
+            }
+        }
+    }
 
-        // Start the queue processor
-        startQueueProcessor();
+    /**
+     * Requeue PROCESSING jobs whose lease has expired, e.g. because the instance
+     * holding them died. Jobs that keep getting orphaned are failed after
+     * max-attempts claims.
+     */
+    private void reapExpiredLeases() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            int failed = analysisJobRepository.failExpiredLeases(now, Math.max(1, maxAttempts),
+                    "Analysis abandoned after " + Math.max(1, maxAttempts) + " attempts");
+            int requeued = analysisJobRepository.requeueExpiredLeases(now, Math.max(1, maxAttempts));
+            if (failed > 0) {
+                logger.warn("Failed {} orphaned analysis job(s) that ran out of attempts", failed);
+            }
+            if (requeued > 0) {
+                logger.info("Requeued {} analysis job(s) with expired leases", requeued);
+                workAvailable.release(requeued);
+            }
+        } catch (Exception e) {
+            logger.warn("Lease reaper failed: {}", e.getMessage());
+        }
     }
 
     /**
@@ -68,44 +288,259 @@ public class AnomalyAnalysisService {
      */
     @Transactional
     public AnalysisJob queueImageForAnalysis(Image image) {
+        return queueImageForAnalysis(image, AnalysisJob.AnalysisPriority.NORMAL, null);
+    }
+
+    /**
+     * Queue an image for anomaly analysis with a scheduling priority. Jobs are
+     * grouped into fair-queueing flows by submitter and inspection; when no
+     * submitter is given the inspection's conductor is used.
+     */
+    @Transactional
+    public AnalysisJob queueImageForAnalysis(Image image, AnalysisJob.AnalysisPriority priority, String submittedBy) {
         // Check if analysis already exists for this image
         Optional<AnalysisJob> existingJob = analysisJobRepository.findByImage(image);
         if (existingJob.isPresent()) {
+            AnalysisJob job = existingJob.get();
             logger.info("Analysis job already exists for image {}", image.getId());
-            return existingJob.get();
+            // Asking again for a job that is still waiting can only raise its priority
+            if (job.getStatus() == AnalysisJob.AnalysisStatus.QUEUED && priority != null
+                    && priority.getWeight() > effectivePriority(job).getWeight()) {
+                job.setPriority(priority);
+                job = analysisJobRepository.save(job);
+            }
+            return job;
         }
 
         AnalysisJob job = new AnalysisJob(image);
+        job.setPriority(priority != null ? priority : AnalysisJob.AnalysisPriority.NORMAL);
+        Inspection inspection = image.getInspection();
+        if (inspection != null) {
+            job.setInspectionId(inspection.getId());
+        }
+        job.setSubmittedBy(submittedBy != null ? submittedBy : conductorOf(inspection));
 
-        // Set queue position
-        Long queuedCount = analysisJobRepository.countByStatus(AnalysisJob.AnalysisStatus.QUEUED);
-        job.setQueuePosition(queuedCount.intValue() + 1);
+        if (completeByPreScreen(job)) {
+            AnalysisJob savedJob = analysisJobRepository.save(job);
+            logger.info("Pre-screen completed image {} as Normal with job ID {}; PatchCore skipped", image.getId(),
+                    savedJob.getId());
+            return savedJob;
+        }
 
         AnalysisJob savedJob = analysisJobRepository.save(job);
-        logger.info("Queued image {} for analysis with job ID {}", image.getId(), savedJob.getId());
+        logger.info("Queued image {} for analysis with job ID {} ({} priority)", image.getId(), savedJob.getId(),
+                savedJob.getPriority());
 
+        signalWorkAfterCommit();
         return savedJob;
     }
 
+    /**
+     * Complete a new job as Normal if the upload pre-screen is confident the
+     * image has no hot regions. There are no boxes to draw, so the upload
+     * itself is published as the boxed image. Anything that goes wrong here
+     * just leaves the job to PatchCore.
+     */
+    private boolean completeByPreScreen(AnalysisJob job) {
+        Image image = job.getImage();
+        if (!preScreenService.isEnabled() || image.getFilePath() == null) {
+            return false;
+        }
+        Path source = AnalysisResultCacheService.uploadsPath(image.getFilePath());
+        if (!Files.exists(source)) {
+            return false;
+        }
+        PreScreenService.Verdict verdict = preScreenService.screen(source);
+        if (verdict == null || !verdict.isNormal()) {
+            return false;
+        }
+
+        AnalysisResult result;
+        try {
+            ObjectNode json = objectMapper.createObjectNode();
+            json.put("label", "Normal");
+            json.putArray("boxes");
+            ObjectNode details = json.putObject("prescreen");
+            details.put("cold_ratio", verdict.getColdRatio());
+            details.put("hot_ratio", verdict.getHotRatio());
+            details.put("min_cold_ratio", verdict.getMinColdRatio());
+            details.put("max_hot_ratio", verdict.getMaxHotRatio());
+            details.putArray("sampled_size").add(verdict.getSampledWidth()).add(verdict.getSampledHeight());
+            result = copyResult("Normal", objectMapper.writeValueAsString(json), image.getFilePath(),
+                    source.getFileName().toString());
+        } catch (IOException e) {
+            logger.warn("Could not publish pre-screen result for image {}: {}", image.getId(), e.getMessage());
+            return false;
+        }
+
+        job.setSourceImagePath(image.getFilePath());
+        image.setFilePath(result.getBoxedImagePath());
+        imageRepository.save(image);
+
+        job.setResultJson(result.getJsonResult());
+        job.setBoxedImagePath(result.getBoxedImagePath());
+        job.setPreScreened(true);
+        job.setStatus(AnalysisJob.AnalysisStatus.COMPLETED);
+        job.setCompletedAt(LocalDateTime.now());
+        return true;
+    }
+
+    /**
+     * Send a job the pre-screen completed through PatchCore after all. The
+     * image goes back to its original upload and the job rejoins the queue.
+     */
+    @Transactional
+    public Optional<AnalysisJob> requestFullAnalysis(Long jobId, AnalysisJob.AnalysisPriority priority) {
+        Optional<AnalysisJob> jobOpt = analysisJobRepository.findById(jobId);
+        if (jobOpt.isEmpty()) {
+            return Optional.empty();
+        }
+        AnalysisJob job = jobOpt.get();
+        if (!Boolean.TRUE.equals(job.getPreScreened())) {
+            throw new IllegalStateException("Job " + jobId + " was not completed by the pre-screen");
+        }
+
+        Image image = job.getImage();
+        image.setFilePath(job.getSourceImagePath());
+        imageRepository.save(image);
+
+        job.setPreScreened(false);
+        job.setResultJson(null);
+        job.setBoxedImagePath(null);
+        job.setCompletedAt(null);
+        job.setErrorMessage(null);
+        if (priority != null) {
+            job.setPriority(priority);
+        }
+        job.setStatus(AnalysisJob.AnalysisStatus.QUEUED);
+        AnalysisJob savedJob = analysisJobRepository.save(job);
+        logger.info("Analysis job {} requeued for full analysis ({} priority)", jobId, savedJob.getPriority());
+
+        signalWorkAfterCommit();
+        return Optional.of(withQueuePosition(savedJob));
+    }
+
+    /**
+     * Change the priority of a job that is still waiting in the queue
+     */
+    public Optional<AnalysisJob> reprioritize(Long jobId, AnalysisJob.AnalysisPriority priority) {
+        Optional<AnalysisJob> jobOpt = analysisJobRepository.findById(jobId);
+        if (jobOpt.isEmpty()) {
+            return Optional.empty();
+        }
+        if (analysisJobRepository.updateQueuedPriority(jobId, priority) == 0) {
+            throw new IllegalStateException("Only queued jobs can be re-prioritized; job " + jobId + " is "
+                    + jobOpt.get().getStatus());
+        }
+        logger.info("Analysis job {} re-prioritized to {}", jobId, priority);
+        return getAnalysisJobById(jobId);
+    }
+
+    private AnalysisJob.AnalysisPriority effectivePriority(AnalysisJob job) {
+        return job.getPriority() != null ? job.getPriority() : AnalysisJob.AnalysisPriority.NORMAL;
+    }
+
+    private String conductorOf(Inspection inspection) {
+        if (inspection == null) {
+            return null;
+        }
+        if (inspection.getConductedByAdmin() != null) {
+            return inspection.getConductedByAdmin().getUsername();
+        }
+        return inspection.getConductedByUser() != null ? inspection.getConductedByUser().getUsername() : null;
+    }
+
+    /**
+     * Wake an idle worker once the queued job is visible to other transactions
+     */
+    private void signalWorkAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    workAvailable.release();
+                }
+            });
+        } else {
+            workAvailable.release();
+        }
+    }
+
     /**
      * Get analysis job by image
      */
     public Optional<AnalysisJob> getAnalysisJobByImage(Image image) {
-        return analysisJobRepository.findByImage(image);
+        return analysisJobRepository.findByImage(image).map(this::withQueuePosition).map(this::withStage);
     }
 
     /**
      * Get analysis job by ID
      */
     public Optional<AnalysisJob> getAnalysisJobById(Long jobId) {
-        return analysisJobRepository.findById(jobId);
+        return analysisJobRepository.findById(jobId).map(this::withQueuePosition).map(this::withStage);
     }
 
     /**
      * Get all analysis jobs for an inspection
      */
     public List<AnalysisJob> getAnalysisJobsByInspection(Long inspectionId) {
-        return analysisJobRepository.findByInspectionId(inspectionId);
+        List<AnalysisJob> jobs = analysisJobRepository.findByInspectionId(inspectionId);
+        populateQueuePositions(jobs);
+        jobs.forEach(this::withStage);
+        return jobs;
+    }
+
+    /**
+     * Fill in the queue position of a queued job. Positions are derived from
+     * the fair scheduling order at read time, so draining the queue never
+     * rewrites rows.
+     */
+    public AnalysisJob withQueuePosition(AnalysisJob job) {
+        populateQueuePositions(List.of(job));
+        return job;
+    }
+
+    /**
+     * Fill in queue positions for several jobs with a single query
+     */
+    private void populateQueuePositions(List<AnalysisJob> jobs) {
+        List<Long> queuedIds = jobs.stream()
+                .filter(job -> job.getStatus() == AnalysisJob.AnalysisStatus.QUEUED && job.getId() != null)
+                .map(AnalysisJob::getId)
+                .toList();
+        if (queuedIds.isEmpty()) {
+            jobs.forEach(job -> job.setQueuePosition(null));
+            return;
+        }
+
+        Map<Long, Integer> positions = new HashMap<>();
+        List<Object[]> rows = analysisJobRepository.findQueuePositions(queuedIds,
+                AnalysisJob.AnalysisPriority.INTERACTIVE.getVirtualCost(),
+                AnalysisJob.AnalysisPriority.NORMAL.getVirtualCost(),
+                AnalysisJob.AnalysisPriority.BULK.getVirtualCost());
+        for (Object[] row : rows) {
+            positions.put(((Number) row[0]).longValue(), ((Number) row[1]).intValue());
+        }
+        for (AnalysisJob job : jobs) {
+            job.setQueuePosition(positions.get(job.getId()));
+        }
+    }
+
+    /**
+     * Fill in stage and progress of a job this node is running. Jobs running on
+     * another node only report their PROCESSING status.
+     */
+    private AnalysisJob withStage(AnalysisJob job) {
+        AnalysisJob.AnalysisStage stage = job.getStatus() == AnalysisJob.AnalysisStatus.PROCESSING
+                ? jobStages.get(job.getId())
+                : null;
+        job.setStage(stage);
+        if (job.getStatus() == AnalysisJob.AnalysisStatus.COMPLETED) {
+            job.setProgress(100);
+        } else {
+            job.setProgress(stage != null ? stage.getProgress() : null);
+        }
+        return job;
     }
 
     /**
@@ -119,97 +554,448 @@ public class AnomalyAnalysisService {
     }
 
     /**
-     * Start the background queue processor
+     * Get the status of every analysis worker
      */
-    private void startQueueProcessor() {
-        CompletableFuture.runAsync(() -> {
-            while (!Thread.currentThread().isInterrupted()) {
+    public List<WorkerStatus> getWorkerStatuses() {
+        List<WorkerStatus> statuses = new ArrayList<>();
+        for (AnalysisWorker worker : workers) {
+            statuses.add(worker.snapshot());
+        }
+        return statuses;
+    }
+
+    /**
+     * Queue depth and timings of each pipeline stage. The preparation stage
+     * reads from the database queue, so its depth is the number of queued
+     * jobs; the other stages report the batches and jobs waiting for them.
+     */
+    public List<PipelineStageStatus> getPipelineStatus() {
+        List<PipelineStageStatus> statuses = new ArrayList<>();
+        long queuedJobs = analysisJobRepository.countByStatus(AnalysisJob.AnalysisStatus.QUEUED);
+        statuses.add(stageMetrics.get(PipelineStage.PREPARE).snapshot(PipelineStage.PREPARE,
+                Math.max(1, prepareThreads), null, null, queuedJobs));
+        statuses.add(stageMetrics.get(PipelineStage.INFER).snapshot(PipelineStage.INFER, workers.size(),
+                inferenceQueue.size(), Math.max(1, pipelineQueueCapacity), queuedJobCount(inferenceQueue)));
+        statuses.add(stageMetrics.get(PipelineStage.PUBLISH).snapshot(PipelineStage.PUBLISH,
+                Math.max(1, publishThreads), publishQueue.size(), Math.max(1, pipelineQueueCapacity),
+                queuedJobCount(publishQueue)));
+        return statuses;
+    }
+
+    private static long queuedJobCount(BlockingQueue<PipelineBatch> queue) {
+        long jobs = 0;
+        for (PipelineBatch batch : queue) {
+            jobs += batch.jobIds.size();
+        }
+        return jobs;
+    }
+
+    /**
+     * Claim up to {@code limit} queued jobs, in fair scheduling order, under a
+     * lease held by {@code owner}. Rows are locked with FOR UPDATE SKIP LOCKED,
+     * so workers on this and any other node sharing the database never claim
+     * the same job and never wait on each other.
+     */
+    private List<AnalysisJob> claimJobs(String owner, int limit) {
+        List<Long> claimedIds = transactionTemplate.execute(status -> {
+            List<Long> ids = analysisJobRepository.lockQueuedJobIds(limit,
+                    AnalysisJob.AnalysisPriority.INTERACTIVE.getVirtualCost(),
+                    AnalysisJob.AnalysisPriority.NORMAL.getVirtualCost(),
+                    AnalysisJob.AnalysisPriority.BULK.getVirtualCost());
+            if (ids.isEmpty()) {
+                return List.<Long>of();
+            }
+            LocalDateTime now = LocalDateTime.now();
+            analysisJobRepository.claimLockedJobs(ids, owner, nodeId, now, now.plusSeconds(leaseDurationSeconds));
+            return ids;
+        });
+        if (claimedIds == null || claimedIds.isEmpty()) {
+            return List.of();
+        }
+
+        List<AnalysisJob> jobs = new ArrayList<>(analysisJobRepository.findAllById(claimedIds));
+        jobs.sort(Comparator.comparing(AnalysisJob::getCreatedAt).thenComparing(AnalysisJob::getId));
+        return jobs;
+    }
+
+    /**
+     * Largest batch the worker should claim for one inference run
+     */
+    private int maxBatchSize() {
+        return Math.max(1, Math.min(batchMaxSize, inferenceEngine.getMaxBatchSize()));
+    }
+
+    /**
+     * Top up a partially filled batch. If the queue is empty the worker waits up
+     * to the batch window for more uploads to arrive before starting the
+     * inference run.
+     */
+    private List<AnalysisJob> fillBatch(List<AnalysisJob> claimed, String owner) throws InterruptedException {
+        List<AnalysisJob> batch = new ArrayList<>(claimed);
+        int maxSize = maxBatchSize();
+        long deadline = System.currentTimeMillis() + Math.max(0, batchWindowMs);
+
+        while (batch.size() < maxSize) {
+            List<AnalysisJob> next = claimJobs(owner, maxSize - batch.size());
+            if (!next.isEmpty()) {
+                batch.addAll(next);
+                continue;
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0 || !workAvailable.tryAcquire(remaining, TimeUnit.MILLISECONDS)) {
+                break;
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Preparation stage: reset the claimed jobs, read the ML settings and the
+     * feedback payload once for the batch, resolve cached results and
+     * duplicates, and stage the remaining images for the inference stage.
+     * Failures are recorded on the batch so the publishing stage can fail its
+     * jobs; nothing here touches the inference engine.
+     */
+    private void prepareBatch(PipelineBatch batch) {
+        logger.info("Preparing {} analysis job(s) for one inference run: {}", batch.jobIds.size(), batch.jobIds);
+        try {
+            // Clean up and create fresh directories
+            if (Files.exists(batch.tempJobPath)) {
+                deleteDirectory(batch.tempJobPath);
+            }
+            Files.createDirectories(batch.inputDir);
+            Files.createDirectories(batch.outputDir);
+
+            // Load current ML tuning knobs
+            batch.sensitivity = mlSettingsService.getDetectionSensitivity();
+            double learningRate = mlSettingsService.getFeedbackLearningRate();
+            batch.feedbackPayload = modelFeedbackService.buildFeedbackPayload(learningRate);
+            batch.feedbackVersion = batch.feedbackPayload.getVersion();
+            batch.cascade = mlSettingsService.getCascadeSettings();
+
+            Map<String, BatchEntry> firstByHash = new HashMap<>();
+            for (BatchEntry entry : batch.entries) {
                 try {
-                    processNextJob();
-                    Thread.sleep(5000); // Check every 5 seconds
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                } catch (Exception e) {
-                    logger.error("Error in queue processor", e);
-                    try {
-                        Thread.sleep(10000); // Wait 10 seconds before retrying
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        break;
+                    resolveSource(entry);
+                    if (reuseCachedResult(entry, batch.sensitivity, batch.feedbackVersion, batch.cascade)) {
+                        continue;
+                    }
+                    BatchEntry first = entry.contentHash != null
+                            ? firstByHash.putIfAbsent(entry.contentHash, entry)
+                            : null;
+                    if (first != null) {
+                        // Same pixels as an earlier job in this batch: run them once
+                        entry.duplicateOf = first;
                     }
+                } catch (IOException e) {
+                    entry.error = e;
+                }
+            }
+
+            batch.staged = inferenceEngine.readsStagedFiles();
+            Set<String> stagedBaseNames = new HashSet<>();
+            for (BatchEntry entry : batch.entries) {
+                if (entry.result != null || entry.error != null || entry.duplicateOf != null) {
+                    continue;
+                }
+                try {
+                    stageImage(entry, batch.inputDir, stagedBaseNames, batch.staged);
+                    batch.toInfer.add(entry);
+                    setStage(entry, AnalysisJob.AnalysisStage.STAGED);
+                } catch (IOException e) {
+                    entry.error = e;
                 }
             }
-        }, executorService);
+        } catch (Exception e) {
+            logger.error("Preparing analysis jobs {} failed", batch.jobIds, e);
+            batch.failure = e;
+        }
     }
 
     /**
-     * Process the next job in the queue
+     * Inference stage: run everything the preparation stage staged through
+     * the inference engine. Results are only located here; parsing and
+     * saving them is left to the publishing stage.
      */
-    @Transactional
-    private void processNextJob() {
-        Optional<AnalysisJob> nextJob = analysisJobRepository.findNextQueuedJob();
-        if (nextJob.isEmpty()) {
-            return;
+    private void inferBatch(PipelineBatch batch) throws InterruptedException {
+        List<BatchEntry> toInfer = batch.toInfer;
+        logger.info("Running inference for {} analysis job(s): {}", toInfer.size(),
+                toInfer.stream().map(entry -> entry.job.getId()).toList());
+        try {
+            BatchProgress progress = new BatchProgress(toInfer);
+            toInfer.forEach(entry -> setStage(entry, AnalysisJob.AnalysisStage.LOADING_MODEL));
+            if (batch.cascade.isEnabled()) {
+                runCascade(batch.tempJobPath, batch.inputDir, toInfer, batch.staged, batch.sensitivity,
+                        batch.feedbackPayload, batch.cascade, progress);
+            } else {
+                runInference(batch.inputDir, batch.outputDir, unstagedImages(toInfer, batch.staged),
+                        batch.sensitivity, batch.feedbackPayload, null, progress);
+                assignOutput(toInfer, batch.outputDir, AnalysisJob.InferencePass.SINGLE, null);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Inference run failed for analysis jobs {}", batch.jobIds, e);
+            batch.failure = e;
         }
+    }
 
-        AnalysisJob job = nextJob.get();
-        logger.info("Processing analysis job {}", job.getId());
-
-        // Update status to processing
-        job.setStatus(AnalysisJob.AnalysisStatus.PROCESSING);
-        job.setStartedAt(LocalDateTime.now());
-        analysisJobRepository.save(job);
+    /**
+     * Publishing stage: parse and keep the results of the inference run, give
+     * duplicates their copies and record the outcome of every job. The batch
+     * leaves the pipeline here.
+     */
+    private void publishBatch(PipelineBatch batch) {
+        try {
+            collectResults(batch.entries, batch.sensitivity, batch.feedbackVersion);
+            copyDuplicateResults(batch.entries);
+            if (batch.failure != null) {
+                for (BatchEntry entry : batch.entries) {
+                    if (entry.result == null && entry.error == null) {
+                        entry.error = batch.failure;
+                    }
+                }
+            }
+            for (BatchEntry entry : batch.entries) {
+                completeJob(entry);
+            }
+        } finally {
+            inFlight.remove(batch);
+            cleanUp(batch);
+            AnalysisWorker worker = batch.inferredBy;
+            if (worker != null) {
+                for (BatchEntry entry : batch.entries) {
+                    if (entry.job.getStatus() == AnalysisJob.AnalysisStatus.COMPLETED) {
+                        worker.jobsCompleted.incrementAndGet();
+                    } else {
+                        worker.jobsFailed.incrementAndGet();
+                    }
+                }
+            }
+        }
+    }
 
+    /**
+     * Queue a batch for the next stage, blocking while that stage is backed
+     * up. A batch that cannot be handed on because the node is shutting down
+     * is dropped with its leases left to be released or reaped.
+     */
+    private void handOff(BlockingQueue<PipelineBatch> queue, PipelineBatch batch) throws InterruptedException {
+        batch.enqueuedAt = System.nanoTime();
         try {
-            // Perform the actual analysis
-            AnalysisResult result = runAnomalyAnalysis(job.getImage());
+            queue.put(batch);
+        } catch (InterruptedException e) {
+            abandon(batch);
+            throw e;
+        }
+    }
 
-            // IMPORTANT: Update the image's file path to point to the boxed image
-            job.getImage().setFilePath(result.getBoxedImagePath());
+    /**
+     * Drop a batch without recording any outcome for its jobs
+     */
+    private void abandon(PipelineBatch batch) {
+        inFlight.remove(batch);
+        batch.jobIds.forEach(jobStages::remove);
+        cleanUp(batch);
+    }
 
-            // Save the updated image to the database
-            imageRepository.save(job.getImage());
+    private void cleanUp(PipelineBatch batch) {
+        try {
+            deleteDirectory(batch.tempJobPath);
+        } catch (Exception e) {
+            logger.warn("Failed to clean up temp directory: {}", batch.tempJobPath, e);
+        }
+    }
+
+    /**
+     * Record the outcome of a single job from a batch. The outcome is written
+     * by one update that also checks the worker still holds the job's lease,
+     * so nothing is written if the job was requeued or claimed elsewhere in
+     * the meantime.
+     */
+    private void completeJob(BatchEntry entry) {
+        AnalysisJob job = entry.job;
+        String owner = job.getLeaseOwner();
+        try {
+            if (entry.result == null) {
+                throw entry.error != null ? entry.error : new IOException("No analysis result produced");
+            }
+            AnalysisResult result = entry.result;
 
             // Update job with results
             job.setResultJson(result.getJsonResult());
             job.setBoxedImagePath(result.getBoxedImagePath());
             job.setStatus(AnalysisJob.AnalysisStatus.COMPLETED);
             job.setCompletedAt(LocalDateTime.now());
-
-            logger.info("Completed analysis job {} with label: {}", job.getId(), result.getLabel());
-
         } catch (Exception e) {
             logger.error("Failed to process analysis job {}", job.getId(), e);
             job.setStatus(AnalysisJob.AnalysisStatus.FAILED);
             job.setErrorMessage(e.getMessage());
             job.setCompletedAt(LocalDateTime.now());
+        }
+
+        int updated;
+        try {
+            updated = transactionTemplate.execute(status -> {
+                int rows = analysisJobRepository.completeLeasedJob(job, owner, LocalDateTime.now());
+                if (rows > 0 && job.getStatus() == AnalysisJob.AnalysisStatus.COMPLETED) {
+                    // IMPORTANT: Update the image's file path to point to the boxed image
+                    job.getImage().setFilePath(job.getBoxedImagePath());
+                    imageRepository.save(job.getImage());
+                }
+                return rows;
+            });
         } finally {
-            analysisJobRepository.save(job);
-            updateQueuePositions();
+            jobStages.remove(job.getId());
+        }
+
+        if (updated == 0) {
+            logger.warn("Lease on analysis job {} was lost; discarding this worker's result", job.getId());
+            job.setStatus(AnalysisJob.AnalysisStatus.QUEUED);
+            return;
+        }
+        job.setLeaseOwner(null);
+        job.setLeaseExpiresAt(null);
+        if (job.getStatus() == AnalysisJob.AnalysisStatus.COMPLETED) {
+            logger.info("Completed analysis job {} with label: {}", job.getId(), entry.result.getLabel());
         }
     }
 
     /**
-     * Update queue positions after a job is completed
+     * Give every duplicate in a batch its own copy of the result computed for
+     * the first job with the same image
      */
-    @Transactional
-    private void updateQueuePositions() {
-        List<AnalysisJob> queuedJobs = analysisJobRepository
-                .findByStatusOrderByCreatedAtAsc(AnalysisJob.AnalysisStatus.QUEUED);
-        for (int i = 0; i < queuedJobs.size(); i++) {
-            AnalysisJob job = queuedJobs.get(i);
-            job.setQueuePosition(i + 1);
-            analysisJobRepository.save(job);
+    private void copyDuplicateResults(List<BatchEntry> entries) {
+        for (BatchEntry entry : entries) {
+            if (entry.duplicateOf == null) {
+                continue;
+            }
+            BatchEntry first = entry.duplicateOf;
+            if (first.result == null) {
+                entry.error = first.error != null ? first.error : new IOException("No analysis result produced");
+                continue;
+            }
+            try {
+                entry.result = copyResult(first.result.getLabel(), first.result.getJsonResult(),
+                        first.result.getBoxedImagePath(), entry.fileName);
+                entry.job.setReusedFromJobId(first.job.getId());
+                entry.job.setInferencePass(first.job.getInferencePass());
+                entry.job.setInferenceSize(first.job.getInferenceSize());
+                entry.job.setFeedbackVersion(first.job.getFeedbackVersion());
+                copyArtifacts(first.job, entry);
+            } catch (IOException e) {
+                entry.error = e;
+            }
+        }
+    }
+
+    /**
+     * Two-resolution inference: run the whole batch at the cascade's small
+     * input size, keep the results that look normal and run only the rest
+     * again at full size. Images the first pass produced nothing for get the
+     * full pass too.
+     */
+    private void runCascade(Path tempJobPath, Path inputDir, List<BatchEntry> entries, boolean staged,
+            double sensitivity, ModelFeedbackService.FeedbackPayload feedbackPayload, InferenceCascade cascade,
+            BatchProgress progress) throws IOException, InterruptedException {
+        int firstPassSize = cascade.getFirstPassSize();
+        Path firstOutputDir = tempJobPath.resolve("output-first");
+        Files.createDirectories(firstOutputDir);
+        runInference(inputDir, firstOutputDir, unstagedImages(entries, staged), sensitivity, feedbackPayload,
+                firstPassSize, progress);
+
+        List<BatchEntry> kept = new ArrayList<>();
+        List<BatchEntry> escalated = new ArrayList<>();
+        for (BatchEntry entry : entries) {
+            if (cascade.needsFullPass(readStagedResult(firstOutputDir, entry))) {
+                escalated.add(entry);
+            } else {
+                kept.add(entry);
+            }
+        }
+        logger.info("Cascade pass 1 at size {}: {} of {} image(s) need a full-size pass", firstPassSize,
+                escalated.size(), entries.size());
+        assignOutput(kept, firstOutputDir, AnalysisJob.InferencePass.CASCADE_FIRST, firstPassSize);
+        if (escalated.isEmpty()) {
+            return;
+        }
+
+        // The second run sees only the escalated images
+        Path fullInputDir = tempJobPath.resolve("input-full");
+        Path fullOutputDir = tempJobPath.resolve("output");
+        Files.createDirectories(fullInputDir);
+        if (staged) {
+            for (BatchEntry entry : escalated) {
+                Files.move(inputDir.resolve(entry.stagedFileName), fullInputDir.resolve(entry.stagedFileName));
+            }
         }
+        runInference(fullInputDir, fullOutputDir, unstagedImages(escalated, staged), sensitivity, feedbackPayload,
+                null, progress);
+        assignOutput(escalated, fullOutputDir, AnalysisJob.InferencePass.CASCADE_FULL, null);
     }
 
     /**
-     * Run the actual anomaly analysis using the WSL script
+     * Result JSON the engine wrote for an entry, or null if there is none
      */
-    private AnalysisResult runAnomalyAnalysis(Image image) throws IOException, InterruptedException {
-        // Get the original image path and fix it
-        String imageFilePath = image.getFilePath();
+    private JsonNode readStagedResult(Path outputDir, BatchEntry entry) {
+        Path jsonFile = outputDir.resolve("boxed").resolve(stripExtension(entry.stagedFileName) + ".json");
+        try {
+            return Files.exists(jsonFile) ? objectMapper.readTree(jsonFile.toFile()) : null;
+        } catch (IOException e) {
+            logger.warn("Unreadable result for job {}: {}", entry.job.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Note which inference run's output directory holds the results of these
+     * entries, and which pass and input size produced them
+     */
+    private void assignOutput(List<BatchEntry> entries, Path outputDir, AnalysisJob.InferencePass pass,
+            Integer inferenceSize) {
+        for (BatchEntry entry : entries) {
+            entry.resultDir = outputDir;
+            entry.pass = pass;
+            entry.inferenceSize = inferenceSize;
+        }
+    }
+
+    /**
+     * Publish the results of the inference runs, recording which pass and
+     * input size produced them
+     */
+    private void collectResults(List<BatchEntry> entries, double sensitivity, String feedbackVersion) {
+        for (BatchEntry entry : entries) {
+            if (entry.resultDir == null || entry.result != null || entry.error != null) {
+                continue;
+            }
+            setStage(entry, AnalysisJob.AnalysisStage.SAVING_RESULTS);
+            try {
+                entry.result = parseAnalysisResults(entry.resultDir, entry.stagedFileName, entry.fileName);
+                entry.job.setInferencePass(entry.pass);
+                entry.job.setInferenceSize(entry.inferenceSize);
+                entry.job.setFeedbackVersion(feedbackVersion);
+                retainArtifacts(entry, entry.resultDir);
+                resultCache.store(entry.contentHash, sensitivity, feedbackVersion, entry.inferenceSize,
+                        entry.result.getLabel(), entry.result.getJsonResult(), entry.result.getBoxedImagePath(),
+                        entry.job.getId());
+            } catch (IOException e) {
+                entry.error = e;
+            }
+        }
+    }
+
+    /**
+     * Locate a job's original upload and make sure its image has a content
+     * hash; images uploaded before hashing was introduced are hashed here once
+     */
+    private void resolveSource(BatchEntry entry) throws IOException {
+        Image image = entry.job.getImage();
+
+        // Get the original image path and fix it. Once analysed, the image points
+        // at its boxed result, so a rerun starts from the upload the job recorded.
+        String imageFilePath = entry.job.getSourceImagePath() != null
+                ? entry.job.getSourceImagePath()
+                : image.getFilePath();
+        String sourceImagePath = imageFilePath;
         if (imageFilePath.startsWith("/uploads/")) {
             imageFilePath = imageFilePath.substring("/uploads/".length()); // Remove /uploads/
         }
@@ -222,58 +1008,170 @@ public class AnomalyAnalysisService {
             throw new IOException("Original image file not found: " + originalImagePath.toAbsolutePath());
         }
 
-        // Create unique temporary directories for this analysis job within the project
-        String jobId = "job_" + image.getId() + "_" + System.currentTimeMillis();
-        Path tempJobPath = Paths.get(tempDir, jobId);
-        Path inputDir = tempJobPath.resolve("input");
-        Path outputDir = tempJobPath.resolve("output");
+        if (image.getContentHash() == null) {
+            image.setContentHash(ContentHashing.hashFile(originalImagePath));
+            imageRepository.save(image);
+        }
+
+        entry.sourcePath = originalImagePath;
+        entry.job.setSourceImagePath(sourceImagePath);
+        entry.fileName = originalImagePath.getFileName().toString();
+        entry.contentHash = image.getContentHash();
+    }
 
-        // Clean up and create fresh directories
-        if (Files.exists(tempJobPath)) {
-            deleteDirectory(tempJobPath);
+    /**
+     * Complete a job from the result cache if the same image was already
+     * analysed with the same settings. A full-size result always qualifies;
+     * with the cascade on, so does a first-pass result that would not be
+     * escalated under the current thresholds.
+     */
+    private boolean reuseCachedResult(BatchEntry entry, double sensitivity, String feedbackVersion,
+            InferenceCascade cascade) throws IOException {
+        Integer inferenceSize = null;
+        Optional<AnalysisResultCacheEntry> cached = resultCache.lookup(entry.contentHash, sensitivity,
+                feedbackVersion);
+        if (cached.isEmpty() && cascade.isEnabled()) {
+            inferenceSize = cascade.getFirstPassSize();
+            cached = resultCache.lookup(entry.contentHash, sensitivity, feedbackVersion, inferenceSize)
+                    .filter(hit -> !cascade.needsFullPass(readJson(hit.getResultJson())));
         }
-        Files.createDirectories(inputDir);
-        Files.createDirectories(outputDir);
+        if (cached.isEmpty()) {
+            return false;
+        }
+        AnalysisResultCacheEntry hit = cached.get();
+        AnalysisJob source = hit.getSourceJobId() != null
+                ? analysisJobRepository.findById(hit.getSourceJobId()).orElse(null)
+                : null;
+        entry.result = copyResult(hit.getLabel(), hit.getResultJson(), hit.getBoxedImagePath(), entry.fileName);
+        entry.job.setReusedFromJobId(hit.getSourceJobId());
+        entry.job.setInferenceSize(inferenceSize);
+        entry.job.setFeedbackVersion(feedbackVersion);
+        entry.job.setInferencePass(source != null && source.getInferencePass() != null
+                ? source.getInferencePass()
+                : inferenceSize != null ? AnalysisJob.InferencePass.CASCADE_FIRST : AnalysisJob.InferencePass.SINGLE);
+        copyArtifacts(source, entry);
+        logger.info("Analysis job {} reuses the cached result of job {}", entry.job.getId(), hit.getSourceJobId());
+        return true;
+    }
 
-        // Copy image to temp input directory
-        String fileName = originalImagePath.getFileName().toString();
-        Path tempImagePath = inputDir.resolve(fileName);
-        Files.copy(originalImagePath, tempImagePath, StandardCopyOption.REPLACE_EXISTING);
+    private JsonNode readJson(String json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (IOException e) {
+            return null;
+        }
+    }
 
-        logger.info("Copied image from {} to {}", originalImagePath, tempImagePath);
+    /**
+     * Keep the PatchCore outputs of a freshly analysed image for later
+     * reclassification. Losing them only costs that option, not the result.
+     */
+    private void retainArtifacts(BatchEntry entry, Path outputDir) {
+        try {
+            artifactStore.retain(entry.job, outputDir, stripExtension(entry.stagedFileName));
+        } catch (IOException e) {
+            logger.warn("Could not keep analysis artifacts of job {}: {}", entry.job.getId(), e.getMessage());
+        }
+    }
 
-        // Verify the copied file exists
-        if (!Files.exists(tempImagePath)) {
-            throw new IOException("Failed to copy image to temp directory: " + tempImagePath);
+    /**
+     * Give a job that reuses another job's result a copy of its artifacts too
+     */
+    private void copyArtifacts(AnalysisJob source, BatchEntry entry) {
+        try {
+            artifactStore.copy(source, entry.job);
+        } catch (IOException e) {
+            logger.warn("Could not copy analysis artifacts to job {}: {}", entry.job.getId(), e.getMessage());
         }
-        logger.info("Verified image exists at: {}", tempImagePath.toAbsolutePath());
+    }
+
+    /**
+     * Give a job its own copy of an existing boxed image and result JSON, named
+     * after its own upload like a freshly computed result
+     */
+    private AnalysisResult copyResult(String label, String jsonContent, String sourceBoxedPath, String fileName)
+            throws IOException {
+        String baseName = stripExtension(fileName);
+        Path analysisDir = Paths.get("uploads", "analysis");
+        Files.createDirectories(analysisDir);
+
+        String sourceFileName = AnalysisResultCacheService.uploadsPath(sourceBoxedPath).getFileName().toString();
+        String boxedFileName = baseName + "_boxed" + getFileExtension(sourceFileName);
+        Path targetBoxedPath = analysisDir.resolve(boxedFileName);
+        // A real copy, not a link: editing this job's annotation redraws its boxed image in place
+        AnalysisFiles.copyIntoPlace(AnalysisResultCacheService.uploadsPath(sourceBoxedPath), targetBoxedPath);
+
+        String jsonFileName = baseName + ".json";
+        AnalysisFiles.writeIntoPlace(jsonContent, analysisDir.resolve(jsonFileName));
+
+        if (label == null) {
+            label = objectMapper.readTree(jsonContent).path("label").asText();
+        }
+        return new AnalysisResult(label, "/analysis/" + boxedFileName, jsonContent, "/analysis/" + jsonFileName);
+    }
+
+    /**
+     * Link (or, across file systems, copy) a job's image into the shared batch
+     * input directory. Images whose base name collides with one already staged
+     * get a job-specific name so their outputs cannot overwrite each other.
+     * For an engine that does not read staged files only the name is chosen;
+     * the engine is handed the upload itself.
+     */
+    private void stageImage(BatchEntry entry, Path inputDir, Set<String> stagedBaseNames, boolean link)
+            throws IOException {
+        String fileName = entry.fileName;
+        String stagedFileName = fileName;
+        if (!stagedBaseNames.add(stripExtension(fileName))) {
+            stagedFileName = "job" + entry.job.getId() + "_" + fileName;
+            stagedBaseNames.add(stripExtension(stagedFileName));
+        }
+        if (!link) {
+            entry.stagedFileName = stagedFileName;
+            return;
+        }
+
+        // Uploads are never rewritten, so the engine can read them through a link
+        Path tempImagePath = inputDir.resolve(stagedFileName);
+        boolean linked = AnalysisFiles.linkOrCopy(entry.sourcePath, tempImagePath);
 
-        // Get the current working directory and convert to WSL path for relative paths
-        // to work
-        Path currentDir = Paths.get(".").toAbsolutePath().normalize();
-        String projectRootWSL = convertToWSLPath(currentDir.toString());
+        // Verify the staged file exists
+        if (!Files.exists(tempImagePath)) {
+            throw new IOException("Failed to stage image in temp directory: " + tempImagePath);
+        }
+        logger.info("Staged image for job {} from {} to {} ({})", entry.job.getId(), entry.sourcePath, tempImagePath,
+                linked ? "linked" : "copied");
 
-        // Convert relative paths to be relative from project root
-        Path relativeInputDir = currentDir.relativize(inputDir.toAbsolutePath());
-        Path relativeOutputDir = currentDir.relativize(outputDir.toAbsolutePath());
+        entry.stagedFileName = stagedFileName;
+    }
 
-        String wslInputDir = projectRootWSL + "/" + relativeInputDir.toString().replace('\\', '/');
-        String wslOutputDir = projectRootWSL + "/" + relativeOutputDir.toString().replace('\\', '/');
+    /**
+     * The entries' uploads under their staged names, for an engine that does
+     * not read staged files; empty if they were staged
+     */
+    private static List<InferenceRequest.Image> unstagedImages(List<BatchEntry> entries, boolean staged) {
+        if (staged) {
+            return List.of();
+        }
+        return entries.stream()
+                .map(entry -> new InferenceRequest.Image(entry.stagedFileName, entry.sourcePath))
+                .toList();
+    }
 
-        // Load current ML tuning knobs
-        double sensitivity = mlSettingsService.getDetectionSensitivity();
-        double learningRate = mlSettingsService.getFeedbackLearningRate();
-        ModelFeedbackService.FeedbackPayload feedbackPayload = modelFeedbackService.buildFeedbackPayload(learningRate);
+    /**
+     * Hand everything staged in the input directory, or the given unstaged
+     * images, to the configured inference engine
+     */
+    private void runInference(Path inputDir, Path outputDir, List<InferenceRequest.Image> images, double sensitivity,
+            ModelFeedbackService.FeedbackPayload feedbackPayload, Integer size, InferenceProgressListener progress)
+            throws IOException, InterruptedException {
         ModelFeedbackService.FeedbackSummary feedbackSummary = feedbackPayload.getSummary();
 
-        Path feedbackFile = tempJobPath.resolve("feedback_adjustments.json");
-        Files.writeString(feedbackFile, feedbackPayload.toJsonString(), StandardCharsets.UTF_8);
-        Path relativeFeedbackPath = currentDir.relativize(feedbackFile.toAbsolutePath());
-        String wslFeedbackPath = projectRootWSL + "/" + relativeFeedbackPath.toString().replace('\\', '/');
+        Path feedbackFile = feedbackPayload.getFile();
 
         logger.info("Using detection sensitivity: {}", sensitivity);
-        logger.info("Feedback learning rate: {}", learningRate);
-        logger.info("Feedback adjustment global bias: {}", feedbackSummary.getGlobalAdjustment());
+        logger.info("Feedback learning rate: {}", feedbackSummary.getLearningRate());
+        logger.info("Feedback adjustment global bias: {} (payload {})", feedbackSummary.getGlobalAdjustment(),
+                feedbackPayload.getVersion().substring(0, 12));
         if (feedbackPayload.hasAdjustments()) {
             logger.info("Applying {} label adjustments from feedback", feedbackSummary.getLabelFeedback().size());
             feedbackSummary.getLabelFeedback().stream().limit(3)
@@ -286,66 +1184,13 @@ public class AnomalyAnalysisService {
         } else {
             logger.info("No user feedback adjustments available yet.");
         }
-        logger.info("Project root (Windows): {}", currentDir);
-        logger.info("Project root (WSL): {}", projectRootWSL);
-        logger.info("Input directory (Windows): {}", inputDir.toAbsolutePath());
-        logger.info("Input directory (WSL): {}", wslInputDir);
-        logger.info("Output directory (Windows): {}", outputDir.toAbsolutePath());
-        logger.info("Output directory (WSL): {}", wslOutputDir);
-        logger.info("Feedback payload (WSL path): {}", wslFeedbackPath);
-
-        // Prepare WSL command with sensitivity and feedback adjustments
-        String wslCommand = String.format(
-                "wsl --cd \"/mnt/c/Users/HP/Desktop/Sem 7/Software Design Competition/transformer-image-manager-3/automatic-anamoly-detection/Model_Inference\" -- ./run_inference.sh --venv \"%s\" --input \"%s\" --outdir \"%s\" --sensitivity %.2f --feedback \"%s\"",
-                venvPath,
-                wslInputDir,
-                wslOutputDir,
-                sensitivity,
-                wslFeedbackPath);
-        logger.info("Running WSL command: {}", wslCommand);
-
-        // Execute the command
-        ProcessBuilder processBuilder = new ProcessBuilder("cmd", "/c", wslCommand);
-        processBuilder.directory(new File(modelPath));
-        Process process = processBuilder.start();
-
-        // Capture output
-        StringBuilder output = new StringBuilder();
-        StringBuilder error = new StringBuilder();
-
-        try (BufferedReader outputReader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-                BufferedReader errorReader = new BufferedReader(new InputStreamReader(process.getErrorStream()))) {
-
-            String line;
-            while ((line = outputReader.readLine()) != null) {
-                output.append(line).append("\n");
-                logger.debug("Analysis output: {}", line);
-            }
-
-            while ((line = errorReader.readLine()) != null) {
-                error.append(line).append("\n");
-                if (!line.trim().isEmpty()) {
-                    logger.warn("Analysis error: {}", line);
-                }
-            }
-        }
-
-        int exitCode = process.waitFor();
-        if (exitCode != 0) {
-            throw new IOException("Analysis failed with exit code " + exitCode + ": " + error.toString());
-        }
-
-        // Parse results
-        AnalysisResult result = parseAnalysisResults(outputDir, fileName, image);
-
-        // Clean up temp directories
-        try {
-            deleteDirectory(tempJobPath);
-        } catch (Exception e) {
-            logger.warn("Failed to clean up temp directory: {}", tempJobPath, e);
-        }
+        logger.info("Input directory: {}", inputDir.toAbsolutePath());
+        logger.info("Output directory: {}", outputDir.toAbsolutePath());
+        logger.info("Running {} inference engine{}", inferenceEngine.getName(),
+                size != null ? " at size " + size : "");
 
-        return result;
+        inferenceEngine.run(new InferenceRequest(inputDir, outputDir, sensitivity, feedbackFile, size, progress,
+                images));
     }
 
     /**
@@ -368,24 +1213,28 @@ public class AnomalyAnalysisService {
     /**
      * Parse the analysis results from the output directory
      */
-    private AnalysisResult parseAnalysisResults(Path outputDir, String fileName, Image originalImage)
+    private AnalysisResult parseAnalysisResults(Path outputDir, String stagedFileName, String fileName)
             throws IOException {
-        String baseName = fileName.substring(0, fileName.lastIndexOf('.'));
+        String stagedBaseName = stripExtension(stagedFileName);
+        String baseName = stripExtension(fileName);
 
         // Look for JSON result file
-        Path jsonFile = outputDir.resolve("boxed").resolve(baseName + ".json");
+        Path jsonFile = outputDir.resolve("boxed").resolve(stagedBaseName + ".json");
         if (!Files.exists(jsonFile)) {
             throw new IOException("JSON result file not found: " + jsonFile);
         }
 
         // Look for boxed image
         Path boxedImageDir = outputDir.resolve("boxed");
-        Optional<Path> boxedImagePath = Files.list(boxedImageDir)
-                .filter(path -> path.getFileName().toString().startsWith(baseName + "_boxed"))
-                .findFirst();
+        Optional<Path> boxedImagePath;
+        try (Stream<Path> boxedFiles = Files.list(boxedImageDir)) {
+            boxedImagePath = boxedFiles
+                    .filter(path -> path.getFileName().toString().startsWith(stagedBaseName + "_boxed"))
+                    .findFirst();
+        }
 
         if (boxedImagePath.isEmpty()) {
-            throw new IOException("Boxed image not found for: " + baseName);
+            throw new IOException("Boxed image not found for: " + stagedBaseName);
         }
 
         // Read JSON results
@@ -398,15 +1247,15 @@ public class AnomalyAnalysisService {
         Path analysisDir = Paths.get("uploads", "analysis");
         Files.createDirectories(analysisDir);
 
-        // Copy boxed image to uploads directory, replacing the original
+        // Move boxed image to uploads directory, atomically replacing the original
         String boxedFileName = baseName + "_boxed" + getFileExtension(fileName);
         Path targetBoxedPath = analysisDir.resolve(boxedFileName);
-        Files.copy(boxedImagePath.get(), targetBoxedPath, StandardCopyOption.REPLACE_EXISTING);
+        AnalysisFiles.moveIntoPlace(boxedImagePath.get(), targetBoxedPath);
 
-        // Copy JSON file to uploads directory
+        // Move JSON file to uploads directory
         String jsonFileName = baseName + ".json";
         Path targetJsonPath = analysisDir.resolve(jsonFileName);
-        Files.copy(jsonFile, targetJsonPath, StandardCopyOption.REPLACE_EXISTING);
+        AnalysisFiles.moveIntoPlace(jsonFile, targetJsonPath);
 
         // Return the web-accessible path (without /uploads prefix since FileController
         // adds it)
@@ -416,6 +1265,14 @@ public class AnomalyAnalysisService {
         return new AnalysisResult(label, webBoxedPath, jsonContent, webJsonPath);
     }
 
+    /**
+     * Strip the extension from a file name
+     */
+    private String stripExtension(String fileName) {
+        int lastDot = fileName.lastIndexOf('.');
+        return lastDot > 0 ? fileName.substring(0, lastDot) : fileName;
+    }
+
     /**
      * Get file extension
      */
@@ -425,16 +1282,452 @@ public class AnomalyAnalysisService {
     }
 
     /**
-     * Convert Windows path to WSL path
+     * A claimed job travelling through one batched inference run
+     */
+    private static class BatchEntry {
+        private final AnalysisJob job;
+        private Path sourcePath;
+        private String fileName;
+        private String contentHash;
+        private BatchEntry duplicateOf;
+        private String stagedFileName;
+        private Path resultDir;
+        private AnalysisJob.InferencePass pass;
+        private Integer inferenceSize;
+        private AnalysisResult result;
+        private Exception error;
+
+        BatchEntry(AnalysisJob job) {
+            this.job = job;
+        }
+    }
+
+    /**
+     * A claimed batch on its way through the pipeline, with the settings and
+     * feedback payload it was prepared with
+     */
+    private class PipelineBatch {
+        private final String leaseOwner;
+        private final List<BatchEntry> entries = new ArrayList<>();
+        private final List<Long> jobIds;
+        private final Path tempJobPath;
+        private final Path inputDir;
+        private final Path outputDir;
+        private final List<BatchEntry> toInfer = new ArrayList<>();
+        private double sensitivity;
+        private ModelFeedbackService.FeedbackPayload feedbackPayload;
+        private String feedbackVersion;
+        private InferenceCascade cascade;
+        // Whether images are staged in inputDir, or handed to the engine as their uploads
+        private boolean staged = true;
+        private Exception failure;
+        private volatile long enqueuedAt;
+        private volatile AnalysisWorker inferredBy;
+
+        PipelineBatch(String leaseOwner, List<AnalysisJob> jobs) {
+            this.leaseOwner = leaseOwner;
+            for (AnalysisJob job : jobs) {
+                job.setReusedFromJobId(null);
+                job.setInferencePass(null);
+                job.setInferenceSize(null);
+                job.setFeedbackVersion(null);
+                entries.add(new BatchEntry(job));
+                jobStages.put(job.getId(), AnalysisJob.AnalysisStage.STAGING);
+            }
+            this.jobIds = jobs.stream().map(AnalysisJob::getId).toList();
+
+            // Unique temporary directories for this batch within the project
+            String batchId = "batch_" + jobIds.get(0) + "_" + System.currentTimeMillis();
+            this.tempJobPath = Paths.get(tempDir, batchId);
+            this.inputDir = tempJobPath.resolve("input");
+            this.outputDir = tempJobPath.resolve("output");
+        }
+
+        boolean needsInference() {
+            return failure == null && !toInfer.isEmpty();
+        }
+    }
+
+    /**
+     * Move a running job forward to {@code stage}; stages never go backwards,
+     * e.g. when a per-image engine reloads the model for the next image
+     */
+    private void setStage(BatchEntry entry, AnalysisJob.AnalysisStage stage) {
+        jobStages.computeIfPresent(entry.job.getId(),
+                (id, current) -> stage.compareTo(current) > 0 ? stage : current);
+    }
+
+    /**
+     * Moves the jobs of one inference run through their stages as the engine
+     * reports progress. Images are matched by their staged base name.
+     */
+    private class BatchProgress implements InferenceProgressListener {
+        private final Map<String, BatchEntry> entriesByBaseName = new HashMap<>();
+
+        BatchProgress(List<BatchEntry> entries) {
+            for (BatchEntry entry : entries) {
+                if (entry.error == null && entry.stagedFileName != null) {
+                    entriesByBaseName.put(stripExtension(entry.stagedFileName), entry);
+                }
+            }
+        }
+
+        @Override
+        public void modelLoaded() {
+            entriesByBaseName.values().forEach(entry -> setStage(entry, AnalysisJob.AnalysisStage.WAITING_IN_BATCH));
+        }
+
+        @Override
+        public void imageStarted(String imageBaseName) {
+            BatchEntry entry = entriesByBaseName.get(imageBaseName);
+            if (entry != null) {
+                setStage(entry, AnalysisJob.AnalysisStage.INFERRING);
+                logger.debug("Analysis job {} is being inferred", entry.job.getId());
+            }
+        }
+
+        @Override
+        public void imageFinished(String imageBaseName) {
+            BatchEntry entry = entriesByBaseName.get(imageBaseName);
+            if (entry != null) {
+                setStage(entry, AnalysisJob.AnalysisStage.SAVING_RESULTS);
+            }
+        }
+    }
+
+    /**
+     * Preparation thread: claims batches of queued jobs, stages them and
+     * hands them to the inference workers
      */
-    private String convertToWSLPath(String windowsPath) {
-        // Convert C:\path\to\file to /mnt/c/path/to/file
-        if (windowsPath.length() >= 3 && windowsPath.charAt(1) == ':') {
-            char drive = Character.toLowerCase(windowsPath.charAt(0));
-            String path = windowsPath.substring(3).replace('\\', '/');
-            return "/mnt/" + drive + "/" + path;
+    private class BatchPreparer implements Runnable {
+        private final int preparerId;
+        private final String leaseOwner;
+
+        BatchPreparer(int preparerId) {
+            this.preparerId = preparerId;
+            this.leaseOwner = nodeId + "/prepare-" + preparerId;
+        }
+
+        @Override
+        public void run() {
+            StageMetrics metrics = stageMetrics.get(PipelineStage.PREPARE);
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    // Drop stale wake-ups before looking at the queue so a signal raised
+                    // after this point is never lost
+                    workAvailable.drainPermits();
+                    List<AnalysisJob> claimed = claimJobs(leaseOwner, maxBatchSize());
+                    if (claimed.isEmpty()) {
+                        // Park until a job is queued; the timeout is only a recovery scan
+                        workAvailable.tryAcquire(fallbackScanSeconds, TimeUnit.SECONDS);
+                        continue;
+                    }
+                    PipelineBatch batch = new PipelineBatch(leaseOwner, fillBatch(claimed, leaseOwner));
+                    inFlight.add(batch);
+
+                    long startedAt = metrics.begin();
+                    prepareBatch(batch);
+                    metrics.end(batch, startedAt, 0);
+                    handOff(batch.needsInference() ? inferenceQueue : publishQueue, batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (Exception e) {
+                    logger.error("Error in analysis preparer {}", preparerId, e);
+                    try {
+                        Thread.sleep(10000); // Wait 10 seconds before retrying
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Inference worker: takes staged batches, runs them through the
+     * inference engine and hands them to the publishing threads
+     */
+    private class AnalysisWorker implements Runnable {
+        private final int workerId;
+        private volatile WorkerState state = WorkerState.STARTING;
+        private volatile String currentLeaseOwner;
+        private volatile List<Long> currentJobIds = List.of();
+        private volatile LocalDateTime currentJobStartedAt;
+        private volatile LocalDateTime lastActivityAt;
+        private final AtomicLong jobsCompleted = new AtomicLong();
+        private final AtomicLong jobsFailed = new AtomicLong();
+
+        AnalysisWorker(int workerId) {
+            this.workerId = workerId;
+        }
+
+        @Override
+        public void run() {
+            StageMetrics metrics = stageMetrics.get(PipelineStage.INFER);
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    state = WorkerState.IDLE;
+                    PipelineBatch batch = inferenceQueue.take();
+                    long startedAt = metrics.begin();
+                    try {
+                        runStagedBatch(batch);
+                    } catch (InterruptedException e) {
+                        // Shutting down: leave the jobs leased so they are released or reaped, not failed
+                        abandon(batch);
+                        throw e;
+                    } finally {
+                        metrics.end(batch, startedAt, startedAt - batch.enqueuedAt);
+                    }
+                    handOff(publishQueue, batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            state = WorkerState.STOPPED;
+            currentJobIds = List.of();
+        }
+
+        private void runStagedBatch(PipelineBatch batch) throws InterruptedException {
+            state = WorkerState.BUSY;
+            currentLeaseOwner = batch.leaseOwner;
+            currentJobIds = batch.jobIds;
+            currentJobStartedAt = LocalDateTime.now();
+            batch.inferredBy = this;
+            try {
+                inferBatch(batch);
+            } finally {
+                currentLeaseOwner = null;
+                currentJobIds = List.of();
+                currentJobStartedAt = null;
+                lastActivityAt = LocalDateTime.now();
+                state = WorkerState.IDLE;
+            }
+        }
+
+        WorkerStatus snapshot() {
+            return new WorkerStatus(workerId, currentLeaseOwner, state, currentJobIds, currentJobStartedAt,
+                    lastActivityAt, jobsCompleted.get(), jobsFailed.get());
+        }
+    }
+
+    /**
+     * Publishing thread: stores the results of inferred batches and completes
+     * their jobs
+     */
+    private class BatchPublisher implements Runnable {
+        @Override
+        public void run() {
+            StageMetrics metrics = stageMetrics.get(PipelineStage.PUBLISH);
+            while (!Thread.currentThread().isInterrupted()) {
+                PipelineBatch batch;
+                try {
+                    batch = publishQueue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                long startedAt = metrics.begin();
+                try {
+                    publishBatch(batch);
+                } catch (Exception e) {
+                    logger.error("Publishing analysis jobs {} failed", batch.jobIds, e);
+                } finally {
+                    metrics.end(batch, startedAt, startedAt - batch.enqueuedAt);
+                }
+            }
+        }
+    }
+
+    /**
+     * Running counters of one pipeline stage
+     */
+    private static class StageMetrics {
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicLong batches = new AtomicLong();
+        private final AtomicLong jobs = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLong totalWaitNanos = new AtomicLong();
+
+        long begin() {
+            active.incrementAndGet();
+            return System.nanoTime();
+        }
+
+        void end(PipelineBatch batch, long startedAt, long waitNanos) {
+            long elapsed = System.nanoTime() - startedAt;
+            active.decrementAndGet();
+            batches.incrementAndGet();
+            jobs.addAndGet(batch.jobIds.size());
+            totalNanos.addAndGet(elapsed);
+            maxNanos.accumulateAndGet(elapsed, Math::max);
+            totalWaitNanos.addAndGet(Math.max(0, waitNanos));
+        }
+
+        PipelineStageStatus snapshot(PipelineStage stage, int threads, Integer queuedBatches, Integer queueCapacity,
+                long queuedJobs) {
+            long batchCount = batches.get();
+            return new PipelineStageStatus(stage, threads, active.get(), queuedBatches, queuedJobs, queueCapacity,
+                    batchCount, jobs.get(),
+                    batchCount > 0 ? totalNanos.get() / 1e6 / batchCount : 0.0,
+                    maxNanos.get() / 1e6,
+                    batchCount > 0 ? totalWaitNanos.get() / 1e6 / batchCount : 0.0);
+        }
+    }
+
+    /**
+     * Steps of the analysis pipeline, each run by its own threads
+     */
+    public enum PipelineStage {
+        PREPARE,
+        INFER,
+        PUBLISH
+    }
+
+    /**
+     * Pipeline stage status DTO. Times are per batch, in milliseconds; the
+     * wait is how long batches sat in the stage's queue before it took them.
+     */
+    public static class PipelineStageStatus {
+        private final PipelineStage stage;
+        private final int threads;
+        private final int activeThreads;
+        private final Integer queuedBatches;
+        private final long queuedJobs;
+        private final Integer queueCapacity;
+        private final long batchesProcessed;
+        private final long jobsProcessed;
+        private final double averageMillis;
+        private final double maxMillis;
+        private final double averageWaitMillis;
+
+        public PipelineStageStatus(PipelineStage stage, int threads, int activeThreads, Integer queuedBatches,
+                long queuedJobs, Integer queueCapacity, long batchesProcessed, long jobsProcessed,
+                double averageMillis, double maxMillis, double averageWaitMillis) {
+            this.stage = stage;
+            this.threads = threads;
+            this.activeThreads = activeThreads;
+            this.queuedBatches = queuedBatches;
+            this.queuedJobs = queuedJobs;
+            this.queueCapacity = queueCapacity;
+            this.batchesProcessed = batchesProcessed;
+            this.jobsProcessed = jobsProcessed;
+            this.averageMillis = averageMillis;
+            this.maxMillis = maxMillis;
+            this.averageWaitMillis = averageWaitMillis;
+        }
+
+        public PipelineStage getStage() {
+            return stage;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public int getActiveThreads() {
+            return activeThreads;
+        }
+
+        public Integer getQueuedBatches() {
+            return queuedBatches;
+        }
+
+        public long getQueuedJobs() {
+            return queuedJobs;
+        }
+
+        public Integer getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public long getBatchesProcessed() {
+            return batchesProcessed;
+        }
+
+        public long getJobsProcessed() {
+            return jobsProcessed;
+        }
+
+        public double getAverageMillis() {
+            return averageMillis;
+        }
+
+        public double getMaxMillis() {
+            return maxMillis;
+        }
+
+        public double getAverageWaitMillis() {
+            return averageWaitMillis;
+        }
+    }
+
+    public enum WorkerState {
+        STARTING,
+        IDLE,
+        BUSY,
+        STOPPED
+    }
+
+    /**
+     * Worker status DTO
+     */
+    public static class WorkerStatus {
+        private final int workerId;
+        private final String leaseOwner;
+        private final WorkerState state;
+        private final List<Long> currentJobIds;
+        private final LocalDateTime currentJobStartedAt;
+        private final LocalDateTime lastActivityAt;
+        private final long jobsCompleted;
+        private final long jobsFailed;
+
+        public WorkerStatus(int workerId, String leaseOwner, WorkerState state, List<Long> currentJobIds,
+                LocalDateTime currentJobStartedAt, LocalDateTime lastActivityAt, long jobsCompleted, long jobsFailed) {
+            this.workerId = workerId;
+            this.leaseOwner = leaseOwner;
+            this.state = state;
+            this.currentJobIds = currentJobIds;
+            this.currentJobStartedAt = currentJobStartedAt;
+            this.lastActivityAt = lastActivityAt;
+            this.jobsCompleted = jobsCompleted;
+            this.jobsFailed = jobsFailed;
+        }
+
+        public int getWorkerId() {
+            return workerId;
+        }
+
+        public String getLeaseOwner() {
+            return leaseOwner;
+        }
+
+        public WorkerState getState() {
+            return state;
+        }
+
+        public List<Long> getCurrentJobIds() {
+            return currentJobIds;
+        }
+
+        public LocalDateTime getCurrentJobStartedAt() {
+            return currentJobStartedAt;
+        }
+
+        public LocalDateTime getLastActivityAt() {
+            return lastActivityAt;
+        }
+
+        public long getJobsCompleted() {
+            return jobsCompleted;
+        }
+
+        public long getJobsFailed() {
+            return jobsFailed;
         }
-        return windowsPath.replace('\\', '/');
     }
 
     /**
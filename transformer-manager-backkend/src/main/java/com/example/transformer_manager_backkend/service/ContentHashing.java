@@ -0,0 +1,60 @@
+package com.example.transformer_manager_backkend.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 helpers used to recognise identical uploads and payloads
+ */
+public final class ContentHashing {
+
+    private ContentHashing() {
+    }
+
+    /**
+     * Copy an upload to {@code target} and return the hex SHA-256 of its bytes,
+     * computed in the same pass
+     */
+    public static String copyAndHash(InputStream input, Path target) throws IOException {
+        MessageDigest digest = sha256();
+        try (DigestInputStream digestInput = new DigestInputStream(input, digest)) {
+            Files.copy(digestInput, target);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Hex SHA-256 of a file's contents
+     */
+    public static String hashFile(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        try (DigestInputStream digestInput = new DigestInputStream(Files.newInputStream(file), digest)) {
+            digestInput.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Hex SHA-256 of a string's UTF-8 bytes
+     */
+    public static String hashString(String value) {
+        return HexFormat.of().formatHex(sha256().digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every JRE is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
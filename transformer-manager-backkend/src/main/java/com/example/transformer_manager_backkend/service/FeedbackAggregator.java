@@ -0,0 +1,532 @@
+package com.example.transformer_manager_backkend.service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.transformer_manager_backkend.entity.FeedbackLabelAggregate;
+import com.example.transformer_manager_backkend.repository.AnnotationRepository;
+import com.example.transformer_manager_backkend.repository.FeedbackLabelAggregateRepository;
+
+/**
+ * Keeps the per-label feedback totals in feedback_label_aggregates up to date
+ * as annotations change, so the feedback summary is read from one row per
+ * label instead of re-parsing every annotation ever saved. An annotation
+ * contributes, for each label on either side, the difference between its
+ * modified and original boxes; an edit subtracts the annotation's previous
+ * contribution and adds the new one in the same transaction.
+ *
+ * The totals are built once from the annotation history the first time they
+ * are needed on a database that has none, and can be rebuilt at any time,
+ * e.g. after the contribution formula changes. A rebuild reads the history a
+ * page at a time and sums each page on a fork/join pool while the next page
+ * is read, so it holds at most two pages however long the history is.
+ * A rebuild locks the table against changes before it reads the first page
+ * and replaces the totals in the same transaction: saves that have already
+ * added their change commit before it reads, later ones wait and are added to
+ * the new totals, and readers see the old totals until it commits.
+ */
+@Service
+public class FeedbackAggregator {
+
+    private static final Logger logger = LoggerFactory.getLogger(FeedbackAggregator.class);
+
+    // Annotations a page task sums on its own thread before splitting further
+    private static final int ANNOTATIONS_PER_TASK = 16;
+
+    private final AnnotationRepository annotationRepository;
+    private final FeedbackLabelAggregateRepository aggregateRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.annotation.feedback-rebuild.page-size:500}")
+    private int rebuildPageSize = 500;
+
+    // 0 uses every available processor
+    @Value("${app.annotation.feedback-rebuild.parallelism:0}")
+    private int rebuildParallelism;
+
+    // Once the totals are known to have been committed they are never removed, only rebuilt
+    private volatile boolean built;
+
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+    private volatile RebuildStatus rebuildStatus = RebuildStatus.IDLE;
+
+    public FeedbackAggregator(AnnotationRepository annotationRepository,
+            FeedbackLabelAggregateRepository aggregateRepository,
+            PlatformTransactionManager transactionManager) {
+        this.annotationRepository = annotationRepository;
+        this.aggregateRepository = aggregateRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * The current totals of every label
+     */
+    public Totals current() {
+        ensureBuilt();
+        List<FeedbackLabelAggregate> labels = new ArrayList<>();
+        long annotations = 0;
+        for (FeedbackLabelAggregate row : aggregateRepository.findAll()) {
+            if (FeedbackLabelAggregate.ALL_ANNOTATIONS.equals(row.getLabel())) {
+                annotations = row.getSamples();
+            } else {
+                labels.add(row);
+            }
+        }
+        return new Totals((int) annotations, labels);
+    }
+
+    /**
+     * Account for an annotation whose modified boxes changed from
+     * {@code previous} to {@code modified}; {@code previous} is null for a new
+     * annotation, and a side that could not be read is null too. Call after
+     * saving the annotation, inside the transaction that saves it.
+     */
+    @Transactional
+    public void recordChange(ResultBoxes original, ResultBoxes previous, ResultBoxes modified) {
+        if (ensureBuilt()) {
+            // The rebuild read the annotation as it is now saved
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        changes(original, previous, modified).forEach((label, change) -> aggregateRepository.add(label,
+                change.countDelta, change.areaDelta, change.originalArea, change.confidenceDelta, change.samples, now));
+    }
+
+    /**
+     * What has to be added to each stored row, including the annotation
+     * count row, when an annotation's modified result changes; rows that do
+     * not change are left out
+     */
+    Map<String, LabelTotals> changes(String originalJson, String previousJson, String modifiedJson) {
+        return changes(readBoxes(originalJson), previousJson == null ? null : readBoxes(previousJson),
+                readBoxes(modifiedJson));
+    }
+
+    private Map<String, LabelTotals> changes(ResultBoxes original, ResultBoxes previous, ResultBoxes modified) {
+        Map<String, LabelTotals> removed = previous == null ? Map.of() : contribution(original, previous);
+        Map<String, LabelTotals> added = contribution(original, modified);
+
+        Set<String> labels = new HashSet<>(removed.keySet());
+        labels.addAll(added.keySet());
+        Map<String, LabelTotals> changes = new HashMap<>();
+        for (String label : labels) {
+            LabelTotals change = new LabelTotals();
+            change.add(added.get(label), 1);
+            change.add(removed.get(label), -1);
+            if (!change.isZero()) {
+                changes.put(label, change);
+            }
+        }
+        int annotationChange = (added.isEmpty() ? 0 : 1) - (removed.isEmpty() ? 0 : 1);
+        if (annotationChange != 0) {
+            LabelTotals change = new LabelTotals();
+            change.samples = annotationChange;
+            changes.put(FeedbackLabelAggregate.ALL_ANNOTATIONS, change);
+        }
+        return changes;
+    }
+
+    /**
+     * Recompute the totals from every saved annotation, replacing the stored
+     * ones. Returns the number of annotations that contributed. Must run in a
+     * transaction, which holds the table lock until it commits.
+     */
+    @Transactional
+    public synchronized int rebuild() {
+        rebuildStatus = RebuildStatus.started();
+        int parallelism = rebuildParallelism > 0 ? rebuildParallelism : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        PageTotals totals = new PageTotals();
+        long scanned = 0;
+        try {
+            // An annotation saved without its change being added yet is either read below or added after commit
+            aggregateRepository.lockAgainstChanges();
+            long total = annotationRepository.count();
+            rebuildStatus = rebuildStatus.progress(total, 0, 0);
+            Pageable page = PageRequest.of(0, Math.max(1, rebuildPageSize));
+            List<Object[]> results = annotationRepository.findResultPage(0L, page);
+            while (!results.isEmpty()) {
+                ForkJoinTask<PageTotals> pageTotals = pool.submit(new PageTask(results, 0, results.size()));
+                Long lastId = (Long) results.get(results.size() - 1)[0];
+                scanned += results.size();
+                // The next page is read while this one is summed
+                results = results.size() < page.getPageSize() ? List.of()
+                        : annotationRepository.findResultPage(lastId, page);
+                totals.merge(pageTotals.join());
+                rebuildStatus = rebuildStatus.progress(Math.max(total, scanned), scanned, totals.annotations);
+            }
+
+            List<FeedbackLabelAggregate> rows = new ArrayList<>(totals.labels.size() + 1);
+            totals.labels.forEach((label, stats) -> rows.add(stats.toAggregate(label)));
+            rows.add(new FeedbackLabelAggregate(FeedbackLabelAggregate.ALL_ANNOTATIONS, 0, 0, 0, 0,
+                    totals.annotations));
+            aggregateRepository.deleteAllInBatch();
+            aggregateRepository.saveAll(rows);
+        } catch (RuntimeException e) {
+            rebuildStatus = rebuildStatus.failed(e.getMessage());
+            throw e;
+        } finally {
+            pool.shutdownNow();
+        }
+        rebuildStatus = rebuildStatus.progress(scanned, scanned, totals.annotations).completed(totals.labels.size());
+        logger.info("Rebuilt feedback totals for {} labels from {} annotations ({} read) on {} threads",
+                totals.labels.size(), totals.annotations, scanned, parallelism);
+        return totals.annotations;
+    }
+
+    /**
+     * Start a rebuild in the background; false if one is already running.
+     * Its progress is reported by {@link #getRebuildStatus()}.
+     */
+    public boolean startRebuild() {
+        if (!rebuildRequested.compareAndSet(false, true)) {
+            return false;
+        }
+        rebuildStatus = RebuildStatus.started();
+        Thread thread = new Thread(() -> {
+            try {
+                transactionTemplate.executeWithoutResult(status -> rebuild());
+            } catch (RuntimeException e) {
+                logger.error("Feedback totals rebuild failed", e);
+                if (rebuildStatus.getState() != RebuildStatus.State.FAILED) {
+                    // The rebuild itself succeeded, but its transaction did not commit
+                    rebuildStatus = rebuildStatus.failed(e.getMessage());
+                }
+            } finally {
+                rebuildRequested.set(false);
+            }
+        }, "feedback-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    /**
+     * The progress of the running rebuild, or the outcome of the last one
+     */
+    public RebuildStatus getRebuildStatus() {
+        return rebuildStatus;
+    }
+
+    /**
+     * The totals of a page of [id, original, modified] rows, summed on the
+     * given pool
+     */
+    PageTotals sumPage(List<Object[]> rows, ForkJoinPool pool) {
+        return pool.invoke(new PageTask(rows, 0, rows.size()));
+    }
+
+    /**
+     * Build the totals if this database has none yet; true if they were built
+     * just now. The build joins the caller's transaction if there is one, so
+     * a save's own annotation is read, and otherwise commits on its own so
+     * that the emptied table is never visible. The totals are only taken as
+     * built once a later call finds them committed.
+     */
+    private boolean ensureBuilt() {
+        if (built) {
+            return false;
+        }
+        synchronized (this) {
+            if (built) {
+                return false;
+            }
+            if (aggregateRepository.existsById(FeedbackLabelAggregate.ALL_ANNOTATIONS)) {
+                built = true;
+                return false;
+            }
+            transactionTemplate.executeWithoutResult(status -> rebuild());
+            return true;
+        }
+    }
+
+    /**
+     * What one annotation adds to each label's totals: the change in box
+     * count, area and confidence from original to modified, and one sample.
+     * Empty if neither side has boxes or either side cannot be read.
+     */
+    Map<String, LabelTotals> contribution(String originalJson, String modifiedJson) {
+        ResultBoxes original = readBoxes(originalJson);
+        return original == null ? Map.of() : contribution(original, readBoxes(modifiedJson));
+    }
+
+    private Map<String, LabelTotals> contribution(ResultBoxes originalBoxes, ResultBoxes modifiedBoxes) {
+        if (originalBoxes == null || modifiedBoxes == null) {
+            return Map.of();
+        }
+        Map<String, LabelStats> original = extractLabelStats(originalBoxes);
+        Map<String, LabelStats> modified = extractLabelStats(modifiedBoxes);
+
+        Set<String> labels = new HashSet<>(original.keySet());
+        labels.addAll(modified.keySet());
+        Map<String, LabelTotals> contribution = new HashMap<>();
+        for (String label : labels) {
+            LabelStats before = original.getOrDefault(label, LabelStats.EMPTY);
+            LabelStats after = modified.getOrDefault(label, LabelStats.EMPTY);
+            LabelTotals totals = new LabelTotals();
+            totals.countDelta = after.count - before.count;
+            totals.areaDelta = after.areaSum - before.areaSum;
+            totals.originalArea = before.areaSum;
+            totals.confidenceDelta = after.confidenceSum - before.confidenceSum;
+            totals.samples = 1;
+            contribution.put(label, totals);
+        }
+        return contribution;
+    }
+
+    /**
+     * The boxes of a result, or null if it cannot be read
+     */
+    private ResultBoxes readBoxes(String json) {
+        try {
+            return ResultJsonReader.readBoxes(json);
+        } catch (IOException e) {
+            logger.warn("Failed to parse annotation feedback: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private Map<String, LabelStats> extractLabelStats(ResultBoxes boxes) {
+        Map<String, LabelStats> statsMap = new HashMap<>();
+        for (int i = 0; i < boxes.size(); i++) {
+            String label = boxes.getType(i);
+            if (label == null) {
+                continue;
+            }
+            // A blank label would collide with the annotation count row
+            if (label.isBlank()) {
+                label = "Unknown";
+            }
+            int width = Math.max(0, boxes.getWidth(i));
+            int height = Math.max(0, boxes.getHeight(i));
+            double area = (double) width * (double) height;
+            double confidence = boxes.hasConfidence(i) ? boxes.getConfidence(i) : 0.0;
+
+            LabelStats stats = statsMap.computeIfAbsent(label, key -> new LabelStats());
+            stats.count += 1;
+            stats.areaSum += area;
+            stats.confidenceSum += confidence;
+        }
+        return statsMap;
+    }
+
+    /**
+     * Stored totals: the number of annotations with any boxes and one row per
+     * label
+     */
+    public static class Totals {
+        private final int annotations;
+        private final List<FeedbackLabelAggregate> labels;
+
+        Totals(int annotations, List<FeedbackLabelAggregate> labels) {
+            this.annotations = annotations;
+            this.labels = labels;
+        }
+
+        public int getAnnotations() {
+            return annotations;
+        }
+
+        public List<FeedbackLabelAggregate> getLabels() {
+            return labels;
+        }
+    }
+
+    /**
+     * Progress of a rebuild: how many of the annotations have been read, how
+     * many of those contributed, and once done how many labels there are
+     */
+    public static class RebuildStatus {
+        public enum State {
+            IDLE, RUNNING, COMPLETED, FAILED
+        }
+
+        static final RebuildStatus IDLE = new RebuildStatus(State.IDLE, 0, 0, 0, 0, null, null, null);
+
+        private final State state;
+        private final long totalAnnotations;
+        private final long scannedAnnotations;
+        private final long contributingAnnotations;
+        private final int labels;
+        private final LocalDateTime startedAt;
+        private final LocalDateTime finishedAt;
+        private final String error;
+
+        private RebuildStatus(State state, long totalAnnotations, long scannedAnnotations,
+                long contributingAnnotations, int labels, LocalDateTime startedAt, LocalDateTime finishedAt,
+                String error) {
+            this.state = state;
+            this.totalAnnotations = totalAnnotations;
+            this.scannedAnnotations = scannedAnnotations;
+            this.contributingAnnotations = contributingAnnotations;
+            this.labels = labels;
+            this.startedAt = startedAt;
+            this.finishedAt = finishedAt;
+            this.error = error;
+        }
+
+        static RebuildStatus started() {
+            return new RebuildStatus(State.RUNNING, 0, 0, 0, 0, LocalDateTime.now(), null, null);
+        }
+
+        RebuildStatus progress(long total, long scanned, long contributing) {
+            return new RebuildStatus(State.RUNNING, total, scanned, contributing, 0, startedAt, null, null);
+        }
+
+        RebuildStatus completed(int labelCount) {
+            return new RebuildStatus(State.COMPLETED, totalAnnotations, scannedAnnotations, contributingAnnotations,
+                    labelCount, startedAt, LocalDateTime.now(), null);
+        }
+
+        RebuildStatus failed(String message) {
+            return new RebuildStatus(State.FAILED, totalAnnotations, scannedAnnotations, contributingAnnotations,
+                    labels, startedAt, LocalDateTime.now(), message);
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public long getTotalAnnotations() {
+            return totalAnnotations;
+        }
+
+        public long getScannedAnnotations() {
+            return scannedAnnotations;
+        }
+
+        public long getContributingAnnotations() {
+            return contributingAnnotations;
+        }
+
+        public int getLabels() {
+            return labels;
+        }
+
+        public LocalDateTime getStartedAt() {
+            return startedAt;
+        }
+
+        public LocalDateTime getFinishedAt() {
+            return finishedAt;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+
+    /**
+     * Feedback totals of one label, or one annotation's share of them
+     */
+    static class LabelTotals {
+        double countDelta;
+        double areaDelta;
+        double originalArea;
+        double confidenceDelta;
+        long samples;
+
+        void add(LabelTotals other, int sign) {
+            if (other == null) {
+                return;
+            }
+            countDelta += sign * other.countDelta;
+            areaDelta += sign * other.areaDelta;
+            originalArea += sign * other.originalArea;
+            confidenceDelta += sign * other.confidenceDelta;
+            samples += sign * other.samples;
+        }
+
+        boolean isZero() {
+            return countDelta == 0 && areaDelta == 0 && originalArea == 0 && confidenceDelta == 0 && samples == 0;
+        }
+
+        FeedbackLabelAggregate toAggregate(String label) {
+            return new FeedbackLabelAggregate(label, countDelta, areaDelta, originalArea, confidenceDelta, samples);
+        }
+    }
+
+    /**
+     * The summed contributions of some annotations. Merging is associative,
+     * so pages and their halves can be summed in any grouping.
+     */
+    static class PageTotals {
+        final Map<String, LabelTotals> labels = new HashMap<>();
+        int annotations;
+
+        void add(Map<String, LabelTotals> contribution) {
+            if (contribution.isEmpty()) {
+                return;
+            }
+            contribution.forEach((label, stats) -> labels.computeIfAbsent(label, key -> new LabelTotals()).add(stats, 1));
+            annotations++;
+        }
+
+        void merge(PageTotals other) {
+            other.labels.forEach((label, stats) -> labels.computeIfAbsent(label, key -> new LabelTotals()).add(stats, 1));
+            annotations += other.annotations;
+        }
+    }
+
+    /**
+     * Sums rows [from, to) of a page, splitting it in halves until the pieces
+     * are small
+     */
+    private final class PageTask extends RecursiveTask<PageTotals> {
+        private final List<Object[]> rows;
+        private final int from;
+        private final int to;
+
+        PageTask(List<Object[]> rows, int from, int to) {
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected PageTotals compute() {
+            if (to - from <= ANNOTATIONS_PER_TASK) {
+                PageTotals totals = new PageTotals();
+                for (int i = from; i < to; i++) {
+                    Object[] row = rows.get(i);
+                    totals.add(contribution((String) row[1], (String) row[2]));
+                }
+                return totals;
+            }
+            int middle = (from + to) >>> 1;
+            PageTask left = new PageTask(rows, from, middle);
+            left.fork();
+            PageTotals totals = new PageTask(rows, middle, to).compute();
+            totals.merge(left.join());
+            return totals;
+        }
+    }
+
+    private static class LabelStats {
+        static final LabelStats EMPTY = new LabelStats();
+
+        int count = 0;
+        double areaSum = 0.0;
+        double confidenceSum = 0.0;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.transformer_manager_backkend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Two-resolution inference: every image is first run through PatchCore at a
+ * small input size, and only images whose first-pass result looks suspicious
+ * get a second pass at the script's full size. An image is suspicious when it
+ * is not labelled Normal, has more than {@code boxThreshold} boxes, or has a
+ * box more confident than {@code scoreThreshold}. The result JSON carries no
+ * image-level anomaly score, so the highest box confidence stands in for it.
+ */
+public class InferenceCascade {
+
+    private final boolean enabled;
+    private final int firstPassSize;
+    private final double scoreThreshold;
+    private final int boxThreshold;
+
+    public InferenceCascade(boolean enabled, int firstPassSize, double scoreThreshold, int boxThreshold) {
+        this.enabled = enabled;
+        this.firstPassSize = firstPassSize;
+        this.scoreThreshold = scoreThreshold;
+        this.boxThreshold = boxThreshold;
+    }
+
+    /**
+     * Whether a first-pass result must be confirmed at full resolution. A
+     * missing or unreadable result always is.
+     */
+    public boolean needsFullPass(JsonNode firstPassResult) {
+        if (firstPassResult == null || !firstPassResult.hasNonNull("label")) {
+            return true;
+        }
+        if (!"Normal".equals(firstPassResult.get("label").asText())) {
+            return true;
+        }
+        JsonNode boxes = firstPassResult.path("boxes");
+        if (boxes.size() > boxThreshold) {
+            return true;
+        }
+        for (JsonNode box : boxes) {
+            if (box.path("confidence").asDouble(0.0) > scoreThreshold) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * PatchCore input size of the first pass
+     */
+    public int getFirstPassSize() {
+        return firstPassSize;
+    }
+
+    public double getScoreThreshold() {
+        return scoreThreshold;
+    }
+
+    public int getBoxThreshold() {
+        return boxThreshold;
+    }
+}
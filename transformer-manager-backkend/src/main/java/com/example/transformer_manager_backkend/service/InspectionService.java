@@ -16,6 +16,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.example.transformer_manager_backkend.entity.Admin;
+import com.example.transformer_manager_backkend.entity.AnalysisJob;
 import com.example.transformer_manager_backkend.entity.Image;
 import com.example.transformer_manager_backkend.entity.Inspection;
 import com.example.transformer_manager_backkend.entity.TransformerRecord;
@@ -37,6 +38,10 @@ public class InspectionService {
     @Value("${upload.directory}")
     private String uploadDirectory;
 
+    // Uploads with more maintenance images than this are queued as bulk work
+    @Value("${app.anomaly.queue.bulk-threshold:20}")
+    private int bulkThreshold;
+
     public InspectionService(InspectionRepository inspectionRepository,
             TransformerRecordRepository transformerRecordRepository,
             AnomalyAnalysisService anomalyAnalysisService,
@@ -69,9 +74,10 @@ public class InspectionService {
         Inspection savedInspection = inspectionRepository.saveAndFlush(inspection);
 
         // Queue maintenance images for anomaly analysis after saving
+        AnalysisJob.AnalysisPriority priority = analysisPriorityFor(savedInspection.getImages());
         for (Image image : savedInspection.getImages()) {
             if ("Maintenance".equalsIgnoreCase(image.getType())) {
-                anomalyAnalysisService.queueImageForAnalysis(image);
+                anomalyAnalysisService.queueImageForAnalysis(image, priority, null);
             }
         }
 
@@ -112,9 +118,10 @@ public class InspectionService {
         Inspection savedInspection = inspectionRepository.saveAndFlush(inspection);
 
         // Queue maintenance images for anomaly analysis after saving
+        AnalysisJob.AnalysisPriority priority = analysisPriorityFor(savedInspection.getImages());
         for (Image image : savedInspection.getImages()) {
             if ("Maintenance".equalsIgnoreCase(image.getType())) {
-                anomalyAnalysisService.queueImageForAnalysis(image);
+                anomalyAnalysisService.queueImageForAnalysis(image, priority, null);
             }
         }
 
@@ -123,6 +130,19 @@ public class InspectionService {
         return savedInspection;
     }
 
+    /**
+     * Large uploads (e.g. historical imports) are queued as bulk work so they
+     * cannot starve interactive analysis requests
+     */
+    private AnalysisJob.AnalysisPriority analysisPriorityFor(List<Image> images) {
+        long maintenanceCount = images.stream()
+                .filter(image -> "Maintenance".equalsIgnoreCase(image.getType()))
+                .count();
+        return maintenanceCount > bulkThreshold
+                ? AnalysisJob.AnalysisPriority.BULK
+                : AnalysisJob.AnalysisPriority.NORMAL;
+    }
+
     private List<Image> createImageEntities(List<MultipartFile> maintenanceImages, Inspection inspection)
             throws IOException {
         List<Image> imageEntities = new ArrayList<>();
@@ -133,10 +153,11 @@ public class InspectionService {
                 if (!Files.exists(uploadPath))
                     Files.createDirectories(uploadPath);
                 Path filePath = uploadPath.resolve(fileName);
-                Files.copy(imageFile.getInputStream(), filePath);
+                String contentHash = ContentHashing.copyAndHash(imageFile.getInputStream(), filePath);
 
                 Image image = new Image();
                 image.setFilePath("/uploads/" + fileName);
+                image.setContentHash(contentHash);
                 image.setType("Maintenance");
                 image.setInspection(inspection);
 
@@ -197,6 +218,7 @@ public class InspectionService {
         Inspection savedInspection = inspectionRepository.saveAndFlush(inspection);
 
         // Queue new maintenance images for anomaly analysis without breaking the upload flow
+        AnalysisJob.AnalysisPriority priority = analysisPriorityFor(additionalImageEntities);
         for (Image image : additionalImageEntities) {
             if ("Maintenance".equalsIgnoreCase(image.getType())) {
                 try {
@@ -208,7 +230,7 @@ public class InspectionService {
                         }
                     }
                     if (imageToQueue.getId() != null) {
-                        anomalyAnalysisService.queueImageForAnalysis(imageToQueue);
+                        anomalyAnalysisService.queueImageForAnalysis(imageToQueue, priority, null);
                     } else {
                         logger.warn("Skipping anomaly queue for image with file {} because it has no ID", image.getFilePath());
                     }
@@ -248,6 +270,7 @@ public class InspectionService {
         Inspection savedInspection = inspectionRepository.saveAndFlush(inspection);
 
         // Queue new maintenance images for anomaly analysis without failing the request
+        AnalysisJob.AnalysisPriority priority = analysisPriorityFor(additionalImageEntities);
         for (Image image : additionalImageEntities) {
             if ("Maintenance".equalsIgnoreCase(image.getType())) {
                 try {
@@ -259,7 +282,7 @@ public class InspectionService {
                         }
                     }
                     if (imageToQueue.getId() != null) {
-                        anomalyAnalysisService.queueImageForAnalysis(imageToQueue);
+                        anomalyAnalysisService.queueImageForAnalysis(imageToQueue, priority, null);
                     } else {
                         logger.warn("Skipping anomaly queue for image with file {} because it has no ID", image.getFilePath());
                     }
@@ -18,10 +18,23 @@ public class MLSettingsService {
     // Setting keys
     public static final String DETECTION_SENSITIVITY = "detection_sensitivity";
     public static final String FEEDBACK_LEARNING_RATE = "feedback_learning_rate";
+    public static final String CASCADE_ENABLED = "cascade_enabled";
+    public static final String CASCADE_FIRST_PASS_SIZE = "cascade_first_pass_size";
+    public static final String CASCADE_SCORE_THRESHOLD = "cascade_score_threshold";
+    public static final String CASCADE_BOX_THRESHOLD = "cascade_box_threshold";
 
     // Default values
     public static final double DEFAULT_SENSITIVITY = 1.0;
     public static final double DEFAULT_FEEDBACK_LEARNING_RATE = 0.0001; // 0.01%
+    public static final boolean DEFAULT_CASCADE_ENABLED = false;
+    public static final int DEFAULT_CASCADE_FIRST_PASS_SIZE = 128;
+    public static final double DEFAULT_CASCADE_SCORE_THRESHOLD = 0.5;
+    public static final int DEFAULT_CASCADE_BOX_THRESHOLD = 0;
+
+    private static final String CASCADE_ENABLED_DESCRIPTION = "Run PatchCore at a small size first and repeat at full size only for suspicious images.";
+    private static final String CASCADE_FIRST_PASS_SIZE_DESCRIPTION = "PatchCore input size of the cascade's first pass (64-256).";
+    private static final String CASCADE_SCORE_THRESHOLD_DESCRIPTION = "First-pass box confidence above which the image gets a full-size pass (0-1).";
+    private static final String CASCADE_BOX_THRESHOLD_DESCRIPTION = "First-pass box count above which the image gets a full-size pass (0-50).";
 
     private final MLSettingsRepository mlSettingsRepository;
 
@@ -44,6 +57,15 @@ public class MLSettingsService {
                 FEEDBACK_LEARNING_RATE,
                 String.valueOf(DEFAULT_FEEDBACK_LEARNING_RATE),
                 "Fractional learning rate for incorporating human annotation feedback into model confidence (0.00001-0.05).");
+
+        initializeSettingIfMissing(CASCADE_ENABLED, String.valueOf(DEFAULT_CASCADE_ENABLED),
+                CASCADE_ENABLED_DESCRIPTION);
+        initializeSettingIfMissing(CASCADE_FIRST_PASS_SIZE, String.valueOf(DEFAULT_CASCADE_FIRST_PASS_SIZE),
+                CASCADE_FIRST_PASS_SIZE_DESCRIPTION);
+        initializeSettingIfMissing(CASCADE_SCORE_THRESHOLD, String.valueOf(DEFAULT_CASCADE_SCORE_THRESHOLD),
+                CASCADE_SCORE_THRESHOLD_DESCRIPTION);
+        initializeSettingIfMissing(CASCADE_BOX_THRESHOLD, String.valueOf(DEFAULT_CASCADE_BOX_THRESHOLD),
+                CASCADE_BOX_THRESHOLD_DESCRIPTION);
     }
 
     /**
@@ -81,6 +103,20 @@ public class MLSettingsService {
         return DEFAULT_FEEDBACK_LEARNING_RATE;
     }
 
+    /**
+     * Get the two-resolution inference cascade settings
+     */
+    public InferenceCascade getCascadeSettings() {
+        String enabled = mlSettingsRepository.findBySettingKey(CASCADE_ENABLED)
+                .map(MLSettings::getSettingValue)
+                .orElse(String.valueOf(DEFAULT_CASCADE_ENABLED));
+        return new InferenceCascade(
+                Boolean.parseBoolean(enabled.trim()),
+                (int) readNumber(CASCADE_FIRST_PASS_SIZE, DEFAULT_CASCADE_FIRST_PASS_SIZE, 64, 256),
+                readNumber(CASCADE_SCORE_THRESHOLD, DEFAULT_CASCADE_SCORE_THRESHOLD, 0.0, 1.0),
+                (int) readNumber(CASCADE_BOX_THRESHOLD, DEFAULT_CASCADE_BOX_THRESHOLD, 0, 50));
+    }
+
     /**
      * Set detection sensitivity
      */
@@ -108,6 +144,22 @@ public class MLSettingsService {
         logger.info("Updated feedback learning rate to: {}", clamped);
     }
 
+    /**
+     * Set the inference cascade settings; values are clamped to their ranges
+     */
+    @Transactional
+    public void setCascadeSettings(boolean enabled, int firstPassSize, double scoreThreshold, int boxThreshold) {
+        int size = (int) clamp(firstPassSize, 64, 256);
+        double score = clamp(scoreThreshold, 0.0, 1.0);
+        int boxes = (int) clamp(boxThreshold, 0, 50);
+        upsertSetting(CASCADE_ENABLED, String.valueOf(enabled), CASCADE_ENABLED_DESCRIPTION);
+        upsertSetting(CASCADE_FIRST_PASS_SIZE, String.valueOf(size), CASCADE_FIRST_PASS_SIZE_DESCRIPTION);
+        upsertSetting(CASCADE_SCORE_THRESHOLD, String.valueOf(score), CASCADE_SCORE_THRESHOLD_DESCRIPTION);
+        upsertSetting(CASCADE_BOX_THRESHOLD, String.valueOf(boxes), CASCADE_BOX_THRESHOLD_DESCRIPTION);
+        logger.info("Updated inference cascade: enabled={}, firstPassSize={}, scoreThreshold={}, boxThreshold={}",
+                enabled, size, score, boxes);
+    }
+
     /**
      * Get all ML settings
      */
@@ -180,6 +232,19 @@ public class MLSettingsService {
         }
     }
 
+    private double readNumber(String key, double defaultValue, double min, double max) {
+        Optional<MLSettings> setting = mlSettingsRepository.findBySettingKey(key);
+        if (setting.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return clamp(Double.parseDouble(setting.get().getSettingValue()), min, max);
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid {} value: {}, using default", key, setting.get().getSettingValue());
+            return defaultValue;
+        }
+    }
+
     private double clamp(double value, double min, double max) {
         return Math.max(min, Math.min(max, value));
     }
@@ -1,8 +1,7 @@
 package com.example.transformer_manager_backkend.service;
 
-import com.example.transformer_manager_backkend.entity.Annotation;
+import com.example.transformer_manager_backkend.entity.FeedbackLabelAggregate;
 import com.example.transformer_manager_backkend.entity.FeedbackSnapshot;
-import com.example.transformer_manager_backkend.repository.AnnotationRepository;
 import com.example.transformer_manager_backkend.repository.FeedbackSnapshotRepository;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -10,18 +9,23 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 
@@ -34,82 +38,53 @@ public class ModelFeedbackService {
 
     private static final Logger logger = LoggerFactory.getLogger(ModelFeedbackService.class);
 
-    private final AnnotationRepository annotationRepository;
+    // How long payload files of superseded versions are kept for runs still using them
+    private static final Duration PAYLOAD_RETENTION = Duration.ofDays(1);
+
+    private final FeedbackAggregator feedbackAggregator;
     private final FeedbackSnapshotRepository feedbackSnapshotRepository;
     private final ObjectMapper objectMapper;
 
-    public ModelFeedbackService(AnnotationRepository annotationRepository,
+    @Value("${app.anomaly.temp.dir:./temp/anomaly-analysis}")
+    private String tempDir;
+
+    // Most recent payload, handed out again while the feedback is unchanged
+    private volatile FeedbackPayload currentPayload;
+
+    public ModelFeedbackService(FeedbackAggregator feedbackAggregator,
             FeedbackSnapshotRepository feedbackSnapshotRepository) {
-        this.annotationRepository = annotationRepository;
+        this.feedbackAggregator = feedbackAggregator;
         this.feedbackSnapshotRepository = feedbackSnapshotRepository;
         this.objectMapper = new ObjectMapper();
     }
 
     /**
      * Generate summary statistics describing the feedback impact using the provided learning rate.
+     * Reads the per-label totals kept by {@link FeedbackAggregator}, so the cost does not grow with
+     * the number of annotations.
      */
     public FeedbackSummary generateFeedbackSummary(double learningRate) {
-        List<Annotation> annotations = annotationRepository.findAll();
-        Map<String, LabelAggregate> aggregates = new HashMap<>();
-        int annotationSamples = 0;
-
-        for (Annotation annotation : annotations) {
-            if (annotation == null) {
-                continue;
-            }
-
-            try {
-                Map<String, LabelStats> original = extractLabelStats(annotation.getOriginalResultJson());
-                Map<String, LabelStats> updated = extractLabelStats(annotation.getModifiedResultJson());
-
-                if (original.isEmpty() && updated.isEmpty()) {
-                    continue;
-                }
-
-                Set<String> labels = new HashSet<>();
-                labels.addAll(original.keySet());
-                labels.addAll(updated.keySet());
-
-                for (String label : labels) {
-                    LabelStats origStats = Optional.ofNullable(original.get(label)).orElse(LabelStats.empty());
-                    LabelStats newStats = Optional.ofNullable(updated.get(label)).orElse(LabelStats.empty());
-
-                    LabelAggregate aggregate = aggregates.computeIfAbsent(label, key -> new LabelAggregate());
-                    aggregate.totalCountDelta += (newStats.count - origStats.count);
-                    aggregate.totalAreaDelta += (newStats.areaSum - origStats.areaSum);
-                    aggregate.totalOrigArea += origStats.areaSum;
-                    aggregate.totalUserArea += newStats.areaSum;
-                    aggregate.totalConfidenceDelta += (newStats.confidenceSum - origStats.confidenceSum);
-                    aggregate.sampleCount += 1;
-                }
-
-                annotationSamples++;
-            } catch (Exception e) {
-                logger.warn("Failed to parse annotation feedback for annotation {}: {}", annotation.getId(), e.getMessage());
-            }
-        }
-
+        FeedbackAggregator.Totals totals = feedbackAggregator.current();
         List<LabelFeedback> labelFeedback = new ArrayList<>();
         double totalAdjustment = 0.0;
 
-        for (Map.Entry<String, LabelAggregate> entry : aggregates.entrySet()) {
-            String label = entry.getKey();
-            LabelAggregate aggregate = entry.getValue();
-            if (aggregate.sampleCount == 0) {
+        for (FeedbackLabelAggregate aggregate : totals.getLabels()) {
+            long sampleCount = aggregate.getSamples();
+            if (sampleCount <= 0) {
                 continue;
             }
 
-            double avgCountDelta = aggregate.totalCountDelta / aggregate.sampleCount;
-            double avgAreaDelta = aggregate.totalAreaDelta / aggregate.sampleCount;
-            double avgOrigArea = aggregate.totalOrigArea / aggregate.sampleCount;
-            double avgConfidenceDelta = aggregate.totalConfidenceDelta / aggregate.sampleCount;
+            double avgCountDelta = aggregate.getCountDelta() / sampleCount;
+            double avgAreaDelta = aggregate.getAreaDelta() / sampleCount;
+            double avgOrigArea = aggregate.getOriginalArea() / sampleCount;
+            double avgConfidenceDelta = aggregate.getConfidenceDelta() / sampleCount;
 
             double areaRatio;
             if (avgOrigArea > 1e-6) {
                 areaRatio = avgAreaDelta / (avgOrigArea + 1e-6);
-            } else if (aggregate.totalAreaDelta > 0) {
+            } else if (aggregate.getAreaDelta() > 0) {
                 areaRatio = 1.0;
-            } else if (aggregate.totalAreaDelta < 0) {
+            } else if (aggregate.getAreaDelta() < 0) {
                 areaRatio = -1.0;
             } else {
                 areaRatio = 0.0;
@@ -121,31 +96,78 @@ public class ModelFeedbackService {
             double adjustment = clamp(learningRate * combinedSignal, -0.2, 0.2);
 
             LabelFeedback feedback = new LabelFeedback(
-                    label,
+                    aggregate.getLabel(),
                     avgCountDelta,
                     areaRatio,
                     avgConfidenceDelta,
                     adjustment,
-                    aggregate.sampleCount);
+                    (int) sampleCount);
             labelFeedback.add(feedback);
             totalAdjustment += adjustment;
         }
 
         double globalAdjustment = labelFeedback.isEmpty() ? 0.0 : totalAdjustment / labelFeedback.size();
+        // Stable order so identical feedback always produces an identical payload
+        labelFeedback.sort(Comparator.comparing(LabelFeedback::getLabel));
 
         return new FeedbackSummary(
                 learningRate,
                 globalAdjustment,
-                annotationSamples,
+                totals.getAnnotations(),
                 LocalDateTime.now(),
                 labelFeedback);
     }
 
     /**
-     * Build payload for inference consumption.
+     * Payload for inference consumption. Payloads are identified by their
+     * version: while the current feedback produces the same version, the
+     * same payload is handed out again, backed by one file written under
+     * {@code <temp dir>/feedback/<version>.json}. A snapshot is recorded
+     * only when the version differs from the latest snapshot's.
      */
-    public FeedbackPayload buildFeedbackPayload(double learningRate) {
+    public FeedbackPayload buildFeedbackPayload(double learningRate) throws IOException {
         FeedbackSummary summary = generateFeedbackSummary(learningRate);
+        ObjectNode root = toPayloadJson(summary);
+        String version = FeedbackPayload.versionOf(root);
+
+        FeedbackPayload current = currentPayload;
+        if (current != null && current.getVersion().equals(version) && Files.exists(current.getFile())) {
+            return current;
+        }
+        synchronized (this) {
+            current = currentPayload;
+            if (current != null && current.getVersion().equals(version) && Files.exists(current.getFile())) {
+                return current;
+            }
+            if (current != null) {
+                // The replaced payload was in use until now; keep it for the full retention
+                touch(current.getFile());
+            }
+            Path file = Paths.get(tempDir, "feedback", version + ".json");
+            if (Files.exists(file)) {
+                // Written before a restart: keep handing out exactly what is in the file
+                root = (ObjectNode) objectMapper.readTree(file.toFile());
+            } else {
+                Files.createDirectories(file.getParent());
+                AnalysisFiles.writeIntoPlace(root.toPrettyString(), file);
+                prunePayloadFiles(file);
+            }
+            FeedbackPayload payload = new FeedbackPayload(summary, root, version, file);
+            recordSnapshotIfChanged(payload);
+            currentPayload = payload;
+            return payload;
+        }
+    }
+
+    private void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+        } catch (IOException e) {
+            logger.debug("Could not touch feedback payload {}: {}", file, e.getMessage());
+        }
+    }
+
+    private ObjectNode toPayloadJson(FeedbackSummary summary) {
         ObjectNode root = objectMapper.createObjectNode();
 
         root.put("generated_at", summary.getGeneratedAt().toString());
@@ -172,43 +194,24 @@ public class ModelFeedbackService {
             detailObject.put("adjustment", feedback.getAdjustment());
             detailObject.put("samples", feedback.getSamples());
         }
-
-        FeedbackPayload payload = new FeedbackPayload(summary, root);
-        persistSnapshot(payload);
-        return payload;
+        return root;
     }
 
-    private Map<String, LabelStats> extractLabelStats(String json) throws Exception {
-        Map<String, LabelStats> statsMap = new HashMap<>();
-        if (json == null || json.isBlank()) {
-            return statsMap;
-        }
-
-        JsonNode root = objectMapper.readTree(json);
-        JsonNode boxesNode = root.get("boxes");
-        if (boxesNode == null || !boxesNode.isArray()) {
-            return statsMap;
-        }
-
-        for (JsonNode boxNode : boxesNode) {
-            JsonNode typeNode = boxNode.get("type");
-            JsonNode coordsNode = boxNode.get("box");
-            if (typeNode == null || coordsNode == null || !coordsNode.isArray() || coordsNode.size() < 4) {
-                continue;
+    /**
+     * Delete payload files of earlier versions once no batch or
+     * reclassification can still be reading them
+     */
+    private void prunePayloadFiles(Path current) {
+        FileTime cutoff = FileTime.from(Instant.now().minus(PAYLOAD_RETENTION));
+        try (Stream<Path> files = Files.list(current.getParent())) {
+            for (Path file : files.filter(path -> !path.equals(current)).toList()) {
+                if (Files.getLastModifiedTime(file).compareTo(cutoff) < 0) {
+                    Files.deleteIfExists(file);
+                }
             }
-            String label = typeNode.asText("Unknown");
-            int width = Math.max(0, coordsNode.get(2).asInt());
-            int height = Math.max(0, coordsNode.get(3).asInt());
-            double area = (double) width * (double) height;
-            double confidence = boxNode.has("confidence") ? boxNode.get("confidence").asDouble(0.0) : 0.0;
-
-            LabelStats stats = statsMap.computeIfAbsent(label, key -> new LabelStats());
-            stats.count += 1;
-            stats.areaSum += area;
-            stats.confidenceSum += confidence;
+        } catch (IOException e) {
+            logger.warn("Failed to prune old feedback payloads: {}", e.getMessage());
         }
-
-        return statsMap;
     }
 
     private double clamp(double value, double min, double max) {
@@ -235,8 +238,12 @@ public class ModelFeedbackService {
                 .collect(Collectors.toList());
     }
 
-    private void persistSnapshot(FeedbackPayload payload) {
+    private void recordSnapshotIfChanged(FeedbackPayload payload) {
         try {
+            Optional<FeedbackSnapshot> latest = feedbackSnapshotRepository.findFirstByOrderByCreatedAtDescIdDesc();
+            if (latest.isPresent() && payload.getVersion().equals(latest.get().getPayloadVersion())) {
+                return;
+            }
             JsonNode adjustmentsNode = payload.getPayload().get("label_adjustments");
             if (adjustmentsNode == null || adjustmentsNode.isNull()) {
                 adjustmentsNode = objectMapper.createObjectNode();
@@ -253,6 +260,7 @@ public class ModelFeedbackService {
                     payload.getSummary().getAnnotationSamples(),
                     adjustmentsJson,
                     labelFeedbackJson);
+            snapshot.setPayloadVersion(payload.getVersion());
             feedbackSnapshotRepository.save(snapshot);
         } catch (Exception e) {
             logger.warn("Failed to persist feedback snapshot", e);
@@ -343,28 +351,6 @@ public class ModelFeedbackService {
         }
     }
 
-    /**
-     * Container for aggregated statistics per label.
-     */
-    private static class LabelAggregate {
-        double totalCountDelta = 0.0;
-        double totalAreaDelta = 0.0;
-        double totalOrigArea = 0.0;
-        double totalUserArea = 0.0;
-        double totalConfidenceDelta = 0.0;
-        int sampleCount = 0;
-    }
-
-    private static class LabelStats {
-        int count = 0;
-        double areaSum = 0.0;
-        double confidenceSum = 0.0;
-
-        static LabelStats empty() {
-            return new LabelStats();
-        }
-    }
-
     public static class LabelFeedback {
         private final String label;
         private final double avgCountDelta;
@@ -448,10 +434,14 @@ public class ModelFeedbackService {
     public static class FeedbackPayload {
         private final FeedbackSummary summary;
         private final ObjectNode payload;
+        private final String version;
+        private final Path file;
 
-        FeedbackPayload(FeedbackSummary summary, ObjectNode payload) {
+        FeedbackPayload(FeedbackSummary summary, ObjectNode payload, String version, Path file) {
             this.summary = summary;
             this.payload = payload;
+            this.version = version;
+            this.file = file;
         }
 
         public FeedbackSummary getSummary() {
@@ -469,5 +459,26 @@ public class ModelFeedbackService {
         public boolean hasAdjustments() {
             return payload.has("label_feedback") && payload.get("label_feedback").size() > 0;
         }
+
+        /**
+         * SHA-256 of everything in the payload except its generation time, so
+         * two payloads that adjust confidences identically share a version
+         */
+        public String getVersion() {
+            return version;
+        }
+
+        /**
+         * The shared file holding this payload, to pass to the inference scripts
+         */
+        public Path getFile() {
+            return file;
+        }
+
+        static String versionOf(ObjectNode payload) {
+            ObjectNode content = payload.deepCopy();
+            content.remove("generated_at");
+            return ContentHashing.hashString(content.toString());
+        }
     }
 }
@@ -0,0 +1,185 @@
+package com.example.transformer_manager_backkend.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.transformer_manager_backkend.service.classification.BgrRaster;
+import com.example.transformer_manager_backkend.service.classification.ColorMasks;
+
+/**
+ * Cheap upload-time check for thermal images that are plainly normal. The
+ * upload is decoded with source subsampling, so only a thumbnail's worth of
+ * pixels is ever materialised, and run through the classifier's HSV masks.
+ * An image counts as confidently normal when nearly the whole frame is cold
+ * (blue or black) and almost nothing is yellow, orange or red; such jobs are
+ * completed without PatchCore.
+ *
+ * The classifier itself calls an image Normal above 80% blue plus black, but
+ * that is measured on PatchCore's filtered output. On raw uploads faulty
+ * images can be more than 90% cold too, so the defaults are deliberately
+ * stricter and only let through frames with next to no warm pixels.
+ */
+@Service
+public class PreScreenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PreScreenService.class);
+
+    @Value("${app.anomaly.prescreen.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.anomaly.prescreen.min-cold-ratio:0.95}")
+    private double minColdRatio;
+
+    @Value("${app.anomaly.prescreen.max-hot-ratio:0.005}")
+    private double maxHotRatio;
+
+    // Longest side of the subsampled decode, in pixels
+    @Value("${app.anomaly.prescreen.max-dimension:256}")
+    private int maxDimension;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Screen an upload. Returns null when screening is disabled or the file
+     * cannot be decoded, in which case the image simply goes to PatchCore.
+     */
+    public Verdict screen(Path imagePath) {
+        if (!enabled) {
+            return null;
+        }
+        try {
+            BgrRaster raster = decodeSubsampled(imagePath, Math.max(1, maxDimension));
+            if (raster == null) {
+                return null;
+            }
+            return evaluate(raster, minColdRatio, maxHotRatio);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Pre-screen could not read {}: {}", imagePath, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Measure the cold and hot shares of a raster and decide against the
+     * given thresholds
+     */
+    static Verdict evaluate(BgrRaster raster, double minColdRatio, double maxHotRatio) {
+        ColorMasks masks = ColorMasks.compute(raster.getData(), raster.getWidth(), raster.getHeight());
+        byte[] blue = masks.getBlue();
+        byte[] black = masks.getBlack();
+        byte[] yellow = masks.getYellow();
+        byte[] orange = masks.getOrange();
+        byte[] red = masks.getRed();
+
+        // The ranges overlap at their edges, so count pixels rather than add mask counts
+        int pixels = raster.getWidth() * raster.getHeight();
+        int cold = 0;
+        int hot = 0;
+        for (int i = 0; i < pixels; i++) {
+            cold += blue[i] | black[i];
+            hot += yellow[i] | orange[i] | red[i];
+        }
+
+        double coldRatio = pixels > 0 ? (double) cold / pixels : 0.0;
+        double hotRatio = pixels > 0 ? (double) hot / pixels : 1.0;
+        boolean normal = pixels > 0 && coldRatio >= minColdRatio && hotRatio <= maxHotRatio;
+        return new Verdict(normal, coldRatio, hotRatio, minColdRatio, maxHotRatio, raster.getWidth(),
+                raster.getHeight());
+    }
+
+    /**
+     * Decode every n-th pixel of every n-th row, with n chosen so the longest
+     * side is at most {@code maxDimension}. Only the header is read before the
+     * step is known.
+     */
+    static BgrRaster decodeSubsampled(Path imagePath, int maxDimension) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(imagePath.toFile())) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int step = Math.max(1, (longest + maxDimension - 1) / maxDimension);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return BgrRaster.from(reader.read(0, param));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Outcome of screening one image
+     */
+    public static class Verdict {
+        private final boolean normal;
+        private final double coldRatio;
+        private final double hotRatio;
+        private final double minColdRatio;
+        private final double maxHotRatio;
+        private final int sampledWidth;
+        private final int sampledHeight;
+
+        public Verdict(boolean normal, double coldRatio, double hotRatio, double minColdRatio, double maxHotRatio,
+                int sampledWidth, int sampledHeight) {
+            this.normal = normal;
+            this.coldRatio = coldRatio;
+            this.hotRatio = hotRatio;
+            this.minColdRatio = minColdRatio;
+            this.maxHotRatio = maxHotRatio;
+            this.sampledWidth = sampledWidth;
+            this.sampledHeight = sampledHeight;
+        }
+
+        /**
+         * True if the image can be completed as Normal without PatchCore
+         */
+        public boolean isNormal() {
+            return normal;
+        }
+
+        public double getColdRatio() {
+            return coldRatio;
+        }
+
+        public double getHotRatio() {
+            return hotRatio;
+        }
+
+        public double getMinColdRatio() {
+            return minColdRatio;
+        }
+
+        public double getMaxHotRatio() {
+            return maxHotRatio;
+        }
+
+        public int getSampledWidth() {
+            return sampledWidth;
+        }
+
+        public int getSampledHeight() {
+            return sampledHeight;
+        }
+    }
+}
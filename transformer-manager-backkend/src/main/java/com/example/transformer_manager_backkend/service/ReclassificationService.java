@@ -0,0 +1,343 @@
+package com.example.transformer_manager_backkend.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.transformer_manager_backkend.entity.AnalysisJob;
+import com.example.transformer_manager_backkend.entity.Image;
+import com.example.transformer_manager_backkend.repository.AnalysisJobRepository;
+import com.example.transformer_manager_backkend.repository.AnnotationRepository;
+import com.example.transformer_manager_backkend.repository.ImageRepository;
+import com.example.transformer_manager_backkend.service.inference.ClassificationRequest;
+import com.example.transformer_manager_backkend.service.inference.HotspotClassifier;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Rescores completed jobs with the current detection sensitivity and feedback
+ * by classifying their stored filtered images again. PatchCore is not run, so
+ * this is the cheap way to apply changed settings to past inspections.
+ *
+ * Jobs with a user annotation are left alone: the annotation, not the model
+ * output, is the record for them.
+ */
+@Service
+public class ReclassificationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReclassificationService.class);
+
+    private final AnalysisJobRepository analysisJobRepository;
+    private final ImageRepository imageRepository;
+    private final AnnotationRepository annotationRepository;
+    private final MLSettingsService mlSettingsService;
+    private final ModelFeedbackService modelFeedbackService;
+    private final HotspotClassifier classifier;
+    private final AnalysisArtifactStore artifactStore;
+    private final AnalysisResultCacheService resultCache;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${app.anomaly.temp.dir:./temp/anomaly-analysis}")
+    private String tempDir;
+
+    public ReclassificationService(AnalysisJobRepository analysisJobRepository, ImageRepository imageRepository,
+            AnnotationRepository annotationRepository, MLSettingsService mlSettingsService,
+            ModelFeedbackService modelFeedbackService, HotspotClassifier classifier,
+            AnalysisArtifactStore artifactStore, AnalysisResultCacheService resultCache) {
+        this.analysisJobRepository = analysisJobRepository;
+        this.imageRepository = imageRepository;
+        this.annotationRepository = annotationRepository;
+        this.mlSettingsService = mlSettingsService;
+        this.modelFeedbackService = modelFeedbackService;
+        this.classifier = classifier;
+        this.artifactStore = artifactStore;
+        this.resultCache = resultCache;
+    }
+
+    /**
+     * Reclassify one job. Fails with {@link IllegalStateException} if the job
+     * cannot be reclassified.
+     */
+    public Optional<AnalysisJob> reclassifyJob(Long jobId) throws IOException, InterruptedException {
+        Optional<AnalysisJob> jobOpt = analysisJobRepository.findById(jobId);
+        if (jobOpt.isEmpty()) {
+            return Optional.empty();
+        }
+        AnalysisJob job = jobOpt.get();
+        String reason = skipReason(job);
+        if (reason != null) {
+            throw new IllegalStateException(reason);
+        }
+
+        ReclassificationSummary summary = reclassify(List.of(job));
+        if (!summary.getSkipped().isEmpty()) {
+            throw new IllegalStateException(summary.getSkipped().get(jobId));
+        }
+        return Optional.of(summary.getReclassified().get(0));
+    }
+
+    /**
+     * Classify a job's stored artifacts at the given sensitivity, or the current
+     * one if null, without changing the job. Annotated jobs can be previewed
+     * too. Returns the result JSON without the run's local file paths.
+     */
+    public Optional<JsonNode> previewJob(Long jobId, Double sensitivity) throws IOException, InterruptedException {
+        Optional<AnalysisJob> jobOpt = analysisJobRepository.findById(jobId);
+        if (jobOpt.isEmpty()) {
+            return Optional.empty();
+        }
+        AnalysisJob job = jobOpt.get();
+        if (job.getStatus() != AnalysisJob.AnalysisStatus.COMPLETED) {
+            throw new IllegalStateException("Job is " + job.getStatus() + ", only completed jobs can be previewed");
+        }
+        if (!artifactStore.canReclassify(job)) {
+            throw new IllegalStateException("No stored analysis artifacts for job " + jobId);
+        }
+
+        double effectiveSensitivity = sensitivity != null ? sensitivity : mlSettingsService.getDetectionSensitivity();
+        ModelFeedbackService.FeedbackPayload feedbackPayload = modelFeedbackService
+                .buildFeedbackPayload(mlSettingsService.getFeedbackLearningRate());
+        Path runDir = Paths.get(tempDir, "preview_" + jobId + "_" + System.currentTimeMillis());
+        try {
+            Path outputDir = runClassifier(List.of(job), runDir, effectiveSensitivity, feedbackPayload);
+            Path jsonFile = outputDir.resolve("boxed").resolve(itemName(job) + ".json");
+            if (!Files.exists(jsonFile)) {
+                throw new IOException("Classifier produced no result for job " + jobId);
+            }
+            ObjectNode result = (ObjectNode) objectMapper.readTree(jsonFile.toFile());
+            result.remove(List.of("image", "boxed_image", "mask_image", "filtered_image"));
+            result.put("sensitivity", effectiveSensitivity);
+            return Optional.of(result);
+        } finally {
+            deleteDirectory(runDir);
+        }
+    }
+
+    /**
+     * Reclassify every eligible job of an inspection in one classifier run
+     */
+    public ReclassificationSummary reclassifyInspection(Long inspectionId) throws IOException, InterruptedException {
+        Map<Long, String> skipped = new LinkedHashMap<>();
+        List<AnalysisJob> eligible = new ArrayList<>();
+        for (AnalysisJob job : analysisJobRepository.findByInspectionId(inspectionId)) {
+            String reason = skipReason(job);
+            if (reason != null) {
+                skipped.put(job.getId(), reason);
+            } else {
+                eligible.add(job);
+            }
+        }
+
+        ReclassificationSummary summary = eligible.isEmpty()
+                ? new ReclassificationSummary(List.of(), new LinkedHashMap<>())
+                : reclassify(eligible);
+        summary.getSkipped().putAll(skipped);
+        return summary;
+    }
+
+    /**
+     * Why a job cannot be reclassified, or null if it can
+     */
+    private String skipReason(AnalysisJob job) {
+        if (job.getStatus() != AnalysisJob.AnalysisStatus.COMPLETED) {
+            return "Job is " + job.getStatus() + ", only completed jobs can be reclassified";
+        }
+        if (!artifactStore.canReclassify(job)) {
+            return "No stored analysis artifacts; queue the image for a full analysis instead";
+        }
+        if (annotationRepository.existsByAnalysisJob(job)) {
+            return "Job has a user annotation";
+        }
+        return null;
+    }
+
+    private ReclassificationSummary reclassify(List<AnalysisJob> jobs) throws IOException, InterruptedException {
+        double sensitivity = mlSettingsService.getDetectionSensitivity();
+        double learningRate = mlSettingsService.getFeedbackLearningRate();
+        ModelFeedbackService.FeedbackPayload feedbackPayload = modelFeedbackService.buildFeedbackPayload(learningRate);
+        String feedbackVersion = feedbackPayload.getVersion();
+
+        Path runDir = Paths.get(tempDir, "reclassify_" + jobs.get(0).getId() + "_" + System.currentTimeMillis());
+
+        List<AnalysisJob> reclassified = new ArrayList<>();
+        Map<Long, String> skipped = new LinkedHashMap<>();
+        try {
+            Path outputDir = runClassifier(jobs, runDir, sensitivity, feedbackPayload);
+
+            // Results are named after the settings, so results and cache entries for
+            // other settings keep their own files
+            String settingsKey = ContentHashing.hashString(
+                    String.format(Locale.ROOT, "%.2f/%s", sensitivity, feedbackVersion)).substring(0, 8);
+            for (AnalysisJob job : jobs) {
+                try {
+                    AnalysisJob updated = publish(job, outputDir.resolve("boxed"), settingsKey, feedbackVersion);
+                    if (updated == null) {
+                        skipped.put(job.getId(), "Job changed while it was being reclassified");
+                        continue;
+                    }
+                    String label = objectMapper.readTree(updated.getResultJson()).path("label").asText();
+                    // Artifacts of a cascade first pass stay keyed by the size they were computed at
+                    resultCache.store(updated.getImage().getContentHash(), sensitivity, feedbackVersion,
+                            updated.getInferenceSize(), label, updated.getResultJson(),
+                            updated.getBoxedImagePath(), updated.getId());
+                    reclassified.add(updated);
+                } catch (IOException e) {
+                    logger.warn("Reclassification of job {} failed: {}", job.getId(), e.getMessage());
+                    skipped.put(job.getId(), e.getMessage());
+                }
+            }
+        } finally {
+            deleteDirectory(runDir);
+        }
+        return new ReclassificationSummary(reclassified, skipped);
+    }
+
+    /**
+     * Classify the jobs' stored artifacts into runDir/output and return that
+     * directory
+     */
+    private Path runClassifier(List<AnalysisJob> jobs, Path runDir, double sensitivity,
+            ModelFeedbackService.FeedbackPayload feedbackPayload) throws IOException, InterruptedException {
+        Path outputDir = runDir.resolve("output");
+        Files.createDirectories(outputDir);
+        Path feedbackFile = feedbackPayload.getFile();
+
+        List<ClassificationRequest.Item> items = new ArrayList<>();
+        for (AnalysisJob job : jobs) {
+            items.add(new ClassificationRequest.Item(itemName(job),
+                    AnalysisResultCacheService.uploadsPath(job.getSourceImagePath()),
+                    AnalysisResultCacheService.uploadsPath(job.getFilteredImagePath()),
+                    job.getMaskImagePath() != null
+                            ? AnalysisResultCacheService.uploadsPath(job.getMaskImagePath())
+                            : null));
+        }
+
+        long started = System.currentTimeMillis();
+        classifier.classify(new ClassificationRequest(items, outputDir, sensitivity, feedbackFile));
+        logger.info("Classified {} job(s) with the {} classifier in {} ms (sensitivity {}, feedback {})",
+                jobs.size(), classifier.getName(), System.currentTimeMillis() - started, sensitivity,
+                feedbackPayload.getVersion().substring(0, 12));
+        return outputDir;
+    }
+
+    /**
+     * Copy a job's new outputs into uploads/analysis and point the job and its
+     * image at them. Returns null if the job is no longer completed, e.g.
+     * because it was queued again in the meantime.
+     */
+    private AnalysisJob publish(AnalysisJob job, Path boxedDir, String settingsKey, String feedbackVersion)
+            throws IOException {
+        String name = itemName(job);
+        Path jsonFile = boxedDir.resolve(name + ".json");
+        if (!Files.exists(jsonFile)) {
+            throw new IOException("Classifier produced no result for job " + job.getId());
+        }
+        Optional<Path> boxedImage;
+        try (Stream<Path> files = Files.list(boxedDir)) {
+            boxedImage = files.filter(path -> path.getFileName().toString().startsWith(name + "_boxed")).findFirst();
+        }
+        if (boxedImage.isEmpty()) {
+            throw new IOException("Classifier produced no boxed image for job " + job.getId());
+        }
+        String jsonContent = Files.readString(jsonFile);
+
+        AnalysisJob current = analysisJobRepository.findById(job.getId()).orElse(null);
+        if (current == null || current.getStatus() != AnalysisJob.AnalysisStatus.COMPLETED) {
+            return null;
+        }
+
+        Path analysisDir = Paths.get("uploads", "analysis");
+        Files.createDirectories(analysisDir);
+        String sourceFileName = AnalysisResultCacheService.uploadsPath(job.getSourceImagePath()).getFileName()
+                .toString();
+        String baseName = stripExtension(sourceFileName);
+        String boxedFileName = baseName + "_boxed_" + settingsKey
+                + getFileExtension(boxedImage.get().getFileName().toString());
+        String jsonFileName = baseName + "_" + settingsKey + ".json";
+        AnalysisFiles.moveIntoPlace(boxedImage.get(), analysisDir.resolve(boxedFileName));
+        AnalysisFiles.writeIntoPlace(jsonContent, analysisDir.resolve(jsonFileName));
+
+        String webBoxedPath = "/analysis/" + boxedFileName;
+        Image image = current.getImage();
+        image.setFilePath(webBoxedPath);
+        imageRepository.save(image);
+
+        current.setResultJson(jsonContent);
+        current.setBoxedImagePath(webBoxedPath);
+        current.setReusedFromJobId(null);
+        current.setFeedbackVersion(feedbackVersion);
+        current.setReclassifiedAt(LocalDateTime.now());
+        return analysisJobRepository.save(current);
+    }
+
+    private static String itemName(AnalysisJob job) {
+        return "job" + job.getId();
+    }
+
+    private static String stripExtension(String fileName) {
+        int lastDot = fileName.lastIndexOf('.');
+        return lastDot > 0 ? fileName.substring(0, lastDot) : fileName;
+    }
+
+    private static String getFileExtension(String fileName) {
+        int lastDot = fileName.lastIndexOf('.');
+        return lastDot > 0 ? fileName.substring(lastDot) : ".jpg";
+    }
+
+    private void deleteDirectory(Path directory) {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    logger.warn("Failed to delete: {}", path, e);
+                }
+            });
+        } catch (IOException e) {
+            logger.warn("Failed to clean up temp directory: {}", directory, e);
+        }
+    }
+
+    /**
+     * Outcome of reclassifying a set of jobs
+     */
+    public static class ReclassificationSummary {
+        private final List<AnalysisJob> reclassified;
+        private final Map<Long, String> skipped;
+
+        public ReclassificationSummary(List<AnalysisJob> reclassified, Map<Long, String> skipped) {
+            this.reclassified = reclassified;
+            this.skipped = skipped;
+        }
+
+        public List<AnalysisJob> getReclassified() {
+            return reclassified;
+        }
+
+        /**
+         * Reason per job that was not reclassified
+         */
+        public Map<Long, String> getSkipped() {
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.transformer_manager_backkend.service;
+
+import java.util.Arrays;
+
+/**
+ * The boxes of an analysis result JSON, held as parallel primitive arrays.
+ * Only entries with a {@code box} array of at least four coordinates are
+ * kept. A missing type is null (an explicit null reads as "Unknown") and a
+ * missing confidence is NaN.
+ */
+public final class ResultBoxes {
+
+    public static final ResultBoxes EMPTY = new ResultBoxes(0, new int[0], new int[0], new int[0], new int[0],
+            new String[0], new double[0]);
+
+    private final int size;
+    private final int[] x;
+    private final int[] y;
+    private final int[] width;
+    private final int[] height;
+    private final String[] types;
+    private final double[] confidences;
+
+    private ResultBoxes(int size, int[] x, int[] y, int[] width, int[] height, String[] types,
+            double[] confidences) {
+        this.size = size;
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.types = types;
+        this.confidences = confidences;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getX(int i) {
+        return x[i];
+    }
+
+    public int getY(int i) {
+        return y[i];
+    }
+
+    public int getWidth(int i) {
+        return width[i];
+    }
+
+    public int getHeight(int i) {
+        return height[i];
+    }
+
+    /**
+     * The box's {@code type}, or null if it has none
+     */
+    public String getType(int i) {
+        return types[i];
+    }
+
+    public boolean hasConfidence(int i) {
+        return !Double.isNaN(confidences[i]);
+    }
+
+    /**
+     * The box's {@code confidence}, or NaN if it has none
+     */
+    public double getConfidence(int i) {
+        return confidences[i];
+    }
+
+    /**
+     * Collects boxes as they are read, growing its arrays as needed
+     */
+    static final class Builder {
+        private int size;
+        private int[] x = new int[16];
+        private int[] y = new int[16];
+        private int[] width = new int[16];
+        private int[] height = new int[16];
+        private String[] types = new String[16];
+        private double[] confidences = new double[16];
+
+        void add(int boxX, int boxY, int boxWidth, int boxHeight, String type, double confidence) {
+            if (size == x.length) {
+                int capacity = size * 2;
+                x = Arrays.copyOf(x, capacity);
+                y = Arrays.copyOf(y, capacity);
+                width = Arrays.copyOf(width, capacity);
+                height = Arrays.copyOf(height, capacity);
+                types = Arrays.copyOf(types, capacity);
+                confidences = Arrays.copyOf(confidences, capacity);
+            }
+            x[size] = boxX;
+            y[size] = boxY;
+            width[size] = boxWidth;
+            height[size] = boxHeight;
+            types[size] = type;
+            confidences[size] = confidence;
+            size++;
+        }
+
+        ResultBoxes build() {
+            return size == 0 ? EMPTY : new ResultBoxes(size, x, y, width, height, types, confidences);
+        }
+    }
+}
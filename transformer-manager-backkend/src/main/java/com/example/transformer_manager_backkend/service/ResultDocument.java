@@ -0,0 +1,155 @@
+package com.example.transformer_manager_backkend.service;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+/**
+ * An analysis result JSON object read once: its image paths, label and boxes,
+ * together with where the image paths and boxes sit in the text. Rewriting
+ * them splices the new values into the text, so every other field is kept
+ * as it was without parsing the document again.
+ */
+public final class ResultDocument {
+
+    static final int IMAGE = 0;
+    static final int BOXED_IMAGE = 1;
+    static final int BOXES = 2;
+    static final String[] FIELDS = { "image", "boxed_image", "boxes" };
+
+    private final String source;
+    private final String image;
+    private final String boxedImage;
+    private final String label;
+    private final ResultBoxes boxes;
+    // [start, end) of each tracked field's value in the source, -1 if it has none
+    private final int[] starts;
+    private final int[] ends;
+    // Where a missing field is added: after the last value, or after the brace of an empty object
+    private final int appendAt;
+    private final boolean hasFields;
+
+    ResultDocument(String source, String image, String boxedImage, String label, ResultBoxes boxes, int[] starts,
+            int[] ends, int appendAt, boolean hasFields) {
+        this.source = source;
+        this.image = image;
+        this.boxedImage = boxedImage;
+        this.label = label;
+        this.boxes = boxes;
+        this.starts = starts;
+        this.ends = ends;
+        this.appendAt = appendAt;
+        this.hasFields = hasFields;
+    }
+
+    /**
+     * The JSON text this document was read from or rewritten to
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * The top-level {@code image} as text, or null if missing or not a scalar
+     */
+    public String getImage() {
+        return image;
+    }
+
+    public String getBoxedImage() {
+        return boxedImage;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public ResultBoxes getBoxes() {
+        return boxes;
+    }
+
+    /**
+     * This document with its {@code boxes} replaced, written as the annotation
+     * editor writes them: coordinates, type and, if present, confidence
+     */
+    public ResultDocument withBoxes(ResultBoxes newBoxes) {
+        StringWriter text = new StringWriter(32 + newBoxes.size() * 64);
+        try (JsonGenerator generator = ResultJsonReader.FACTORY.createGenerator(text)) {
+            generator.writeStartArray();
+            for (int i = 0; i < newBoxes.size(); i++) {
+                generator.writeStartObject();
+                generator.writeArrayFieldStart("box");
+                generator.writeNumber(newBoxes.getX(i));
+                generator.writeNumber(newBoxes.getY(i));
+                generator.writeNumber(newBoxes.getWidth(i));
+                generator.writeNumber(newBoxes.getHeight(i));
+                generator.writeEndArray();
+                generator.writeStringField("type", newBoxes.getType(i));
+                if (newBoxes.hasConfidence(i)) {
+                    generator.writeNumberField("confidence", newBoxes.getConfidence(i));
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        } catch (IOException e) {
+            // A StringWriter does not fail
+            throw new UncheckedIOException(e);
+        }
+        return splice(BOXES, text.toString(), image, boxedImage, newBoxes);
+    }
+
+    /**
+     * This document with {@code image} and {@code boxed_image} set to the
+     * given paths; a null path leaves its field as it is
+     */
+    public ResultDocument withImagePaths(String newImage, String newBoxedImage) {
+        ResultDocument document = this;
+        if (newImage != null) {
+            document = document.splice(IMAGE, quote(newImage), newImage, document.boxedImage, document.boxes);
+        }
+        if (newBoxedImage != null) {
+            document = document.splice(BOXED_IMAGE, quote(newBoxedImage), document.image, newBoxedImage,
+                    document.boxes);
+        }
+        return document;
+    }
+
+    private ResultDocument splice(int field, String value, String newImage, String newBoxedImage,
+            ResultBoxes newBoxes) {
+        int[] newStarts = Arrays.copyOf(starts, starts.length);
+        int[] newEnds = Arrays.copyOf(ends, ends.length);
+        int start = starts[field];
+        int end = ends[field];
+        String inserted = value;
+        int valueOffset = 0;
+        if (start < 0) {
+            // A new field goes last, as ObjectNode.set would put it
+            String prefix = (hasFields ? "," : "") + quote(FIELDS[field]) + ":";
+            inserted = prefix + value;
+            valueOffset = prefix.length();
+            start = appendAt;
+            end = appendAt;
+        }
+        int shift = inserted.length() - (end - start);
+        for (int i = 0; i < newStarts.length; i++) {
+            if (i != field && newStarts[i] >= end) {
+                newStarts[i] += shift;
+                newEnds[i] += shift;
+            }
+        }
+        newStarts[field] = start + valueOffset;
+        newEnds[field] = start + inserted.length();
+        int newAppendAt = appendAt >= end ? appendAt + shift : appendAt;
+        String newSource = source.substring(0, start) + inserted + source.substring(end);
+        return new ResultDocument(newSource, newImage, newBoxedImage, label, newBoxes, newStarts, newEnds,
+                newAppendAt, true);
+    }
+
+    private static String quote(String text) {
+        return "\"" + new String(JsonStringEncoder.getInstance().quoteAsString(text)) + "\"";
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.transformer_manager_backkend.service;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recently read result documents of analysis jobs and annotations, so an
+ * annotation being edited is not parsed again on every request. Entries are
+ * keyed by the entity id and tagged with the entity version they were read
+ * at. An entry is only served for the text it was read from, so a write that
+ * did not invalidate it costs one parse, never a stale result.
+ */
+@Component
+public class ResultDocumentCache {
+
+    public enum Source {
+        /** AnalysisJob.resultJson; jobs have no version */
+        JOB_RESULT,
+        /** Annotation.originalResultJson, which never changes once saved */
+        ANNOTATION_ORIGINAL,
+        /** Annotation.modifiedResultJson */
+        ANNOTATION_MODIFIED
+    }
+
+    private static final class Key {
+        private final Source source;
+        private final Long id;
+
+        Key(Source source, Long id) {
+            this.source = source;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return source == key.source && id.equals(key.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * source.hashCode() + id.hashCode();
+        }
+    }
+
+    private static final class Entry {
+        private final Long version;
+        private final ResultDocument document;
+
+        Entry(Long version, ResultDocument document) {
+            this.version = version;
+            this.document = document;
+        }
+    }
+
+    // Access order, so the least recently used entry is evicted first; guarded by itself
+    private final Map<Key, Entry> entries;
+
+    public ResultDocumentCache(@Value("${app.annotation.result-cache.max-entries:256}") int maxEntries) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * The document for {@code json}, the current text of the given entity at
+     * {@code version} (null if it has none). Null if the text is blank or not
+     * a JSON object; fails if it is malformed.
+     */
+    public ResultDocument get(Source source, Long id, Long version, String json) throws IOException {
+        if (json == null) {
+            return null;
+        }
+        if (id == null) {
+            return ResultJsonReader.readDocument(json);
+        }
+        Key key = new Key(source, id);
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            // An entry stored before its version was known is matched by text alone
+            if (entry != null && (entry.version == null || Objects.equals(entry.version, version))
+                    && entry.document.getSource().equals(json)) {
+                return entry.document;
+            }
+        }
+        ResultDocument document = ResultJsonReader.readDocument(json);
+        if (document != null) {
+            put(source, id, version, document);
+        }
+        return document;
+    }
+
+    /**
+     * Remember a document just written to an entity, or forget the entity's
+     * entry if the document is null; {@code version} may be null if the write
+     * has not been flushed yet
+     */
+    public void put(Source source, Long id, Long version, ResultDocument document) {
+        if (document == null) {
+            invalidate(source, id);
+            return;
+        }
+        if (id == null) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(new Key(source, id), new Entry(version, document));
+        }
+    }
+
+    public void invalidate(Source source, Long id) {
+        if (id == null) {
+            return;
+        }
+        synchronized (entries) {
+            entries.remove(new Key(source, id));
+        }
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+}
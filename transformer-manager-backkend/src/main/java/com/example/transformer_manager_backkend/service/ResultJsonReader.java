@@ -0,0 +1,233 @@
+package com.example.transformer_manager_backkend.service;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Reads the few fields the backend needs from an analysis result JSON
+ * straight off a streaming parser, without building a Jackson tree of the
+ * whole document. Values are interpreted like {@code JsonNode.asInt},
+ * {@code asDouble} and {@code asText} would, so the readers can replace the
+ * tree walks they were written for.
+ */
+public final class ResultJsonReader {
+
+    // Thread-safe and expensive to create, so shared by every read and rewrite
+    static final JsonFactory FACTORY = new JsonFactory();
+
+    private ResultJsonReader() {
+    }
+
+    /**
+     * The top-level {@code boxes} of a result. Blank input has no boxes;
+     * malformed input fails even if the boxes themselves could be read.
+     */
+    public static ResultBoxes readBoxes(String json) throws IOException {
+        if (json == null || json.isBlank()) {
+            return ResultBoxes.EMPTY;
+        }
+        ResultBoxes.Builder boxes = new ResultBoxes.Builder();
+        try (JsonParser parser = FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                // Still read the value, so malformed input fails like it would for a tree
+                parser.skipChildren();
+                return ResultBoxes.EMPTY;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("boxes".equals(field) && value == JsonToken.START_ARRAY) {
+                    // A repeated field replaces the earlier value, as in a tree
+                    boxes = new ResultBoxes.Builder();
+                    readBoxArray(parser, boxes);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return boxes.build();
+    }
+
+    /**
+     * The top-level {@code image} of a result as text, or null if it is
+     * missing, null or not a scalar. Reading stops at the field.
+     */
+    public static String readImagePath(String json) throws IOException {
+        if (json == null || json.isBlank()) {
+            return null;
+        }
+        try (JsonParser parser = FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("image".equals(field)) {
+                    return value.isScalarValue() ? parser.getValueAsString(null) : null;
+                }
+                parser.skipChildren();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The whole result as a {@link ResultDocument}, or null if it is blank or
+     * not a JSON object. Malformed input fails.
+     */
+    public static ResultDocument readDocument(String json) throws IOException {
+        if (json == null || json.isBlank()) {
+            return null;
+        }
+        String image = null;
+        String boxedImage = null;
+        String label = null;
+        ResultBoxes.Builder boxes = new ResultBoxes.Builder();
+        int[] starts = { -1, -1, -1 };
+        int[] ends = { -1, -1, -1 };
+        int appendAt;
+        boolean hasFields = false;
+        try (JsonParser parser = FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                return null;
+            }
+            appendAt = offsetAfter(parser);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                int start = (int) parser.currentTokenLocation().getCharOffset();
+                int tracked = -1;
+                switch (field) {
+                    case "image" -> {
+                        image = value.isScalarValue() ? parser.getValueAsString(null) : null;
+                        tracked = ResultDocument.IMAGE;
+                    }
+                    case "boxed_image" -> {
+                        boxedImage = value.isScalarValue() ? parser.getValueAsString(null) : null;
+                        tracked = ResultDocument.BOXED_IMAGE;
+                    }
+                    case "label" -> label = value.isScalarValue() ? parser.getValueAsString(null) : null;
+                    case "boxes" -> {
+                        boxes = new ResultBoxes.Builder();
+                        if (value == JsonToken.START_ARRAY) {
+                            readBoxArray(parser, boxes);
+                        }
+                        tracked = ResultDocument.BOXES;
+                    }
+                    default -> {
+                    }
+                }
+                parser.skipChildren();
+                appendAt = offsetAfter(parser);
+                hasFields = true;
+                if (tracked >= 0) {
+                    starts[tracked] = start;
+                    ends[tracked] = appendAt;
+                }
+            }
+        }
+        return new ResultDocument(json, image, boxedImage, label, boxes.build(), starts, ends, appendAt, hasFields);
+    }
+
+    /**
+     * The offset just past the current token: a bracket, or a scalar value
+     */
+    private static int offsetAfter(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token.isStructStart() || token.isStructEnd()) {
+            return (int) parser.currentTokenLocation().getCharOffset() + 1;
+        }
+        // Scalars are read lazily; finishing one moves the location past it
+        parser.finishToken();
+        return (int) parser.currentLocation().getCharOffset();
+    }
+
+    private static void readBoxArray(JsonParser parser, ResultBoxes.Builder boxes) throws IOException {
+        // Reused for every box, so reading allocates nothing per coordinate
+        int[] coords = new int[4];
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            boolean hasCoords = false;
+            String type = null;
+            double confidence = Double.NaN;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "box" -> hasCoords = value == JsonToken.START_ARRAY
+                            ? readCoordinates(parser, coords)
+                            : skip(parser);
+                    case "type" -> type = readText(parser, value);
+                    case "confidence" -> confidence = readConfidence(parser, value);
+                    default -> parser.skipChildren();
+                }
+            }
+            if (hasCoords) {
+                boxes.add(coords[0], coords[1], coords[2], coords[3], type, confidence);
+            }
+        }
+    }
+
+    /**
+     * Reads the first four entries of a coordinate array into {@code coords},
+     * returning false if it has fewer
+     */
+    private static boolean readCoordinates(JsonParser parser, int[] coords) throws IOException {
+        int count = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            int value = 0;
+            if (token == JsonToken.VALUE_NUMBER_INT) {
+                // Wraps out-of-range values like IntNode/LongNode.asInt instead of failing
+                value = parser.getNumberValue().intValue();
+            } else if (token == JsonToken.VALUE_NUMBER_FLOAT) {
+                value = (int) parser.getDoubleValue();
+            } else if (token.isScalarValue()) {
+                value = parser.getValueAsInt(0);
+            } else {
+                parser.skipChildren();
+            }
+            if (count < 4) {
+                coords[count] = value;
+            }
+            count++;
+        }
+        return count >= 4;
+    }
+
+    /**
+     * A box type as {@code asText("Unknown")} reads it
+     */
+    private static String readText(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return "Unknown";
+        }
+        if (!value.isScalarValue()) {
+            parser.skipChildren();
+            return "";
+        }
+        return parser.getValueAsString("");
+    }
+
+    private static double readConfidence(JsonParser parser, JsonToken value) throws IOException {
+        if (!value.isScalarValue()) {
+            parser.skipChildren();
+            return 0.0;
+        }
+        return parser.getValueAsDouble(0.0);
+    }
+
+    private static boolean skip(JsonParser parser) throws IOException {
+        parser.skipChildren();
+        return false;
+    }
+}
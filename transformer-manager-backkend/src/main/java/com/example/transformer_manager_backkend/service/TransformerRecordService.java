@@ -62,10 +62,11 @@ public class TransformerRecordService {
             if (!Files.exists(uploadPath))
                 Files.createDirectories(uploadPath);
             Path filePath = uploadPath.resolve(fileName);
-            Files.copy(imgDto.file.getInputStream(), filePath);
+            String contentHash = ContentHashing.copyAndHash(imgDto.file.getInputStream(), filePath);
 
             Image image = new Image();
             image.setFilePath("/uploads/" + fileName);
+            image.setContentHash(contentHash);
             image.setType(imgDto.type);
             image.setWeatherCondition(imgDto.weatherCondition);
             image.setTransformerRecord(transformerRecord);
@@ -159,10 +160,11 @@ public class TransformerRecordService {
                 if (!Files.exists(uploadPath))
                     Files.createDirectories(uploadPath);
                 Path filePath = uploadPath.resolve(fileName);
-                Files.copy(imgDto.file.getInputStream(), filePath);
+                String contentHash = ContentHashing.copyAndHash(imgDto.file.getInputStream(), filePath);
 
                 Image image = new Image();
                 image.setFilePath("/uploads/" + fileName);
+                image.setContentHash(contentHash);
                 image.setType(imgDto.type);
                 image.setWeatherCondition(imgDto.weatherCondition);
                 image.setTransformerRecord(transformerRecord);
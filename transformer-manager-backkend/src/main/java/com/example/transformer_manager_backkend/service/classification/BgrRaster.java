@@ -0,0 +1,74 @@
+package com.example.transformer_manager_backkend.service.classification;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
+
+/**
+ * An 8-bit interleaved BGR pixel buffer, the layout cv2.imread returns
+ */
+public final class BgrRaster {
+    private final byte[] data;
+    private final int width;
+    private final int height;
+
+    public BgrRaster(byte[] data, int width, int height) {
+        if (data.length != width * height * 3) {
+            throw new IllegalArgumentException("Expected " + width * height * 3 + " bytes, got " + data.length);
+        }
+        this.data = data;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Pixels of a decoded image. Colour and grey images are read from their
+     * raster without colour management, as OpenCV does; alpha is dropped.
+     */
+    public static BgrRaster from(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        byte[] bgr = new byte[width * height * 3];
+        Raster raster = image.getRaster();
+
+        if (image.getType() == BufferedImage.TYPE_3BYTE_BGR
+                && ((DataBufferByte) raster.getDataBuffer()).getData().length == bgr.length) {
+            System.arraycopy(((DataBufferByte) raster.getDataBuffer()).getData(), 0, bgr, 0, bgr.length);
+        } else if (image.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+            int[] row = new int[width];
+            for (int y = 0; y < height; y++) {
+                raster.getSamples(0, y, width, 1, 0, row);
+                for (int x = 0, p = y * width * 3; x < width; x++, p += 3) {
+                    byte grey = (byte) row[x];
+                    bgr[p] = grey;
+                    bgr[p + 1] = grey;
+                    bgr[p + 2] = grey;
+                }
+            }
+        } else {
+            int[] row = new int[width];
+            for (int y = 0; y < height; y++) {
+                image.getRGB(0, y, width, 1, row, 0, width);
+                for (int x = 0, p = y * width * 3; x < width; x++, p += 3) {
+                    int argb = row[x];
+                    bgr[p] = (byte) argb;
+                    bgr[p + 1] = (byte) (argb >> 8);
+                    bgr[p + 2] = (byte) (argb >> 16);
+                }
+            }
+        }
+        return new BgrRaster(bgr, width, height);
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.transformer_manager_backkend.service.classification;
+
+import java.util.Arrays;
+
+/**
+ * A uniform grid over inclusive integer rectangles, stored as flat arrays
+ * (cell offsets plus member ids) so building and querying allocate nothing
+ * per box. A query returns every member whose rectangle shares a cell with
+ * the query rectangle, each once; callers apply the exact geometric test.
+ */
+final class BoxGrid {
+
+    private final int originX;
+    private final int originY;
+    private final int cellSize;
+    private final int cols;
+    private final int rows;
+    private final int[] cellStart;
+    private final int[] entries;
+    private final int[] seenStamp;
+    private int stamp;
+
+    /**
+     * Index members {@code ids[0..count)}; member {@code k} covers
+     * [x0[k], x1[k]] x [y0[k], y1[k]] inclusive. {@code idLimit} bounds the
+     * ids so duplicates can be filtered with a stamp array.
+     */
+    BoxGrid(int[] ids, int[] x0, int[] y0, int[] x1, int[] y1, int count, int cellSize, int idLimit) {
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (int k = 0; k < count; k++) {
+            minX = Math.min(minX, x0[k]);
+            minY = Math.min(minY, y0[k]);
+            maxX = Math.max(maxX, x1[k]);
+            maxY = Math.max(maxY, y1[k]);
+        }
+        if (count == 0) {
+            minX = minY = maxX = maxY = 0;
+        }
+
+        // Keep the cell count linear in the member count, whatever the spread
+        long spanX = (long) maxX - minX + 1;
+        long spanY = (long) maxY - minY + 1;
+        long maxCells = 4L * count + 16;
+        long size = Math.max(1, cellSize);
+        while (((spanX + size - 1) / size) * ((spanY + size - 1) / size) > maxCells) {
+            size *= 2;
+        }
+
+        this.originX = minX;
+        this.originY = minY;
+        this.cellSize = (int) Math.min(size, Integer.MAX_VALUE);
+        this.cols = (int) ((spanX + size - 1) / size);
+        this.rows = (int) ((spanY + size - 1) / size);
+        this.cellStart = new int[cols * rows + 1];
+        this.seenStamp = new int[idLimit];
+
+        // Counting pass, prefix sums, then fill: a CSR layout of cell -> members
+        for (int k = 0; k < count; k++) {
+            for (int cy = cellY(y0[k]); cy <= cellY(y1[k]); cy++) {
+                for (int cx = cellX(x0[k]); cx <= cellX(x1[k]); cx++) {
+                    cellStart[cy * cols + cx + 1]++;
+                }
+            }
+        }
+        for (int c = 0; c < cols * rows; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        this.entries = new int[cellStart[cols * rows]];
+        int[] fill = new int[cols * rows];
+        for (int k = 0; k < count; k++) {
+            for (int cy = cellY(y0[k]); cy <= cellY(y1[k]); cy++) {
+                for (int cx = cellX(x0[k]); cx <= cellX(x1[k]); cx++) {
+                    int cell = cy * cols + cx;
+                    entries[cellStart[cell] + fill[cell]++] = ids[k];
+                }
+            }
+        }
+    }
+
+    /**
+     * Write the ids of members sharing a cell with [qx0, qx1] x [qy0, qy1]
+     * into {@code out} and return how many there are
+     */
+    int query(int qx0, int qy0, int qx1, int qy1, int[] out) {
+        if (++stamp == 0) {
+            Arrays.fill(seenStamp, 0);
+            stamp = 1;
+        }
+        int found = 0;
+        int cx0 = clamp(Math.floorDiv((long) qx0 - originX, cellSize), cols);
+        int cy0 = clamp(Math.floorDiv((long) qy0 - originY, cellSize), rows);
+        int cx1 = clamp(Math.floorDiv((long) qx1 - originX, cellSize), cols);
+        int cy1 = clamp(Math.floorDiv((long) qy1 - originY, cellSize), rows);
+        if (qx1 < originX || qy1 < originY) {
+            return 0;
+        }
+        for (int cy = cy0; cy <= cy1; cy++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                int cell = cy * cols + cx;
+                for (int e = cellStart[cell]; e < cellStart[cell + 1]; e++) {
+                    int id = entries[e];
+                    if (seenStamp[id] != stamp) {
+                        seenStamp[id] = stamp;
+                        out[found++] = id;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private static int clamp(long cell, int limit) {
+        return (int) Math.max(0, Math.min(limit - 1, cell));
+    }
+
+    private int cellX(int x) {
+        return (int) Math.floorDiv((long) x - originX, cellSize);
+    }
+
+    private int cellY(int y) {
+        return (int) Math.floorDiv((long) y - originY, cellSize);
+    }
+}
@@ -0,0 +1,306 @@
+package com.example.transformer_manager_backkend.service.classification;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The box clean-up steps of classify_filtered_image: confidence-carrying
+ * NMS, dropping potential point overloads that contain or overlap a faulty
+ * one, and merging nearby boxes of the same label. Each step keeps the input
+ * order of the boxes it does not drop and gives the same result as the
+ * pairwise Python helpers, but finds candidate pairs through a
+ * {@link BoxGrid}, so thousands of boxes cost a sort plus near-linear work.
+ *
+ * Used by the Java classifier and by annotation editing, so boxes drawn or
+ * changed by hand can be cleaned up with the classifier's own rules.
+ */
+public final class BoxPostProcessor {
+
+    static final String POINT_FAULTY = "Point Overload (Faulty)";
+    static final String POINT_POTENTIAL = "Point Overload (Potential)";
+
+    private BoxPostProcessor() {
+    }
+
+    /**
+     * The full chain as classify_filtered_image runs it at the given
+     * detection sensitivity
+     */
+    public static List<Detection> process(List<Detection> detections, double sensitivity) {
+        return process(detections, iouThreshold(sensitivity), mergeDistance(sensitivity));
+    }
+
+    /**
+     * The full chain with explicit thresholds
+     */
+    public static List<Detection> process(List<Detection> detections, double iouThreshold, int mergeDistance) {
+        List<Detection> result = nonMaximumSuppression(detections, iouThreshold);
+        result = dropPotentialNearFaulty(result, true, true);
+        return mergeCloseBoxes(result, mergeDistance);
+    }
+
+    /**
+     * NMS IoU threshold classify_filtered_image derives from the sensitivity
+     */
+    public static double iouThreshold(double sensitivity) {
+        return Math.max(0.2, Math.min(0.6, 0.4 + (sensitivity - 1.0) * 0.1));
+    }
+
+    /**
+     * Merge distance classify_filtered_image derives from the sensitivity
+     */
+    public static int mergeDistance(double sensitivity) {
+        return Math.max(20, Math.min(200, (int) (100 / sensitivity)));
+    }
+
+    /**
+     * _nms_iou_with_confidence: visit boxes from largest to smallest area and
+     * drop every later box whose IoU with a kept box exceeds the threshold.
+     * Equal areas are visited from the last box to the first, which is the
+     * order numpy's argsort(...)[::-1] gives for the box counts seen here.
+     * With a non-negative threshold only intersecting boxes can be dropped,
+     * so each kept box is compared with its grid neighbours only.
+     */
+    public static List<Detection> nonMaximumSuppression(List<Detection> detections, double iouThreshold) {
+        int n = detections.size();
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.<Integer>comparingLong(i -> detections.get(i).getArea())
+                .thenComparingInt(i -> i)
+                .reversed());
+
+        List<Detection> kept = new ArrayList<>();
+        if (n == 0) {
+            return kept;
+        }
+        if (iouThreshold < 0) {
+            // Every IoU exceeds a negative threshold, so the first box removes all others
+            kept.add(detections.get(order[0]));
+            return kept;
+        }
+
+        int[] rank = new int[n];
+        for (int a = 0; a < n; a++) {
+            rank[order[a]] = a;
+        }
+        BoxGrid grid = extentGrid(detections, null);
+        int[] candidates = new int[n];
+        boolean[] removed = new boolean[n];
+        for (int a = 0; a < n; a++) {
+            int i = order[a];
+            if (removed[i]) {
+                continue;
+            }
+            Detection keep = detections.get(i);
+            kept.add(keep);
+            int found = queryExtent(grid, keep, candidates);
+            for (int c = 0; c < found; c++) {
+                int j = candidates[c];
+                if (rank[j] > a && !removed[j] && iou(keep, detections.get(j)) > iouThreshold) {
+                    removed[j] = true;
+                }
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * _filter_faulty_inside_potential: drop a potential point overload that
+     * fully contains a faulty one
+     */
+    public static List<Detection> filterFaultyInsidePotential(List<Detection> detections) {
+        return dropPotentialNearFaulty(detections, true, false);
+    }
+
+    /**
+     * _filter_faulty_overlapping_potential: drop a potential point overload
+     * that overlaps a faulty one at all
+     */
+    public static List<Detection> filterFaultyOverlappingPotential(List<Detection> detections) {
+        return dropPotentialNearFaulty(detections, false, true);
+    }
+
+    /**
+     * _merge_close_boxes: each remaining box absorbs later boxes of the same
+     * label whose centres lie within {@code distance} on both axes. The union
+     * is grown from the absorbing box's own right/bottom edge, exactly as the
+     * Python code does, which makes the result depend on the last box
+     * absorbed, so candidates are applied in input order.
+     */
+    public static List<Detection> mergeCloseBoxes(List<Detection> detections, int distance) {
+        int n = detections.size();
+        List<Detection> merged = new ArrayList<>();
+        if (n == 0) {
+            return merged;
+        }
+
+        // Centres are points, so a grid with cells of the merge distance finds
+        // every candidate in the 3x3 cells around a box
+        int[] centreX = new int[n];
+        int[] centreY = new int[n];
+        for (int i = 0; i < n; i++) {
+            Detection d = detections.get(i);
+            centreX[i] = d.getX() + Math.floorDiv(d.getWidth(), 2);
+            centreY[i] = d.getY() + Math.floorDiv(d.getHeight(), 2);
+        }
+        int[] ids = new int[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = i;
+        }
+        BoxGrid grid = new BoxGrid(ids, centreX, centreY, centreX, centreY, n, Math.max(1, distance), n);
+        int[] candidates = new int[n];
+
+        boolean[] used = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            if (used[i]) {
+                continue;
+            }
+            Detection first = detections.get(i);
+            int x1 = first.getX();
+            int y1 = first.getY();
+            int w1 = first.getWidth();
+            int h1 = first.getHeight();
+            int x2 = x1;
+            int y2 = y1;
+            int w2 = w1;
+            int h2 = h1;
+            double maxConfidence = first.getConfidence();
+
+            int found = 0;
+            if (distance > 0) {
+                int reach = distance - 1;
+                found = grid.query(centreX[i] - reach, centreY[i] - reach, centreX[i] + reach, centreY[i] + reach,
+                        candidates);
+            }
+            int matches = 0;
+            for (int c = 0; c < found; c++) {
+                int j = candidates[c];
+                if (j > i && !used[j]
+                        && Math.abs(centreX[i] - centreX[j]) < distance
+                        && Math.abs(centreY[i] - centreY[j]) < distance
+                        && first.getLabel().equals(detections.get(j).getLabel())) {
+                    candidates[matches++] = j;
+                }
+            }
+            Arrays.sort(candidates, 0, matches);
+            for (int c = 0; c < matches; c++) {
+                Detection other = detections.get(candidates[c]);
+                x2 = Math.min(x2, other.getX());
+                y2 = Math.min(y2, other.getY());
+                w2 = Math.max(x1 + w1, other.getX() + other.getWidth()) - x2;
+                h2 = Math.max(y1 + h1, other.getY() + other.getHeight()) - y2;
+                maxConfidence = Math.max(maxConfidence, other.getConfidence());
+                used[candidates[c]] = true;
+            }
+            merged.add(new Detection(x2, y2, w2, h2, first.getLabel(), maxConfidence));
+            used[i] = true;
+        }
+        return merged;
+    }
+
+    /**
+     * Both potential-point filters in one pass over a grid of the faulty
+     * boxes. Neither filter drops a faulty box, so running them together
+     * gives the same result as running them one after the other.
+     */
+    private static List<Detection> dropPotentialNearFaulty(List<Detection> detections, boolean containing,
+            boolean overlapping) {
+        int n = detections.size();
+        boolean[] faulty = new boolean[n];
+        boolean anyFaulty = false;
+        for (int i = 0; i < n; i++) {
+            faulty[i] = POINT_FAULTY.equals(detections.get(i).getLabel());
+            anyFaulty |= faulty[i];
+        }
+        if (!anyFaulty) {
+            return new ArrayList<>(detections);
+        }
+
+        BoxGrid grid = extentGrid(detections, faulty);
+        int[] candidates = new int[n];
+        List<Detection> result = new ArrayList<>(n);
+        for (Detection d : detections) {
+            boolean keep = true;
+            if (POINT_POTENTIAL.equals(d.getLabel())) {
+                int found = queryExtent(grid, d, candidates);
+                for (int c = 0; c < found && keep; c++) {
+                    Detection f = detections.get(candidates[c]);
+                    if ((containing && contains(d, f)) || (overlapping && overlaps(d, f))) {
+                        keep = false;
+                    }
+                }
+            }
+            if (keep) {
+                result.add(d);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Grid over the closed extents [x, x + w] x [y, y + h] of the selected
+     * boxes (all if {@code members} is null). Closed extents make a box
+     * touching or containing a degenerate box share a cell with it.
+     */
+    private static BoxGrid extentGrid(List<Detection> detections, boolean[] members) {
+        int n = detections.size();
+        int[] ids = new int[n];
+        int[] x0 = new int[n];
+        int[] y0 = new int[n];
+        int[] x1 = new int[n];
+        int[] y1 = new int[n];
+        int count = 0;
+        long sideSum = 0;
+        for (int i = 0; i < n; i++) {
+            if (members != null && !members[i]) {
+                continue;
+            }
+            Detection d = detections.get(i);
+            ids[count] = i;
+            x0[count] = Math.min(d.getX(), d.getX() + d.getWidth());
+            y0[count] = Math.min(d.getY(), d.getY() + d.getHeight());
+            x1[count] = Math.max(d.getX(), d.getX() + d.getWidth());
+            y1[count] = Math.max(d.getY(), d.getY() + d.getHeight());
+            sideSum += Math.max(x1[count] - x0[count], y1[count] - y0[count]);
+            count++;
+        }
+        // Cells about the size of an average box keep both cells per box and boxes per cell small
+        int cellSize = count > 0 ? (int) Math.max(1, sideSum / count) : 1;
+        return new BoxGrid(ids, x0, y0, x1, y1, count, cellSize, n);
+    }
+
+    private static int queryExtent(BoxGrid grid, Detection d, int[] out) {
+        return grid.query(Math.min(d.getX(), d.getX() + d.getWidth()), Math.min(d.getY(), d.getY() + d.getHeight()),
+                Math.max(d.getX(), d.getX() + d.getWidth()), Math.max(d.getY(), d.getY() + d.getHeight()), out);
+    }
+
+    /**
+     * _iou, including its 1e-6 guard against empty boxes
+     */
+    static double iou(Detection a, Detection b) {
+        int xA = Math.max(a.getX(), b.getX());
+        int yA = Math.max(a.getY(), b.getY());
+        int xB = Math.min(a.getX() + a.getWidth(), b.getX() + b.getWidth());
+        int yB = Math.min(a.getY() + a.getHeight(), b.getY() + b.getHeight());
+        long interArea = (long) Math.max(0, xB - xA) * Math.max(0, yB - yA);
+        return interArea / (double) (a.getArea() + b.getArea() - interArea + 1e-6);
+    }
+
+    static boolean contains(Detection outer, Detection inner) {
+        return inner.getX() >= outer.getX() && inner.getY() >= outer.getY()
+                && inner.getX() + inner.getWidth() <= outer.getX() + outer.getWidth()
+                && inner.getY() + inner.getHeight() <= outer.getY() + outer.getHeight();
+    }
+
+    static boolean overlaps(Detection a, Detection b) {
+        int xA = Math.max(a.getX(), b.getX());
+        int yA = Math.max(a.getY(), b.getY());
+        int xB = Math.min(a.getX() + a.getWidth(), b.getX() + b.getWidth());
+        int yB = Math.min(a.getY() + a.getHeight(), b.getY() + b.getHeight());
+        return xB > xA && yB > yA;
+    }
+}
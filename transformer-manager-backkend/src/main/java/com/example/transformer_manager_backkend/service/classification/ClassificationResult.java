@@ -0,0 +1,33 @@
+package com.example.transformer_manager_backkend.service.classification;
+
+import java.util.List;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+/**
+ * Overall label, boxes and the per-box feedback details of one classified
+ * image, as returned by classify_filtered_image
+ */
+public final class ClassificationResult {
+    private final String label;
+    private final List<Detection> detections;
+    private final ArrayNode perBoxFeedback;
+
+    public ClassificationResult(String label, List<Detection> detections, ArrayNode perBoxFeedback) {
+        this.label = label;
+        this.detections = List.copyOf(detections);
+        this.perBoxFeedback = perBoxFeedback;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public List<Detection> getDetections() {
+        return detections;
+    }
+
+    public ArrayNode getPerBoxFeedback() {
+        return perBoxFeedback;
+    }
+}
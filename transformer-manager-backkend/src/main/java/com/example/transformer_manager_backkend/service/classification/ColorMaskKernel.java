@@ -0,0 +1,20 @@
+package com.example.transformer_manager_backkend.service.classification;
+
+/**
+ * Per-pixel part of {@link ColorMasks}: BGR to OpenCV HSV and the five
+ * inRange tests. Implementations write 1 into every mask a pixel falls in
+ * and add the pixel to that mask's entry in {@code counts}.
+ */
+interface ColorMaskKernel {
+
+    int BLUE = 0;
+    int BLACK = 1;
+    int YELLOW = 2;
+    int ORANGE = 3;
+    int RED = 4;
+
+    String getName();
+
+    void compute(byte[] bgr, int pixels, byte[] blue, byte[] black, byte[] yellow, byte[] orange, byte[] red,
+            int[] counts);
+}
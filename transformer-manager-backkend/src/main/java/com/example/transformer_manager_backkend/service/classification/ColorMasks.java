@@ -0,0 +1,168 @@
+package com.example.transformer_manager_backkend.service.classification;
+
+/**
+ * The HSV colour masks classify_filtered_image works on, computed in one pass
+ * over a BGR raster. Hue, saturation and value are derived with OpenCV's
+ * integer COLOR_BGR2HSV tables (hue 0-179), so every pixel lands in exactly
+ * the same masks as with cv2.cvtColor followed by cv2.inRange.
+ *
+ * Masks hold 1 for a pixel inside the range and 0 otherwise. The per-pixel
+ * work is done by a {@link ColorMaskKernel}: the Vector API one when the
+ * jdk.incubator.vector module is available and enabled, the scalar one
+ * otherwise. Both give identical masks.
+ */
+public final class ColorMasks {
+
+    static final int HSV_SHIFT = 12;
+    static final int[] SDIV_TABLE = new int[256];
+    static final int[] HDIV_TABLE_180 = new int[256];
+
+    static {
+        for (int i = 1; i < 256; i++) {
+            SDIV_TABLE[i] = (int) Math.round((255 << HSV_SHIFT) / (1.0 * i));
+            HDIV_TABLE_180[i] = (int) Math.round((180 << HSV_SHIFT) / (6.0 * i));
+        }
+    }
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    private static volatile ColorMaskKernel kernel = selectKernel(true);
+
+    private final int width;
+    private final int height;
+    private final byte[] blue;
+    private final byte[] black;
+    private final byte[] yellow;
+    private final byte[] orange;
+    private final byte[] red;
+    private final int blueCount;
+    private final int blackCount;
+    private final int yellowCount;
+    private final int orangeCount;
+    private final int redCount;
+
+    private ColorMasks(int width, int height, byte[] blue, byte[] black, byte[] yellow, byte[] orange, byte[] red,
+            int[] counts) {
+        this.width = width;
+        this.height = height;
+        this.blue = blue;
+        this.black = black;
+        this.yellow = yellow;
+        this.orange = orange;
+        this.red = red;
+        this.blueCount = counts[ColorMaskKernel.BLUE];
+        this.blackCount = counts[ColorMaskKernel.BLACK];
+        this.yellowCount = counts[ColorMaskKernel.YELLOW];
+        this.orangeCount = counts[ColorMaskKernel.ORANGE];
+        this.redCount = counts[ColorMaskKernel.RED];
+    }
+
+    /**
+     * Masks of an interleaved BGR raster of {@code width * height} pixels
+     */
+    public static ColorMasks compute(byte[] bgr, int width, int height) {
+        return compute(bgr, width, height, kernel);
+    }
+
+    static ColorMasks compute(byte[] bgr, int width, int height, ColorMaskKernel kernel) {
+        int pixels = width * height;
+        byte[] blue = new byte[pixels];
+        byte[] black = new byte[pixels];
+        byte[] yellow = new byte[pixels];
+        byte[] orange = new byte[pixels];
+        byte[] red = new byte[pixels];
+        int[] counts = new int[5];
+        kernel.compute(bgr, pixels, blue, black, yellow, orange, red, counts);
+        return new ColorMasks(width, height, blue, black, yellow, orange, red, counts);
+    }
+
+    /**
+     * Switch between the Vector API kernel and the scalar one. Returns false
+     * if the vector kernel was asked for but cannot be used on this JVM.
+     */
+    public static boolean useVectorKernel(boolean enabled) {
+        kernel = selectKernel(enabled);
+        return !enabled || kernel != ScalarColorMaskKernel.INSTANCE;
+    }
+
+    /**
+     * Name of the kernel in use, for logs
+     */
+    public static String kernelName() {
+        return kernel.getName();
+    }
+
+    static boolean vectorKernelAvailable() {
+        return ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent() && VectorColorMaskKernel.isSupported();
+    }
+
+    private static ColorMaskKernel selectKernel(boolean vector) {
+        // The module check comes first so VectorColorMaskKernel is never loaded without its module
+        if (vector && vectorKernelAvailable()) {
+            return VectorColorMaskKernel.INSTANCE;
+        }
+        return ScalarColorMaskKernel.INSTANCE;
+    }
+
+    /**
+     * Number of pixels set in {@code mask} inside the given rectangle
+     */
+    public static int countInRect(byte[] mask, int stride, int x, int y, int w, int h) {
+        int count = 0;
+        for (int row = y; row < y + h; row++) {
+            int offset = row * stride;
+            for (int col = x; col < x + w; col++) {
+                count += mask[offset + col];
+            }
+        }
+        return count;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public byte[] getBlue() {
+        return blue;
+    }
+
+    public byte[] getBlack() {
+        return black;
+    }
+
+    public byte[] getYellow() {
+        return yellow;
+    }
+
+    public byte[] getOrange() {
+        return orange;
+    }
+
+    public byte[] getRed() {
+        return red;
+    }
+
+    public int getBlueCount() {
+        return blueCount;
+    }
+
+    public int getBlackCount() {
+        return blackCount;
+    }
+
+    public int getYellowCount() {
+        return yellowCount;
+    }
+
+    public int getOrangeCount() {
+        return orangeCount;
+    }
+
+    public int getRedCount() {
+        return redCount;
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.transformer_manager_backkend.service.classification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outer contours of a binary mask, as cv2.findContours(mask, RETR_EXTERNAL,
+ * CHAIN_APPROX_SIMPLE) followed by cv2.contourArea and cv2.boundingRect would
+ * report them. This is a port of OpenCV's border following (Suzuki-Abe) scan,
+ * including its quirks: the mask is padded by one zero pixel, borders are
+ * traced with 8-connectivity, a region is skipped when the last border to its
+ * left marks it as being inside another region, and contours come back in
+ * reverse order of discovery.
+ *
+ * Only the area and bounding box of each contour are kept. Dropping collinear
+ * points (CHAIN_APPROX_SIMPLE) changes neither.
+ */
+public final class ContourFinder {
+
+    private static final byte MARK = 2;
+    private static final byte MARK_RIGHT_EDGE = (byte) (2 | -128);
+
+    /** Neighbour offsets in OpenCV's chain code order, counter-clockwise from +x */
+    private static final int[] CODE_DX = { 1, 1, 0, -1, -1, -1, 0, 1 };
+    private static final int[] CODE_DY = { 0, -1, -1, -1, 0, 1, 1, 1 };
+
+    private ContourFinder() {
+    }
+
+    /**
+     * Outer contours of {@code mask} (0 = background, anything else =
+     * foreground), a {@code width * height} raster
+     */
+    public static List<Contour> findExternal(byte[] mask, int width, int height) {
+        int step = width + 2;
+        int paddedHeight = height + 2;
+        byte[] img = new byte[step * paddedHeight];
+        for (int y = 0; y < height; y++) {
+            int src = y * width;
+            int dst = (y + 1) * step + 1;
+            for (int x = 0; x < width; x++) {
+                img[dst + x] = mask[src + x] != 0 ? (byte) 1 : 0;
+            }
+        }
+
+        int[] deltas = new int[16];
+        for (int i = 0; i < 8; i++) {
+            deltas[i] = CODE_DX[i] + CODE_DY[i] * step;
+            deltas[i + 8] = deltas[i];
+        }
+
+        List<Contour> found = new ArrayList<>();
+        int scanWidth = step - 1;
+        int scanHeight = paddedHeight - 1;
+        int lnbdX = 0;
+        int lnbdY = 1;
+        int x = 1;
+        int prev = 0;
+        for (int y = 1; y < scanHeight; y++) {
+            int row = y * step;
+            while (x < scanWidth) {
+                int p = 0;
+                while (x < scanWidth && (p = img[row + x]) == prev) {
+                    x++;
+                }
+                if (x >= scanWidth) {
+                    break;
+                }
+
+                boolean resume = false;
+                boolean isHole = false;
+                if (!(prev == 0 && p == 1)) {
+                    if (p != 0 || prev < 1) {
+                        resume = true;
+                    } else {
+                        if ((prev & -2) != 0) {
+                            lnbdX = x - 1;
+                        }
+                        isHole = true;
+                    }
+                }
+                // External mode: holes are never traced, nor regions found inside another region
+                if (!resume && (isHole || img[lnbdY * step + lnbdX] > 0)) {
+                    resume = true;
+                }
+
+                if (!resume) {
+                    found.add(trace(img, row + x, x - 1, y - 1, deltas));
+                    // The scan continues right of the start pixel, which is now marked
+                    prev = img[row + x];
+                    x++;
+                    continue;
+                }
+
+                prev = p;
+                if ((prev & -2) != 0) {
+                    lnbdX = x;
+                }
+                x++;
+            }
+            lnbdX = 0;
+            lnbdY = y + 1;
+            x = 1;
+            prev = 0;
+        }
+
+        // OpenCV links every new contour in front of the ones found before it
+        List<Contour> contours = new ArrayList<>(found.size());
+        for (int i = found.size() - 1; i >= 0; i--) {
+            contours.add(found.get(i));
+        }
+        return contours;
+    }
+
+    /**
+     * Follow the outer border starting at {@code start}, marking it as OpenCV's
+     * icvFetchContour does, and measure the polygon through the border pixels
+     */
+    private static Contour trace(byte[] img, int start, int startX, int startY, int[] deltas) {
+        int s = 4;
+        int sEnd = 4;
+        int i1;
+        do {
+            s = (s - 1) & 7;
+            i1 = start + deltas[s];
+        } while (img[i1] == 0 && s != sEnd);
+
+        if (s == sEnd) {
+            // Single pixel region
+            img[start] = MARK_RIGHT_EDGE;
+            return new Contour(0.0, startX, startY, 1, 1);
+        }
+
+        int ptX = startX;
+        int ptY = startY;
+        int minX = ptX;
+        int maxX = ptX;
+        int minY = ptY;
+        int maxY = ptY;
+        long doubledArea = 0;
+        int i3 = start;
+        int i4 = start;
+        for (;;) {
+            sEnd = s;
+            while (s < 15) {
+                i4 = i3 + deltas[++s];
+                if (img[i4] != 0) {
+                    break;
+                }
+            }
+            s &= 7;
+
+            if (Integer.compareUnsigned(s - 1, sEnd) < 0) {
+                img[i3] = MARK_RIGHT_EDGE;
+            } else if (img[i3] == 1) {
+                img[i3] = MARK;
+            }
+
+            int nextX = ptX + CODE_DX[s];
+            int nextY = ptY + CODE_DY[s];
+            doubledArea += (long) ptX * nextY - (long) nextX * ptY;
+            ptX = nextX;
+            ptY = nextY;
+            minX = Math.min(minX, ptX);
+            maxX = Math.max(maxX, ptX);
+            minY = Math.min(minY, ptY);
+            maxY = Math.max(maxY, ptY);
+
+            if (i4 == start && i3 == i1) {
+                break;
+            }
+            i3 = i4;
+            s = (s + 4) & 7;
+        }
+        // The walk ends back on the start pixel, so the polygon is already closed
+        return new Contour(Math.abs(doubledArea) * 0.5, minX, minY, maxX - minX + 1, maxY - minY + 1);
+    }
+
+    /**
+     * Area and bounding box of one contour
+     */
+    public static final class Contour {
+        private final double area;
+        private final int x;
+        private final int y;
+        private final int width;
+        private final int height;
+
+        public Contour(double area, int x, int y, int width, int height) {
+            this.area = area;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+
+        public double getArea() {
+            return area;
+        }
+
+        public int getX() {
+            return x;
+        }
+
+        public int getY() {
+            return y;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+    }
+}
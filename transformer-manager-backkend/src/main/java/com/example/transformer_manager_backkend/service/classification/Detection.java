@@ -0,0 +1,55 @@
+package com.example.transformer_manager_backkend.service.classification;
+
+/**
+ * One labelled box found by the classifier, in pixel coordinates of the
+ * analysed image
+ */
+public final class Detection {
+    private final int x;
+    private final int y;
+    private final int width;
+    private final int height;
+    private final String label;
+    private final double confidence;
+
+    public Detection(int x, int y, int width, int height, String label, double confidence) {
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.label = label;
+        this.confidence = confidence;
+    }
+
+    public Detection withConfidence(double newConfidence) {
+        return new Detection(x, y, width, height, label, newConfidence);
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public double getConfidence() {
+        return confidence;
+    }
+
+    public long getArea() {
+        return (long) width * height;
+    }
+}
@@ -0,0 +1,282 @@
+package com.example.transformer_manager_backkend.service.classification;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Java port of classify_filtered_image from inference_core_local.py: HSV
+ * colour masks, ratio tests, contour based spot and strip detection, the
+ * centre loose-joint check, box post-processing and feedback adjustment.
+ *
+ * Thresholds, evaluation order and rounding follow the Python code line by
+ * line so both produce the same labels, boxes and confidences for the same
+ * filtered image; FilteredImageClassifierTest checks this against results
+ * exported from the Python code. Keep the two in step when either changes.
+ */
+public final class FilteredImageClassifier {
+
+    static final String NORMAL = "Normal";
+    static final String FULL_WIRE_OVERLOAD = "Full Wire Overload";
+    static final String LOOSE_JOINT_FAULTY = "Loose Joint (Faulty)";
+    static final String LOOSE_JOINT_POTENTIAL = "Loose Joint (Potential)";
+    static final String TINY_FAULTY = "Tiny Faulty Spot";
+    static final String TINY_POTENTIAL = "Tiny Potential Spot";
+    static final String RED_STRIP = "Wire Overload (Red Strip)";
+    static final String YELLOW_STRIP = "Wire Overload (Yellow Strip)";
+    static final String ORANGE_STRIP = "Wire Overload (Orange Strip)";
+
+    private static final String[] SOURCE_METRICS = {
+            "avg_count_delta", "avg_area_ratio", "avg_confidence_delta", "samples" };
+
+    private FilteredImageClassifier() {
+    }
+
+    /**
+     * Sensitivity as the scripts see it: passed on the command line with two
+     * decimals and clamped to the supported range
+     */
+    public static double normalizeSensitivity(double sensitivity) {
+        double rounded = Double.parseDouble(String.format(Locale.ROOT, "%.2f", sensitivity));
+        return Math.max(0.1, Math.min(2.0, rounded));
+    }
+
+    /**
+     * Classify a filtered image. {@code feedback} is the payload written by
+     * ModelFeedbackService, or an empty object.
+     */
+    public static ClassificationResult classify(BgrRaster image, double sensitivity, JsonNode feedback) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        ColorMasks masks = ColorMasks.compute(image.getData(), width, height);
+        int total = width * height;
+
+        String label = "Unknown";
+        List<Detection> boxes = new ArrayList<>();
+
+        if ((double) (masks.getBlueCount() + masks.getBlackCount()) / total > 0.8) {
+            label = NORMAL;
+        } else if ((double) (masks.getRedCount() + masks.getOrangeCount()) / total > 0.5) {
+            label = FULL_WIRE_OVERLOAD;
+        } else if ((double) masks.getYellowCount() / total > 0.5) {
+            label = FULL_WIRE_OVERLOAD;
+        }
+
+        List<ContourFinder.Contour> redContours = ContourFinder.findExternal(masks.getRed(), width, height);
+        List<ContourFinder.Contour> yellowContours = ContourFinder.findExternal(masks.getYellow(), width, height);
+
+        double fullWireThreshold = Math.max(0.5, 0.7 / sensitivity);
+        double hotRatio = (double) (masks.getRedCount() + masks.getOrangeCount() + masks.getYellowCount()) / total;
+        if (hotRatio > fullWireThreshold) {
+            label = FULL_WIRE_OVERLOAD;
+            double confidence = Math.min(0.95, 0.7 + (hotRatio - fullWireThreshold) * 0.8);
+            boxes.add(new Detection(0, 0, width, height, label, round(confidence, 3)));
+        } else {
+            int minAreaFaulty = Math.max(10, (int) (120 / sensitivity));
+            int minAreaPotential = Math.max(50, (int) (1000 / sensitivity));
+            double maxArea = Math.min(0.2 * total, 0.05 * total * sensitivity);
+
+            addSpots(boxes, redContours, image, masks.getRed(), BoxPostProcessor.POINT_FAULTY, minAreaFaulty,
+                    maxArea);
+            addSpots(boxes, yellowContours, image, masks.getYellow(), BoxPostProcessor.POINT_POTENTIAL,
+                    minAreaPotential, maxArea);
+
+            // Middle area (loose joint); the crop has three channels, so its size counts each pixel three times
+            int top = height / 4;
+            int bottom = 3 * height / 4;
+            int left = width / 4;
+            int right = 3 * width / 4;
+            int centerSize = (bottom - top) * (right - left) * 3;
+            int centerRedOrange = ColorMasks.countInRect(masks.getRed(), width, left, top, right - left, bottom - top)
+                    + ColorMasks.countInRect(masks.getOrange(), width, left, top, right - left, bottom - top);
+            int centerYellow = ColorMasks.countInRect(masks.getYellow(), width, left, top, right - left,
+                    bottom - top);
+            double centerThreshold = Math.max(0.05, 0.1 / sensitivity) * centerSize;
+            if (centerRedOrange > centerThreshold) {
+                label = LOOSE_JOINT_FAULTY;
+                double coverage = (double) centerRedOrange / centerSize;
+                boxes.add(new Detection(width / 4, height / 4, width / 2, height / 2, label,
+                        round(Math.min(0.85, 0.6 + coverage), 3)));
+            } else if (centerYellow > centerThreshold) {
+                label = LOOSE_JOINT_POTENTIAL;
+                double coverage = (double) centerYellow / centerSize;
+                boxes.add(new Detection(width / 4, height / 4, width / 2, height / 2, label,
+                        round(Math.min(0.75, 0.5 + coverage), 3)));
+            }
+        }
+
+        // Tiny spots
+        int minAreaTiny = Math.max(5, (int) (10 / sensitivity));
+        int maxAreaTiny = Math.min(100, (int) (30 * sensitivity));
+        addSpots(boxes, redContours, image, masks.getRed(), TINY_FAULTY, minAreaTiny, maxAreaTiny);
+        addSpots(boxes, yellowContours, image, masks.getYellow(), TINY_POTENTIAL, minAreaTiny, maxAreaTiny);
+
+        // Wire-like strips go in front of everything else
+        double aspectRatioThreshold = Math.max(3, 5 / sensitivity);
+        double minStripArea = Math.max(0.005 * total, 0.01 * total / sensitivity);
+        List<Detection> wires = new ArrayList<>();
+        addStrips(wires, redContours, image, masks.getRed(), RED_STRIP, minStripArea, aspectRatioThreshold);
+        addStrips(wires, yellowContours, image, masks.getYellow(), YELLOW_STRIP, minStripArea,
+                aspectRatioThreshold);
+        addStrips(wires, ContourFinder.findExternal(masks.getOrange(), width, height), image, masks.getOrange(),
+                ORANGE_STRIP, minStripArea, aspectRatioThreshold);
+        wires.addAll(boxes);
+
+        List<Detection> processed = BoxPostProcessor.process(wires, sensitivity);
+
+        ArrayNode perBox = JsonNodeFactory.instance.arrayNode();
+        List<Detection> adjusted = applyFeedback(processed, feedback, perBox);
+        return new ClassificationResult(label, adjusted, perBox);
+    }
+
+    private static void addSpots(List<Detection> boxes, List<ContourFinder.Contour> contours, BgrRaster image,
+            byte[] mask, String label, double minArea, double maxArea) {
+        for (ContourFinder.Contour contour : contours) {
+            double area = contour.getArea();
+            if (minArea < area && area < maxArea) {
+                boxes.add(detection(contour, image, mask, label));
+            }
+        }
+    }
+
+    private static void addStrips(List<Detection> wires, List<ContourFinder.Contour> contours, BgrRaster image,
+            byte[] mask, String label, double minArea, double aspectRatioThreshold) {
+        for (ContourFinder.Contour contour : contours) {
+            if (contour.getArea() > minArea) {
+                int w = contour.getWidth();
+                int h = contour.getHeight();
+                double aspectRatio = Math.max(w, h) / (Math.min(w, h) + 1e-6);
+                if (aspectRatio > aspectRatioThreshold) {
+                    wires.add(detection(contour, image, mask, label));
+                }
+            }
+        }
+    }
+
+    private static Detection detection(ContourFinder.Contour contour, BgrRaster image, byte[] mask, String label) {
+        return new Detection(contour.getX(), contour.getY(), contour.getWidth(), contour.getHeight(), label,
+                calculateConfidence(image, mask, contour.getX(), contour.getY(), contour.getWidth(),
+                        contour.getHeight(), label));
+    }
+
+    /**
+     * _calculate_confidence: label prior blended with mask coverage, mean
+     * intensity of the covered pixels and a size penalty
+     */
+    static double calculateConfidence(BgrRaster image, byte[] mask, int x, int y, int w, int h, String label) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        // numpy slicing clamps the region to the image
+        int x0 = Math.max(0, Math.min(x, width));
+        int y0 = Math.max(0, Math.min(y, height));
+        int x1 = Math.max(x0, Math.min(x + w, width));
+        int y1 = Math.max(y0, Math.min(y + h, height));
+        int roiPixels = (x1 - x0) * (y1 - y0);
+        if (roiPixels == 0) {
+            return 0.5;
+        }
+
+        byte[] bgr = image.getData();
+        long covered = 0;
+        long intensitySum = 0;
+        for (int row = y0; row < y1; row++) {
+            for (int col = x0; col < x1; col++) {
+                int i = row * width + col;
+                if (mask[i] != 0) {
+                    covered++;
+                    intensitySum += (bgr[i * 3] & 0xFF) + (bgr[i * 3 + 1] & 0xFF) + (bgr[i * 3 + 2] & 0xFF);
+                }
+            }
+        }
+        double coverage = (double) covered / roiPixels;
+        double intensity = covered > 0 ? ((double) intensitySum / (covered * 3)) / 255.0 : 0.0;
+
+        double sizeRatio = (double) (w * h) / (width * height);
+        double sizeConfidence;
+        if (sizeRatio < 0.0001) {
+            sizeConfidence = sizeRatio / 0.0001;
+        } else if (sizeRatio > 0.1) {
+            sizeConfidence = Math.max(0.3, 1.0 - (sizeRatio - 0.1) / 0.9);
+        } else {
+            sizeConfidence = 1.0;
+        }
+
+        double baseConfidence;
+        if (label.contains("Faulty")) {
+            baseConfidence = 0.7;
+        } else if (label.contains("Potential")) {
+            baseConfidence = 0.6;
+        } else if (label.contains("Tiny")) {
+            baseConfidence = 0.5;
+        } else if (label.contains("Wire") || label.contains("Full")) {
+            baseConfidence = 0.8;
+        } else if (label.contains("Loose Joint")) {
+            baseConfidence = 0.7;
+        } else {
+            baseConfidence = 0.6;
+        }
+
+        double confidence = baseConfidence * 0.4 + coverage * 0.35 + intensity * 0.15 + sizeConfidence * 0.10;
+        return round(Math.max(0.3, Math.min(0.99, confidence)), 3);
+    }
+
+    /**
+     * _apply_feedback_to_confidences: shift each confidence by the global and
+     * per-label adjustment, clamp it, and describe what was applied
+     */
+    static List<Detection> applyFeedback(List<Detection> detections, JsonNode feedback, ArrayNode perBox) {
+        JsonNode labelAdjustments = feedback.path("label_adjustments");
+        if (!labelAdjustments.isObject()) {
+            labelAdjustments = JsonNodeFactory.instance.objectNode();
+        }
+        double globalAdjustment = feedback.path("global_adjustment").asDouble(0.0);
+
+        List<Detection> adjusted = new ArrayList<>(detections.size());
+        for (Detection detection : detections) {
+            JsonNode labelInfo = labelAdjustments.path(detection.getLabel());
+            double labelAdjustment = labelInfo.path("adjustment").asDouble(0.0);
+            double totalAdjustment = globalAdjustment + labelAdjustment;
+            double confidence = round(Math.max(0.05, Math.min(0.99, detection.getConfidence() + totalAdjustment)),
+                    3);
+            adjusted.add(detection.withConfidence(confidence));
+
+            ObjectNode detail = perBox.addObject();
+            detail.put("label", detection.getLabel());
+            detail.put("original_confidence", round(detection.getConfidence(), 3));
+            detail.put("adjustment", round(totalAdjustment, 6));
+            ObjectNode components = detail.putObject("components");
+            components.put("global", round(globalAdjustment, 6));
+            components.put("label", round(labelAdjustment, 6));
+            detail.put("adjusted_confidence", confidence);
+
+            ObjectNode sourceMetrics = JsonNodeFactory.instance.objectNode();
+            for (String key : SOURCE_METRICS) {
+                JsonNode value = labelInfo.get(key);
+                if (value != null && !value.isNull()) {
+                    sourceMetrics.set(key, value);
+                }
+            }
+            if (!sourceMetrics.isEmpty()) {
+                detail.set("source_metrics", sourceMetrics);
+            }
+        }
+        return adjusted;
+    }
+
+    /**
+     * Python's round(value, places): the exact binary value rounded half to even
+     */
+    static double round(double value, int places) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return value;
+        }
+        return new BigDecimal(value).setScale(places, RoundingMode.HALF_EVEN).doubleValue();
+    }
+}
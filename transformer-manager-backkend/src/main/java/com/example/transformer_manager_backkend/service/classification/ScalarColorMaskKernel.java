@@ -0,0 +1,75 @@
+package com.example.transformer_manager_backkend.service.classification;
+
+/**
+ * One pixel at a time, with OpenCV's integer HSV arithmetic. Also handles
+ * the tail the vector kernel leaves over.
+ */
+final class ScalarColorMaskKernel implements ColorMaskKernel {
+
+    static final ScalarColorMaskKernel INSTANCE = new ScalarColorMaskKernel();
+
+    private ScalarColorMaskKernel() {
+    }
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+
+    @Override
+    public void compute(byte[] bgr, int pixels, byte[] blue, byte[] black, byte[] yellow, byte[] orange,
+            byte[] red, int[] counts) {
+        computeRange(bgr, 0, pixels, blue, black, yellow, orange, red, counts);
+    }
+
+    static void computeRange(byte[] bgr, int from, int to, byte[] blue, byte[] black, byte[] yellow,
+            byte[] orange, byte[] red, int[] counts) {
+        int shift = ColorMasks.HSV_SHIFT;
+        int half = 1 << (shift - 1);
+        for (int i = from, p = from * 3; i < to; i++, p += 3) {
+            int b = bgr[p] & 0xFF;
+            int g = bgr[p + 1] & 0xFF;
+            int r = bgr[p + 2] & 0xFF;
+
+            int v = Math.max(b, Math.max(g, r));
+            int diff = v - Math.min(b, Math.min(g, r));
+            int s = (diff * ColorMasks.SDIV_TABLE[v] + half) >> shift;
+            int h;
+            if (v == r) {
+                h = g - b;
+            } else if (v == g) {
+                h = b - r + 2 * diff;
+            } else {
+                h = r - g + 4 * diff;
+            }
+            h = (h * ColorMasks.HDIV_TABLE_180[diff] + half) >> shift;
+            if (h < 0) {
+                h += 180;
+            }
+
+            // cv2.inRange bounds from classify_filtered_image, inclusive on both ends
+            if (h >= 90 && h <= 130 && s >= 50 && v >= 20) {
+                blue[i] = 1;
+                counts[BLUE]++;
+            }
+            if (v <= 50) {
+                black[i] = 1;
+                counts[BLACK]++;
+            }
+            if (h >= 20 && h <= 35 && s >= 130 && v >= 130) {
+                yellow[i] = 1;
+                counts[YELLOW]++;
+            }
+            if (s >= 100 && v >= 100) {
+                if (h >= 10 && h <= 25) {
+                    orange[i] = 1;
+                    counts[ORANGE]++;
+                }
+                if (h <= 10 || h >= 160) {
+                    red[i] = 1;
+                    counts[RED]++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.transformer_manager_backkend.service.classification;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Eight pixels per step with the Vector API. A 32-byte load covers eight BGR
+ * pixels; shuffles split it into B, G and R lanes and the OpenCV division
+ * tables are read with gathers. HSV goes to small int planes, from which each
+ * mask is computed and narrowed to bytes. The same integer arithmetic as
+ * {@link ScalarColorMaskKernel} runs in every lane, so the masks are
+ * identical.
+ *
+ * Only load this class after checking that the jdk.incubator.vector module
+ * is present (see {@link ColorMasks}); it needs
+ * {@code --add-modules jdk.incubator.vector} at run time.
+ */
+final class VectorColorMaskKernel implements ColorMaskKernel {
+
+    static final VectorColorMaskKernel INSTANCE = new VectorColorMaskKernel();
+
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_256;
+    private static final VectorSpecies<Byte> PIXEL_BYTES = ByteVector.SPECIES_256;
+    private static final VectorSpecies<Byte> MASK_BYTES = ByteVector.SPECIES_64;
+    private static final int LANES = INTS.length();
+    private static final int BLOCK = 1024;
+
+    private static final VectorShuffle<Byte> TAKE_B = channel(0);
+    private static final VectorShuffle<Byte> TAKE_G = channel(1);
+    private static final VectorShuffle<Byte> TAKE_R = channel(2);
+
+    private VectorColorMaskKernel() {
+    }
+
+    /**
+     * 256-bit integer vectors are what make this kernel pay off; on narrower
+     * hardware they would be emulated and the scalar kernel is faster
+     */
+    static boolean isSupported() {
+        return IntVector.SPECIES_PREFERRED.vectorBitSize() >= INTS.vectorBitSize();
+    }
+
+    @Override
+    public String getName() {
+        return "vector-" + INTS.vectorBitSize();
+    }
+
+    @Override
+    public void compute(byte[] bgr, int pixels, byte[] blue, byte[] black, byte[] yellow, byte[] orange,
+            byte[] red, int[] counts) {
+        int[] hue = new int[BLOCK];
+        int[] sat = new int[BLOCK];
+        int[] val = new int[BLOCK];
+        int[] valueIndex = new int[LANES];
+        int[] diffIndex = new int[LANES];
+
+        // Each step reads 32 bytes from 3 * i, i.e. 8 bytes past the last pixel it uses
+        int vectorPixels = Math.min(pixels, Math.max(0, (bgr.length - PIXEL_BYTES.length()) / 3 + 1));
+        vectorPixels -= vectorPixels % LANES;
+
+        // Blocks keep the HSV planes in L1 and each loop small enough for C2 to
+        // inline completely; a partly inlined Vector API loop boxes every vector
+        for (int start = 0; start < vectorPixels; start += BLOCK) {
+            int count = Math.min(BLOCK, vectorPixels - start);
+            toHsv(bgr, start, count, hue, sat, val, valueIndex, diffIndex);
+
+            // cv2.inRange bounds from classify_filtered_image, inclusive on both ends
+            counts[BLUE] += inRange(hue, sat, val, count, 90, 130, 50, 20, 255, blue, start);
+            counts[BLACK] += inRange(hue, sat, val, count, 0, 180, 0, 0, 50, black, start);
+            counts[YELLOW] += inRange(hue, sat, val, count, 20, 35, 130, 130, 255, yellow, start);
+            counts[ORANGE] += inRange(hue, sat, val, count, 10, 25, 100, 100, 255, orange, start);
+            counts[RED] += inRange(hue, sat, val, count, 0, 10, 100, 100, 255, red, start)
+                    + inRange(hue, sat, val, count, 160, 180, 100, 100, 255, red, start, red);
+        }
+        ScalarColorMaskKernel.computeRange(bgr, vectorPixels, pixels, blue, black, yellow, orange, red, counts);
+    }
+
+    /**
+     * OpenCV's integer BGR to HSV for pixels [start, start + count), a
+     * multiple of the lane count, into the first count entries of the planes
+     */
+    private static void toHsv(byte[] bgr, int start, int count, int[] hue, int[] sat, int[] val,
+            int[] valueIndex, int[] diffIndex) {
+        int shift = ColorMasks.HSV_SHIFT;
+        int half = 1 << (shift - 1);
+        for (int k = 0; k < count; k += LANES) {
+            ByteVector raw = ByteVector.fromArray(PIXEL_BYTES, bgr, 3 * (start + k));
+            IntVector b = channelLanes(raw, TAKE_B);
+            IntVector g = channelLanes(raw, TAKE_G);
+            IntVector r = channelLanes(raw, TAKE_R);
+
+            IntVector v = b.max(g).max(r);
+            IntVector diff = v.sub(b.min(g).min(r));
+            v.intoArray(valueIndex, 0);
+            diff.intoArray(diffIndex, 0);
+
+            IntVector s = diff.mul(IntVector.fromArray(INTS, ColorMasks.SDIV_TABLE, 0, valueIndex, 0))
+                    .add(half)
+                    .lanewise(VectorOperators.ASHR, shift);
+
+            VectorMask<Integer> maxIsR = v.eq(r);
+            VectorMask<Integer> maxIsG = v.eq(g).and(maxIsR.not());
+            IntVector h = r.sub(g).add(diff.mul(4))
+                    .blend(b.sub(r).add(diff.mul(2)), maxIsG)
+                    .blend(g.sub(b), maxIsR);
+            h = h.mul(IntVector.fromArray(INTS, ColorMasks.HDIV_TABLE_180, 0, diffIndex, 0))
+                    .add(half)
+                    .lanewise(VectorOperators.ASHR, shift);
+            h = h.add(h.lanewise(VectorOperators.ASHR, 31).and(180));
+
+            h.intoArray(hue, k);
+            s.intoArray(sat, k);
+            v.intoArray(val, k);
+        }
+    }
+
+    private static int inRange(int[] hue, int[] sat, int[] val, int count, int hLow, int hHigh, int sLow,
+            int vLow, int vHigh, byte[] target, int offset) {
+        return inRange(hue, sat, val, count, hLow, hHigh, sLow, vLow, vHigh, target, offset, null);
+    }
+
+    /**
+     * Write 1/0 for hLow <= h <= hHigh, s >= sLow and vLow <= v <= vHigh into
+     * target, or-ed with {@code merge} if given, and return how many pixels
+     * newly became 1. The tests yield 0/1 lanes rather than VectorMasks: on
+     * JDK 17 narrowing those to bytes is several times cheaper than
+     * converting masks.
+     */
+    private static int inRange(int[] hue, int[] sat, int[] val, int count, int hLow, int hHigh, int sLow,
+            int vLow, int vHigh, byte[] target, int offset, byte[] merge) {
+        IntVector total = IntVector.zero(INTS);
+        for (int k = 0; k < count; k += LANES) {
+            IntVector h = IntVector.fromArray(INTS, hue, k);
+            IntVector s = IntVector.fromArray(INTS, sat, k);
+            IntVector v = IntVector.fromArray(INTS, val, k);
+            IntVector lanes = atLeast(h, hLow).and(atMost(h, hHigh))
+                    .and(atLeast(s, sLow))
+                    .and(atLeast(v, vLow)).and(atMost(v, vHigh));
+            if (merge != null) {
+                IntVector previous = ((IntVector) ByteVector.fromArray(MASK_BYTES, merge, offset + k)
+                        .convertShape(VectorOperators.B2I, INTS, 0));
+                total = total.add(lanes.and(previous.not().and(1)));
+                lanes = lanes.or(previous);
+            } else {
+                total = total.add(lanes);
+            }
+            ((ByteVector) lanes.convertShape(VectorOperators.I2B, MASK_BYTES, 0)).intoArray(target, offset + k);
+        }
+        return total.reduceLanes(VectorOperators.ADD);
+    }
+
+    private static IntVector channelLanes(ByteVector raw, VectorShuffle<Byte> take) {
+        // Widening sign-extends, so mask back to 0-255
+        return ((IntVector) raw.rearrange(take).convertShape(VectorOperators.B2I, INTS, 0)).and(0xFF);
+    }
+
+    /**
+     * 1 where {@code x >= bound}, else 0: the sign bit of bound - 1 - x. Lanes
+     * and bounds are small, so nothing overflows
+     */
+    private static IntVector atLeast(IntVector x, int bound) {
+        return x.neg().add(bound - 1).lanewise(VectorOperators.LSHR, 31);
+    }
+
+    /**
+     * 1 where {@code x <= bound}, else 0
+     */
+    private static IntVector atMost(IntVector x, int bound) {
+        return x.sub(bound + 1).lanewise(VectorOperators.LSHR, 31);
+    }
+
+    /**
+     * Shuffle moving byte {@code 3 * k + channel} to lane k for the first
+     * eight lanes; the remaining lanes are not used
+     */
+    private static VectorShuffle<Byte> channel(int channel) {
+        int[] source = new int[PIXEL_BYTES.length()];
+        for (int k = 0; k < LANES; k++) {
+            source[k] = 3 * k + channel;
+        }
+        return VectorShuffle.fromArray(PIXEL_BYTES, source, 0);
+    }
+}
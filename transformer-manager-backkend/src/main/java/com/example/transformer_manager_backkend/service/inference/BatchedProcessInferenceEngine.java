@@ -0,0 +1,66 @@
+package com.example.transformer_manager_backkend.service.inference;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Launches run_inference.sh once over the whole staged batch, so the model is
+ * loaded once per batch. This is the default engine.
+ */
+@Component
+@ConditionalOnProperty(name = "app.anomaly.inference.engine", havingValue = "batched", matchIfMissing = true)
+public class BatchedProcessInferenceEngine implements InferenceEngine {
+
+    private final InferenceScriptLauncher launcher;
+
+    @Value("${app.anomaly.batch.max-size:8}")
+    private int maxBatchSize;
+
+    public BatchedProcessInferenceEngine(InferenceScriptLauncher launcher) {
+        this.launcher = launcher;
+    }
+
+    @Override
+    public String getName() {
+        return "batched";
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return Math.max(1, maxBatchSize);
+    }
+
+    @Override
+    public void run(InferenceRequest request) throws IOException, InterruptedException {
+        launcher.run("run_inference.sh", scriptArgs(request, WslPaths.toScriptPath(request.getInputDir())),
+                request.getProgressListener());
+    }
+
+    /**
+     * Arguments shared by the script-based engines
+     */
+    static List<String> scriptArgs(InferenceRequest request, String input) {
+        List<String> args = new ArrayList<>();
+        args.add("--input");
+        args.add(input);
+        args.add("--outdir");
+        args.add(WslPaths.toScriptPath(request.getOutputDir()));
+        args.add("--sensitivity");
+        args.add(String.format(Locale.ROOT, "%.2f", request.getSensitivity()));
+        if (request.getFeedbackFile() != null) {
+            args.add("--feedback");
+            args.add(WslPaths.toScriptPath(request.getFeedbackFile()));
+        }
+        if (request.getSize() != null) {
+            args.add("--size");
+            args.add(String.valueOf(request.getSize()));
+        }
+        return args;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.transformer_manager_backkend.service.inference;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Everything a {@link HotspotClassifier} needs for one run
+ */
+public class ClassificationRequest {
+    private final List<Item> items;
+    private final Path outputDir;
+    private final double sensitivity;
+    private final Path feedbackFile;
+
+    public ClassificationRequest(List<Item> items, Path outputDir, double sensitivity, Path feedbackFile) {
+        this.items = List.copyOf(items);
+        this.outputDir = outputDir;
+        this.sensitivity = sensitivity;
+        this.feedbackFile = feedbackFile;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public Path getOutputDir() {
+        return outputDir;
+    }
+
+    public double getSensitivity() {
+        return sensitivity;
+    }
+
+    public Path getFeedbackFile() {
+        return feedbackFile;
+    }
+
+    /**
+     * One image to classify: its outputs are named after {@code name}, boxes
+     * are drawn on {@code image}
+     */
+    public static class Item {
+        private final String name;
+        private final Path image;
+        private final Path filteredImage;
+        private final Path maskImage;
+
+        public Item(String name, Path image, Path filteredImage, Path maskImage) {
+            this.name = name;
+            this.image = image;
+            this.filteredImage = filteredImage;
+            this.maskImage = maskImage;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Path getImage() {
+            return image;
+        }
+
+        public Path getFilteredImage() {
+            return filteredImage;
+        }
+
+        public Path getMaskImage() {
+            return maskImage;
+        }
+    }
+}
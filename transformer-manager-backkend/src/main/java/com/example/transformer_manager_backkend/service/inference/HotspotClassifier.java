@@ -0,0 +1,30 @@
+package com.example.transformer_manager_backkend.service.inference;
+
+import java.io.IOException;
+
+/**
+ * The classification stage of the pipeline on its own: turns the filtered
+ * image kept from an earlier PatchCore run into labels, boxes and
+ * confidences, without the model. Implementations are selected with
+ * {@code app.anomaly.reclassify.classifier} and write the boxed part of the
+ * {@link InferenceEngine} layout:
+ *
+ * <pre>
+ * outdir/boxed/&lt;name&gt;.json
+ * outdir/boxed/&lt;name&gt;_boxed.&lt;ext&gt;
+ * </pre>
+ *
+ * As with inference, an item that cannot be classified simply has no outputs.
+ */
+public interface HotspotClassifier {
+
+    /**
+     * Name used in configuration and logs
+     */
+    String getName();
+
+    /**
+     * Classify every item of the request
+     */
+    void classify(ClassificationRequest request) throws IOException, InterruptedException;
+}
@@ -0,0 +1,45 @@
+package com.example.transformer_manager_backkend.service.inference;
+
+import java.io.IOException;
+
+/**
+ * A way of turning staged images into analysis outputs. Implementations are
+ * selected with {@code app.anomaly.inference.engine} and must all produce the
+ * layout written by inference_core_local.py:
+ *
+ * <pre>
+ * outdir/boxed/&lt;base&gt;.json
+ * outdir/boxed/&lt;base&gt;_boxed.&lt;ext&gt;
+ * outdir/masks/&lt;base&gt;_mask.png
+ * outdir/filtered/&lt;base&gt;_filtered.png
+ * </pre>
+ *
+ * An image that cannot be processed simply has no outputs; the caller fails
+ * only that job.
+ */
+public interface InferenceEngine {
+
+    /**
+     * Name used in configuration and logs
+     */
+    String getName();
+
+    /**
+     * Largest number of images this engine wants in one {@link #run} call
+     */
+    int getMaxBatchSize();
+
+    /**
+     * Whether {@link #run} reads the images staged in the request's input
+     * directory. If not, nothing is staged and the request lists each image's
+     * name and source in {@link InferenceRequest#getImages()} instead.
+     */
+    default boolean readsStagedFiles() {
+        return true;
+    }
+
+    /**
+     * Process every image in the request's input directory
+     */
+    void run(InferenceRequest request) throws IOException, InterruptedException;
+}
@@ -0,0 +1,50 @@
+package com.example.transformer_manager_backkend.service.inference;
+
+/**
+ * Recognises the progress lines printed by inference_core_local.py and
+ * inference_worker.py:
+ *
+ * <pre>
+ * [INFO] Model loaded.
+ * [RUN] /path/to/input/image.jpg
+ *   -> JSON : /path/to/output/boxed/image.json
+ * [ERROR] /path/to/input/image.jpg: reason
+ * </pre>
+ *
+ * Anything else is ignored.
+ */
+public final class InferenceOutputParser {
+
+    private static final String RUN_PREFIX = "[RUN] ";
+    private static final String ERROR_PREFIX = "[ERROR] ";
+    private static final String JSON_PREFIX = "-> JSON";
+
+    private InferenceOutputParser() {
+    }
+
+    public static void parse(String line, InferenceProgressListener listener) {
+        String trimmed = line.trim();
+        if (trimmed.startsWith("[INFO] Model loaded")) {
+            listener.modelLoaded();
+        } else if (trimmed.startsWith(RUN_PREFIX)) {
+            listener.imageStarted(baseName(trimmed.substring(RUN_PREFIX.length())));
+        } else if (trimmed.startsWith(JSON_PREFIX)) {
+            int colon = trimmed.indexOf(':', JSON_PREFIX.length());
+            if (colon > 0) {
+                listener.imageFinished(baseName(trimmed.substring(colon + 1)));
+            }
+        } else if (trimmed.startsWith(ERROR_PREFIX)) {
+            String rest = trimmed.substring(ERROR_PREFIX.length());
+            int separator = rest.indexOf(": ");
+            listener.imageFinished(baseName(separator > 0 ? rest.substring(0, separator) : rest));
+        }
+    }
+
+    private static String baseName(String path) {
+        String trimmed = path.trim();
+        int slash = Math.max(trimmed.lastIndexOf('/'), trimmed.lastIndexOf('\\'));
+        String fileName = trimmed.substring(slash + 1);
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.transformer_manager_backkend.service.inference;
+
+/**
+ * Receives progress from a running inference engine. Images are identified by
+ * the base name (no extension) of the file staged in the input directory.
+ *
+ * Callbacks may arrive on output-pump threads, so implementations must be
+ * thread-safe.
+ */
+public interface InferenceProgressListener {
+
+    InferenceProgressListener NONE = new InferenceProgressListener() {
+    };
+
+    /** The model is loaded and images are about to be processed */
+    default void modelLoaded() {
+    }
+
+    /** Inference on an image has started */
+    default void imageStarted(String imageBaseName) {
+    }
+
+    /** An image's outputs are written (or it failed) */
+    default void imageFinished(String imageBaseName) {
+    }
+}
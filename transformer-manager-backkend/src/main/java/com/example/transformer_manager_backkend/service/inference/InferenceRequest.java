@@ -0,0 +1,95 @@
+package com.example.transformer_manager_backkend.service.inference;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Everything an {@link InferenceEngine} needs for one run
+ */
+public class InferenceRequest {
+    private final Path inputDir;
+    private final Path outputDir;
+    private final double sensitivity;
+    private final Path feedbackFile;
+    private final Integer size;
+    private final InferenceProgressListener progressListener;
+    private final List<Image> images;
+
+    public InferenceRequest(Path inputDir, Path outputDir, double sensitivity, Path feedbackFile, Integer size) {
+        this(inputDir, outputDir, sensitivity, feedbackFile, size, InferenceProgressListener.NONE);
+    }
+
+    public InferenceRequest(Path inputDir, Path outputDir, double sensitivity, Path feedbackFile, Integer size,
+            InferenceProgressListener progressListener) {
+        this(inputDir, outputDir, sensitivity, feedbackFile, size, progressListener, List.of());
+    }
+
+    public InferenceRequest(Path inputDir, Path outputDir, double sensitivity, Path feedbackFile, Integer size,
+            InferenceProgressListener progressListener, List<Image> images) {
+        this.inputDir = inputDir;
+        this.outputDir = outputDir;
+        this.sensitivity = sensitivity;
+        this.feedbackFile = feedbackFile;
+        this.size = size;
+        this.progressListener = progressListener != null ? progressListener : InferenceProgressListener.NONE;
+        this.images = images != null ? images : List.of();
+    }
+
+    public Path getInputDir() {
+        return inputDir;
+    }
+
+    public Path getOutputDir() {
+        return outputDir;
+    }
+
+    public double getSensitivity() {
+        return sensitivity;
+    }
+
+    public Path getFeedbackFile() {
+        return feedbackFile;
+    }
+
+    /**
+     * PatchCore input size, or null for the script default
+     */
+    public Integer getSize() {
+        return size;
+    }
+
+    public InferenceProgressListener getProgressListener() {
+        return progressListener;
+    }
+
+    /**
+     * The images to process when they were not staged in the input directory
+     * (see {@link InferenceEngine#readsStagedFiles()}); empty when they were
+     */
+    public List<Image> getImages() {
+        return images;
+    }
+
+    /**
+     * An image handed over by name and source instead of as a staged file:
+     * its outputs are named after {@code name}, its bytes are read from
+     * {@code source}
+     */
+    public static class Image {
+        private final String name;
+        private final Path source;
+
+        public Image(String name, Path source) {
+            this.name = name;
+            this.source = source;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Path getSource() {
+            return source;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.transformer_manager_backkend.service.inference;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Launches the shell scripts in the Model_Inference directory. On Windows the
+ * scripts run inside WSL from the configured model path; everywhere else they
+ * are started directly with bash, so no host-specific path is baked into the
+ * command.
+ */
+@Component
+public class InferenceScriptLauncher {
+
+    private static final Logger logger = LoggerFactory.getLogger(InferenceScriptLauncher.class);
+
+    /** How long to wait for the pumps to drain once the script has exited */
+    private static final long OUTPUT_DRAIN_TIMEOUT_MS = 5_000;
+
+    @Value("${app.anomaly.model.path:C:/Users/HP/Desktop/Sem 7/Software Design Competition/transformer-image-manager-3/automatic-anamoly-detection/Model_Inference}")
+    private String modelPath;
+
+    @Value("${app.anomaly.venv.path:/mnt/c/Users/HP/Desktop/Sem 7/Software Design Competition/transformer-image-manager-3/automatic-anamoly-detection/.venv}")
+    private String venvPath;
+
+    @Value("${app.anomaly.inference.output-tail-lines:200}")
+    private int outputTailLines;
+
+    /**
+     * Command line that runs {@code script} with the configured venv followed by
+     * {@code args}
+     */
+    public List<String> command(String script, List<String> args) {
+        List<String> scriptArgs = new ArrayList<>();
+        scriptArgs.add("--venv");
+        scriptArgs.add(venvPath);
+        scriptArgs.addAll(args);
+
+        if (WslPaths.isWindowsHost()) {
+            StringBuilder wslCommand = new StringBuilder()
+                    .append("wsl --cd \"").append(WslPaths.toWslPath(modelPath)).append("\" -- ./").append(script);
+            for (String arg : scriptArgs) {
+                wslCommand.append(' ').append(arg.startsWith("--") ? arg : "\"" + arg + "\"");
+            }
+            return List.of("cmd", "/c", wslCommand.toString());
+        }
+
+        List<String> command = new ArrayList<>();
+        command.add("bash");
+        command.add("./" + script);
+        command.addAll(scriptArgs);
+        return command;
+    }
+
+    /**
+     * Directory the scripts are started from
+     */
+    public File getWorkingDirectory() {
+        return new File(modelPath);
+    }
+
+    /**
+     * Run a script to completion, failing if it exits with a non-zero code
+     */
+    public void run(String script, List<String> args) throws IOException, InterruptedException {
+        run(script, args, InferenceProgressListener.NONE);
+    }
+
+    /**
+     * Run a script to completion, reporting recognised progress lines to
+     * {@code listener}. Both output streams are drained concurrently so a chatty
+     * stderr cannot block the script; only the last lines of each are kept for
+     * the error message.
+     */
+    public void run(String script, List<String> args, InferenceProgressListener listener)
+            throws IOException, InterruptedException {
+        List<String> command = command(script, args);
+        logger.info("Running inference command: {}", command);
+
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        processBuilder.directory(getWorkingDirectory());
+        Process process = processBuilder.start();
+        process.getOutputStream().close();
+
+        String pumpName = "inference-" + process.pid();
+        OutputRingBuffer output = new OutputRingBuffer(outputTailLines);
+        OutputRingBuffer error = new OutputRingBuffer(outputTailLines);
+        ProcessOutputPump outputPump = ProcessOutputPump.start(pumpName + "-stdout", process.getInputStream(),
+                output, line -> {
+                    logger.debug("Analysis output: {}", line);
+                    InferenceOutputParser.parse(line, listener);
+                });
+        ProcessOutputPump errorPump = ProcessOutputPump.start(pumpName + "-stderr", process.getErrorStream(),
+                error, line -> {
+                    logger.warn("Analysis error: {}", line);
+                    InferenceOutputParser.parse(line, listener);
+                });
+
+        int exitCode;
+        try {
+            exitCode = process.waitFor();
+            outputPump.await(OUTPUT_DRAIN_TIMEOUT_MS);
+            errorPump.await(OUTPUT_DRAIN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            throw e;
+        }
+
+        if (exitCode != 0) {
+            String tail = error.snapshot().isEmpty() ? output.toString() : error.toString();
+            throw new IOException("Analysis failed with exit code " + exitCode + ": " + tail);
+        }
+    }
+}
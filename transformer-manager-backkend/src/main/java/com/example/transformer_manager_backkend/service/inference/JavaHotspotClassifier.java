@@ -0,0 +1,184 @@
+package com.example.transformer_manager_backkend.service.inference;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+import javax.imageio.ImageIO;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.example.transformer_manager_backkend.service.classification.BgrRaster;
+import com.example.transformer_manager_backkend.service.classification.ClassificationResult;
+import com.example.transformer_manager_backkend.service.classification.Detection;
+import com.example.transformer_manager_backkend.service.classification.FilteredImageClassifier;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Classifies inside the backend with {@link FilteredImageClassifier}, so a
+ * reclassification costs a few milliseconds per image and no process spawn.
+ * Boxed images are drawn with Java2D rather than OpenCV, so their lettering
+ * differs slightly from the script's. Opt-in until its boxes, labels and
+ * confidences are shown to match the script on exported fixtures.
+ */
+@Component
+@ConditionalOnProperty(name = "app.anomaly.reclassify.classifier", havingValue = "java")
+public class JavaHotspotClassifier implements HotspotClassifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(JavaHotspotClassifier.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Override
+    public String getName() {
+        return "java";
+    }
+
+    @Override
+    public void classify(ClassificationRequest request) throws IOException {
+        Path boxedDir = Files.createDirectories(request.getOutputDir().resolve("boxed"));
+        ObjectNode feedback = readFeedback(request.getFeedbackFile());
+        double sensitivity = FilteredImageClassifier.normalizeSensitivity(request.getSensitivity());
+
+        for (ClassificationRequest.Item item : request.getItems()) {
+            try {
+                classifyItem(item, sensitivity, feedback, boxedDir);
+            } catch (IOException | RuntimeException e) {
+                // Missing outputs fail just this item
+                logger.warn("Classification failed for {}: {}", item.getName(), e.getMessage());
+            }
+        }
+    }
+
+    private void classifyItem(ClassificationRequest.Item item, double sensitivity, ObjectNode feedback,
+            Path boxedDir) throws IOException {
+        BufferedImage filtered = ImageIO.read(item.getFilteredImage().toFile());
+        if (filtered == null) {
+            throw new IOException("Could not read filtered image: " + item.getFilteredImage());
+        }
+        BufferedImage original = ImageIO.read(item.getImage().toFile());
+        if (original == null) {
+            throw new IOException("Could not read original image: " + item.getImage());
+        }
+
+        ClassificationResult result = FilteredImageClassifier.classify(BgrRaster.from(filtered), sensitivity,
+                feedback);
+        Path boxedPath = writeBoxedImage(original, result, boxedDir, item.getName(),
+                item.getImage().getFileName().toString());
+
+        ObjectNode json = objectMapper.createObjectNode();
+        json.put("image", item.getImage().toAbsolutePath().toString());
+        json.put("boxed_image", boxedPath.toAbsolutePath().toString());
+        json.put("mask_image", item.getMaskImage() != null ? item.getMaskImage().toAbsolutePath().toString() : null);
+        json.put("filtered_image", item.getFilteredImage().toAbsolutePath().toString());
+        json.put("label", result.getLabel());
+        ArrayNode boxes = json.putArray("boxes");
+        for (Detection detection : result.getDetections()) {
+            ObjectNode box = boxes.addObject();
+            ArrayNode coords = box.putArray("box");
+            coords.add(detection.getX());
+            coords.add(detection.getY());
+            coords.add(detection.getWidth());
+            coords.add(detection.getHeight());
+            box.put("type", detection.getLabel());
+            box.put("confidence", detection.getConfidence());
+        }
+
+        double globalAdjustment = feedback.path("global_adjustment").asDouble(0.0);
+        ObjectNode feedbackSection = json.putObject("feedback_adjustments");
+        feedbackSection.put("applied", !result.getPerBoxFeedback().isEmpty() || Math.abs(globalAdjustment) > 1e-9);
+        feedbackSection.put("global_adjustment", round6(globalAdjustment));
+        feedbackSection.put("learning_rate", feedback.path("learning_rate").asDouble(0.0));
+        feedbackSection.set("generated_at", feedback.path("generated_at").isMissingNode()
+                ? null : feedback.get("generated_at"));
+        feedbackSection.put("source", feedback.path("source").asText("annotation_feedback"));
+        feedbackSection.put("total_annotations_considered", feedback.path("total_annotations_considered").asInt(0));
+        feedbackSection.set("label_adjustments", feedback.path("label_adjustments").isObject()
+                ? feedback.get("label_adjustments") : objectMapper.createObjectNode());
+        feedbackSection.set("label_feedback", feedback.path("label_feedback").isArray()
+                ? feedback.get("label_feedback") : objectMapper.createArrayNode());
+        feedbackSection.set("per_box", result.getPerBoxFeedback());
+        if (feedback.has("error")) {
+            feedbackSection.set("error", feedback.get("error"));
+        }
+
+        objectMapper.writerWithDefaultPrettyPrinter()
+                .writeValue(boxedDir.resolve(item.getName() + ".json").toFile(), json);
+    }
+
+    private Path writeBoxedImage(BufferedImage original, ClassificationResult result, Path boxedDir, String name,
+            String originalFileName) throws IOException {
+        BufferedImage boxed = new BufferedImage(original.getWidth(), original.getHeight(),
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = boxed.createGraphics();
+        g.drawImage(original, 0, 0, null);
+        g.setStroke(new BasicStroke(2));
+        g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 14));
+        for (Detection detection : result.getDetections()) {
+            // Same colour rule as color_for_label in the Python core
+            g.setColor(detection.getLabel().contains("Potential")
+                    || detection.getLabel().contains("Full Wire Overload") ? Color.YELLOW : Color.RED);
+            g.drawRect(detection.getX(), detection.getY(), detection.getWidth(), detection.getHeight());
+            g.setColor(Color.YELLOW);
+            g.drawString(String.format(Locale.ROOT, "%s (%.2f)", detection.getLabel(), detection.getConfidence()),
+                    detection.getX(), Math.max(14, detection.getY() - 10));
+        }
+        if (result.getDetections().isEmpty()) {
+            g.setColor(Color.YELLOW);
+            g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 24));
+            g.drawString(result.getLabel(), 10, 30);
+        }
+        g.dispose();
+
+        int dot = originalFileName.lastIndexOf('.');
+        String ext = dot > 0 ? originalFileName.substring(dot + 1).toLowerCase(Locale.ROOT) : "png";
+        Path boxedPath = boxedDir.resolve(name + "_boxed." + ext);
+        if (!ImageIO.write(boxed, ext, boxedPath.toFile())) {
+            Files.deleteIfExists(boxedPath);
+            boxedPath = boxedDir.resolve(name + "_boxed.png");
+            ImageIO.write(boxed, "png", boxedPath.toFile());
+        }
+        return boxedPath;
+    }
+
+    /**
+     * Same normalisation as load_feedback_adjustments: a missing or unreadable
+     * file means no adjustments
+     */
+    private ObjectNode readFeedback(Path feedbackFile) {
+        if (feedbackFile == null || !Files.exists(feedbackFile)) {
+            ObjectNode none = objectMapper.createObjectNode();
+            none.put("source", "none");
+            return none;
+        }
+        try {
+            JsonNode data = objectMapper.readTree(feedbackFile.toFile());
+            if (!data.isObject()) {
+                throw new IOException("Feedback JSON root must be an object.");
+            }
+            return (ObjectNode) data;
+        } catch (IOException e) {
+            logger.warn("Failed to load feedback adjustments from {}: {}", feedbackFile, e.getMessage());
+            ObjectNode error = objectMapper.createObjectNode();
+            error.put("source", "error");
+            error.put("error", e.getMessage());
+            return error;
+        }
+    }
+
+    private static double round6(double value) {
+        return Math.round(value * 1e6) / 1e6;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.transformer_manager_backkend.service.inference;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * Keeps only the most recent lines of a process' output, so a long or noisy
+ * run can be drained indefinitely without holding all of it in memory
+ */
+public class OutputRingBuffer {
+
+    private final int capacity;
+    private final ArrayDeque<String> lines;
+    private long droppedLines;
+
+    public OutputRingBuffer(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.lines = new ArrayDeque<>(this.capacity);
+    }
+
+    public synchronized void add(String line) {
+        if (lines.size() == capacity) {
+            lines.removeFirst();
+            droppedLines++;
+        }
+        lines.addLast(line);
+    }
+
+    public synchronized List<String> snapshot() {
+        return List.copyOf(lines);
+    }
+
+    public synchronized long getDroppedLines() {
+        return droppedLines;
+    }
+
+    /**
+     * Retained lines joined with newlines, prefixed with a note when older
+     * lines were dropped
+     */
+    @Override
+    public synchronized String toString() {
+        StringBuilder text = new StringBuilder();
+        if (droppedLines > 0) {
+            text.append("... (").append(droppedLines).append(" earlier lines omitted)\n");
+        }
+        for (String line : lines) {
+            text.append(line).append('\n');
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.transformer_manager_backkend.service.inference;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Drains one output stream of a child process on its own daemon thread.
+ * Every stream of a process needs a pump of its own: reading them one after
+ * the other lets the unread pipe fill up and stall the child.
+ */
+public class ProcessOutputPump {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessOutputPump.class);
+
+    private final Thread thread;
+
+    private ProcessOutputPump(Thread thread) {
+        this.thread = thread;
+    }
+
+    /**
+     * Start reading {@code stream} line by line, keeping the tail in
+     * {@code buffer} and passing each non-blank line to {@code onLine}
+     */
+    public static ProcessOutputPump start(String threadName, InputStream stream, OutputRingBuffer buffer,
+            Consumer<String> onLine) {
+        Thread thread = new Thread(() -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    buffer.add(line);
+                    try {
+                        onLine.accept(line);
+                    } catch (RuntimeException e) {
+                        logger.warn("Output handler failed on {}: {}", threadName, e.getMessage());
+                    }
+                }
+            } catch (IOException e) {
+                logger.debug("{} closed: {}", threadName, e.getMessage());
+            }
+        }, threadName);
+        thread.setDaemon(true);
+        thread.start();
+        return new ProcessOutputPump(thread);
+    }
+
+    /**
+     * Wait for the stream to reach EOF, so every line has been handled
+     */
+    public void await(long timeoutMillis) throws InterruptedException {
+        thread.join(timeoutMillis);
+    }
+}
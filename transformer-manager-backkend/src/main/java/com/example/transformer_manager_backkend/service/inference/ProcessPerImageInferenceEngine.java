@@ -0,0 +1,59 @@
+package com.example.transformer_manager_backkend.service.inference;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Launches run_inference.sh separately for every image. Slowest option since
+ * the model is reloaded each time, but one bad image can never take down the
+ * rest of a batch.
+ */
+@Component
+@ConditionalOnProperty(name = "app.anomaly.inference.engine", havingValue = "process")
+public class ProcessPerImageInferenceEngine implements InferenceEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessPerImageInferenceEngine.class);
+
+    private final InferenceScriptLauncher launcher;
+
+    public ProcessPerImageInferenceEngine(InferenceScriptLauncher launcher) {
+        this.launcher = launcher;
+    }
+
+    @Override
+    public String getName() {
+        return "process";
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return 1;
+    }
+
+    @Override
+    public void run(InferenceRequest request) throws IOException, InterruptedException {
+        List<Path> images;
+        try (Stream<Path> files = Files.list(request.getInputDir())) {
+            images = files.filter(Files::isRegularFile).sorted().toList();
+        }
+
+        for (Path image : images) {
+            try {
+                launcher.run("run_inference.sh",
+                        BatchedProcessInferenceEngine.scriptArgs(request, WslPaths.toScriptPath(image)),
+                        request.getProgressListener());
+            } catch (IOException e) {
+                // Missing outputs fail just this image's job
+                logger.warn("Inference failed for {}: {}", image.getFileName(), e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.transformer_manager_backkend.service.inference;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Runs classify_filtered_image through run_reclassify.sh. The script never
+ * loads PatchCore, so a run costs one Python start-up plus the thresholding.
+ */
+@Component
+@ConditionalOnProperty(name = "app.anomaly.reclassify.classifier", havingValue = "script", matchIfMissing = true)
+public class ScriptHotspotClassifier implements HotspotClassifier {
+
+    private final InferenceScriptLauncher launcher;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public ScriptHotspotClassifier(InferenceScriptLauncher launcher) {
+        this.launcher = launcher;
+    }
+
+    @Override
+    public String getName() {
+        return "script";
+    }
+
+    @Override
+    public void classify(ClassificationRequest request) throws IOException, InterruptedException {
+        Files.createDirectories(request.getOutputDir());
+        ArrayNode manifest = objectMapper.createArrayNode();
+        for (ClassificationRequest.Item item : request.getItems()) {
+            ObjectNode entry = manifest.addObject();
+            entry.put("name", item.getName());
+            entry.put("image", WslPaths.toScriptPath(item.getImage()));
+            entry.put("filtered", WslPaths.toScriptPath(item.getFilteredImage()));
+            entry.put("mask", item.getMaskImage() != null ? WslPaths.toScriptPath(item.getMaskImage()) : null);
+        }
+        Path manifestFile = request.getOutputDir().resolve("manifest.json");
+        objectMapper.writeValue(manifestFile.toFile(), manifest);
+
+        List<String> args = new ArrayList<>();
+        args.add("--manifest");
+        args.add(WslPaths.toScriptPath(manifestFile));
+        args.add("--outdir");
+        args.add(WslPaths.toScriptPath(request.getOutputDir()));
+        args.add("--sensitivity");
+        args.add(String.format(Locale.ROOT, "%.2f", request.getSensitivity()));
+        if (request.getFeedbackFile() != null) {
+            args.add("--feedback");
+            args.add(WslPaths.toScriptPath(request.getFeedbackFile()));
+        }
+        launcher.run("run_reclassify.sh", args);
+    }
+}
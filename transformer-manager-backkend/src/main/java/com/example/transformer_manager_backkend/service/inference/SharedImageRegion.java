@@ -0,0 +1,141 @@
+package com.example.transformer_manager_backkend.service.inference;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A memory-mapped file, normally under /dev/shm, through which a warm worker
+ * on the same host receives its input images. The encoded bytes of a batch
+ * are laid out back to back and the worker is only told each image's offset
+ * and length, so it maps the same pages instead of opening the staged files.
+ *
+ * The region grows to fit the largest batch seen and is reused for every
+ * request of its worker slot; like {@link WarmInferenceProcess} it serves one
+ * caller at a time.
+ */
+public class SharedImageRegion implements Closeable {
+
+    // Grow in whole steps so a slowly growing batch does not remap every time
+    private static final long GROWTH_STEP = 8L * 1024 * 1024;
+
+    private final Path file;
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+
+    public SharedImageRegion(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Copy the given images into the region from offset 0 and return where
+     * each one landed
+     */
+    public List<Segment> write(List<Path> images) throws IOException {
+        long total = 0;
+        List<Long> sizes = new ArrayList<>(images.size());
+        for (Path image : images) {
+            long size = Files.size(image);
+            sizes.add(size);
+            total += size;
+        }
+        ensureCapacity(total);
+
+        List<Segment> segments = new ArrayList<>(images.size());
+        int offset = 0;
+        for (int i = 0; i < images.size(); i++) {
+            int length = (int) (long) sizes.get(i);
+            ByteBuffer target = buffer.slice(offset, length);
+            try (FileChannel input = FileChannel.open(images.get(i), StandardOpenOption.READ)) {
+                while (target.hasRemaining()) {
+                    if (input.read(target) < 0) {
+                        throw new IOException("Image shrank while being copied: " + images.get(i));
+                    }
+                }
+            }
+            segments.add(new Segment(images.get(i), offset, length));
+            offset += length;
+        }
+        return segments;
+    }
+
+    /**
+     * The bytes of one segment, as the worker sees them
+     */
+    public ByteBuffer read(Segment segment) {
+        return buffer.slice(segment.getOffset(), segment.getLength()).asReadOnlyBuffer();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Mapped size in bytes
+     */
+    public long getCapacity() {
+        return buffer != null ? buffer.capacity() : 0;
+    }
+
+    /**
+     * Unmap the region and delete its file. The mapping itself is released
+     * when the buffer is collected.
+     */
+    @Override
+    public void close() throws IOException {
+        buffer = null;
+        try {
+            channel.close();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private void ensureCapacity(long bytes) throws IOException {
+        if (buffer != null && buffer.capacity() >= bytes) {
+            return;
+        }
+        long capacity = Math.max(GROWTH_STEP, (bytes + GROWTH_STEP - 1) / GROWTH_STEP * GROWTH_STEP);
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IOException("Batch of " + bytes + " bytes does not fit in a shared image region");
+        }
+        // Mapping past the end extends the file
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    /**
+     * Where one image sits in the region
+     */
+    public static class Segment {
+        private final Path image;
+        private final int offset;
+        private final int length;
+
+        public Segment(Path image, int offset, int length) {
+            this.image = image;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public Path getImage() {
+            return image;
+        }
+
+        public int getOffset() {
+            return offset;
+        }
+
+        public int getLength() {
+            return length;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.example.transformer_manager_backkend.service.inference;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import javax.imageio.ImageIO;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Pure-Java stand-in for the PatchCore pipeline, for load testing and
+ * benchmarking the queue, persistence and rendering path on machines without
+ * the model, Python or a GPU.
+ *
+ * Boxes are derived from a hash of the image bytes, so the same image always
+ * produces the same result. Outputs use the same file layout and JSON schema
+ * as inference_core_local.py, including feedback adjustments, and every image
+ * takes the configured latency to "process", scaled by pixel count when a
+ * smaller input size is requested.
+ */
+@Component
+@ConditionalOnProperty(name = "app.anomaly.inference.engine", havingValue = "stub")
+public class StubInferenceEngine implements InferenceEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(StubInferenceEngine.class);
+
+    private static final String[] LABELS = {
+            "Point Overload (Faulty)",
+            "Point Overload (Potential)",
+            "Loose Joint (Faulty)",
+            "Loose Joint (Potential)",
+            "Full Wire Overload",
+            "Wire Overload (Red Strip)",
+            "Tiny Faulty Spot"
+    };
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${app.anomaly.stub.latency-ms:250}")
+    private long latencyMs;
+
+    @Value("${app.anomaly.stub.max-boxes:4}")
+    private int maxBoxes;
+
+    @Value("${app.anomaly.batch.max-size:8}")
+    private int maxBatchSize;
+
+    @Override
+    public String getName() {
+        return "stub";
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return Math.max(1, maxBatchSize);
+    }
+
+    @Override
+    public void run(InferenceRequest request) throws IOException, InterruptedException {
+        Path maskDir = Files.createDirectories(request.getOutputDir().resolve("masks"));
+        Path filteredDir = Files.createDirectories(request.getOutputDir().resolve("filtered"));
+        Path boxedDir = Files.createDirectories(request.getOutputDir().resolve("boxed"));
+        JsonNode feedback = readFeedback(request.getFeedbackFile());
+
+        List<Path> images;
+        try (Stream<Path> files = Files.list(request.getInputDir())) {
+            images = files.filter(Files::isRegularFile).sorted().toList();
+        }
+
+        InferenceProgressListener progress = request.getProgressListener();
+        progress.modelLoaded();
+        for (Path image : images) {
+            long started = System.currentTimeMillis();
+            String base = baseName(image.getFileName().toString());
+            progress.imageStarted(base);
+            try {
+                processImage(image, request.getSensitivity(), feedback, maskDir, filteredDir, boxedDir);
+            } catch (IOException e) {
+                logger.warn("Stub inference failed for {}: {}", image.getFileName(), e.getMessage());
+            }
+            long remaining = latency(request.getSize()) - (System.currentTimeMillis() - started);
+            if (remaining > 0) {
+                Thread.sleep(remaining);
+            }
+            progress.imageFinished(base);
+        }
+    }
+
+    /**
+     * The configured latency is for the script's default size of 256
+     */
+    private long latency(Integer size) {
+        if (size == null) {
+            return latencyMs;
+        }
+        double scale = size / 256.0;
+        return Math.round(latencyMs * scale * scale);
+    }
+
+    private void processImage(Path imagePath, double sensitivity, JsonNode feedback, Path maskDir,
+            Path filteredDir, Path boxedDir) throws IOException {
+        byte[] bytes = Files.readAllBytes(imagePath);
+        BufferedImage original = ImageIO.read(imagePath.toFile());
+        if (original == null) {
+            throw new IOException("Could not read original image: " + imagePath);
+        }
+
+        String fileName = imagePath.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        String base = baseName(fileName);
+        String ext = dot > 0 ? fileName.substring(dot + 1).toLowerCase(Locale.ROOT) : "png";
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        Random random = new Random(crc.getValue());
+
+        int width = original.getWidth();
+        int height = original.getHeight();
+        // Sensitivity scales the number of findings the same way it does for the model
+        int boxCount = (int) Math.round(random.nextInt(Math.max(1, maxBoxes) + 1) * Math.min(2.0, sensitivity));
+        boxCount = Math.min(boxCount, Math.max(0, maxBoxes));
+
+        List<int[]> boxes = new ArrayList<>();
+        List<String> labels = new ArrayList<>();
+        List<Double> confidences = new ArrayList<>();
+        for (int i = 0; i < boxCount; i++) {
+            int w = Math.max(4, (int) (width * (0.05 + random.nextDouble() * 0.2)));
+            int h = Math.max(4, (int) (height * (0.05 + random.nextDouble() * 0.2)));
+            int x = random.nextInt(Math.max(1, width - w));
+            int y = random.nextInt(Math.max(1, height - h));
+            boxes.add(new int[] { x, y, Math.min(w, width), Math.min(h, height) });
+            labels.add(LABELS[random.nextInt(LABELS.length)]);
+            confidences.add(0.5 + random.nextDouble() * 0.45);
+        }
+
+        String label = boxes.isEmpty() ? "Normal" : labels.get(0);
+        ArrayNode perBox = applyFeedback(labels, confidences, feedback);
+
+        // Mask and filtered images mirror what the PatchCore stage writes
+        BufferedImage mask = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        BufferedImage filtered = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D maskGraphics = mask.createGraphics();
+        maskGraphics.setColor(Color.WHITE);
+        for (int[] box : boxes) {
+            maskGraphics.fillRect(box[0], box[1], box[2], box[3]);
+            for (int yy = box[1]; yy < box[1] + box[3]; yy++) {
+                for (int xx = box[0]; xx < box[0] + box[2]; xx++) {
+                    filtered.setRGB(xx, yy, original.getRGB(xx, yy));
+                }
+            }
+        }
+        maskGraphics.dispose();
+        Path maskPath = maskDir.resolve(base + "_mask.png");
+        Path filteredPath = filteredDir.resolve(base + "_filtered.png");
+        ImageIO.write(mask, "png", maskPath.toFile());
+        ImageIO.write(filtered, "png", filteredPath.toFile());
+
+        Path boxedPath = writeBoxedImage(original, boxes, labels, confidences, label, boxedDir, base, ext);
+
+        ObjectNode json = objectMapper.createObjectNode();
+        json.put("image", imagePath.toAbsolutePath().toString());
+        json.put("boxed_image", boxedPath.toAbsolutePath().toString());
+        json.put("mask_image", maskPath.toAbsolutePath().toString());
+        json.put("filtered_image", filteredPath.toAbsolutePath().toString());
+        json.put("label", label);
+        ArrayNode boxesNode = json.putArray("boxes");
+        for (int i = 0; i < boxes.size(); i++) {
+            int[] box = boxes.get(i);
+            ObjectNode boxNode = boxesNode.addObject();
+            ArrayNode coords = boxNode.putArray("box");
+            for (int value : box) {
+                coords.add(value);
+            }
+            boxNode.put("type", labels.get(i));
+            boxNode.put("confidence", confidences.get(i));
+        }
+
+        double globalAdjustment = feedback.path("global_adjustment").asDouble(0.0);
+        ObjectNode feedbackSection = json.putObject("feedback_adjustments");
+        feedbackSection.put("applied", perBox.size() > 0 || Math.abs(globalAdjustment) > 1e-9);
+        feedbackSection.put("global_adjustment", round(globalAdjustment, 6));
+        feedbackSection.set("learning_rate", feedback.path("learning_rate").isMissingNode()
+                ? null : feedback.get("learning_rate"));
+        feedbackSection.set("generated_at", feedback.path("generated_at").isMissingNode()
+                ? null : feedback.get("generated_at"));
+        feedbackSection.put("source", "stub");
+        feedbackSection.put("total_annotations_considered", feedback.path("total_annotations_considered").asInt(0));
+        feedbackSection.set("label_adjustments", feedback.has("label_adjustments")
+                ? feedback.get("label_adjustments") : objectMapper.createObjectNode());
+        feedbackSection.set("label_feedback", feedback.has("label_feedback")
+                ? feedback.get("label_feedback") : objectMapper.createArrayNode());
+        feedbackSection.set("per_box", perBox);
+
+        objectMapper.writerWithDefaultPrettyPrinter()
+                .writeValue(boxedDir.resolve(base + ".json").toFile(), json);
+    }
+
+    /**
+     * Same adjustment rule as apply_feedback_to_confidences in the Python core
+     */
+    private ArrayNode applyFeedback(List<String> labels, List<Double> confidences, JsonNode feedback) {
+        ArrayNode perBox = objectMapper.createArrayNode();
+        double globalAdjustment = feedback.path("global_adjustment").asDouble(0.0);
+        for (int i = 0; i < confidences.size(); i++) {
+            double original = confidences.get(i);
+            double labelAdjustment = feedback.path("label_adjustments").path(labels.get(i))
+                    .path("adjustment").asDouble(0.0);
+            double total = globalAdjustment + labelAdjustment;
+            double adjusted = round(Math.max(0.05, Math.min(0.99, original + total)), 3);
+            confidences.set(i, adjusted);
+
+            ObjectNode detail = perBox.addObject();
+            detail.put("label", labels.get(i));
+            detail.put("original_confidence", round(original, 3));
+            detail.put("adjustment", round(total, 6));
+            ObjectNode components = detail.putObject("components");
+            components.put("global", round(globalAdjustment, 6));
+            components.put("label", round(labelAdjustment, 6));
+            detail.put("adjusted_confidence", adjusted);
+        }
+        return perBox;
+    }
+
+    private Path writeBoxedImage(BufferedImage original, List<int[]> boxes, List<String> labels,
+            List<Double> confidences, String label, Path boxedDir, String base, String ext) throws IOException {
+        BufferedImage boxed = new BufferedImage(original.getWidth(), original.getHeight(),
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = boxed.createGraphics();
+        g.drawImage(original, 0, 0, null);
+        g.setStroke(new BasicStroke(2));
+        g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 12));
+        for (int i = 0; i < boxes.size(); i++) {
+            int[] box = boxes.get(i);
+            String boxLabel = labels.get(i);
+            // Same colour rule as color_for_label in the Python core
+            g.setColor(boxLabel.contains("Potential") || boxLabel.contains("Full Wire Overload")
+                    ? Color.YELLOW : Color.RED);
+            g.drawRect(box[0], box[1], box[2], box[3]);
+            g.drawString(String.format(Locale.ROOT, "%s (%.2f)", boxLabel, confidences.get(i)),
+                    box[0], Math.max(12, box[1] - 4));
+        }
+        if (boxes.isEmpty()) {
+            g.setColor(Color.YELLOW);
+            g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 20));
+            g.drawString(label, 10, 30);
+        }
+        g.dispose();
+
+        Path boxedPath = boxedDir.resolve(base + "_boxed." + ext);
+        if (!ImageIO.write(boxed, ext, boxedPath.toFile())) {
+            Files.deleteIfExists(boxedPath);
+            boxedPath = boxedDir.resolve(base + "_boxed.png");
+            ImageIO.write(boxed, "png", boxedPath.toFile());
+        }
+        return boxedPath;
+    }
+
+    private JsonNode readFeedback(Path feedbackFile) {
+        if (feedbackFile == null || !Files.exists(feedbackFile)) {
+            return objectMapper.createObjectNode();
+        }
+        try {
+            return objectMapper.readTree(feedbackFile.toFile());
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable feedback file {}: {}", feedbackFile, e.getMessage());
+            return objectMapper.createObjectNode();
+        }
+    }
+
+    private static String baseName(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+
+    private static double round(double value, int places) {
+        double scale = Math.pow(10, places);
+        return Math.round(value * scale) / scale;
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.transformer_manager_backkend.service.inference;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * One resident inference_worker.py process with the PatchCore model already
+ * loaded. Requests and responses are exchanged as line-delimited JSON over the
+ * process' stdin/stdout; stderr is drained on its own thread so a chatty model
+ * can never block on a full pipe, and its progress lines are reported to the
+ * listener of the request in flight.
+ *
+ * Instances are not thread-safe: the owning pool hands a process to one caller
+ * at a time.
+ */
+public class WarmInferenceProcess implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmInferenceProcess.class);
+    private static final String EOF_MARKER = "\u0000EOF";
+
+    private final int slot;
+    private final List<String> command;
+    private final File workingDirectory;
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<String> responses = new LinkedBlockingQueue<>();
+    private final AtomicLong requestIds = new AtomicLong();
+    private final OutputRingBuffer recentOutput;
+    private volatile InferenceProgressListener progressListener = InferenceProgressListener.NONE;
+
+    private Process process;
+    private BufferedWriter requestWriter;
+    private LocalDateTime startedAt;
+    private int requestsServed;
+
+    public WarmInferenceProcess(int slot, List<String> command, File workingDirectory, ObjectMapper objectMapper,
+            int outputTailLines) {
+        this.slot = slot;
+        this.command = command;
+        this.workingDirectory = workingDirectory;
+        this.objectMapper = objectMapper;
+        this.recentOutput = new OutputRingBuffer(outputTailLines);
+    }
+
+    /**
+     * Launch the process and wait until it reports that the model is loaded
+     */
+    public void start(long startupTimeoutMillis) throws IOException, InterruptedException {
+        logger.info("Starting warm inference worker {}: {}", slot, command);
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        processBuilder.directory(workingDirectory);
+        process = processBuilder.start();
+        startedAt = LocalDateTime.now();
+        requestsServed = 0;
+        responses.clear();
+        requestWriter = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+
+        startPump("stdout", () -> {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isBlank()) {
+                        responses.add(line);
+                    }
+                }
+            } catch (IOException e) {
+                logger.debug("Warm worker {} stdout closed: {}", slot, e.getMessage());
+            } finally {
+                responses.add(EOF_MARKER);
+            }
+        });
+        // The worker prints its progress lines to stderr to keep stdout for the protocol
+        ProcessOutputPump.start("warm-worker-" + slot + "-stderr", process.getErrorStream(), recentOutput, line -> {
+            logger.debug("Warm worker {}: {}", slot, line);
+            InferenceOutputParser.parse(line, progressListener);
+        });
+
+        JsonNode ready = awaitMessage(null, startupTimeoutMillis);
+        if (!"ready".equals(ready.path("event").asText())) {
+            close();
+            throw new IOException("Warm worker " + slot + " did not report ready: " + ready);
+        }
+        logger.info("Warm inference worker {} ready on {}", slot, ready.path("device").asText("unknown device"));
+    }
+
+    /**
+     * Send a request and block until the matching response arrives
+     */
+    public JsonNode request(ObjectNode request, long timeoutMillis) throws IOException, InterruptedException {
+        return request(request, timeoutMillis, InferenceProgressListener.NONE);
+    }
+
+    /**
+     * Send a request and block until the matching response arrives, reporting
+     * the worker's progress lines to {@code listener} meanwhile
+     */
+    public JsonNode request(ObjectNode request, long timeoutMillis, InferenceProgressListener listener)
+            throws IOException, InterruptedException {
+        if (!isAlive()) {
+            throw new IOException("Warm worker " + slot + " is not running");
+        }
+        String id = String.valueOf(requestIds.incrementAndGet());
+        request.put("id", id);
+        progressListener = listener;
+        try {
+            requestWriter.write(objectMapper.writeValueAsString(request));
+            requestWriter.newLine();
+            requestWriter.flush();
+
+            JsonNode response = awaitMessage(id, timeoutMillis);
+            if ("infer".equals(request.path("op").asText())) {
+                requestsServed++;
+            }
+            return response;
+        } finally {
+            progressListener = InferenceProgressListener.NONE;
+        }
+    }
+
+    /**
+     * Health check: the worker must answer a ping within the timeout
+     */
+    public boolean ping(long timeoutMillis) {
+        try {
+            ObjectNode request = objectMapper.createObjectNode();
+            request.put("op", "ping");
+            return request(request, timeoutMillis).path("ok").asBoolean(false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            logger.warn("Health check failed for warm worker {}: {}", slot, e.getMessage());
+            return false;
+        }
+    }
+
+    public boolean isAlive() {
+        return process != null && process.isAlive();
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    public int getRequestsServed() {
+        return requestsServed;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * Ask the worker to exit, then force it if it does not comply
+     */
+    @Override
+    public void close() {
+        if (process == null) {
+            return;
+        }
+        try {
+            if (process.isAlive()) {
+                requestWriter.write("{\"op\":\"shutdown\"}");
+                requestWriter.newLine();
+                requestWriter.flush();
+                if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            }
+        } catch (IOException e) {
+            process.destroyForcibly();
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private JsonNode awaitMessage(String expectedId, long timeoutMillis) throws IOException, InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (true) {
+            long remaining = deadline - System.currentTimeMillis();
+            String line = remaining > 0 ? responses.poll(remaining, TimeUnit.MILLISECONDS) : null;
+            if (line == null) {
+                process.destroyForcibly();
+                throw new IOException("Warm worker " + slot + " timed out after " + timeoutMillis + " ms");
+            }
+            if (EOF_MARKER.equals(line)) {
+                throw new IOException("Warm worker " + slot + " exited unexpectedly: " + recentOutput);
+            }
+
+            JsonNode message;
+            try {
+                message = objectMapper.readTree(line);
+            } catch (IOException e) {
+                logger.debug("Ignoring non-protocol output from warm worker {}: {}", slot, line);
+                continue;
+            }
+            if (expectedId == null || expectedId.equals(message.path("id").asText(null))) {
+                return message;
+            }
+            logger.debug("Discarding stale response from warm worker {}: {}", slot, line);
+        }
+    }
+
+    private void startPump(String streamName, Runnable pump) {
+        Thread thread = new Thread(pump, "warm-worker-" + slot + "-" + streamName);
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
@@ -0,0 +1,420 @@
+package com.example.transformer_manager_backkend.service.inference;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.transformer_manager_backkend.service.AnalysisFiles;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Pool of resident inference processes. Each slot keeps one
+ * {@link WarmInferenceProcess} alive so the checkpoint and venv are loaded once
+ * per worker instead of once per image. Crashed workers are restarted on next
+ * use, idle workers are health-checked periodically, and every worker is
+ * recycled after a configurable number of requests to bound memory growth.
+ *
+ * Processes are only launched on first use, so nothing is spawned when the
+ * pool is not the active inference engine.
+ *
+ * With shared memory enabled, each slot also owns a {@link SharedImageRegion}.
+ * The batch's uploads are copied straight into it, nothing is staged, and the
+ * worker reads the encoded images from the region. This only works when the
+ * worker runs on the same Linux host as the backend (not through WSL).
+ */
+@Component
+public class WarmInferenceWorkerPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmInferenceWorkerPool.class);
+    // The extensions inference_core_local.collect_images picks up, matched case-sensitively like its globs
+    private static final Set<String> IMAGE_EXTENSIONS = Set.of("jpg", "jpeg", "png", "bmp", "tif", "tiff", "webp");
+
+    private final InferenceScriptLauncher launcher;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BlockingQueue<Integer> idleSlots = new LinkedBlockingQueue<>();
+    private WarmInferenceProcess[] processes;
+    private SlotStats[] stats;
+    private SharedImageRegion[] regions;
+    private ScheduledExecutorService healthChecker;
+
+    @Value("${app.anomaly.warm.pool-size:1}")
+    private int poolSize;
+
+    @Value("${app.anomaly.warm.max-requests:200}")
+    private int maxRequestsPerWorker;
+
+    @Value("${app.anomaly.warm.startup-timeout-seconds:180}")
+    private long startupTimeoutSeconds;
+
+    @Value("${app.anomaly.warm.request-timeout-seconds:600}")
+    private long requestTimeoutSeconds;
+
+    @Value("${app.anomaly.warm.health-check-seconds:30}")
+    private long healthCheckSeconds;
+
+    @Value("${app.anomaly.inference.output-tail-lines:200}")
+    private int outputTailLines;
+
+    @Value("${app.anomaly.warm.shared-memory.enabled:false}")
+    private boolean sharedMemory;
+
+    // Set once a shared region could not be created; workers then read staged files
+    private volatile boolean sharedMemoryFailed;
+
+    @Value("${app.anomaly.warm.shared-memory.dir:/dev/shm}")
+    private String sharedMemoryDir;
+
+    public WarmInferenceWorkerPool(InferenceScriptLauncher launcher) {
+        this.launcher = launcher;
+    }
+
+    /**
+     * Run inference on a warm worker for the given images, or for every image
+     * staged in the input directory if none are given. Blocks until a worker
+     * is free.
+     */
+    public JsonNode infer(Path inputDir, Path outputDir, double sensitivity, Path feedbackFile, Integer size,
+            List<InferenceRequest.Image> images, InferenceProgressListener listener)
+            throws IOException, InterruptedException {
+        ensureInitialized();
+
+        ObjectNode request = objectMapper.createObjectNode();
+        request.put("op", "infer");
+        request.put("input", WslPaths.toScriptPath(inputDir));
+        request.put("outdir", WslPaths.toScriptPath(outputDir));
+        request.put("sensitivity", sensitivity);
+        request.put("feedback", feedbackFile != null ? WslPaths.toScriptPath(feedbackFile) : "");
+        if (size != null) {
+            request.put("size", size);
+        }
+
+        int slot = idleSlots.take();
+        try {
+            WarmInferenceProcess process = ensureRunning(slot);
+            if (!images.isEmpty() && !attachSharedImages(slot, inputDir, images, request)) {
+                stageImages(inputDir, images);
+            }
+            // A resident worker never prints "Model loaded" per request
+            listener.modelLoaded();
+            JsonNode response;
+            try {
+                response = process.request(request, TimeUnit.SECONDS.toMillis(requestTimeoutSeconds), listener);
+            } catch (IOException e) {
+                // Crashed or hung: drop it so the next caller gets a fresh process
+                discard(slot, "request failed: " + e.getMessage());
+                throw e;
+            }
+
+            if (!response.path("ok").asBoolean(false)) {
+                throw new IOException("Warm worker " + slot + " rejected request: "
+                        + response.path("error").asText("unknown error"));
+            }
+            if (process.getRequestsServed() >= Math.max(1, maxRequestsPerWorker)) {
+                discard(slot, "recycling after " + process.getRequestsServed() + " requests");
+            }
+            return response;
+        } finally {
+            idleSlots.add(slot);
+        }
+    }
+
+    /**
+     * Status of every warm worker slot
+     */
+    public List<WarmWorkerStatus> getStatuses() {
+        List<WarmWorkerStatus> statuses = new ArrayList<>();
+        synchronized (this) {
+            if (processes == null) {
+                return statuses;
+            }
+            for (int slot = 0; slot < processes.length; slot++) {
+                WarmInferenceProcess process = processes[slot];
+                SlotStats slotStats = stats[slot];
+                statuses.add(new WarmWorkerStatus(
+                        slot,
+                        process != null && process.isAlive(),
+                        !idleSlots.contains(slot),
+                        process != null ? process.getRequestsServed() : 0,
+                        slotStats.restarts,
+                        process != null ? process.getStartedAt() : null,
+                        slotStats.lastHealthCheckAt,
+                        slotStats.lastHealthy));
+            }
+        }
+        return statuses;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        if (processes != null) {
+            for (int slot = 0; slot < processes.length; slot++) {
+                if (processes[slot] != null) {
+                    processes[slot].close();
+                    processes[slot] = null;
+                }
+                if (regions[slot] != null) {
+                    try {
+                        regions[slot].close();
+                    } catch (IOException e) {
+                        logger.warn("Could not remove shared image region of slot {}: {}", slot, e.getMessage());
+                    }
+                    regions[slot] = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether workers are handed their images through shared memory: enabled
+     * and no region has failed to be created
+     */
+    public boolean isSharedMemoryActive() {
+        return sharedMemory && !sharedMemoryFailed;
+    }
+
+    /**
+     * Copy the images from their sources into the slot's shared region and
+     * tell the worker where they are, under the names they would have been
+     * staged with. Returns false, leaving the images to be staged, if shared
+     * memory is off or its region cannot be created; a failure switches it
+     * off for good.
+     */
+    private boolean attachSharedImages(int slot, Path inputDir, List<InferenceRequest.Image> images,
+            ObjectNode request) throws IOException {
+        if (!isSharedMemoryActive()) {
+            return false;
+        }
+        SharedImageRegion region;
+        try {
+            region = region(slot);
+        } catch (IOException e) {
+            logger.warn("Shared memory unavailable in {} ({}); warm workers will read staged files",
+                    sharedMemoryDir, e.getMessage());
+            sharedMemoryFailed = true;
+            return false;
+        }
+
+        // Images the worker would skip in its input directory get no outputs this way either
+        List<InferenceRequest.Image> picked = images.stream()
+                .filter(image -> isWorkerImage(image.getName()))
+                .toList();
+        List<SharedImageRegion.Segment> segments = region.write(
+                picked.stream().map(InferenceRequest.Image::getSource).toList());
+        ObjectNode shm = request.putObject("shm");
+        shm.put("path", WslPaths.toScriptPath(region.getFile()));
+        ArrayNode entries = shm.putArray("images");
+        for (int i = 0; i < segments.size(); i++) {
+            SharedImageRegion.Segment segment = segments.get(i);
+            ObjectNode image = entries.addObject();
+            // The worker only names the outputs after this path; it is never opened
+            image.put("image", WslPaths.toScriptPath(inputDir.resolve(picked.get(i).getName())));
+            image.put("offset", segment.getOffset());
+            image.put("length", segment.getLength());
+        }
+        return true;
+    }
+
+    /**
+     * Stage images that were handed over unstaged, for a worker that reads
+     * its input directory
+     */
+    private static void stageImages(Path inputDir, List<InferenceRequest.Image> images) throws IOException {
+        Files.createDirectories(inputDir);
+        for (InferenceRequest.Image image : images) {
+            AnalysisFiles.linkOrCopy(image.getSource(), inputDir.resolve(image.getName()));
+        }
+    }
+
+    private synchronized SharedImageRegion region(int slot) throws IOException {
+        if (regions[slot] == null) {
+            String fileName = "thermosight-warm-" + ProcessHandle.current().pid() + "-" + slot + ".shm";
+            regions[slot] = new SharedImageRegion(Paths.get(sharedMemoryDir, fileName));
+        }
+        return regions[slot];
+    }
+
+    /**
+     * Whether the worker would pick up a staged file of this name
+     */
+    static boolean isWorkerImage(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot >= 0 && IMAGE_EXTENSIONS.contains(fileName.substring(dot + 1));
+    }
+
+    private synchronized void ensureInitialized() {
+        if (processes != null) {
+            return;
+        }
+        int size = Math.max(1, poolSize);
+        processes = new WarmInferenceProcess[size];
+        stats = new SlotStats[size];
+        regions = new SharedImageRegion[size];
+        for (int slot = 0; slot < size; slot++) {
+            stats[slot] = new SlotStats();
+            idleSlots.add(slot);
+        }
+
+        healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "warm-worker-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(5, healthCheckSeconds);
+        healthChecker.scheduleWithFixedDelay(this::checkIdleWorkers, interval, interval, TimeUnit.SECONDS);
+        logger.info("Initialized warm inference pool with {} slot(s)", size);
+    }
+
+    private WarmInferenceProcess ensureRunning(int slot) throws IOException, InterruptedException {
+        WarmInferenceProcess process;
+        synchronized (this) {
+            process = processes[slot];
+        }
+        if (process != null && process.isAlive()) {
+            return process;
+        }
+        if (process != null) {
+            logger.warn("Warm worker {} is no longer running; restarting", slot);
+            process.close();
+            stats[slot].restarts++;
+        }
+
+        WarmInferenceProcess fresh = new WarmInferenceProcess(slot, launcher.command("run_worker.sh", List.of()),
+                launcher.getWorkingDirectory(), objectMapper, outputTailLines);
+        fresh.start(TimeUnit.SECONDS.toMillis(startupTimeoutSeconds));
+        synchronized (this) {
+            processes[slot] = fresh;
+        }
+        return fresh;
+    }
+
+    private void discard(int slot, String reason) {
+        WarmInferenceProcess process;
+        synchronized (this) {
+            process = processes[slot];
+            processes[slot] = null;
+        }
+        if (process != null) {
+            logger.info("Stopping warm worker {}: {}", slot, reason);
+            process.close();
+        }
+    }
+
+    /**
+     * Ping every idle, running worker; unhealthy ones are dropped and will be
+     * restarted on next use
+     */
+    private void checkIdleWorkers() {
+        int slots = processes.length;
+        for (int i = 0; i < slots; i++) {
+            Integer slot = idleSlots.poll();
+            if (slot == null) {
+                return;
+            }
+            try {
+                WarmInferenceProcess process;
+                synchronized (this) {
+                    process = processes[slot];
+                }
+                if (process == null) {
+                    continue;
+                }
+                boolean healthy = process.isAlive() && process.ping(10_000);
+                stats[slot].lastHealthCheckAt = LocalDateTime.now();
+                stats[slot].lastHealthy = healthy;
+                if (!healthy) {
+                    discard(slot, "failed health check");
+                    stats[slot].restarts++;
+                }
+            } finally {
+                idleSlots.add(slot);
+            }
+        }
+    }
+
+    private static class SlotStats {
+        private volatile int restarts;
+        private volatile LocalDateTime lastHealthCheckAt;
+        private volatile Boolean lastHealthy;
+    }
+
+    /**
+     * Warm worker status DTO
+     */
+    public static class WarmWorkerStatus {
+        private final int slot;
+        private final boolean running;
+        private final boolean busy;
+        private final int requestsServed;
+        private final int restarts;
+        private final LocalDateTime startedAt;
+        private final LocalDateTime lastHealthCheckAt;
+        private final Boolean lastHealthy;
+
+        public WarmWorkerStatus(int slot, boolean running, boolean busy, int requestsServed, int restarts,
+                LocalDateTime startedAt, LocalDateTime lastHealthCheckAt, Boolean lastHealthy) {
+            this.slot = slot;
+            this.running = running;
+            this.busy = busy;
+            this.requestsServed = requestsServed;
+            this.restarts = restarts;
+            this.startedAt = startedAt;
+            this.lastHealthCheckAt = lastHealthCheckAt;
+            this.lastHealthy = lastHealthy;
+        }
+
+        public int getSlot() {
+            return slot;
+        }
+
+        public boolean isRunning() {
+            return running;
+        }
+
+        public boolean isBusy() {
+            return busy;
+        }
+
+        public int getRequestsServed() {
+            return requestsServed;
+        }
+
+        public int getRestarts() {
+            return restarts;
+        }
+
+        public LocalDateTime getStartedAt() {
+            return startedAt;
+        }
+
+        public LocalDateTime getLastHealthCheckAt() {
+            return lastHealthCheckAt;
+        }
+
+        public Boolean getLastHealthy() {
+            return lastHealthy;
+        }
+    }
+}
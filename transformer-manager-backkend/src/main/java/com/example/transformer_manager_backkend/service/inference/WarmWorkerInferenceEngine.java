@@ -0,0 +1,58 @@
+package com.example.transformer_manager_backkend.service.inference;
+
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Sends each batch to a resident worker from {@link WarmInferenceWorkerPool}
+ * that already has the model loaded
+ */
+@Component
+@ConditionalOnProperty(name = "app.anomaly.inference.engine", havingValue = "warm")
+public class WarmWorkerInferenceEngine implements InferenceEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmWorkerInferenceEngine.class);
+
+    private final WarmInferenceWorkerPool workerPool;
+
+    @Value("${app.anomaly.batch.max-size:8}")
+    private int maxBatchSize;
+
+    public WarmWorkerInferenceEngine(WarmInferenceWorkerPool workerPool) {
+        this.workerPool = workerPool;
+    }
+
+    @Override
+    public String getName() {
+        return "warm";
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return Math.max(1, maxBatchSize);
+    }
+
+    /**
+     * Workers reading from shared memory are handed the uploads themselves
+     */
+    @Override
+    public boolean readsStagedFiles() {
+        return !workerPool.isSharedMemoryActive();
+    }
+
+    @Override
+    public void run(InferenceRequest request) throws IOException, InterruptedException {
+        JsonNode response = workerPool.infer(request.getInputDir(), request.getOutputDir(),
+                request.getSensitivity(), request.getFeedbackFile(), request.getSize(), request.getImages(),
+                request.getProgressListener());
+        response.path("errors").forEach(err -> logger.warn("Warm worker failed on {}: {}",
+                err.path("image").asText(), err.path("error").asText()));
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.transformer_manager_backkend.service.inference;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Path helpers for launching the Linux inference scripts. On Windows the scripts
+ * run inside WSL, so host paths must be translated to their /mnt/&lt;drive&gt; form.
+ */
+public final class WslPaths {
+
+    private WslPaths() {
+    }
+
+    /**
+     * Whether the backend itself is running on Windows (and must go through WSL)
+     */
+    public static boolean isWindowsHost() {
+        return System.getProperty("os.name", "").toLowerCase(Locale.ROOT).contains("windows");
+    }
+
+    /**
+     * Convert Windows path to WSL path
+     */
+    public static String toWslPath(String windowsPath) {
+        // Convert C:\path\to\file to /mnt/c/path/to/file
+        if (windowsPath.length() >= 3 && windowsPath.charAt(1) == ':') {
+            char drive = Character.toLowerCase(windowsPath.charAt(0));
+            String path = windowsPath.substring(3).replace('\\', '/');
+            return "/mnt/" + drive + "/" + path;
+        }
+        return windowsPath.replace('\\', '/');
+    }
+
+    /**
+     * Absolute path as seen by the inference scripts on this host
+     */
+    public static String toScriptPath(Path path) {
+        String absolute = path.toAbsolutePath().normalize().toString();
+        return isWindowsHost() ? toWslPath(absolute) : absolute;
+    }
+}
@@ -0,0 +1,22 @@
+-- SHA-256 of each uploaded image, used to recognise re-uploads of the same file
+ALTER TABLE images ADD COLUMN content_hash VARCHAR(64);
+
+-- Job whose result was reused for this one
+ALTER TABLE analysis_jobs ADD COLUMN reused_from_job_id BIGINT;
+
+-- Inference results keyed by image content and the settings that produced them
+CREATE TABLE IF NOT EXISTS analysis_result_cache (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    content_hash VARCHAR(64) NOT NULL,
+    sensitivity DOUBLE NOT NULL,
+    feedback_version VARCHAR(64) NOT NULL,
+    model_version VARCHAR(255) NOT NULL,
+    label VARCHAR(255),
+    result_json TEXT NOT NULL,
+    boxed_image_path VARCHAR(255) NOT NULL,
+    source_job_id BIGINT,
+    hit_count BIGINT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP,
+    last_hit_at TIMESTAMP,
+    CONSTRAINT uk_analysis_result_cache_key UNIQUE (content_hash, sensitivity, feedback_version, model_version)
+);
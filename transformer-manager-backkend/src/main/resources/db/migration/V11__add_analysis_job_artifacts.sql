@@ -0,0 +1,9 @@
+-- Upload the result was computed from (images.file_path moves to the boxed image)
+ALTER TABLE analysis_jobs ADD COLUMN source_image_path VARCHAR(255);
+
+-- PatchCore filtered image and mask kept for reclassification without the model
+ALTER TABLE analysis_jobs ADD COLUMN filtered_image_path VARCHAR(255);
+ALTER TABLE analysis_jobs ADD COLUMN mask_image_path VARCHAR(255);
+
+-- Last time the job was rescored from its stored artifacts
+ALTER TABLE analysis_jobs ADD COLUMN reclassified_at TIMESTAMP;
@@ -0,0 +1,2 @@
+-- Completed as Normal by the upload pre-screen, without running PatchCore
+ALTER TABLE analysis_jobs ADD COLUMN pre_screened BOOLEAN DEFAULT FALSE;
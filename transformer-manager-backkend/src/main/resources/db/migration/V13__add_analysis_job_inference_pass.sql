@@ -0,0 +1,4 @@
+-- Inference pass that produced the result (SINGLE, CASCADE_FIRST, CASCADE_FULL)
+-- and the PatchCore input size it ran at (null = script default)
+ALTER TABLE analysis_jobs ADD COLUMN inference_pass VARCHAR(20);
+ALTER TABLE analysis_jobs ADD COLUMN inference_size INT;
@@ -0,0 +1,11 @@
+-- Running per-label totals of annotation feedback; the row with the empty label
+-- counts the annotations that have any boxes
+CREATE TABLE IF NOT EXISTS feedback_label_aggregates (
+    label VARCHAR(255) NOT NULL PRIMARY KEY,
+    count_delta DOUBLE NOT NULL,
+    area_delta DOUBLE NOT NULL,
+    original_area DOUBLE NOT NULL,
+    confidence_delta DOUBLE NOT NULL,
+    samples BIGINT NOT NULL,
+    updated_at TIMESTAMP
+);
@@ -0,0 +1,5 @@
+-- Version of the feedback payload a result was produced with (null = none, e.g. pre-screened)
+ALTER TABLE analysis_jobs ADD COLUMN feedback_version VARCHAR(64);
+
+-- Version of the feedback payload each snapshot records
+ALTER TABLE feedback_snapshots ADD COLUMN payload_version VARCHAR(64);
@@ -0,0 +1,5 @@
+-- Queue position is now derived from created_at order when read
+ALTER TABLE analysis_jobs DROP COLUMN queue_position;
+
+-- Supports claiming the oldest queued job and counting jobs ahead of it
+CREATE INDEX idx_analysis_jobs_status_created ON analysis_jobs (status, created_at, id);
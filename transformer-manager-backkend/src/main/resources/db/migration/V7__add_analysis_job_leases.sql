@@ -0,0 +1,4 @@
+-- Lease held by the worker processing a job; expired leases are requeued
+ALTER TABLE analysis_jobs ADD COLUMN lease_owner VARCHAR(255);
+ALTER TABLE analysis_jobs ADD COLUMN lease_expires_at TIMESTAMP NULL;
+ALTER TABLE analysis_jobs ADD COLUMN attempts INT DEFAULT 0;
@@ -0,0 +1,2 @@
+-- Backend instance that claimed the job (app.anomaly.node-id)
+ALTER TABLE analysis_jobs ADD COLUMN claimed_by_node VARCHAR(255);
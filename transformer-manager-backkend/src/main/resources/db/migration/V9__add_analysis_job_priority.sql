@@ -0,0 +1,4 @@
+-- Priority class and fair-queueing flow (submitting user + inspection) of each job
+ALTER TABLE analysis_jobs ADD COLUMN priority VARCHAR(20) DEFAULT 'NORMAL';
+ALTER TABLE analysis_jobs ADD COLUMN submitted_by VARCHAR(255);
+ALTER TABLE analysis_jobs ADD COLUMN inspection_id BIGINT;
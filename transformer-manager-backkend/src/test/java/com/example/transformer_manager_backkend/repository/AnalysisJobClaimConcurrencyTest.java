@@ -0,0 +1,216 @@
+package com.example.transformer_manager_backkend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.transformer_manager_backkend.entity.AnalysisJob;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Several "nodes", each with its own connection pool and workers, drain one
+ * shared queue using the repository's claim SQL. Every job must be claimed
+ * exactly once.
+ *
+ * Needs a local Postgres (ANALYSIS_TEST_DB_URL / _USER / _PASSWORD, defaulting
+ * to the application's database); the test is skipped when none is reachable.
+ * It works in a throwaway schema and never touches the real tables.
+ */
+class AnalysisJobClaimConcurrencyTest {
+
+    private static final int NODES = 3;
+    private static final int WORKERS_PER_NODE = 4;
+    private static final int JOBS = 600;
+    private static final int BATCH_SIZE = 5;
+
+    private final String url = setting("ANALYSIS_TEST_DB_URL", "jdbc:postgresql://localhost:5432/transformer_db");
+    private final String user = setting("ANALYSIS_TEST_DB_USER", "postgres");
+    private final String password = setting("ANALYSIS_TEST_DB_PASSWORD", "Pg#12345");
+    private final String schema = "analysis_claim_test_" + System.currentTimeMillis();
+    private final List<HikariDataSource> nodePools = new ArrayList<>();
+
+    @BeforeEach
+    void createQueue() throws SQLException {
+        Connection connection;
+        try {
+            connection = DriverManager.getConnection(url, user, password);
+        } catch (SQLException e) {
+            Assumptions.abort("Postgres not available at " + url + ": " + e.getMessage());
+            return;
+        }
+
+        try (connection; Statement statement = connection.createStatement()) {
+            statement.execute("CREATE SCHEMA " + schema);
+            statement.execute("CREATE TABLE " + schema + ".analysis_jobs ("
+                    + "id BIGSERIAL PRIMARY KEY, "
+                    + "status VARCHAR(20) NOT NULL, "
+                    + "priority VARCHAR(20), "
+                    + "submitted_by VARCHAR(255), "
+                    + "inspection_id BIGINT, "
+                    + "created_at TIMESTAMP NOT NULL, "
+                    + "updated_at TIMESTAMP, "
+                    + "started_at TIMESTAMP, "
+                    + "lease_owner VARCHAR(255), "
+                    + "lease_expires_at TIMESTAMP, "
+                    + "claimed_by_node VARCHAR(255), "
+                    + "attempts INTEGER DEFAULT 0)");
+            statement.execute("INSERT INTO " + schema + ".analysis_jobs (status, created_at) "
+                    + "SELECT 'QUEUED', TIMESTAMP '2024-01-01' + (n * INTERVAL '1 millisecond') "
+                    + "FROM generate_series(1, " + JOBS + ") AS n");
+        }
+    }
+
+    @AfterEach
+    void dropQueue() throws SQLException {
+        nodePools.forEach(HikariDataSource::close);
+        try (Connection connection = DriverManager.getConnection(url, user, password);
+                Statement statement = connection.createStatement()) {
+            statement.execute("DROP SCHEMA IF EXISTS " + schema + " CASCADE");
+        } catch (SQLException e) {
+            // Nothing was created if the database was unreachable
+        }
+    }
+
+    @Test
+    void nodesClaimEveryJobExactlyOnce() throws Exception {
+        Map<Long, String> claimedBy = new ConcurrentHashMap<>();
+        List<String> duplicates = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(NODES * WORKERS_PER_NODE);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int node = 1; node <= NODES; node++) {
+            String nodeId = "node-" + node;
+            HikariDataSource pool = new HikariDataSource();
+            pool.setJdbcUrl(url);
+            pool.setUsername(user);
+            pool.setPassword(password);
+            pool.setSchema(schema);
+            pool.setMaximumPoolSize(WORKERS_PER_NODE);
+            nodePools.add(pool);
+
+            NamedParameterJdbcTemplate jdbc = new NamedParameterJdbcTemplate(pool);
+            TransactionTemplate transactions = new TransactionTemplate(new DataSourceTransactionManager(pool));
+
+            for (int worker = 1; worker <= WORKERS_PER_NODE; worker++) {
+                String owner = nodeId + "/worker-" + worker;
+                futures.add(executor.submit(() -> {
+                    while (true) {
+                        List<Long> ids = transactions.execute(status -> claim(jdbc, owner, nodeId));
+                        if (ids.isEmpty()) {
+                            return null;
+                        }
+                        for (Long id : ids) {
+                            String previous = claimedBy.putIfAbsent(id, owner);
+                            if (previous != null) {
+                                synchronized (duplicates) {
+                                    duplicates.add(id + " claimed by " + previous + " and " + owner);
+                                }
+                            }
+                        }
+                    }
+                }));
+            }
+        }
+
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        assertTrue(duplicates.isEmpty(), "Jobs claimed more than once: " + duplicates);
+        assertEquals(JOBS, claimedBy.size());
+
+        NamedParameterJdbcTemplate jdbc = new NamedParameterJdbcTemplate(nodePools.get(0));
+        MapSqlParameterSource none = new MapSqlParameterSource();
+        assertEquals(0, jdbc.queryForObject(
+                "SELECT COUNT(*) FROM analysis_jobs WHERE status <> 'PROCESSING' OR attempts <> 1", none, Integer.class));
+        for (Map<String, Object> row : jdbc.queryForList("SELECT id, lease_owner, claimed_by_node FROM analysis_jobs",
+                none)) {
+            String owner = (String) row.get("lease_owner");
+            assertEquals(claimedBy.get(((Number) row.get("id")).longValue()), owner);
+            assertTrue(owner.startsWith(row.get("claimed_by_node") + "/"));
+        }
+    }
+
+    @Test
+    void interactiveAndNormalFlowsOvertakeBulkBacklog() {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setJdbcUrl(url);
+        pool.setUsername(user);
+        pool.setPassword(password);
+        pool.setSchema(schema);
+        nodePools.add(pool);
+        NamedParameterJdbcTemplate jdbc = new NamedParameterJdbcTemplate(pool);
+        MapSqlParameterSource none = new MapSqlParameterSource();
+
+        // The whole backlog is one user's bulk import; two single images arrive after it
+        jdbc.update("UPDATE analysis_jobs SET priority = 'BULK', submitted_by = 'importer', inspection_id = 1", none);
+        Long interactiveId = jdbc.queryForObject("INSERT INTO analysis_jobs (status, priority, submitted_by, "
+                + "inspection_id, created_at) VALUES ('QUEUED', 'INTERACTIVE', 'inspector', 2, TIMESTAMP '2024-02-01') "
+                + "RETURNING id", none, Long.class);
+        Long normalId = jdbc.queryForObject("INSERT INTO analysis_jobs (status, priority, submitted_by, "
+                + "inspection_id, created_at) VALUES ('QUEUED', 'NORMAL', 'inspector', 3, TIMESTAMP '2024-02-02') "
+                + "RETURNING id", none, Long.class);
+        Long oldestBulkId = jdbc.queryForObject("SELECT MIN(id) FROM analysis_jobs WHERE priority = 'BULK'", none,
+                Long.class);
+
+        TransactionTemplate transactions = new TransactionTemplate(new DataSourceTransactionManager(pool));
+        List<Long> claimed = transactions.execute(status -> jdbc.queryForList(
+                AnalysisJobRepository.LOCK_QUEUED_JOB_IDS, fairQueue(3), Long.class));
+
+        assertEquals(List.of(interactiveId, normalId, oldestBulkId), claimed);
+    }
+
+    private static List<Long> claim(NamedParameterJdbcTemplate jdbc, String owner, String nodeId) {
+        List<Long> ids = jdbc.queryForList(AnalysisJobRepository.LOCK_QUEUED_JOB_IDS, fairQueue(BATCH_SIZE),
+                Long.class);
+        if (ids.isEmpty()) {
+            return ids;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int updated = jdbc.update(AnalysisJobRepository.CLAIM_LOCKED_JOBS, new MapSqlParameterSource()
+                .addValue("ids", ids)
+                .addValue("owner", owner)
+                .addValue("node", nodeId)
+                .addValue("now", now)
+                .addValue("leaseExpiresAt", Timestamp.valueOf(LocalDateTime.now().plusMinutes(2))));
+        assertEquals(ids.size(), updated);
+        return ids;
+    }
+
+    // The lock query's parameters, with each class's cost taken from the enum as the service does
+    private static MapSqlParameterSource fairQueue(int limit) {
+        return new MapSqlParameterSource("limit", limit)
+                .addValue("interactiveCost", AnalysisJob.AnalysisPriority.INTERACTIVE.getVirtualCost())
+                .addValue("normalCost", AnalysisJob.AnalysisPriority.NORMAL.getVirtualCost())
+                .addValue("bulkCost", AnalysisJob.AnalysisPriority.BULK.getVirtualCost());
+    }
+
+    private static String setting(String name, String defaultValue) {
+        String value = System.getProperty(name, System.getenv(name));
+        return value == null || value.isBlank() ? defaultValue : value;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.transformer_manager_backkend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AnalysisFilesTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void stagedFileIsALinkToTheUpload() throws Exception {
+        Path upload = Files.writeString(tempDir.resolve("upload.jpg"), "pixels");
+        Path staged = tempDir.resolve("staged.jpg");
+        Files.writeString(staged, "stale");
+
+        boolean linked = AnalysisFiles.linkOrCopy(upload, staged);
+
+        assertEquals("pixels", Files.readString(staged));
+        if (linked) {
+            assertTrue(Files.isSameFile(upload, staged));
+        }
+    }
+
+    @Test
+    void moveReplacesTheTargetAndLeavesNoPartialFiles() throws Exception {
+        Path output = Files.writeString(tempDir.resolve("out_boxed.jpg"), "new");
+        Path published = Files.writeString(tempDir.resolve("published.jpg"), "old");
+
+        AnalysisFiles.moveIntoPlace(output, published);
+        AnalysisFiles.writeIntoPlace("{\"label\":\"Normal\"}", tempDir.resolve("published.json"));
+
+        assertFalse(Files.exists(output));
+        assertEquals("new", Files.readString(published));
+        assertEquals("{\"label\":\"Normal\"}", Files.readString(tempDir.resolve("published.json")));
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertTrue(files.noneMatch(file -> file.getFileName().toString().endsWith(".partial")));
+        }
+    }
+
+    @Test
+    void copyKeepsTheSourceAndGivesTheTargetItsOwnFile() throws Exception {
+        Path source = Files.writeString(tempDir.resolve("a_boxed.jpg"), "boxes");
+        Path target = tempDir.resolve("b_boxed.jpg");
+
+        AnalysisFiles.copyIntoPlace(source, target);
+        Files.writeString(source, "redrawn");
+
+        assertEquals("boxes", Files.readString(target));
+    }
+}
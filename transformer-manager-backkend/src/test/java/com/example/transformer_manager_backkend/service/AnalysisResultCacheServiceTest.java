@@ -0,0 +1,148 @@
+package com.example.transformer_manager_backkend.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.transformer_manager_backkend.repository.AnalysisResultCacheRepository;
+import com.example.transformer_manager_backkend.service.inference.InferenceEngine;
+
+class AnalysisResultCacheServiceTest {
+
+    private static final String MODEL_RESULT = "{\"label\":\"Faulty\",\"boxes\":[{\"box\":[10,10,20,20],"
+            + "\"type\":\"Loose Joint (Faulty)\",\"confidence\":0.8}]}";
+    private static final String EDITED_RESULT = "{\"label\":\"Faulty\",\"boxes\":[{\"box\":[60,50,30,25],"
+            + "\"type\":\"Loose Joint (Faulty)\",\"confidence\":1.0}]}";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void reusedResultKeepsTheBoxedImageOfItsJsonAfterTheSourceIsAnnotated() throws Exception {
+        List<Object[]> inserted = new ArrayList<>();
+        AnalysisResultCacheService cache = service(inserted, 1);
+        Path analysisDir = Files.createDirectories(tempDir.resolve("analysis"));
+        Path sourceBoxed = draw(MODEL_RESULT, analysisDir.resolve("T1_boxed.png"));
+
+        cache.store("c0ffee", 1.0, "v1", "Faulty", MODEL_RESULT, "/analysis/T1_boxed.png", 7L);
+
+        // Editing the source job's annotation redraws its boxed image in place
+        Path redrawn = draw(EDITED_RESULT, AnalysisFiles.partialFile(sourceBoxed));
+        AnalysisFiles.moveIntoPlace(redrawn, sourceBoxed);
+
+        // A later upload of the same image is given the entry's JSON and a copy of its boxed image
+        String cachedJson = (String) inserted.get(0)[5];
+        String cachedImage = (String) inserted.get(0)[6];
+        assertTrue(cachedImage.startsWith(AnalysisResultCacheService.CACHE_WEB_DIR), cachedImage);
+        Path reusedBoxed = analysisDir.resolve("T1_again_boxed.png");
+        AnalysisFiles.copyIntoPlace(tempDir.resolve(cachedImage.substring(1)), reusedBoxed);
+
+        assertArrayEquals(box(cachedJson), drawnBox(reusedBoxed));
+        assertArrayEquals(box(EDITED_RESULT), drawnBox(sourceBoxed));
+    }
+
+    @Test
+    void keyAlreadyCachedKeepsItsImage() throws Exception {
+        List<Object[]> inserted = new ArrayList<>();
+        Path analysisDir = Files.createDirectories(tempDir.resolve("analysis"));
+        draw(MODEL_RESULT, analysisDir.resolve("T1_boxed.png"));
+        draw(EDITED_RESULT, analysisDir.resolve("T2_boxed.png"));
+
+        service(inserted, 1).store("c0ffee", 1.0, "v1", "Faulty", MODEL_RESULT, "/analysis/T1_boxed.png", 7L);
+        // Another node stored the same key first
+        service(inserted, 0).store("c0ffee", 1.0, "v1", "Faulty", EDITED_RESULT, "/analysis/T2_boxed.png", 8L);
+
+        assertEquals(inserted.get(0)[6], inserted.get(1)[6]);
+        Path cacheDir = tempDir.resolve("analysis").resolve("cache");
+        try (var files = Files.list(cacheDir)) {
+            assertEquals(1, files.count());
+        }
+        assertArrayEquals(box(MODEL_RESULT), drawnBox(tempDir.resolve(((String) inserted.get(0)[6]).substring(1))));
+    }
+
+    @Test
+    void resultWhoseBoxedImageIsMissingIsNotCached() throws Exception {
+        List<Object[]> inserted = new ArrayList<>();
+
+        service(inserted, 1).store("c0ffee", 1.0, "v1", "Faulty", MODEL_RESULT, "/analysis/missing_boxed.png", 7L);
+
+        assertTrue(inserted.isEmpty());
+        try (var files = Files.list(tempDir.resolve("analysis").resolve("cache"))) {
+            assertFalse(files.findAny().isPresent());
+        }
+    }
+
+    /**
+     * A cache over the temp directory whose repository records the arguments
+     * of every insert and reports {@code rows} rows inserted
+     */
+    private AnalysisResultCacheService service(List<Object[]> inserted, int rows) {
+        AnalysisResultCacheRepository repository = (AnalysisResultCacheRepository) Proxy.newProxyInstance(
+                AnalysisResultCacheRepository.class.getClassLoader(),
+                new Class<?>[] { AnalysisResultCacheRepository.class }, (proxy, method, args) -> {
+                    if (method.getName().equals("insertIfAbsent")) {
+                        inserted.add(args);
+                        return rows;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        InferenceEngine engine = (InferenceEngine) Proxy.newProxyInstance(InferenceEngine.class.getClassLoader(),
+                new Class<?>[] { InferenceEngine.class }, (proxy, method, args) -> "stub");
+        AnalysisResultCacheService cache = new AnalysisResultCacheService(repository, engine);
+        cache.uploadsDir = tempDir;
+        return cache;
+    }
+
+    /**
+     * A boxed image of a result: black, with the result's first box filled in red
+     */
+    private static Path draw(String resultJson, Path file) throws Exception {
+        int[] box = box(resultJson);
+        BufferedImage image = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.RED);
+        graphics.fillRect(box[0], box[1], box[2], box[3]);
+        graphics.dispose();
+        ImageIO.write(image, "png", file.toFile());
+        return file;
+    }
+
+    private static int[] box(String resultJson) throws Exception {
+        ResultBoxes boxes = ResultJsonReader.readBoxes(resultJson);
+        return new int[] { boxes.getX(0), boxes.getY(0), boxes.getWidth(0), boxes.getHeight(0) };
+    }
+
+    /**
+     * Bounds of the red pixels of a boxed image
+     */
+    private static int[] drawnBox(Path file) throws Exception {
+        BufferedImage image = ImageIO.read(file.toFile());
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = -1, maxY = -1;
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                if ((image.getRGB(x, y) & 0xFFFFFF) == 0xFF0000) {
+                    minX = Math.min(minX, x);
+                    minY = Math.min(minY, y);
+                    maxX = Math.max(maxX, x);
+                    maxY = Math.max(maxY, y);
+                }
+            }
+        }
+        return new int[] { minX, minY, maxX - minX + 1, maxY - minY + 1 };
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.transformer_manager_backkend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.transformer_manager_backkend.entity.FeedbackLabelAggregate;
+import com.example.transformer_manager_backkend.repository.AnnotationRepository;
+import com.example.transformer_manager_backkend.repository.FeedbackLabelAggregateRepository;
+
+class FeedbackAggregatorTest {
+
+    private static final String ORIGINAL = "{\"boxes\":[{\"box\":[0,0,10,10],\"type\":\"Loose Joint (Faulty)\","
+            + "\"confidence\":0.8},{\"box\":[50,50,4,5],\"type\":\"Tiny Faulty Spot\",\"confidence\":0.4}]}";
+
+    private static final String[] LABELS = { "Loose Joint (Faulty)", "Tiny Faulty Spot", "Point Overload (Faulty)" };
+
+    private final FeedbackAggregator aggregator = new FeedbackAggregator(null, null, null);
+
+    @Test
+    void annotationContributesTheChangeOfEveryLabelOnEitherSide() {
+        String modified = "{\"boxes\":[{\"box\":[0,0,20,10],\"type\":\"Loose Joint (Faulty)\",\"confidence\":0.9}]}";
+
+        Map<String, FeedbackAggregator.LabelTotals> contribution = aggregator.contribution(ORIGINAL, modified);
+
+        FeedbackAggregator.LabelTotals joint = contribution.get("Loose Joint (Faulty)");
+        assertEquals(0, joint.countDelta, 1e-12);
+        assertEquals(100, joint.areaDelta, 1e-12);
+        assertEquals(100, joint.originalArea, 1e-12);
+        assertEquals(0.1, joint.confidenceDelta, 1e-12);
+        assertEquals(1, joint.samples);
+        FeedbackAggregator.LabelTotals spot = contribution.get("Tiny Faulty Spot");
+        assertEquals(-1, spot.countDelta, 1e-12);
+        assertEquals(-20, spot.areaDelta, 1e-12);
+        assertEquals(1, spot.samples);
+    }
+
+    @Test
+    void replayedEditsAddUpToTheFinalContribution() {
+        String[] edits = {
+                ORIGINAL,
+                "{\"boxes\":[{\"box\":[0,0,20,10],\"type\":\"Loose Joint (Faulty)\",\"confidence\":0.9}]}",
+                "{\"boxes\":[]}",
+                "{\"boxes\":[{\"box\":[5,5,8,8],\"type\":\"Custom Anomaly\",\"confidence\":0.5}]}" };
+
+        Map<String, FeedbackAggregator.LabelTotals> stored = new HashMap<>();
+        String previous = null;
+        for (String edit : edits) {
+            aggregator.changes(ORIGINAL, previous, edit).forEach((label, change) -> stored
+                    .computeIfAbsent(label, key -> new FeedbackAggregator.LabelTotals()).add(change, 1));
+            previous = edit;
+        }
+
+        Map<String, FeedbackAggregator.LabelTotals> rebuilt = aggregator.contribution(ORIGINAL, edits[edits.length - 1]);
+        assertEquals(1, stored.remove(FeedbackLabelAggregate.ALL_ANNOTATIONS).samples);
+        for (Map.Entry<String, FeedbackAggregator.LabelTotals> entry : stored.entrySet()) {
+            FeedbackAggregator.LabelTotals expected = rebuilt.get(entry.getKey());
+            FeedbackAggregator.LabelTotals actual = entry.getValue();
+            assertEquals(expected.countDelta, actual.countDelta, 1e-9);
+            assertEquals(expected.areaDelta, actual.areaDelta, 1e-9);
+            assertEquals(expected.originalArea, actual.originalArea, 1e-9);
+            assertEquals(expected.confidenceDelta, actual.confidenceDelta, 1e-9);
+            assertEquals(expected.samples, actual.samples);
+        }
+        assertEquals(rebuilt.keySet(), stored.keySet());
+    }
+
+    @Test
+    void editThatChangesNothingTouchesNoRows() {
+        assertTrue(aggregator.changes(ORIGINAL, ORIGINAL, ORIGINAL).isEmpty());
+    }
+
+    @Test
+    void resultsWithoutBoxesAreNotCountedAsAnnotations() {
+        assertTrue(aggregator.changes("{\"boxes\":[]}", null, "{\"label\":\"Normal\"}").isEmpty());
+        assertTrue(aggregator.contribution("not json", ORIGINAL).isEmpty());
+        assertFalse(aggregator.changes(ORIGINAL, null, ORIGINAL).isEmpty());
+    }
+
+    @Test
+    void blankLabelsDoNotCollideWithTheAnnotationCount() {
+        String blank = "{\"boxes\":[{\"box\":[0,0,2,2],\"type\":\"\",\"confidence\":0.3}]}";
+
+        Map<String, FeedbackAggregator.LabelTotals> contribution = aggregator.contribution(blank, blank);
+
+        assertEquals(1, contribution.get("Unknown").samples);
+        assertFalse(contribution.containsKey(FeedbackLabelAggregate.ALL_ANNOTATIONS));
+    }
+
+    @Test
+    void pageSummedInParallelMatchesTheAnnotationsSummedInOrder() {
+        List<Object[]> rows = history(1, 300);
+        FeedbackAggregator.PageTotals expected = new FeedbackAggregator.PageTotals();
+        for (Object[] row : rows) {
+            expected.add(aggregator.contribution((String) row[1], (String) row[2]));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        FeedbackAggregator.PageTotals actual;
+        try {
+            actual = aggregator.sumPage(rows, pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(expected.annotations, actual.annotations);
+        assertEquals(expected.labels.keySet(), actual.labels.keySet());
+        expected.labels.forEach((label, totals) -> {
+            assertEquals(totals.countDelta, actual.labels.get(label).countDelta, 1e-9);
+            assertEquals(totals.areaDelta, actual.labels.get(label).areaDelta, 1e-6);
+            assertEquals(totals.confidenceDelta, actual.labels.get(label).confidenceDelta, 1e-9);
+            assertEquals(totals.samples, actual.labels.get(label).samples);
+        });
+    }
+
+    @Test
+    void rebuildReadsTheHistoryOnePageAfterAnother() {
+        List<Object[]> history = history(1, 1234);
+        List<Long> pagesAfter = new ArrayList<>();
+        List<FeedbackLabelAggregate> saved = new ArrayList<>();
+        List<String> calls = new ArrayList<>();
+        AnnotationRepository annotations = fake(AnnotationRepository.class, (name, args) -> {
+            calls.add(name);
+            if (name.equals("count")) {
+                return (long) history.size();
+            }
+            long afterId = (Long) args[0];
+            pagesAfter.add(afterId);
+            int size = ((Pageable) args[1]).getPageSize();
+            return new ArrayList<>(history.subList((int) afterId, Math.min(history.size(), (int) afterId + size)));
+        });
+        FeedbackLabelAggregateRepository aggregates = fake(FeedbackLabelAggregateRepository.class, (name, args) -> {
+            calls.add(name);
+            if (name.equals("saveAll")) {
+                ((Iterable<?>) args[0]).forEach(row -> saved.add((FeedbackLabelAggregate) row));
+            }
+            return null;
+        });
+        FeedbackAggregator rebuilding = new FeedbackAggregator(annotations, aggregates, null);
+
+        int contributing = rebuilding.rebuild();
+
+        assertEquals(List.of(0L, 500L, 1000L), pagesAfter);
+        // Changes are locked out before anything is read, so none is missed or wiped
+        assertEquals("lockAgainstChanges", calls.get(0));
+        FeedbackAggregator.PageTotals expected = new FeedbackAggregator.PageTotals();
+        history.forEach(row -> expected.add(aggregator.contribution((String) row[1], (String) row[2])));
+        assertEquals(expected.annotations, contributing);
+        assertEquals(expected.labels.size() + 1, saved.size());
+        for (FeedbackLabelAggregate row : saved) {
+            if (FeedbackLabelAggregate.ALL_ANNOTATIONS.equals(row.getLabel())) {
+                assertEquals(expected.annotations, row.getSamples());
+            } else {
+                assertEquals(expected.labels.get(row.getLabel()).samples, row.getSamples());
+            }
+        }
+        FeedbackAggregator.RebuildStatus status = rebuilding.getRebuildStatus();
+        assertEquals(FeedbackAggregator.RebuildStatus.State.COMPLETED, status.getState());
+        assertEquals(1234, status.getScannedAnnotations());
+        assertEquals(expected.labels.size(), status.getLabels());
+    }
+
+    @Test
+    void firstBuildIsCommittedAsOneTransaction() {
+        List<String> calls = new ArrayList<>();
+        AnnotationRepository annotations = fake(AnnotationRepository.class, (name, args) -> {
+            calls.add(name);
+            return name.equals("count") ? 1L : new ArrayList<>(history(1, 1));
+        });
+        FeedbackLabelAggregateRepository aggregates = fake(FeedbackLabelAggregateRepository.class, (name, args) -> {
+            calls.add(name);
+            return switch (name) {
+                case "existsById" -> false;
+                case "findAll" -> List.of();
+                default -> null;
+            };
+        });
+        PlatformTransactionManager transactions = fake(PlatformTransactionManager.class, (name, args) -> {
+            calls.add(name);
+            return null;
+        });
+
+        new FeedbackAggregator(annotations, aggregates, transactions).current();
+
+        assertEquals(List.of("existsById", "getTransaction", "lockAgainstChanges", "count", "findResultPage",
+                "deleteAllInBatch", "saveAll", "commit", "findAll"), calls);
+    }
+
+    /**
+     * [id, original, modified] rows with ids from {@code firstId}; every
+     * seventh annotation has no boxes and does not contribute
+     */
+    private static List<Object[]> history(long firstId, int count) {
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String label = LABELS[i % LABELS.length];
+            String original = i % 7 == 0 ? "{\"boxes\":[]}"
+                    : "{\"boxes\":[{\"box\":[0,0," + (i % 13 + 1) + ",10],\"type\":\"" + label
+                            + "\",\"confidence\":0." + (i % 9 + 1) + "}]}";
+            String modified = i % 3 == 0 ? "{\"boxes\":[]}" : original.replace(",10]", ",12]");
+            rows.add(new Object[] { firstId + i, original, modified });
+        }
+        return rows;
+    }
+
+    private interface Calls {
+        Object call(String method, Object[] args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T fake(Class<T> type, Calls calls) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                (proxy, method, args) -> calls.call(method.getName(), args));
+    }
+}
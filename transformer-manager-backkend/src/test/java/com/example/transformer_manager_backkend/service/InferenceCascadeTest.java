@@ -0,0 +1,46 @@
+package com.example.transformer_manager_backkend.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class InferenceCascadeTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void normalResultWithoutBoxesStaysAtTheFirstPass() throws Exception {
+        InferenceCascade cascade = new InferenceCascade(true, 128, 0.5, 0);
+
+        assertFalse(cascade.needsFullPass(json("{\"label\":\"Normal\",\"boxes\":[]}")));
+    }
+
+    @Test
+    void anomalousLabelOrMissingResultIsEscalated() throws Exception {
+        InferenceCascade cascade = new InferenceCascade(true, 128, 1.0, 50);
+
+        assertTrue(cascade.needsFullPass(json("{\"label\":\"Potentially Faulty\",\"boxes\":[]}")));
+        assertTrue(cascade.needsFullPass(json("{\"boxes\":[]}")));
+        assertTrue(cascade.needsFullPass(null));
+    }
+
+    @Test
+    void boxCountAndConfidenceThresholdsAreExclusive() throws Exception {
+        InferenceCascade cascade = new InferenceCascade(true, 128, 0.6, 1);
+        String oneBox = "{\"label\":\"Normal\",\"boxes\":[{\"box\":[1,2,3,4],\"type\":\"Tiny Faulty Spot\","
+                + "\"confidence\":%s}]}";
+
+        assertFalse(cascade.needsFullPass(json(String.format(oneBox, "0.6"))));
+        assertTrue(cascade.needsFullPass(json(String.format(oneBox, "0.61"))));
+        assertTrue(cascade.needsFullPass(json("{\"label\":\"Normal\",\"boxes\":[{\"confidence\":0.1},"
+                + "{\"confidence\":0.1}]}")));
+    }
+
+    private JsonNode json(String content) throws Exception {
+        return objectMapper.readTree(content);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.transformer_manager_backkend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.transformer_manager_backkend.service.classification.BgrRaster;
+
+class PreScreenServiceTest {
+
+    // BGR of a saturated blue (hue 120) and a saturated red (hue 0)
+    private static final int[] COLD = { 200, 30, 20 };
+    private static final int[] HOT = { 20, 30, 220 };
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void uniformColdFrameIsNormal() {
+        PreScreenService.Verdict verdict = PreScreenService.evaluate(frame(100, 100, 0), 0.95, 0.005);
+
+        assertTrue(verdict.isNormal());
+        assertEquals(1.0, verdict.getColdRatio(), 1e-12);
+        assertEquals(0.0, verdict.getHotRatio(), 1e-12);
+    }
+
+    @Test
+    void smallHotSpotIsLeftToPatchCore() {
+        // 2% of the frame is hot: still overwhelmingly cold, but not clean enough
+        PreScreenService.Verdict verdict = PreScreenService.evaluate(frame(100, 100, 200), 0.95, 0.005);
+
+        assertFalse(verdict.isNormal());
+        assertEquals(0.98, verdict.getColdRatio(), 1e-12);
+        assertEquals(0.02, verdict.getHotRatio(), 1e-12);
+    }
+
+    @Test
+    void decodeIsSubsampledToTheMaximumDimension() throws Exception {
+        BufferedImage image = new BufferedImage(1000, 600, BufferedImage.TYPE_3BYTE_BGR);
+        Path file = tempDir.resolve("frame.png");
+        ImageIO.write(image, "png", file.toFile());
+
+        BgrRaster raster = PreScreenService.decodeSubsampled(file, 256);
+
+        // Step 4: ceil(1000 / 4) x ceil(600 / 4)
+        assertEquals(250, raster.getWidth());
+        assertEquals(150, raster.getHeight());
+    }
+
+    /**
+     * A cold frame whose first {@code hotPixels} pixels are hot
+     */
+    private static BgrRaster frame(int width, int height, int hotPixels) {
+        byte[] bgr = new byte[width * height * 3];
+        for (int i = 0; i < width * height; i++) {
+            int[] colour = i < hotPixels ? HOT : COLD;
+            bgr[3 * i] = (byte) colour[0];
+            bgr[3 * i + 1] = (byte) colour[1];
+            bgr[3 * i + 2] = (byte) colour[2];
+        }
+        return new BgrRaster(bgr, width, height);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.transformer_manager_backkend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.transformer_manager_backkend.service.ResultDocumentCache.Source;
+
+class ResultDocumentCacheTest {
+
+    private static final String RESULT = "{\"label\":\"Faulty\",\"boxes\":[{\"box\":[1,2,3,4],\"type\":\"Spot\"}]}";
+
+    private final ResultDocumentCache cache = new ResultDocumentCache(2);
+
+    @Test
+    void sameTextAtTheSameVersionIsReadOnce() throws Exception {
+        ResultDocument first = cache.get(Source.ANNOTATION_MODIFIED, 1L, 3L, RESULT);
+
+        assertSame(first, cache.get(Source.ANNOTATION_MODIFIED, 1L, 3L, new String(RESULT)));
+        assertNotSame(first, cache.get(Source.ANNOTATION_ORIGINAL, 1L, null, RESULT));
+        assertNotSame(first, cache.get(Source.ANNOTATION_MODIFIED, 1L, 4L, RESULT));
+    }
+
+    @Test
+    void changedTextIsNeverServedFromAnEntry() throws Exception {
+        ResultDocument first = cache.get(Source.JOB_RESULT, 1L, null, RESULT);
+
+        ResultDocument changed = cache.get(Source.JOB_RESULT, 1L, null, RESULT.replace("Faulty", "Normal"));
+
+        assertNotSame(first, changed);
+        assertEquals("Normal", changed.getLabel());
+    }
+
+    @Test
+    void documentsPutBeforeTheirVersionIsKnownMatchByText() throws Exception {
+        ResultDocument written = ResultJsonReader.readDocument(RESULT);
+        cache.put(Source.ANNOTATION_MODIFIED, 1L, null, written);
+
+        assertSame(written, cache.get(Source.ANNOTATION_MODIFIED, 1L, 8L, RESULT));
+
+        cache.put(Source.ANNOTATION_MODIFIED, 1L, null, null);
+        assertNotSame(written, cache.get(Source.ANNOTATION_MODIFIED, 1L, 8L, RESULT));
+    }
+
+    @Test
+    void leastRecentlyUsedEntriesAreEvicted() throws Exception {
+        ResultDocument first = cache.get(Source.JOB_RESULT, 1L, null, RESULT);
+        cache.get(Source.JOB_RESULT, 2L, null, RESULT);
+        cache.get(Source.JOB_RESULT, 1L, null, RESULT);
+        cache.get(Source.JOB_RESULT, 3L, null, RESULT);
+
+        assertEquals(2, cache.size());
+        assertSame(first, cache.get(Source.JOB_RESULT, 1L, null, RESULT));
+        assertNull(cache.get(Source.JOB_RESULT, 4L, null, "[]"));
+        assertEquals(2, cache.size());
+    }
+}
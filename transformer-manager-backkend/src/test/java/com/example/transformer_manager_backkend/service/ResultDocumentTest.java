@@ -0,0 +1,112 @@
+package com.example.transformer_manager_backkend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+class ResultDocumentTest {
+
+    private static final String RESULT = "{\n  \"image\": \"C:\\\\uploads\\\\a \\\"1\\\".jpg\",\n"
+            + "  \"boxed_image\" : \"/analysis/a_boxed.jpg\", \"label\": \"Faulty\",\n"
+            + "  \"boxes\": [ {\"box\": [1, 2, 3, 4], \"type\": \"Loose Joint (Faulty)\", \"confidence\": 0.5,"
+            + " \"area\": 12} ],\n  \"feedback_adjustments\": {\"applied\": true, \"boxes\": [1, 2]},\n"
+            + "  \"mask_image\": null, \"score\": 1.5e3\n}\n";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void readsPathsLabelAndBoxes() throws Exception {
+        ResultDocument document = ResultJsonReader.readDocument(RESULT);
+
+        assertEquals("C:\\uploads\\a \"1\".jpg", document.getImage());
+        assertEquals("/analysis/a_boxed.jpg", document.getBoxedImage());
+        assertEquals("Faulty", document.getLabel());
+        assertEquals(1, document.getBoxes().size());
+        assertEquals(4, document.getBoxes().getHeight(0));
+        assertNull(ResultJsonReader.readDocument("[1, 2]"));
+        assertNull(ResultJsonReader.readDocument(" "));
+    }
+
+    @Test
+    void rewritesMatchTheTreeRewrite() throws Exception {
+        String[] results = {
+                RESULT,
+                "{}",
+                "{ }",
+                "{\"label\":\"Normal\"}",
+                "{\"boxes\":null,\"image\":7,\"label\":\"Normal\"}",
+                "{\"boxes\":{\"box\":[1,2,3,4]},\"boxed_image\":[\"x\"],\"image\":\"a\",\"boxes\":[]}",
+                largeResult() };
+        ResultBoxes boxes = boxes();
+
+        for (String result : results) {
+            ResultDocument document = ResultJsonReader.readDocument(result);
+
+            ResultDocument rewritten = document.withBoxes(boxes).withImagePaths("/tmp/\u00e9\\a.jpg", null)
+                    .withImagePaths(null, "/tmp/b_boxed.jpg").withBoxes(boxes);
+
+            ObjectNode expected = (ObjectNode) objectMapper.readTree(result);
+            expected.set("boxes", treeBoxes(boxes));
+            expected.put("image", "/tmp/\u00e9\\a.jpg");
+            expected.put("boxed_image", "/tmp/b_boxed.jpg");
+            assertEquals(expected, objectMapper.readTree(rewritten.getSource()));
+            // The rewritten document reads back as it describes itself
+            ResultDocument reread = ResultJsonReader.readDocument(rewritten.getSource());
+            assertEquals("/tmp/\u00e9\\a.jpg", rewritten.getImage());
+            assertEquals(reread.getImage(), rewritten.getImage());
+            assertEquals(reread.getBoxedImage(), rewritten.getBoxedImage());
+            assertEquals(reread.getBoxes().size(), rewritten.getBoxes().size());
+            assertEquals(document.getLabel(), rewritten.getLabel());
+        }
+    }
+
+    @Test
+    void fieldsOutsideTheRewriteKeepTheirText() throws Exception {
+        ResultDocument rewritten = ResultJsonReader.readDocument(RESULT).withImagePaths("/x.jpg", "/y.jpg");
+
+        assertEquals(RESULT.replace("\"C:\\\\uploads\\\\a \\\"1\\\".jpg\"", "\"/x.jpg\"")
+                .replace("\"/analysis/a_boxed.jpg\"", "\"/y.jpg\""), rewritten.getSource());
+    }
+
+    private static ResultBoxes boxes() {
+        ResultBoxes.Builder builder = new ResultBoxes.Builder();
+        builder.add(10, 20, 30, 40, "Point Overload (Faulty)", 0.93);
+        builder.add(5, 6, 7, 8, null, Double.NaN);
+        builder.add(-1, 0, 1, 1, "Custom \"Anomaly\"", 1.0);
+        return builder.build();
+    }
+
+    private ArrayNode treeBoxes(ResultBoxes boxes) {
+        ArrayNode array = objectMapper.createArrayNode();
+        for (int i = 0; i < boxes.size(); i++) {
+            ObjectNode box = array.addObject();
+            box.putArray("box").add(boxes.getX(i)).add(boxes.getY(i)).add(boxes.getWidth(i)).add(boxes.getHeight(i));
+            box.put("type", boxes.getType(i));
+            if (boxes.hasConfidence(i)) {
+                box.put("confidence", boxes.getConfidence(i));
+            }
+        }
+        return array;
+    }
+
+    /**
+     * A result long enough that the parser reads it in several buffers
+     */
+    private String largeResult() {
+        ObjectNode root = objectMapper.createObjectNode();
+        root.put("label", "Faulty");
+        ArrayNode array = root.putArray("boxes");
+        for (int i = 0; i < 2000; i++) {
+            array.addObject().put("type", "Tiny Faulty Spot").put("confidence", 0.25).putArray("box").add(i).add(i)
+                    .add(3).add(4);
+        }
+        root.put("image", "/uploads/large.jpg");
+        root.putObject("feedback_adjustments").put("applied", false);
+        return root.toPrettyString();
+    }
+}
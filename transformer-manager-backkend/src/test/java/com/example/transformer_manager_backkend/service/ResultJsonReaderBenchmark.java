@@ -0,0 +1,99 @@
+package com.example.transformer_manager_backkend.service;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Summing box areas and confidences of a result JSON through a Jackson tree
+ * against the streaming reader. Run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.transformer_manager_backkend.service.ResultJsonReaderBenchmark}
+ * and add {@code -Dexec.args="-prof gc"} for allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultJsonReaderBenchmark {
+
+    private static final String[] LABELS = { "Point Overload (Faulty)", "Loose Joint (Potential)",
+            "Tiny Faulty Spot", "Full Wire Overload (Faulty)" };
+
+    @Param({ "10", "200", "1000" })
+    public int boxes;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private String json;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        StringBuilder builder = new StringBuilder("{\"image\":\"/uploads/1761137618583_T1_faulty_001.jpg\","
+                + "\"boxed_image\":\"/analysis/1761137618583_T1_faulty_001_boxed.jpg\",\"label\":\"Faulty\",\"boxes\":[");
+        for (int i = 0; i < boxes; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(String.format(Locale.ROOT,
+                    "{\"box\":[%d,%d,%d,%d],\"type\":\"%s\",\"confidence\":%.4f,\"area\":%d}",
+                    random.nextInt(640), random.nextInt(640), 5 + random.nextInt(60), 5 + random.nextInt(60),
+                    LABELS[random.nextInt(LABELS.length)], random.nextDouble(), random.nextInt(3600)));
+        }
+        json = builder.append("],\"feedback_adjustments\":{\"applied\":false,\"global_adjustment\":0.0}}").toString();
+    }
+
+    @Benchmark
+    public double tree() throws IOException {
+        double sum = 0;
+        JsonNode boxesNode = objectMapper.readTree(json).get("boxes");
+        for (JsonNode box : boxesNode) {
+            JsonNode coords = box.get("box");
+            if (box.get("type") == null || coords == null || !coords.isArray() || coords.size() < 4) {
+                continue;
+            }
+            sum += coords.get(2).asInt() * coords.get(3).asInt() + box.path("confidence").asDouble(0.0);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double streaming() throws IOException {
+        double sum = 0;
+        ResultBoxes parsed = ResultJsonReader.readBoxes(json);
+        for (int i = 0; i < parsed.size(); i++) {
+            if (parsed.getType(i) == null) {
+                continue;
+            }
+            sum += parsed.getWidth(i) * parsed.getHeight(i) + (parsed.hasConfidence(i) ? parsed.getConfidence(i) : 0);
+        }
+        return sum;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ResultJsonReaderBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
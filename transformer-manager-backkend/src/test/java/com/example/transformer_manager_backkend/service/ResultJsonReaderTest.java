@@ -0,0 +1,86 @@
+package com.example.transformer_manager_backkend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class ResultJsonReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void boxesMatchWhatTheTreeWalkReads() throws Exception {
+        String json = "{\"image\":\"/uploads/a.jpg\",\"label\":\"Faulty\",\"boxes\":["
+                + "{\"box\":[10,20,30,40],\"type\":\"Point Overload (Faulty)\",\"confidence\":0.93},"
+                + "{\"confidence\":\"0.5\",\"type\":\"Tiny Faulty Spot\",\"box\":[1.9,\"2\",3000000000,-4,99],"
+                + "\"polygon\":[[1,2],[3,4]]},"
+                + "{\"box\":[1,2,3],\"type\":\"Too Short\"},"
+                + "{\"box\":[5,6,7,8],\"type\":null,\"confidence\":null},"
+                + "{\"box\":[9,9,9,9]},"
+                + "[1,2,3,4],"
+                + "{\"box\":[1,1,1,1],\"type\":{\"nested\":true},\"confidence\":[0.4]}],"
+                + "\"feedback_adjustments\":{\"boxes\":[{\"box\":[0,0,1,1]}]}}";
+
+        ResultBoxes boxes = ResultJsonReader.readBoxes(json);
+
+        JsonNode tree = objectMapper.readTree(json).get("boxes");
+        int expected = 0;
+        for (JsonNode box : tree) {
+            JsonNode coords = box.get("box");
+            if (coords == null || !coords.isArray() || coords.size() < 4) {
+                continue;
+            }
+            for (int c = 0; c < 4; c++) {
+                int actual = new int[] { boxes.getX(expected), boxes.getY(expected), boxes.getWidth(expected),
+                        boxes.getHeight(expected) }[c];
+                assertEquals(coords.get(c).asInt(), actual);
+            }
+            if (box.has("type")) {
+                assertEquals(box.get("type").asText("Unknown"), boxes.getType(expected));
+            } else {
+                assertNull(boxes.getType(expected));
+            }
+            if (box.has("confidence")) {
+                assertEquals(box.get("confidence").asDouble(0.0), boxes.getConfidence(expected), 0.0);
+            } else {
+                assertTrue(!boxes.hasConfidence(expected));
+            }
+            expected++;
+        }
+        assertEquals(5, expected);
+        assertEquals(expected, boxes.size());
+    }
+
+    @Test
+    void documentsWithoutBoxesReadAsEmpty() throws Exception {
+        assertTrue(ResultJsonReader.readBoxes(null).isEmpty());
+        assertTrue(ResultJsonReader.readBoxes("  ").isEmpty());
+        assertTrue(ResultJsonReader.readBoxes("{\"label\":\"Normal\"}").isEmpty());
+        assertTrue(ResultJsonReader.readBoxes("{\"boxes\":{\"box\":[1,2,3,4]}}").isEmpty());
+        assertTrue(ResultJsonReader.readBoxes("[{\"box\":[1,2,3,4]}]").isEmpty());
+    }
+
+    @Test
+    void malformedDocumentsFail() {
+        assertThrows(IOException.class, () -> ResultJsonReader.readBoxes("not json"));
+        // The boxes are complete, but the document is not
+        assertThrows(IOException.class, () -> ResultJsonReader.readBoxes("{\"boxes\":[], \"label\": }"));
+    }
+
+    @Test
+    void imagePathIsReadAsText() throws Exception {
+        assertEquals("/uploads/a.jpg", ResultJsonReader.readImagePath(
+                "{\"boxes\":[{\"box\":[1,2,3,4]}],\"image\":\"/uploads/a.jpg\",\"label\":\"Faulty\"}"));
+        assertNull(ResultJsonReader.readImagePath("{\"image\":null}"));
+        assertNull(ResultJsonReader.readImagePath("{\"image\":{\"path\":\"a\"}}"));
+        assertNull(ResultJsonReader.readImagePath("{\"meta\":{\"image\":\"nested.jpg\"}}"));
+    }
+}
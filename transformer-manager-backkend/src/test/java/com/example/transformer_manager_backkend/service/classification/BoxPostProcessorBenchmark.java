@@ -0,0 +1,74 @@
+package com.example.transformer_manager_backkend.service.classification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Grid-indexed post-processing against the pairwise reference on a 4K frame
+ * scattered with small boxes. Run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.transformer_manager_backkend.service.classification.BoxPostProcessorBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoxPostProcessorBenchmark {
+
+    private static final String[] LABELS = {
+            BoxPostProcessor.POINT_FAULTY, BoxPostProcessor.POINT_POTENTIAL, "Tiny Faulty Spot",
+            "Tiny Potential Spot" };
+
+    @Param({ "100", "1000", "5000" })
+    public int boxes;
+
+    private List<Detection> detections;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        detections = new ArrayList<>(boxes);
+        for (int i = 0; i < boxes; i++) {
+            detections.add(new Detection(random.nextInt(3840), random.nextInt(2160), 5 + random.nextInt(60),
+                    5 + random.nextInt(60), LABELS[random.nextInt(LABELS.length)], random.nextDouble()));
+        }
+    }
+
+    @Benchmark
+    public List<Detection> gridIndexed() {
+        return BoxPostProcessor.process(detections, 0.4, 100);
+    }
+
+    @Benchmark
+    public List<Detection> pairwiseReference() {
+        List<Detection> result = BoxPostProcessorTest.ReferencePostProcessor.nms(detections, 0.4);
+        result = BoxPostProcessorTest.ReferencePostProcessor.filter(result, true);
+        result = BoxPostProcessorTest.ReferencePostProcessor.filter(result, false);
+        return BoxPostProcessorTest.ReferencePostProcessor.merge(result, 100);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BoxPostProcessorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.transformer_manager_backkend.service.classification;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the grid-indexed post-processing against straight ports of the
+ * pairwise Python helpers on hand-made and random box sets
+ */
+class BoxPostProcessorTest {
+
+    private static final String[] LABELS = {
+            BoxPostProcessor.POINT_FAULTY, BoxPostProcessor.POINT_POTENTIAL, "Tiny Faulty Spot",
+            "Wire Overload (Red Strip)" };
+
+    @Test
+    void nmsVisitsLargerBoxesFirstAndEqualAreasFromTheBack() {
+        List<Detection> boxes = List.of(
+                new Detection(10, 10, 20, 20, BoxPostProcessor.POINT_FAULTY, 0.7),
+                new Detection(12, 12, 20, 20, BoxPostProcessor.POINT_FAULTY, 0.9),
+                new Detection(0, 0, 30, 30, BoxPostProcessor.POINT_FAULTY, 0.5));
+
+        List<Detection> kept = BoxPostProcessor.nonMaximumSuppression(boxes, 0.4);
+
+        // IoU(big, second) is 0.33, so the second survives and then suppresses the first
+        assertEquals(2, kept.size());
+        assertBox(kept.get(0), 0, 0, 30, 30, 0.5);
+        assertBox(kept.get(1), 12, 12, 20, 20, 0.9);
+    }
+
+    @Test
+    void potentialBoxesTouchingFaultyOnesAreDropped() {
+        List<Detection> boxes = List.of(
+                new Detection(0, 0, 50, 50, BoxPostProcessor.POINT_POTENTIAL, 0.6),
+                new Detection(10, 10, 5, 5, BoxPostProcessor.POINT_FAULTY, 0.7),
+                new Detection(12, 12, 10, 10, BoxPostProcessor.POINT_POTENTIAL, 0.6),
+                new Detection(100, 100, 10, 10, BoxPostProcessor.POINT_POTENTIAL, 0.6));
+
+        List<Detection> inside = BoxPostProcessor.filterFaultyInsidePotential(boxes);
+        List<Detection> overlapping = BoxPostProcessor.filterFaultyOverlappingPotential(boxes);
+
+        assertEquals(3, inside.size());
+        assertEquals(BoxPostProcessor.POINT_FAULTY, inside.get(0).getLabel());
+        assertEquals(2, overlapping.size());
+        assertBox(overlapping.get(1), 100, 100, 10, 10, 0.6);
+    }
+
+    @Test
+    void mergeGrowsFromTheFirstBoxAndKeepsTheHighestConfidence() {
+        List<Detection> boxes = List.of(
+                new Detection(0, 0, 10, 10, "Tiny Faulty Spot", 0.5),
+                new Detection(5, 5, 10, 10, "Tiny Faulty Spot", 0.8),
+                new Detection(8, 2, 4, 4, "Tiny Faulty Spot", 0.6),
+                new Detection(5, 5, 10, 10, "Tiny Potential Spot", 0.4));
+
+        List<Detection> merged = BoxPostProcessor.mergeCloseBoxes(boxes, 20);
+
+        assertEquals(2, merged.size());
+        // The last box absorbed sets the far edges: max(0 + 10, 8 + 4) - 0
+        assertBox(merged.get(0), 0, 0, 12, 10, 0.8);
+        assertBox(merged.get(1), 5, 5, 10, 10, 0.4);
+    }
+
+    @Test
+    void matchesPairwiseReferenceOnRandomBoxes() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            int count = 1 + random.nextInt(round < 150 ? 40 : 400);
+            int extent = 50 + random.nextInt(2000);
+            List<Detection> boxes = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                int w = random.nextInt(10) == 0 ? 0 : 1 + random.nextInt(Math.max(1, extent / 5));
+                int h = 1 + random.nextInt(Math.max(1, extent / 5));
+                boxes.add(new Detection(random.nextInt(extent), random.nextInt(extent), w, h,
+                        LABELS[random.nextInt(LABELS.length)], Math.round(random.nextDouble() * 1000) / 1000.0));
+            }
+            double iouThreshold = random.nextDouble() * 0.6;
+            int distance = random.nextInt(250);
+
+            assertSameBoxes(ReferencePostProcessor.nms(boxes, iouThreshold),
+                    BoxPostProcessor.nonMaximumSuppression(boxes, iouThreshold));
+            assertSameBoxes(ReferencePostProcessor.filter(boxes, true),
+                    BoxPostProcessor.filterFaultyInsidePotential(boxes));
+            assertSameBoxes(ReferencePostProcessor.filter(boxes, false),
+                    BoxPostProcessor.filterFaultyOverlappingPotential(boxes));
+            assertSameBoxes(ReferencePostProcessor.merge(boxes, distance),
+                    BoxPostProcessor.mergeCloseBoxes(boxes, distance));
+
+            List<Detection> expected = ReferencePostProcessor.merge(ReferencePostProcessor.filter(
+                    ReferencePostProcessor.filter(ReferencePostProcessor.nms(boxes, iouThreshold), true), false),
+                    distance);
+            assertSameBoxes(expected, BoxPostProcessor.process(boxes, iouThreshold, distance));
+        }
+    }
+
+    private static void assertSameBoxes(List<Detection> expected, List<Detection> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Detection e = expected.get(i);
+            assertBox(actual.get(i), e.getX(), e.getY(), e.getWidth(), e.getHeight(), e.getConfidence());
+            assertEquals(e.getLabel(), actual.get(i).getLabel());
+        }
+    }
+
+    private static void assertBox(Detection box, int x, int y, int w, int h, double confidence) {
+        assertEquals(x, box.getX());
+        assertEquals(y, box.getY());
+        assertEquals(w, box.getWidth());
+        assertEquals(h, box.getHeight());
+        assertEquals(confidence, box.getConfidence(), 1e-12);
+    }
+
+    /**
+     * The helpers of inference_core_local.py, pair by pair
+     */
+    static final class ReferencePostProcessor {
+
+        static List<Detection> nms(List<Detection> boxes, double iouThreshold) {
+            List<Integer> order = new ArrayList<>();
+            for (int i = 0; i < boxes.size(); i++) {
+                order.add(i);
+            }
+            order.sort(Comparator.<Integer>comparingLong(i -> boxes.get(i).getArea())
+                    .thenComparingInt(i -> i)
+                    .reversed());
+            List<Detection> kept = new ArrayList<>();
+            while (!order.isEmpty()) {
+                Detection keep = boxes.get(order.remove(0));
+                kept.add(keep);
+                order.removeIf(j -> BoxPostProcessor.iou(keep, boxes.get(j)) > iouThreshold);
+            }
+            return kept;
+        }
+
+        static List<Detection> filter(List<Detection> boxes, boolean containing) {
+            List<Detection> result = new ArrayList<>();
+            for (Detection d : boxes) {
+                boolean keep = true;
+                if (BoxPostProcessor.POINT_POTENTIAL.equals(d.getLabel())) {
+                    for (Detection f : boxes) {
+                        if (BoxPostProcessor.POINT_FAULTY.equals(f.getLabel())
+                                && (containing ? BoxPostProcessor.contains(d, f) : BoxPostProcessor.overlaps(d, f))) {
+                            keep = false;
+                            break;
+                        }
+                    }
+                }
+                if (keep) {
+                    result.add(d);
+                }
+            }
+            return result;
+        }
+
+        static List<Detection> merge(List<Detection> boxes, int distance) {
+            List<Detection> merged = new ArrayList<>();
+            boolean[] used = new boolean[boxes.size()];
+            for (int i = 0; i < boxes.size(); i++) {
+                if (used[i]) {
+                    continue;
+                }
+                Detection a = boxes.get(i);
+                int x2 = a.getX();
+                int y2 = a.getY();
+                int w2 = a.getWidth();
+                int h2 = a.getHeight();
+                double maxConfidence = a.getConfidence();
+                for (int j = i + 1; j < boxes.size(); j++) {
+                    Detection b = boxes.get(j);
+                    if (used[j]) {
+                        continue;
+                    }
+                    int cx1 = a.getX() + Math.floorDiv(a.getWidth(), 2);
+                    int cy1 = a.getY() + Math.floorDiv(a.getHeight(), 2);
+                    int cx2 = b.getX() + Math.floorDiv(b.getWidth(), 2);
+                    int cy2 = b.getY() + Math.floorDiv(b.getHeight(), 2);
+                    if (Math.abs(cx1 - cx2) < distance && Math.abs(cy1 - cy2) < distance
+                            && a.getLabel().equals(b.getLabel())) {
+                        x2 = Math.min(x2, b.getX());
+                        y2 = Math.min(y2, b.getY());
+                        w2 = Math.max(a.getX() + a.getWidth(), b.getX() + b.getWidth()) - x2;
+                        h2 = Math.max(a.getY() + a.getHeight(), b.getY() + b.getHeight()) - y2;
+                        maxConfidence = Math.max(maxConfidence, b.getConfidence());
+                        used[j] = true;
+                    }
+                }
+                merged.add(new Detection(x2, y2, w2, h2, a.getLabel(), maxConfidence));
+                used[i] = true;
+            }
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.transformer_manager_backkend.service.classification;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Scalar against Vector API colour masks on a model-sized frame and a 4K
+ * frame. The synthetic frames run blue to red across each row with noisy
+ * green, so every mask and both hue branches get exercised.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class ColorMasksBenchmark {
+
+    @Param({ "640x640", "3840x2160" })
+    public String frame;
+
+    @Param({ "scalar", "vector" })
+    public String kernel;
+
+    private byte[] bgr;
+    private int width;
+    private int height;
+    private ColorMaskKernel selected;
+
+    @Setup
+    public void setUp() {
+        String[] size = frame.split("x");
+        width = Integer.parseInt(size[0]);
+        height = Integer.parseInt(size[1]);
+        bgr = new byte[width * height * 3];
+        Random random = new Random(11);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int p = (y * width + x) * 3;
+                int heat = x * 255 / width;
+                bgr[p] = (byte) (255 - heat);
+                bgr[p + 1] = (byte) random.nextInt(256);
+                bgr[p + 2] = (byte) heat;
+            }
+        }
+        if ("vector".equals(kernel) && !ColorMasks.vectorKernelAvailable()) {
+            throw new IllegalStateException("jdk.incubator.vector is not available");
+        }
+        selected = "vector".equals(kernel) ? VectorColorMaskKernel.INSTANCE : ScalarColorMaskKernel.INSTANCE;
+    }
+
+    @Benchmark
+    public ColorMasks computeMasks() {
+        return ColorMasks.compute(bgr, width, height, selected);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ColorMasksBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
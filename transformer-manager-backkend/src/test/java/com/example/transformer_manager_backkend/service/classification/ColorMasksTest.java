@@ -0,0 +1,69 @@
+package com.example.transformer_manager_backkend.service.classification;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The Vector API kernel must produce exactly the scalar kernel's masks
+ */
+class ColorMasksTest {
+
+    @Test
+    void vectorKernelMatchesScalarOnEveryColour() {
+        assumeTrue(ColorMasks.vectorKernelAvailable(), "jdk.incubator.vector not available");
+
+        // Every 24-bit colour once, as a 4096 x 4096 image
+        byte[] bgr = new byte[4096 * 4096 * 3];
+        for (int colour = 0, p = 0; colour < 1 << 24; colour++, p += 3) {
+            bgr[p] = (byte) colour;
+            bgr[p + 1] = (byte) (colour >> 8);
+            bgr[p + 2] = (byte) (colour >> 16);
+        }
+
+        assertSameMasks(ColorMasks.compute(bgr, 4096, 4096, ScalarColorMaskKernel.INSTANCE),
+                ColorMasks.compute(bgr, 4096, 4096, VectorColorMaskKernel.INSTANCE));
+    }
+
+    @Test
+    void vectorKernelHandlesTailsOfAnySize() {
+        assumeTrue(ColorMasks.vectorKernelAvailable(), "jdk.incubator.vector not available");
+
+        Random random = new Random(3);
+        for (int width = 1; width <= 40; width++) {
+            int height = 1 + random.nextInt(5);
+            byte[] bgr = new byte[width * height * 3];
+            random.nextBytes(bgr);
+
+            assertSameMasks(ColorMasks.compute(bgr, width, height, ScalarColorMaskKernel.INSTANCE),
+                    ColorMasks.compute(bgr, width, height, VectorColorMaskKernel.INSTANCE));
+        }
+    }
+
+    @Test
+    void kernelCanBeSwitchedOff() {
+        try {
+            ColorMasks.useVectorKernel(false);
+            assertEquals("scalar", ColorMasks.kernelName());
+        } finally {
+            ColorMasks.useVectorKernel(true);
+        }
+    }
+
+    private static void assertSameMasks(ColorMasks expected, ColorMasks actual) {
+        assertEquals(expected.getBlueCount(), actual.getBlueCount());
+        assertEquals(expected.getBlackCount(), actual.getBlackCount());
+        assertEquals(expected.getYellowCount(), actual.getYellowCount());
+        assertEquals(expected.getOrangeCount(), actual.getOrangeCount());
+        assertEquals(expected.getRedCount(), actual.getRedCount());
+        assertArrayEquals(expected.getBlue(), actual.getBlue());
+        assertArrayEquals(expected.getBlack(), actual.getBlack());
+        assertArrayEquals(expected.getYellow(), actual.getYellow());
+        assertArrayEquals(expected.getOrange(), actual.getOrange());
+        assertArrayEquals(expected.getRed(), actual.getRed());
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.transformer_manager_backkend.service.classification;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URL;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+/**
+ * Checks the port against values OpenCV and Python are known to produce:
+ * cv2.cvtColor hues, cv2.contourArea / cv2.boundingRect of filled shapes and
+ * the order cv2.findContours returns them in, and against whole-image results
+ * exported from classify_filtered_image into classification/golden
+ */
+class FilteredImageClassifierTest {
+
+    @Test
+    void colorMasksUseOpenCvHueScale() {
+        // BGR pixels: pure red (H 0), blue (H 120), yellow (H 30), black, grey
+        byte[] bgr = {
+                0, 0, (byte) 255,
+                (byte) 255, 0, 0,
+                0, (byte) 255, (byte) 255,
+                0, 0, 0,
+                (byte) 128, (byte) 128, (byte) 128 };
+        ColorMasks masks = ColorMasks.compute(bgr, 5, 1);
+
+        assertEquals(1, masks.getRedCount());
+        assertEquals(1, masks.getRed()[0]);
+        assertEquals(1, masks.getBlueCount());
+        assertEquals(1, masks.getBlue()[1]);
+        assertEquals(1, masks.getYellowCount());
+        assertEquals(1, masks.getYellow()[2]);
+        assertEquals(1, masks.getBlackCount());
+        assertEquals(1, masks.getBlack()[3]);
+        assertEquals(0, masks.getOrangeCount());
+    }
+
+    @Test
+    void contoursMatchOpenCvAreaBoundsAndOrder() {
+        int width = 30;
+        int height = 20;
+        byte[] mask = new byte[width * height];
+        fill(mask, width, 3, 2, 5, 4);
+        fill(mask, width, 15, 10, 6, 6);
+        mask[1 * width + 25] = 1;
+
+        List<ContourFinder.Contour> contours = ContourFinder.findExternal(mask, width, height);
+
+        // Found in raster order (pixel, rectangle, square); findContours returns them reversed
+        assertEquals(3, contours.size());
+        assertContour(contours.get(0), 25.0, 15, 10, 6, 6);
+        assertContour(contours.get(1), 12.0, 3, 2, 5, 4);
+        assertContour(contours.get(2), 0.0, 25, 1, 1, 1);
+    }
+
+    @Test
+    void mostlyBlueImageIsNormal() {
+        BgrRaster raster = solid(64, 64, 255, 0, 0);
+
+        ClassificationResult result = FilteredImageClassifier.classify(raster, 1.0,
+                JsonNodeFactory.instance.objectNode());
+
+        assertEquals("Normal", result.getLabel());
+        assertTrue(result.getDetections().isEmpty());
+    }
+
+    @Test
+    void allRedImageIsFullWireOverload() {
+        BgrRaster raster = solid(64, 64, 0, 0, 255);
+
+        ClassificationResult result = FilteredImageClassifier.classify(raster, 1.0,
+                JsonNodeFactory.instance.objectNode());
+
+        assertEquals("Full Wire Overload", result.getLabel());
+        assertEquals(1, result.getDetections().size());
+        Detection box = result.getDetections().get(0);
+        assertEquals(0, box.getX());
+        assertEquals(0, box.getY());
+        assertEquals(64, box.getWidth());
+        assertEquals(64, box.getHeight());
+        // min(0.95, 0.7 + (1.0 - 0.7) * 0.8)
+        assertEquals(0.94, box.getConfidence(), 1e-9);
+    }
+
+    @Test
+    void redSquareOutsideTheCentreIsAFaultyPoint() {
+        BgrRaster raster = solid(100, 100, 128, 128, 128);
+        for (int y = 5; y < 20; y++) {
+            for (int x = 5; x < 20; x++) {
+                int i = (y * 100 + x) * 3;
+                raster.getData()[i] = 0;
+                raster.getData()[i + 1] = 0;
+                raster.getData()[i + 2] = (byte) 255;
+            }
+        }
+
+        ClassificationResult result = FilteredImageClassifier.classify(raster, 1.0,
+                JsonNodeFactory.instance.objectNode());
+
+        assertEquals(1, result.getDetections().size());
+        Detection box = result.getDetections().get(0);
+        assertEquals("Point Overload (Faulty)", box.getLabel());
+        assertEquals(5, box.getX());
+        assertEquals(5, box.getY());
+        assertEquals(15, box.getWidth());
+        assertEquals(15, box.getHeight());
+    }
+
+    @Test
+    void sensitivityIsRoundedAndClampedLikeTheScripts() {
+        assertEquals(1.23, FilteredImageClassifier.normalizeSensitivity(1.234), 1e-12);
+        assertEquals(0.1, FilteredImageClassifier.normalizeSensitivity(0.01), 1e-12);
+        assertEquals(2.0, FilteredImageClassifier.normalizeSensitivity(3.5), 1e-12);
+    }
+
+    @Test
+    void roundingMatchesPython() {
+        // Python: round(2.675, 2) == 2.67, round(0.125, 2) == 0.12
+        assertEquals(2.67, FilteredImageClassifier.round(2.675, 2), 1e-12);
+        assertEquals(0.12, FilteredImageClassifier.round(0.125, 2), 1e-12);
+    }
+
+    /**
+     * Fixtures are written by Model_Inference/export_classifier_fixtures.py;
+     * skipped until some have been exported
+     */
+    @Test
+    void matchesPythonOnExportedFixtures() throws Exception {
+        URL golden = getClass().getResource("/classification/golden");
+        List<Path> fixtures = new ArrayList<>();
+        if (golden != null) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(golden.toURI()), "*.json")) {
+                files.forEach(fixtures::add);
+            }
+        }
+        Assumptions.assumeFalse(fixtures.isEmpty(), "No classify_filtered_image fixtures exported");
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        for (Path fixture : fixtures) {
+            JsonNode expected = objectMapper.readTree(fixture.toFile());
+            BgrRaster raster = BgrRaster.from(ImageIO.read(fixture.resolveSibling(expected.get("image").asText())
+                    .toFile()));
+            for (JsonNode run : expected.get("results")) {
+                double sensitivity = run.get("sensitivity").asDouble();
+                ClassificationResult result = FilteredImageClassifier.classify(raster, sensitivity,
+                        JsonNodeFactory.instance.objectNode());
+
+                String name = fixture.getFileName() + " at sensitivity " + sensitivity;
+                assertEquals(run.get("label").asText(), result.getLabel(), name);
+                assertEquals(pythonDetections(run), javaDetections(result), name);
+            }
+        }
+    }
+
+    private static List<String> pythonDetections(JsonNode run) {
+        List<String> detections = new ArrayList<>();
+        for (int i = 0; i < run.get("boxes").size(); i++) {
+            JsonNode box = run.get("boxes").get(i);
+            detections.add(detection(box.get(0).asInt(), box.get(1).asInt(), box.get(2).asInt(), box.get(3).asInt(),
+                    run.get("labels").get(i).asText(), run.get("confidences").get(i).asDouble()));
+        }
+        return detections;
+    }
+
+    private static List<String> javaDetections(ClassificationResult result) {
+        List<String> detections = new ArrayList<>();
+        for (Detection box : result.getDetections()) {
+            detections.add(detection(box.getX(), box.getY(), box.getWidth(), box.getHeight(), box.getLabel(),
+                    box.getConfidence()));
+        }
+        return detections;
+    }
+
+    // Confidences are compared exactly: both sides round them the same way
+    private static String detection(int x, int y, int w, int h, String label, double confidence) {
+        return x + "," + y + "," + w + "," + h + " " + label + " " + confidence;
+    }
+
+    private static void fill(byte[] mask, int stride, int x, int y, int w, int h) {
+        for (int row = y; row < y + h; row++) {
+            for (int col = x; col < x + w; col++) {
+                mask[row * stride + col] = 1;
+            }
+        }
+    }
+
+    private static void assertContour(ContourFinder.Contour contour, double area, int x, int y, int w, int h) {
+        assertEquals(area, contour.getArea(), 1e-9);
+        assertEquals(x, contour.getX());
+        assertEquals(y, contour.getY());
+        assertEquals(w, contour.getWidth());
+        assertEquals(h, contour.getHeight());
+    }
+
+    private static BgrRaster solid(int width, int height, int b, int g, int r) {
+        byte[] data = new byte[width * height * 3];
+        for (int i = 0; i < data.length; i += 3) {
+            data[i] = (byte) b;
+            data[i + 1] = (byte) g;
+            data[i + 2] = (byte) r;
+        }
+        return new BgrRaster(data, width, height);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.transformer_manager_backkend.service.inference;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.example.transformer_manager_backkend.service.AnalysisFiles;
+
+/**
+ * Handing a batch of eight uploads to a worker through the temp directory,
+ * copied or hard-linked and then read back as the worker would, against the
+ * shared image region, written and then read out of the mapping. Decoding is
+ * not included. Run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.transformer_manager_backkend.service.inference.SharedImageRegionBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SharedImageRegionBenchmark {
+
+    private static final int BATCH = 8;
+
+    // Thermal uploads run to tens of kilobytes, camera originals to a few megabytes
+    @Param({ "64", "2048" })
+    public int imageKb;
+
+    private Path workDir;
+    private Path inputDir;
+    private List<Path> uploads;
+    private SharedImageRegion region;
+
+    @Setup
+    public void setUp() throws IOException {
+        workDir = Files.createTempDirectory("handoff-bench");
+        inputDir = Files.createDirectories(workDir.resolve("input"));
+        Random random = new Random(7);
+        uploads = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            byte[] bytes = new byte[imageKb * 1024];
+            random.nextBytes(bytes);
+            uploads.add(Files.write(workDir.resolve("upload" + i + ".jpg"), bytes));
+        }
+        Path shm = Paths.get("/dev/shm");
+        Path regionDir = Files.isDirectory(shm) ? shm : workDir;
+        region = new SharedImageRegion(regionDir.resolve("handoff-bench-" + ProcessHandle.current().pid() + ".shm"));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        region.close();
+        try (Stream<Path> files = Files.walk(workDir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public long tempDirCopy() throws IOException {
+        long read = 0;
+        for (Path upload : uploads) {
+            Path staged = inputDir.resolve(upload.getFileName());
+            Files.copy(upload, staged, StandardCopyOption.REPLACE_EXISTING);
+            read += Files.readAllBytes(staged).length;
+        }
+        return read;
+    }
+
+    @Benchmark
+    public long tempDirLink() throws IOException {
+        long read = 0;
+        for (Path upload : uploads) {
+            Path staged = inputDir.resolve(upload.getFileName());
+            AnalysisFiles.linkOrCopy(upload, staged);
+            read += Files.readAllBytes(staged).length;
+        }
+        return read;
+    }
+
+    @Benchmark
+    public long sharedRegion() throws IOException {
+        long read = 0;
+        for (SharedImageRegion.Segment segment : region.write(uploads)) {
+            // The worker slices the encoded bytes out of its own mapping
+            ByteBuffer bytes = region.read(segment);
+            byte[] copy = new byte[bytes.remaining()];
+            bytes.get(copy);
+            read += copy.length;
+        }
+        return read;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SharedImageRegionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
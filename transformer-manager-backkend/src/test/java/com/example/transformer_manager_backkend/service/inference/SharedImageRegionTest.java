@@ -0,0 +1,73 @@
+package com.example.transformer_manager_backkend.service.inference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SharedImageRegionTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void imagesAreLaidOutBackToBack() throws Exception {
+        Path first = Files.write(tempDir.resolve("a.jpg"), new byte[] { 1, 2, 3 });
+        Path second = Files.write(tempDir.resolve("b.png"), new byte[] { 4, 5 });
+
+        try (SharedImageRegion region = new SharedImageRegion(tempDir.resolve("region.shm"))) {
+            List<SharedImageRegion.Segment> segments = region.write(List.of(first, second));
+
+            assertEquals(0, segments.get(0).getOffset());
+            assertEquals(3, segments.get(0).getLength());
+            assertEquals(3, segments.get(1).getOffset());
+            assertArrayEquals(new byte[] { 4, 5 }, bytes(region.read(segments.get(1))));
+            // The worker maps the file, so the bytes must be visible through it
+            byte[] file = Files.readAllBytes(region.getFile());
+            assertArrayEquals(new byte[] { 1, 2, 3, 4, 5 }, Arrays.copyOf(file, 5));
+        }
+        assertFalse(Files.exists(tempDir.resolve("region.shm")));
+    }
+
+    @Test
+    void regionGrowsForLargerBatches() throws Exception {
+        byte[] large = new byte[9 * 1024 * 1024];
+        large[large.length - 1] = 42;
+        Path small = Files.write(tempDir.resolve("small.jpg"), new byte[] { 7 });
+        Path image = Files.write(tempDir.resolve("large.jpg"), large);
+
+        try (SharedImageRegion region = new SharedImageRegion(tempDir.resolve("region.shm"))) {
+            region.write(List.of(small));
+            assertEquals(8L * 1024 * 1024, region.getCapacity());
+
+            SharedImageRegion.Segment segment = region.write(List.of(image)).get(0);
+
+            assertEquals(16L * 1024 * 1024, region.getCapacity());
+            assertEquals(42, region.read(segment).get(large.length - 1));
+        }
+    }
+
+    @Test
+    void onlyImagesTheWorkerWouldPickUpAreShared() {
+        assertTrue(WarmInferenceWorkerPool.isWorkerImage("b.jpg"));
+        assertTrue(WarmInferenceWorkerPool.isWorkerImage("job7_a.png"));
+        assertFalse(WarmInferenceWorkerPool.isWorkerImage("feedback.json"));
+        assertFalse(WarmInferenceWorkerPool.isWorkerImage("upper.JPG"));
+        assertFalse(WarmInferenceWorkerPool.isWorkerImage("noextension"));
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
@@ -57,6 +57,25 @@ const AnalysisDisplay = ({ inspectionId, images }) => {
     return value.toFixed(digits);
   };
 
+  const formatStage = (stage) => {
+    switch (stage) {
+      case "STAGING":
+        return "Preparing image";
+      case "STAGED":
+        return "Waiting for a free analysis worker";
+      case "LOADING_MODEL":
+        return "Loading model";
+      case "WAITING_IN_BATCH":
+        return "Waiting for earlier images in batch";
+      case "INFERRING":
+        return "Detecting anomalies";
+      case "SAVING_RESULTS":
+        return "Saving results";
+      default:
+        return stage;
+    }
+  };
+
   useEffect(() => {
     if (inspectionId) {
       fetchAnalysisJobs();
@@ -369,6 +388,20 @@ const AnalysisDisplay = ({ inspectionId, images }) => {
                         </div>
                       )}
 
+                      {job && job.status === "PROCESSING" && job.stage && (
+                        <div className="mb-2">
+                          <small className="text-muted">
+                            {formatStage(job.stage)}
+                          </small>
+                          <ProgressBar
+                            animated
+                            variant="warning"
+                            now={job.progress || 0}
+                            style={{ height: "4px" }}
+                          />
+                        </div>
+                      )}
+
                       {job && job.status === "COMPLETED" && (
                         <div className="mb-2">
                           {parsedResult ? (